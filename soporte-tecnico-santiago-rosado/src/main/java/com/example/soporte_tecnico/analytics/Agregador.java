@@ -0,0 +1,212 @@
+package com.example.soporte_tecnico.analytics;
+
+import com.example.soporte_tecnico.model.Solicitud;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
+
+/**
+ * Agrupa solicitudes y calcula una métrica por grupo
+ *
+ * Se usa como Collector: cada hilo que recorre una parte de las solicitudes acumula en sus
+ * propios grupos parciales (sin compartir nada ni sincronizar) y los parciales se combinan
+ * al final. Por cada solicitud sólo se reserva memoria para la clave cuando aparece un grupo
+ * nuevo: la búsqueda se hace con una clave de sondeo que se reutiliza.
+ */
+public final class Agregador {
+
+    private static final Comparator<Object> VALORES = Comparator.nullsFirst(Agregador::comparar);
+
+    private final ConsultaAgregada consulta;
+    private final Dimension[] dimensiones;
+    private final Map<Long, String> especialidades;
+    private final long ahora;
+
+    /**
+     * @param especialidades Especialidad de cada técnico (para agrupar por especialidad)
+     * @param ahora Momento de referencia para la edad de las solicitudes
+     */
+    public Agregador(ConsultaAgregada consulta, Map<Long, String> especialidades, LocalDateTime ahora) {
+        this.consulta = consulta;
+        this.dimensiones = consulta.dimensiones().toArray(new Dimension[0]);
+        this.especialidades = especialidades;
+        this.ahora = ahora.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public Collector<Solicitud, Grupos, List<FilaAgregada>> collector() {
+        return Collector.of(() -> new Grupos(dimensiones.length), this::acumular, Grupos::combinar, this::resultado);
+    }
+
+    private void acumular(Grupos grupos, Solicitud solicitud) {
+        if (!consulta.estados().isEmpty() && !consulta.estados().contains(solicitud.getEstado())) {
+            return;
+        }
+        Clave sonda = grupos.sonda;
+        for (int i = 0; i < dimensiones.length; i++) {
+            sonda.valores[i] = valor(dimensiones[i], solicitud);
+        }
+        sonda.calcularHash();
+        Acumulador acumulador = grupos.mapa.get(sonda);
+        if (acumulador == null) {
+            acumulador = new Acumulador();
+            grupos.mapa.put(sonda.copia(), acumulador);
+        }
+        if (consulta.metrica() == Metrica.COUNT) {
+            acumulador.filas++;
+        } else {
+            acumulador.anadir(medida(solicitud));
+        }
+    }
+
+    private List<FilaAgregada> resultado(Grupos grupos) {
+        List<Map.Entry<Clave, Acumulador>> entradas = new ArrayList<>(grupos.mapa.entrySet());
+        entradas.sort((a, b) -> {
+            for (int i = 0; i < dimensiones.length; i++) {
+                int c = VALORES.compare(a.getKey().valores[i], b.getKey().valores[i]);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return 0;
+        });
+        List<FilaAgregada> filas = new ArrayList<>(entradas.size());
+        for (Map.Entry<Clave, Acumulador> entrada : entradas) {
+            Map<String, Object> grupo = new LinkedHashMap<>();
+            for (int i = 0; i < dimensiones.length; i++) {
+                grupo.put(dimensiones[i].nombre(), entrada.getKey().valores[i]);
+            }
+            Acumulador a = entrada.getValue();
+            filas.add(new FilaAgregada(grupo, a.filas, a.valor(consulta.metrica())));
+        }
+        return filas;
+    }
+
+    private Object valor(Dimension dimension, Solicitud solicitud) {
+        LocalDateTime fecha = solicitud.getFechaCreacion();
+        return switch (dimension) {
+            case ESTADO -> solicitud.getEstado();
+            case CLIENTE -> solicitud.getClienteId();
+            case TECNICO -> solicitud.getTecnicoId();
+            case ESPECIALIDAD -> especialidades.get(solicitud.getTecnicoId());
+            case DIA -> fecha != null ? fecha.toLocalDate() : null;
+            case SEMANA -> fecha != null ? fecha.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : null;
+            case MES -> fecha != null ? YearMonth.from(fecha) : null;
+        };
+    }
+
+    // NaN si la solicitud no tiene el campo
+    private double medida(Solicitud solicitud) {
+        return switch (consulta.medida()) {
+            case EDAD -> solicitud.getFechaCreacion() != null
+                    ? (ahora - solicitud.getFechaCreacion().toEpochSecond(ZoneOffset.UTC)) / 3600.0 : Double.NaN;
+            case VERSION -> solicitud.getVersion() != null ? solicitud.getVersion() : Double.NaN;
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int comparar(Object a, Object b) {
+        return ((Comparable) a).compareTo(b);
+    }
+
+    /**
+     * Grupos parciales de un hilo
+     */
+    public static final class Grupos {
+        private final Map<Clave, Acumulador> mapa = new HashMap<>();
+        private final Clave sonda;
+
+        private Grupos(int dimensiones) {
+            this.sonda = new Clave(new Object[dimensiones]);
+        }
+
+        // Se vuelca el menor sobre el mayor
+        private static Grupos combinar(Grupos a, Grupos b) {
+            Grupos destino = a.mapa.size() >= b.mapa.size() ? a : b;
+            Grupos origen = destino == a ? b : a;
+            origen.mapa.forEach((clave, acumulador) -> destino.mapa.merge(clave, acumulador, Acumulador::combinar));
+            return destino;
+        }
+    }
+
+    private static final class Clave {
+        private final Object[] valores;
+        private int hash;
+
+        private Clave(Object[] valores) {
+            this.valores = valores;
+            calcularHash();
+        }
+
+        private void calcularHash() {
+            hash = Arrays.hashCode(valores);
+        }
+
+        private Clave copia() {
+            return new Clave(valores.clone());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Clave otra && hash == otra.hash && Arrays.equals(valores, otra.valores);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Acumulador {
+        private long filas;
+        private long conValor;
+        private double suma;
+        private double minimo = Double.POSITIVE_INFINITY;
+        private double maximo = Double.NEGATIVE_INFINITY;
+
+        private void anadir(double valor) {
+            filas++;
+            if (!Double.isNaN(valor)) {
+                conValor++;
+                suma += valor;
+                minimo = Math.min(minimo, valor);
+                maximo = Math.max(maximo, valor);
+            }
+        }
+
+        private Acumulador combinar(Acumulador otro) {
+            filas += otro.filas;
+            conValor += otro.conValor;
+            suma += otro.suma;
+            minimo = Math.min(minimo, otro.minimo);
+            maximo = Math.max(maximo, otro.maximo);
+            return this;
+        }
+
+        private Double valor(Metrica metrica) {
+            if (metrica == Metrica.COUNT) {
+                return (double) filas;
+            }
+            if (conValor == 0) {
+                return null;
+            }
+            return switch (metrica) {
+                case SUM -> suma;
+                case AVG -> suma / conValor;
+                case MIN -> minimo;
+                case MAX -> maximo;
+                case COUNT -> (double) filas;
+            };
+        }
+    }
+}
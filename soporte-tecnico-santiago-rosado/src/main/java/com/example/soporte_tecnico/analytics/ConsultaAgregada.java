@@ -0,0 +1,19 @@
+package com.example.soporte_tecnico.analytics;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Consulta de agregación sobre las solicitudes
+ * @param dimensiones Campos de agrupación, en orden (vacío = un único grupo con todas)
+ * @param metrica Valor calculado por grupo
+ * @param medida Campo sobre el que se calcula la métrica (no se usa con count)
+ * @param estados Sólo las solicitudes en estos estados (vacío = todas)
+ */
+public record ConsultaAgregada(List<Dimension> dimensiones, Metrica metrica, Medida medida, Set<String> estados) {
+
+    public ConsultaAgregada {
+        dimensiones = List.copyOf(dimensiones);
+        estados = Set.copyOf(estados);
+    }
+}
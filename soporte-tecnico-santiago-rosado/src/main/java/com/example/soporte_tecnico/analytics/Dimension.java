@@ -0,0 +1,31 @@
+package com.example.soporte_tecnico.analytics;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Campos por los que se pueden agrupar las solicitudes en un agregado
+ */
+public enum Dimension {
+    ESTADO("estado"),
+    CLIENTE("cliente"),
+    TECNICO("tecnico"),
+    ESPECIALIDAD("especialidad"),
+    DIA("dia"),
+    SEMANA("semana"),
+    MES("mes");
+
+    private final String nombre;
+
+    Dimension(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String nombre() {
+        return nombre;
+    }
+
+    public static Optional<Dimension> desdeNombre(String nombre) {
+        return Arrays.stream(values()).filter(d -> d.nombre.equalsIgnoreCase(nombre)).findFirst();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.soporte_tecnico.analytics;
+
+import java.util.Map;
+
+/**
+ * Un grupo del resultado de un agregado
+ * @param grupo Valor de cada dimensión de agrupación, en el orden pedido
+ * @param solicitudes Número de solicitudes del grupo
+ * @param valor Valor de la métrica (null si ninguna solicitud del grupo tiene el campo)
+ */
+public record FilaAgregada(Map<String, Object> grupo, long solicitudes, Double valor) {
+}
@@ -0,0 +1,14 @@
+package com.example.soporte_tecnico.analytics;
+
+import java.time.LocalDateTime;
+
+/**
+ * Contadores de un intervalo
+ * @param estado Estado (null si no se desglosa por estado)
+ * @param especialidad Especialidad del técnico (null si no se desglosa o la solicitud no tenía técnico)
+ * @param creadas Solicitudes creadas en el intervalo (con ese estado inicial)
+ * @param resueltas Solicitudes que pasaron en el intervalo a un estado resuelto (ese estado)
+ */
+public record FilaRollup(LocalDateTime inicio, Granularidad granularidad, String estado, String especialidad,
+                         long creadas, long resueltas) {
+}
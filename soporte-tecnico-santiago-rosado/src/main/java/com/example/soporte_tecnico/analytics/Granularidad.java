@@ -0,0 +1,40 @@
+package com.example.soporte_tecnico.analytics;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Tamaño de los intervalos de los contadores precalculados (rollups)
+ */
+public enum Granularidad {
+    MINUTO("minuto", 60),
+    HORA("hora", 3_600),
+    DIA("dia", 86_400);
+
+    private final String nombre;
+    private final long segundos;
+
+    Granularidad(String nombre, long segundos) {
+        this.nombre = nombre;
+        this.segundos = segundos;
+    }
+
+    public String nombre() {
+        return nombre;
+    }
+
+    public long segundos() {
+        return segundos;
+    }
+
+    /**
+     * Inicio del intervalo que contiene el instante (segundos de época)
+     */
+    public long inicio(long epoca) {
+        return Math.floorDiv(epoca, segundos) * segundos;
+    }
+
+    public static Optional<Granularidad> desdeNombre(String nombre) {
+        return Arrays.stream(values()).filter(g -> g.nombre.equalsIgnoreCase(nombre)).findFirst();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.soporte_tecnico.analytics;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Campos numéricos de la solicitud sobre los que se calculan sum, avg, min y max
+ */
+public enum Medida {
+    // Horas desde la creación hasta el momento de la consulta
+    EDAD("edad"),
+    // Número de versiones (cambios) de la solicitud
+    VERSION("version");
+
+    private final String nombre;
+
+    Medida(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String nombre() {
+        return nombre;
+    }
+
+    public static Optional<Medida> desdeNombre(String nombre) {
+        return Arrays.stream(values()).filter(m -> m.nombre.equalsIgnoreCase(nombre)).findFirst();
+    }
+}
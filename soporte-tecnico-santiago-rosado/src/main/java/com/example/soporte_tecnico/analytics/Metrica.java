@@ -0,0 +1,29 @@
+package com.example.soporte_tecnico.analytics;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Valor que se calcula para cada grupo de un agregado
+ */
+public enum Metrica {
+    COUNT("count"),
+    SUM("sum"),
+    AVG("avg"),
+    MIN("min"),
+    MAX("max");
+
+    private final String nombre;
+
+    Metrica(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String nombre() {
+        return nombre;
+    }
+
+    public static Optional<Metrica> desdeNombre(String nombre) {
+        return Arrays.stream(values()).filter(m -> m.nombre.equalsIgnoreCase(nombre)).findFirst();
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.soporte_tecnico.analytics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Contadores precalculados de solicitudes creadas y resueltas por intervalo, estado y
+ * especialidad
+ *
+ * Cada alta o cambio de estado incrementa un único contador del intervalo de un minuto que
+ * le corresponde. Una vez por minuto los intervalos más antiguos que su retención se pliegan
+ * en el nivel siguiente (minutos en horas y horas en días) y los días más antiguos que la suya
+ * se descartan, así que la memoria no crece con el historial. Un periodo se pliega entero
+ * (todos los minutos de una hora a la vez), de modo que nunca está en dos niveles.
+ *
+ * Las consultas suman como mucho unos cientos de intervalos en vez de recorrer las solicitudes.
+ * Las escrituras y consultas comparten el cerrojo de lectura; el plegado toma el de escritura.
+ */
+@Component
+public class RollupStore {
+
+    private static final Granularidad[] NIVELES = Granularidad.values();
+
+    private final Nivel[] niveles = new Nivel[NIVELES.length];
+    private final long[] retencion = new long[NIVELES.length];
+    private final Set<String> estadosResueltos;
+    private final Clock reloj;
+    private final ReentrantReadWriteLock plegado = new ReentrantReadWriteLock();
+    private final AtomicLong ultimoPlegado = new AtomicLong(Long.MIN_VALUE);
+
+    public RollupStore() {
+        this(Duration.ofHours(6), Duration.ofDays(7), Duration.ofDays(400), Set.of("RESUELTO", "CERRADO"),
+                Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param retencionMinutos Antigüedad a partir de la cual los minutos se pliegan en horas
+     * @param retencionHoras Antigüedad a partir de la cual las horas se pliegan en días
+     * @param retencionDias Antigüedad a partir de la cual los días se descartan
+     * @param estadosResueltos Estados que cuentan como resolución al entrar en ellos
+     */
+    @Autowired
+    public RollupStore(@Value("${soporte.rollups.retencion-minutos:6h}") Duration retencionMinutos,
+                       @Value("${soporte.rollups.retencion-horas:7d}") Duration retencionHoras,
+                       @Value("${soporte.rollups.retencion-dias:400d}") Duration retencionDias,
+                       @Value("${soporte.rollups.estados-resueltos:RESUELTO,CERRADO}") Set<String> estadosResueltos) {
+        this(retencionMinutos, retencionHoras, retencionDias, estadosResueltos, Clock.systemDefaultZone());
+    }
+
+    public RollupStore(Duration retencionMinutos, Duration retencionHoras, Duration retencionDias,
+                       Set<String> estadosResueltos, Clock reloj) {
+        this.retencion[0] = retencionMinutos.toSeconds();
+        this.retencion[1] = retencionHoras.toSeconds();
+        this.retencion[2] = retencionDias.toSeconds();
+        for (int i = 0; i < NIVELES.length; i++) {
+            niveles[i] = new Nivel();
+        }
+        this.estadosResueltos = Set.copyOf(estadosResueltos);
+        this.reloj = reloj;
+    }
+
+    /**
+     * Anota el alta de una solicitud
+     * @param cuando Fecha de creación de la solicitud
+     */
+    public void creada(LocalDateTime cuando, String estado, String especialidad) {
+        registrar(cuando, estado, especialidad, true);
+    }
+
+    /**
+     * Anota un cambio de estado; sólo cuenta si entra en un estado resuelto desde otro que no lo es
+     */
+    public void cambioDeEstado(LocalDateTime cuando, String anterior, String nuevo, String especialidad) {
+        if (nuevo != null && estadosResueltos.contains(nuevo) && !estadosResueltos.contains(anterior)) {
+            registrar(cuando, nuevo, especialidad, false);
+        }
+    }
+
+    /**
+     * Contadores del periodo por intervalo (y por estado y especialidad si se piden), ordenados
+     * por inicio del intervalo. Los periodos ya plegados salen con la granularidad de su nivel
+     */
+    public List<FilaRollup> consultar(ConsultaRollup consulta) {
+        plegarSiToca();
+        long desde = epoca(consulta.desde());
+        long hasta = consulta.hasta() != null ? epoca(consulta.hasta()) : Long.MAX_VALUE;
+        Map<Grupo, long[]> filas = new HashMap<>();
+        plegado.readLock().lock();
+        try {
+            for (int i = 0; i < NIVELES.length; i++) {
+                Granularidad salida = NIVELES[Math.max(i, consulta.granularidad().ordinal())];
+                for (Map.Entry<Long, Map<Clave, Contadores>> intervalo
+                        : niveles[i].intervalos.subMap(NIVELES[i].inicio(desde), hasta).entrySet()) {
+                    LocalDateTime inicio = fecha(salida.inicio(intervalo.getKey()));
+                    intervalo.getValue().forEach((clave, contadores) -> {
+                        if (coincide(consulta.estado(), clave.estado())
+                                && coincide(consulta.especialidad(), clave.especialidad())) {
+                            Grupo grupo = new Grupo(inicio, salida, consulta.porEstado() ? clave.estado() : null,
+                                    consulta.porEspecialidad() ? clave.especialidad() : null);
+                            long[] suma = filas.computeIfAbsent(grupo, g -> new long[2]);
+                            suma[0] += contadores.creadas.sum();
+                            suma[1] += contadores.resueltas.sum();
+                        }
+                    });
+                }
+            }
+        } finally {
+            plegado.readLock().unlock();
+        }
+        List<FilaRollup> resultado = new ArrayList<>(filas.size());
+        filas.forEach((g, suma) -> resultado.add(new FilaRollup(g.inicio(), g.granularidad(), g.estado(),
+                g.especialidad(), suma[0], suma[1])));
+        resultado.sort(Comparator.comparing(FilaRollup::inicio)
+                .thenComparing(FilaRollup::estado, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(FilaRollup::especialidad, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return resultado;
+    }
+
+    /**
+     * Número de intervalos guardados en cada nivel
+     */
+    public Map<Granularidad, Integer> intervalos() {
+        Map<Granularidad, Integer> tamanos = new HashMap<>();
+        for (int i = 0; i < NIVELES.length; i++) {
+            tamanos.put(NIVELES[i], niveles[i].intervalos.size());
+        }
+        return tamanos;
+    }
+
+    /**
+     * Pliega los intervalos que han superado su retención
+     */
+    public void plegar() {
+        long ahora = epoca(LocalDateTime.now(reloj));
+        plegado.writeLock().lock();
+        try {
+            for (int i = 0; i < NIVELES.length; i++) {
+                // El límite cae en el inicio de un intervalo del nivel siguiente: se pliegan periodos enteros
+                long limite = i + 1 < NIVELES.length ? NIVELES[i + 1].inicio(ahora - retencion[i])
+                        : NIVELES[i].inicio(ahora - retencion[i]);
+                ConcurrentNavigableMap<Long, Map<Clave, Contadores>> antiguos = niveles[i].intervalos.headMap(limite);
+                if (i + 1 < NIVELES.length) {
+                    Nivel destino = niveles[i + 1];
+                    Granularidad siguiente = NIVELES[i + 1];
+                    antiguos.forEach((inicio, contadores) -> {
+                        Map<Clave, Contadores> plegados = destino.intervalo(siguiente.inicio(inicio));
+                        contadores.forEach((clave, c) -> plegados.computeIfAbsent(clave, k -> new Contadores()).sumar(c));
+                    });
+                }
+                antiguos.clear();
+                niveles[i].limite = limite;
+            }
+        } finally {
+            plegado.writeLock().unlock();
+        }
+    }
+
+    private void registrar(LocalDateTime cuando, String estado, String especialidad, boolean creada) {
+        plegarSiToca();
+        long epoca = epoca(cuando != null ? cuando : LocalDateTime.now(reloj));
+        plegado.readLock().lock();
+        try {
+            // El nivel más fino que aún guarda ese momento (las fechas antiguas van a horas o días)
+            for (int i = 0; i < NIVELES.length; i++) {
+                long inicio = NIVELES[i].inicio(epoca);
+                if (inicio >= niveles[i].limite) {
+                    Contadores contadores = niveles[i].intervalo(inicio)
+                            .computeIfAbsent(new Clave(estado, especialidad), k -> new Contadores());
+                    (creada ? contadores.creadas : contadores.resueltas).increment();
+                    return;
+                }
+            }
+            // Más antiguo que la retención de los días: no se guarda
+        } finally {
+            plegado.readLock().unlock();
+        }
+    }
+
+    // Como mucho un plegado por minuto; lo hace el primer hilo que llega
+    private void plegarSiToca() {
+        long minuto = Math.floorDiv(epoca(LocalDateTime.now(reloj)), 60);
+        long anterior = ultimoPlegado.get();
+        if (minuto > anterior && ultimoPlegado.compareAndSet(anterior, minuto)) {
+            plegar();
+        }
+    }
+
+    private static boolean coincide(String filtro, String valor) {
+        return filtro == null || filtro.equalsIgnoreCase(valor);
+    }
+
+    private static long epoca(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fecha(long epoca) {
+        return LocalDateTime.ofEpochSecond(epoca, 0, ZoneOffset.UTC);
+    }
+
+    private record Clave(String estado, String especialidad) {
+    }
+
+    private record Grupo(LocalDateTime inicio, Granularidad granularidad, String estado, String especialidad) {
+    }
+
+    private static final class Contadores {
+        private final LongAdder creadas = new LongAdder();
+        private final LongAdder resueltas = new LongAdder();
+
+        private void sumar(Contadores otros) {
+            creadas.add(otros.creadas.sum());
+            resueltas.add(otros.resueltas.sum());
+        }
+    }
+
+    private static final class Nivel {
+        // Inicio del intervalo -> contadores por estado y especialidad
+        private final ConcurrentNavigableMap<Long, Map<Clave, Contadores>> intervalos = new ConcurrentSkipListMap<>();
+        // Los intervalos anteriores ya se plegaron al nivel siguiente
+        private volatile long limite = Long.MIN_VALUE;
+
+        private Map<Clave, Contadores> intervalo(long inicio) {
+            return intervalos.computeIfAbsent(inicio, k -> new ConcurrentHashMap<>());
+        }
+    }
+}
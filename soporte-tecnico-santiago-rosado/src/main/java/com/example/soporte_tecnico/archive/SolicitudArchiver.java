@@ -0,0 +1,179 @@
+package com.example.soporte_tecnico.archive;
+
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.repository.Archivable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Separación en caliente/frío de las solicitudes
+ *
+ * La mayoría de las solicitudes acaban RESUELTAS o CERRADAS y apenas se vuelven a leer. Cada
+ * intervalo se mueven al archivo comprimido en disco (ColdArchive) las cerradas creadas hace
+ * más de la edad configurada, así que el heap sólo guarda las recientes y las abiertas. Las
+ * archivadas se siguen leyendo por ID, en los listados y en los agregados; al modificarlas
+ * vuelven a memoria.
+ *
+ * El archivo es parte del estado en memoria de esta instancia: se crea vacío al arrancar y se
+ * borra al parar. El traslado no se replica (las réplicas archivan por su cuenta) y las
+ * instantáneas para réplicas y el reparto entre nodos sólo incluyen las solicitudes en memoria.
+ * Con los backends SQL y LSM (perfiles sql y lsm) no hay nada que archivar y queda deshabilitado.
+ * Se activa con soporte.archivo.habilitado=true. El cliente y el técnico se indexan por bloque:
+ * las búsquedas por cliente o técnico sólo leen los bloques que los contienen.
+ */
+@Component
+public class SolicitudArchiver {
+
+    // Atributos indexados en el archivo (posición en la lista de atributos del ColdArchive)
+    public static final int POR_CLIENTE = 0;
+    public static final int POR_TECNICO = 1;
+
+    /**
+     * Configuración y ocupación del archivo
+     * @param compresion Bytes sin comprimir por cada byte en disco
+     */
+    public record EstadoArchivo(boolean habilitado, Duration edad, Set<String> estados, long enMemoria,
+                                long archivadas, int bloques, long bytesSinComprimir, long bytesComprimidos,
+                                long bytesMuertos, double compresion, LocalDateTime ultimaEjecucion,
+                                int ultimasArchivadas) {
+    }
+
+    private final Archivable<Solicitud> repositorio; // null con el backend SQL
+    private final ObjectMapper mapper;
+    private final boolean habilitado;
+    private final Duration edad;
+    private final Duration intervalo;
+    private final Path directorio;
+    private final Set<String> estados;
+    private final int porBloque;
+    private final Clock reloj;
+
+    private ColdArchive<Solicitud> archivo;
+    private ScheduledExecutorService programador;
+    private volatile LocalDateTime ultimaEjecucion;
+    private volatile int ultimasArchivadas;
+
+    @Autowired
+    public SolicitudArchiver(ObjectProvider<Archivable<Solicitud>> repositorio, ObjectMapper mapper,
+                             @Value("${soporte.archivo.habilitado:false}") boolean habilitado,
+                             @Value("${soporte.archivo.edad:30d}") Duration edad,
+                             @Value("${soporte.archivo.intervalo:10m}") Duration intervalo,
+                             @Value("${soporte.archivo.directorio:./data/archivo}") String directorio,
+                             @Value("${soporte.archivo.estados:RESUELTO,CERRADO}") Set<String> estados,
+                             @Value("${soporte.archivo.solicitudes-por-bloque:256}") int porBloque) {
+        this(repositorio.getIfAvailable(), mapper, habilitado, edad, intervalo, Path.of(directorio), estados,
+                porBloque, Clock.systemDefaultZone());
+    }
+
+    public SolicitudArchiver(Archivable<Solicitud> repositorio, ObjectMapper mapper, boolean habilitado,
+                             Duration edad, Duration intervalo, Path directorio, Set<String> estados,
+                             int porBloque, Clock reloj) {
+        this.repositorio = repositorio;
+        this.mapper = mapper;
+        this.habilitado = habilitado && repositorio != null;
+        this.edad = edad;
+        this.intervalo = intervalo;
+        this.directorio = directorio;
+        this.estados = Set.copyOf(estados);
+        this.porBloque = porBloque;
+        this.reloj = reloj;
+    }
+
+    /**
+     * Archivo de solicitudes con el cliente y el técnico indexados (POR_CLIENTE y POR_TECNICO),
+     * como lo espera el repositorio
+     */
+    public static ColdArchive<Solicitud> nuevoArchivo(Path directorio, ObjectMapper mapper, int porBloque) {
+        return new ColdArchive<>(directorio, mapper, Solicitud.class, Solicitud::getId, porBloque,
+                List.of(Solicitud::getClienteId, Solicitud::getTecnicoId));
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+        archivo = nuevoArchivo(directorio, mapper, porBloque);
+        repositorio.usarArchivo(archivo);
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "archivo-solicitudes");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1, intervalo.toMillis());
+        programador.scheduleWithFixedDelay(this::archivarProgramado, periodo, periodo, TimeUnit.MILLISECONDS);
+        System.out.println("Archivo de solicitudes en " + directorio + ": cerradas con más de " + edad);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        if (programador != null) {
+            programador.shutdownNow();
+        }
+        if (archivo != null) {
+            repositorio.usarArchivo(null);
+            try {
+                archivo.close();
+            } catch (IOException e) {
+                System.out.println("Archivo de solicitudes: no se pudo borrar el fichero (" + e.getMessage() + ")");
+            }
+        }
+    }
+
+    /**
+     * Archiva ya las solicitudes que cumplen el criterio
+     * @return Número de solicitudes archivadas (0 si el archivo está deshabilitado)
+     */
+    public synchronized int archivar() {
+        if (archivo == null) {
+            return 0;
+        }
+        LocalDateTime limite = LocalDateTime.now(reloj).minus(edad);
+        Predicate<Solicitud> criterio = s -> s.getEstado() != null && estados.contains(s.getEstado())
+                && s.getFechaCreacion() != null && s.getFechaCreacion().isBefore(limite);
+        long inicio = System.nanoTime();
+        int archivadas = repositorio.archivar(criterio);
+        ultimaEjecucion = LocalDateTime.now(reloj);
+        ultimasArchivadas = archivadas;
+        if (archivadas > 0) {
+            System.out.println("Archivo de solicitudes: " + archivadas + " archivadas en "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio) + " ms");
+        }
+        return archivadas;
+    }
+
+    public EstadoArchivo estado() {
+        ColdArchive.Estado a = archivo != null ? archivo.estado() : new ColdArchive.Estado(0, 0, 0, 0, 0);
+        double compresion = a.bytesComprimidos() > 0 ? (double) a.bytesSinComprimir() / a.bytesComprimidos() : 0;
+        long enMemoria = repositorio != null ? repositorio.enMemoria() : 0;
+        return new EstadoArchivo(archivo != null, edad, estados, enMemoria, a.entidades(), a.bloques(),
+                a.bytesSinComprimir(), a.bytesComprimidos(), a.bytesMuertos(), compresion, ultimaEjecucion,
+                ultimasArchivadas);
+    }
+
+    // Un fallo no debe cancelar las siguientes ejecuciones programadas
+    private void archivarProgramado() {
+        try {
+            archivar();
+        } catch (RuntimeException e) {
+            System.out.println("Archivo de solicitudes: error al archivar (" + e.getMessage() + ")");
+        }
+    }
+}
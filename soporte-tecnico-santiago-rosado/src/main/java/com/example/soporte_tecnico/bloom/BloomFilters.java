@@ -0,0 +1,47 @@
+package com.example.soporte_tecnico.bloom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Configuración y registro de los filtros de existencia de los repositorios
+ *
+ * Los repositorios crean aquí sus filtros (con la capacidad inicial y la tasa de falsos
+ * positivos configuradas); el registro sirve para consultar todos a la vez y forzar su
+ * reconstrucción desde la API.
+ */
+@Component
+public class BloomFilters {
+
+    private final long capacidad;
+    private final double tasa;
+    private final List<CountingBloomFilter> filtros = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public BloomFilters(@Value("${soporte.bloom.capacidad-inicial:10000}") long capacidad,
+                        @Value("${soporte.bloom.tasa-falsos-positivos:0.01}") double tasa) {
+        this.capacidad = capacidad;
+        this.tasa = tasa;
+    }
+
+    public CountingBloomFilter crear(String nombre) {
+        CountingBloomFilter filtro = new CountingBloomFilter(nombre, capacidad, tasa);
+        filtros.add(filtro);
+        return filtro;
+    }
+
+    /**
+     * Programa la reconstrucción de todos los filtros
+     */
+    public void reconstruir() {
+        filtros.forEach(CountingBloomFilter::programarReconstruccion);
+    }
+
+    public List<CountingBloomFilter.Estado> estado() {
+        return filtros.stream().map(CountingBloomFilter::estado).toList();
+    }
+}
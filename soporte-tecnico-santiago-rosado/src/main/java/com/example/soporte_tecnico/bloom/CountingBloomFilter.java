@@ -0,0 +1,376 @@
+package com.example.soporte_tecnico.bloom;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro de Bloom con contadores y capas, delante de las comprobaciones de existencia
+ *
+ * Responde "seguro que no está" (el dueño se ahorra la consulta) o "puede estar" (tiene que
+ * consultar). Cada posición es un contador de 4 bits en lugar de un bit, así que las bajas se
+ * pueden deshacer. Cuando la capa actual llega a su capacidad se añade otra del doble de
+ * tamaño y con la mitad de tasa de fallos, de modo que la suma de las tasas de todas las
+ * capas no pasa del objetivo por muchas claves que entren (filtro escalable).
+ *
+ * Con el tiempo el filtro se degrada: bajas que no se pueden deshacer (la clave está en más
+ * de una capa, o el dueño no sabe qué clave tenía la entidad borrada), contadores saturados
+ * y demasiadas capas. Esas bajas sólo dejan falsos positivos, nunca falsos negativos. Cuando
+ * la tasa estimada por la ocupación de los contadores, o la observada con los falsos
+ * positivos que avisa el dueño, pasa del doble del objetivo, se reconstruye en segundo plano
+ * con la rutina del dueño, que lee las claves reales sin escrituras a medias y llama a
+ * reconstruir.
+ *
+ * Las altas, bajas y la reconstrucción se serializan en el propio filtro; las consultas no
+ * toman cerrojo. El dueño añade la clave antes de que la entidad sea visible y la quita
+ * después de que deje de serlo. Hasta la primera reconstrucción el filtro no está listo y
+ * responde siempre "puede estar".
+ */
+public final class CountingBloomFilter {
+
+    public static final long CAPACIDAD_POR_DEFECTO = 10_000;
+    public static final double TASA_POR_DEFECTO = 0.01;
+
+    /**
+     * @param tasaEstimada Tasa de falsos positivos según la ocupación de los contadores
+     * @param tasaObservada Falsos positivos entre las consultas de claves ausentes desde la
+     *                      última reconstrucción (-1 si aún hay pocas)
+     * @param negativos Consultas respondidas con "seguro que no está"
+     * @param desfasadas Bajas que no se pudieron deshacer
+     */
+    public record Estado(String nombre, boolean listo, long claves, int capas, long capacidad, long bytes,
+                         double tasaObjetivo, double tasaEstimada, double tasaObservada, long negativos,
+                         long falsosPositivos, long desfasadas, long saturados, long reconstrucciones,
+                         LocalDateTime ultimaReconstruccion) {
+    }
+
+    // Con más capas cada consulta sondea demasiadas: se juntan en una al reconstruir
+    private static final int MAX_CAPAS = 4;
+    // Consultas de claves ausentes necesarias para fiarse de la tasa observada
+    private static final long MIN_CONSULTAS = 1_000;
+    private static final int MAX_CONTADOR = 15;
+
+    // Un solo hilo para todas las reconstrucciones: son raras y no deben competir entre sí
+    private static final ExecutorService RECONSTRUCCIONES = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "bloom-reconstruccion");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String nombre;
+    private final long capacidadInicial;
+    private final double tasaObjetivo;
+
+    private volatile Capa[] capas;
+    private volatile boolean listo;
+    private long claves;
+    private long desfasadas;
+    private long reconstrucciones;
+    private LocalDateTime ultimaReconstruccion;
+
+    private final LongAdder negativos = new LongAdder();
+    private final LongAdder falsosPositivos = new LongAdder();
+
+    private volatile Runnable reconstruccion;
+    private final AtomicBoolean programada = new AtomicBoolean();
+
+    public CountingBloomFilter(String nombre) {
+        this(nombre, CAPACIDAD_POR_DEFECTO, TASA_POR_DEFECTO);
+    }
+
+    /**
+     * @param capacidadInicial Claves de la primera capa
+     * @param tasaObjetivo Tasa de falsos positivos máxima de todo el filtro (0-1)
+     */
+    public CountingBloomFilter(String nombre, long capacidadInicial, double tasaObjetivo) {
+        if (capacidadInicial < 1) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva");
+        }
+        if (tasaObjetivo <= 0 || tasaObjetivo >= 1) {
+            throw new IllegalArgumentException("La tasa de falsos positivos debe estar entre 0 y 1");
+        }
+        this.nombre = nombre;
+        this.capacidadInicial = capacidadInicial;
+        this.tasaObjetivo = tasaObjetivo;
+        // La primera capa se lleva la mitad de la tasa; cada capa nueva, la mitad de la anterior
+        this.capas = new Capa[]{new Capa(capacidadInicial, tasaObjetivo / 2)};
+    }
+
+    /**
+     * Clave de un texto (p. ej. un email ya normalizado): hash FNV-1a de 64 bits
+     */
+    public static long claveDe(String texto) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < texto.length(); i++) {
+            hash ^= texto.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public String nombre() {
+        return nombre;
+    }
+
+    /**
+     * Rutina del dueño que recalcula las claves y llama a reconstruir; se ejecuta en segundo
+     * plano cuando el filtro se degrada o se programa a mano
+     */
+    public void reconstruirCon(Runnable reconstruccion) {
+        this.reconstruccion = reconstruccion;
+    }
+
+    /**
+     * false = la clave seguro que no está; true = puede estar
+     */
+    public boolean puedeContener(long clave) {
+        if (!listo) {
+            return true;
+        }
+        long hash = mezclar(clave);
+        for (Capa capa : capas) {
+            if (capa.contiene(hash)) {
+                return true;
+            }
+        }
+        negativos.increment();
+        return false;
+    }
+
+    /**
+     * El dueño consultó una clave que el filtro daba como posible y no estaba
+     */
+    public void falsoPositivo() {
+        if (listo) {
+            falsosPositivos.increment();
+            if (tasaObservada() > 2 * tasaObjetivo) {
+                programarReconstruccion();
+            }
+        }
+    }
+
+    public synchronized void anadir(long clave) {
+        Capa actual = capas[capas.length - 1];
+        if (actual.claves >= actual.capacidad) {
+            Capa[] mas = new Capa[capas.length + 1];
+            System.arraycopy(capas, 0, mas, 0, capas.length);
+            actual = new Capa(actual.capacidad * 2, actual.tasa / 2);
+            mas[capas.length] = actual;
+            capas = mas;
+        }
+        actual.incrementar(mezclar(clave));
+        claves++;
+        comprobar();
+    }
+
+    /**
+     * Deshace el alta de una clave que está en el filtro
+     * @return false si no se pudo deshacer (queda como baja desfasada)
+     */
+    public synchronized boolean quitar(long clave) {
+        long hash = mezclar(clave);
+        Capa donde = null;
+        for (Capa capa : capas) {
+            if (capa.contiene(hash)) {
+                if (donde != null) {
+                    // En varias capas no se sabe cuál la tiene: quitarla de la equivocada daría falsos negativos
+                    desfasar();
+                    return false;
+                }
+                donde = capa;
+            }
+        }
+        if (donde == null) {
+            return false;
+        }
+        donde.decrementar(hash);
+        claves--;
+        return true;
+    }
+
+    /**
+     * Baja de una clave que el dueño no conoce: se queda en el filtro como falso positivo
+     */
+    public synchronized void desfasar() {
+        desfasadas++;
+        comprobar();
+    }
+
+    /**
+     * Sustituye el contenido por exactamente estas claves, en una sola capa con sitio para el
+     * doble; el llamante garantiza que no hay altas ni bajas a medias mientras se calculan
+     */
+    public synchronized void reconstruir(Collection<Long> nuevas) {
+        Capa capa = new Capa(Math.max(capacidadInicial, nuevas.size() * 2L), tasaObjetivo / 2);
+        for (Long clave : nuevas) {
+            capa.incrementar(mezclar(clave));
+        }
+        capas = new Capa[]{capa};
+        claves = nuevas.size();
+        desfasadas = 0;
+        negativos.reset();
+        falsosPositivos.reset();
+        reconstrucciones++;
+        ultimaReconstruccion = LocalDateTime.now();
+        listo = true;
+        System.out.println("Filtro " + nombre + " reconstruido: " + claves + " claves, " + capa.bytes() + " bytes");
+    }
+
+    /**
+     * Ejecuta la rutina de reconstrucción en segundo plano (si no hay ya una en cola)
+     */
+    public void programarReconstruccion() {
+        Runnable rutina = reconstruccion;
+        if (rutina == null || !programada.compareAndSet(false, true)) {
+            return;
+        }
+        RECONSTRUCCIONES.execute(() -> {
+            try {
+                rutina.run();
+            } catch (RuntimeException e) {
+                System.out.println("Filtro " + nombre + ": error al reconstruir (" + e.getMessage() + ")");
+            } finally {
+                programada.set(false);
+            }
+        });
+    }
+
+    public synchronized Estado estado() {
+        long capacidad = 0;
+        long bytes = 0;
+        long saturados = 0;
+        for (Capa capa : capas) {
+            capacidad += capa.capacidad;
+            bytes += capa.bytes();
+            saturados += capa.saturados;
+        }
+        return new Estado(nombre, listo, claves, capas.length, capacidad, bytes, tasaObjetivo, tasaEstimada(),
+                tasaObservada(), negativos.sum(), falsosPositivos.sum(), desfasadas, saturados, reconstrucciones,
+                ultimaReconstruccion);
+    }
+
+    // Con el monitor tomado
+    private void comprobar() {
+        if (listo && (capas.length > MAX_CAPAS || tasaEstimada() > 2 * tasaObjetivo)) {
+            programarReconstruccion();
+        }
+    }
+
+    // Probabilidad de que una clave ausente pase alguna capa: 1 - producto de (1 - ocupación^k)
+    private double tasaEstimada() {
+        double pasaNinguna = 1;
+        for (Capa capa : capas) {
+            pasaNinguna *= 1 - Math.pow((double) capa.ocupados / capa.contadores, capa.funciones);
+        }
+        return 1 - pasaNinguna;
+    }
+
+    private double tasaObservada() {
+        long falsos = falsosPositivos.sum();
+        long consultas = falsos + negativos.sum();
+        return consultas < MIN_CONSULTAS ? -1 : (double) falsos / consultas;
+    }
+
+    // Finalizador de SplitMix64, como el filtro de las SSTables
+    private static long mezclar(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+
+    /**
+     * Una capa: contadores de 4 bits, 16 por long, dimensionados para su capacidad y tasa
+     * Sólo se escribe con el monitor del filtro tomado; se lee sin cerrojo
+     */
+    private static final class Capa {
+        private final AtomicLongArray palabras;
+        private final long contadores;
+        private final int funciones;
+        private final long capacidad;
+        private final double tasa;
+        private long claves;
+        private long ocupados;
+        private long saturados;
+
+        private Capa(long capacidad, double tasa) {
+            // m = -n ln p / (ln 2)^2 y k = log2(1/p), los óptimos para n claves y tasa p
+            long m = (long) Math.ceil(-capacidad * Math.log(tasa) / (Math.log(2) * Math.log(2)));
+            this.contadores = Math.max(64, (m + 15) / 16 * 16);
+            this.funciones = (int) Math.max(1, Math.min(30, Math.round(-Math.log(tasa) / Math.log(2))));
+            this.palabras = new AtomicLongArray((int) (contadores / 16));
+            this.capacidad = capacidad;
+            this.tasa = tasa;
+        }
+
+        private boolean contiene(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < funciones; i++) {
+                if (leer(Math.floorMod(h1 + (long) i * h2, contadores)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void incrementar(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < funciones; i++) {
+                long posicion = Math.floorMod(h1 + (long) i * h2, contadores);
+                int valor = leer(posicion);
+                if (valor == MAX_CONTADOR) {
+                    // Saturado: ya no se sabe cuántas claves lo usan y no volverá a bajar
+                    continue;
+                }
+                if (valor == 0) {
+                    ocupados++;
+                }
+                escribir(posicion, valor + 1);
+                if (valor + 1 == MAX_CONTADOR) {
+                    saturados++;
+                }
+            }
+            claves++;
+        }
+
+        private void decrementar(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < funciones; i++) {
+                long posicion = Math.floorMod(h1 + (long) i * h2, contadores);
+                int valor = leer(posicion);
+                if (valor == 0 || valor == MAX_CONTADOR) {
+                    continue;
+                }
+                if (valor == 1) {
+                    ocupados--;
+                }
+                escribir(posicion, valor - 1);
+            }
+            claves--;
+        }
+
+        private int leer(long posicion) {
+            return (int) (palabras.get((int) (posicion >>> 4)) >>> ((posicion & 15) << 2)) & 0xF;
+        }
+
+        private void escribir(long posicion, int valor) {
+            int palabra = (int) (posicion >>> 4);
+            int desplazamiento = (int) ((posicion & 15) << 2);
+            long actual = palabras.get(palabra);
+            palabras.set(palabra, (actual & ~(0xFL << desplazamiento)) | ((long) valor << desplazamiento));
+        }
+
+        private long bytes() {
+            return contadores / 2;
+        }
+    }
+}
@@ -0,0 +1,641 @@
+package com.example.soporte_tecnico.cache;
+
+import com.example.soporte_tecnico.bloom.CountingBloomFilter;
+import com.example.soporte_tecnico.repository.DurableStore;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+/**
+ * Caché write-behind delante de un almacén durable
+ *
+ * Las entidades leídas y escritas se quedan en el heap (LRU acotado a {@code capacidad}) y las
+ * lecturas por ID se responden desde ahí. Una escritura se aplica en memoria y se confirma en
+ * el momento; los cambios pendientes se agrupan por ID (de varias escrituras de la misma
+ * entidad sólo se vuelca el último estado) y un hilo los escribe en el almacén en una sola
+ * transacción cada {@code intervalo}, o antes si se acumulan {@code maxPendientes}. Un cambio
+ * tarda como mucho un intervalo más lo que dure el volcado en llegar al almacén, y al cerrar
+ * la caché se vuelca lo que quede.
+ *
+ * Las entidades pendientes o en pleno volcado no se desalojan; si el volcado falla vuelven a
+ * quedar pendientes para el siguiente. Las consultas que resuelve el almacén se corrigen con
+ * los cambios que aún no ha recibido (consultar y agregar). Las entidades guardadas no se
+ * modifican: cada actualización sustituye la entrada por otra instancia.
+ *
+ * Opcionalmente mantiene filtros de Bloom sobre claves de las entidades (filtrar): con el de
+ * IDs, un ID que no está en la caché y seguro que no existe no se busca en el almacén.
+ */
+public class WriteBehindCache<T> implements Closeable {
+
+    /**
+     * Ocupación y actividad de la caché
+     * @param antiguedadMs Edad del cambio pendiente más antiguo (0 si no hay)
+     * @param volcadas Entidades escritas en el almacén
+     * @param volcados Transacciones de volcado completadas
+     */
+    public record Estado(String nombre, int enCache, int capacidad, int pendientes, long antiguedadMs,
+                         long aciertos, long fallos, long volcadas, long volcados, long errores,
+                         Duration intervalo, LocalDateTime ultimoVolcado) {
+    }
+
+    // Entrada de la caché; valor nulo = borrada, pendiente de volcar (se compara por identidad)
+    private static final class Entrada<T> {
+        private final T valor;
+
+        private Entrada(T valor) {
+            this.valor = valor;
+        }
+    }
+
+    private static final int INTENTOS_AL_CERRAR = 3;
+
+    private final String nombre;
+    private final DurableStore<T> almacen;
+    private final Function<T, Long> id;
+    private final Function<T, Long> version;
+    private final int capacidad;
+    private final int maxPendientes;
+    private final Duration intervalo;
+
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    // Un solo volcado a la vez (el programado, el forzado o el de una consulta)
+    private final ReentrantLock volcando = new ReentrantLock();
+    private final AtomicBoolean volcadoSolicitado = new AtomicBoolean();
+
+    // En orden de acceso: la primera es la usada hace más tiempo
+    private final LinkedHashMap<Long, Entrada<T>> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    // Último estado sin volcar de cada ID, y el del volcado en curso
+    private LinkedHashMap<Long, Entrada<T>> pendientes = new LinkedHashMap<>();
+    private Map<Long, Entrada<T>> enVuelo = Map.of();
+    private long pendientesDesde;
+    // Cambia cada vez que sale una entrada: una lectura del almacén que se cruza con una salida
+    // no se cachea (podría ser anterior a una escritura ya volcada). Las escrituras no hace falta
+    // contarlas: mientras no se vuelcan tienen entrada y la lectura no la pisa
+    private long retiradas;
+
+    private long aciertos;
+    private long fallos;
+    private long volcadas;
+    private long volcados;
+    private long errores;
+    private LocalDateTime ultimoVolcado;
+
+    private ScheduledExecutorService programador;
+
+    // Filtro de existencia sobre una clave de las entidades; delAlmacen da la clave de cada ID guardado
+    private record Filtro<T>(CountingBloomFilter filtro, ToLongFunction<T> clave,
+                             Supplier<Map<Long, Long>> delAlmacen) {
+    }
+
+    private final List<Filtro<T>> filtros = new CopyOnWriteArrayList<>();
+    private volatile CountingBloomFilter filtroIds;
+
+    /**
+     * @param version Versión de la entidad, con la que reemplazar hace el compare-and-set
+     * @param capacidad Entidades que se guardan en el heap (las pendientes pueden superarla)
+     * @param maxPendientes Cambios pendientes que adelantan el volcado
+     * @param intervalo Tiempo máximo entre volcados
+     */
+    public WriteBehindCache(String nombre, DurableStore<T> almacen, Function<T, Long> id, Function<T, Long> version,
+                            int capacidad, int maxPendientes, Duration intervalo) {
+        this.nombre = nombre;
+        this.almacen = almacen;
+        this.id = id;
+        this.version = version;
+        this.capacidad = Math.max(1, capacidad);
+        this.maxPendientes = Math.max(1, maxPendientes);
+        this.intervalo = intervalo;
+    }
+
+    /**
+     * Arranca el hilo que vuelca los cambios pendientes cada intervalo
+     */
+    public void iniciar() {
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "write-behind-" + nombre);
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1, intervalo.toMillis());
+        programador.scheduleWithFixedDelay(this::volcarProgramado, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Para el hilo de volcado y vuelca lo que quede pendiente
+     */
+    @Override
+    public void close() {
+        if (programador != null) {
+            // Sin interrumpir: un volcado en curso termina su transacción
+            programador.shutdown();
+            try {
+                programador.awaitTermination(intervalo.toMillis() + 10_000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (int intento = 1; ; intento++) {
+            try {
+                int volcadas = volcar();
+                if (volcadas > 0) {
+                    System.out.println("Caché " + nombre + ": " + volcadas + " cambios volcados al cerrar");
+                }
+                return;
+            } catch (RuntimeException e) {
+                if (intento == INTENTOS_AL_CERRAR) {
+                    System.out.println("Caché " + nombre + ": se pierden " + pendientes() + " cambios sin volcar ("
+                            + e.getMessage() + ")");
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Entidad por ID, de la caché o (si no está) del almacén
+     */
+    public Optional<T> get(Long clave) {
+        long generacion;
+        cerrojo.lock();
+        try {
+            Entrada<T> entrada = entradas.get(clave);
+            if (entrada != null) {
+                aciertos++;
+                return Optional.ofNullable(entrada.valor);
+            }
+            fallos++;
+            if (filtroIds != null && !filtroIds.puedeContener(clave)) {
+                return Optional.empty();
+            }
+            generacion = retiradas;
+        } finally {
+            cerrojo.unlock();
+        }
+        List<T> leidas = almacen.cargar(List.of(clave));
+        if (leidas.isEmpty() && filtroIds != null) {
+            filtroIds.falsoPositivo();
+        }
+        cachear(leidas, generacion);
+        return leidas.stream().findFirst();
+    }
+
+    /**
+     * Entidades por ID; las que no están en la caché se leen del almacén de una vez
+     * @return Las entidades encontradas, sin orden definido
+     */
+    public List<T> getAll(Collection<Long> claves) {
+        List<T> encontradas = new ArrayList<>(claves.size());
+        List<Long> faltan = new ArrayList<>();
+        long generacion;
+        cerrojo.lock();
+        try {
+            CountingBloomFilter ids = filtroIds;
+            int descartadas = 0;
+            for (Long clave : claves) {
+                Entrada<T> entrada = entradas.get(clave);
+                if (entrada == null) {
+                    if (ids == null || ids.puedeContener(clave)) {
+                        faltan.add(clave);
+                    } else {
+                        descartadas++;
+                    }
+                } else if (entrada.valor != null) {
+                    encontradas.add(entrada.valor);
+                }
+            }
+            aciertos += claves.size() - faltan.size() - descartadas;
+            fallos += faltan.size() + descartadas;
+            generacion = retiradas;
+        } finally {
+            cerrojo.unlock();
+        }
+        if (!faltan.isEmpty()) {
+            List<T> leidas = almacen.cargar(faltan);
+            cachear(leidas, generacion);
+            encontradas.addAll(leidas);
+        }
+        return encontradas;
+    }
+
+    /**
+     * Añade una entidad nueva (ya con ID)
+     * @return false si la caché ya tiene una entidad con ese ID
+     */
+    public boolean insertar(T valor) {
+        cerrojo.lock();
+        try {
+            Entrada<T> actual = entradas.get(id.apply(valor));
+            if (actual != null && actual.valor != null) {
+                return false;
+            }
+            escribir(id.apply(valor), new Entrada<>(valor));
+            return true;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Sustituye {@code actual} por {@code nueva} si la entidad guardada sigue en la versión de
+     * {@code actual} (compare-and-set por versión, no por instancia)
+     * @return false si la versión cambió o la entidad ya no existe
+     */
+    public boolean reemplazar(T actual, T nueva) {
+        return reemplazarTodas(List.of(actual), List.of(nueva));
+    }
+
+    /**
+     * Como reemplazar, pero con varias entidades a la vez: o se sustituyen todas o ninguna
+     * @return false si alguna versión cambió o alguna entidad ya no existe
+     */
+    public boolean reemplazarTodas(List<T> actuales, List<T> nuevas) {
+        cerrojo.lock();
+        try {
+            List<Long> faltan = comprobar(actuales, Map.of());
+            if (faltan == null) {
+                return false;
+            }
+            if (faltan.isEmpty()) {
+                nuevas.forEach(nueva -> escribir(id.apply(nueva), new Entrada<>(nueva)));
+                return true;
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+        // Alguna no está en la caché (desalojada, o su lectura no llegó a cachearse): se compara
+        // con el almacén sin volcados mientras dura; una escritura suya tendría entrada en la caché
+        volcando.lock();
+        try {
+            Map<Long, T> delAlmacen = new HashMap<>();
+            while (true) {
+                List<Long> faltan;
+                cerrojo.lock();
+                try {
+                    faltan = comprobar(actuales, delAlmacen);
+                    if (faltan == null) {
+                        return false;
+                    }
+                    if (faltan.isEmpty()) {
+                        nuevas.forEach(nueva -> escribir(id.apply(nueva), new Entrada<>(nueva)));
+                        return true;
+                    }
+                } finally {
+                    cerrojo.unlock();
+                }
+                // Las que se desalojen mientras tanto se leen en la siguiente vuelta
+                faltan.forEach(clave -> delAlmacen.put(clave, null));
+                almacen.cargar(faltan).forEach(fila -> delAlmacen.put(id.apply(fila), fila));
+            }
+        } finally {
+            volcando.unlock();
+        }
+    }
+
+    /**
+     * Borra la entidad (el borrado llega al almacén en el siguiente volcado)
+     */
+    public void eliminar(Long clave) {
+        cerrojo.lock();
+        try {
+            escribir(clave, new Entrada<>(null));
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Mantiene un filtro de Bloom con una clave de las entidades (el ID, el email...): cada
+     * escritura añade la clave nueva y quita la anterior. Se construye en segundo plano con las
+     * claves del almacén corregidas con los cambios pendientes, y se reconstruye igual cuando
+     * se degrada.
+     * @param delAlmacen Clave de cada entidad del almacén, por ID
+     */
+    public void filtrar(CountingBloomFilter filtro, ToLongFunction<T> clave, Supplier<Map<Long, Long>> delAlmacen) {
+        Filtro<T> nuevo = new Filtro<>(filtro, clave, delAlmacen);
+        filtros.add(nuevo);
+        filtro.reconstruirCon(() -> reconstruir(nuevo));
+        filtro.programarReconstruccion();
+    }
+
+    /**
+     * Filtro de los IDs: además las lecturas por ID que no están en la caché lo consultan antes
+     * de ir al almacén
+     * @param delAlmacen IDs guardados en el almacén
+     */
+    public void filtrarIds(CountingBloomFilter filtro, Supplier<Collection<Long>> delAlmacen) {
+        filtrar(filtro, valor -> id.apply(valor), () -> {
+            Map<Long, Long> ids = new HashMap<>();
+            for (Long clave : delAlmacen.get()) {
+                ids.put(clave, clave);
+            }
+            return ids;
+        });
+        filtroIds = filtro;
+    }
+
+    /**
+     * Escribe ya en el almacén todos los cambios pendientes
+     * Al volver, el almacén tiene todo lo escrito antes de la llamada.
+     * @return Número de entidades escritas o borradas
+     */
+    public int volcar() {
+        volcando.lock();
+        try {
+            Map<Long, Entrada<T>> lote;
+            long desde;
+            cerrojo.lock();
+            try {
+                if (pendientes.isEmpty()) {
+                    return 0;
+                }
+                lote = pendientes;
+                desde = pendientesDesde;
+                pendientes = new LinkedHashMap<>();
+                enVuelo = lote;
+            } finally {
+                cerrojo.unlock();
+            }
+
+            List<T> escrituras = new ArrayList<>(lote.size());
+            List<Long> bajas = new ArrayList<>();
+            lote.forEach((clave, entrada) -> {
+                if (entrada.valor != null) {
+                    escrituras.add(entrada.valor);
+                } else {
+                    bajas.add(clave);
+                }
+            });
+
+            try {
+                almacen.volcar(escrituras, bajas);
+            } catch (RuntimeException e) {
+                cerrojo.lock();
+                try {
+                    // Lo que se haya escrito después es más reciente y se queda
+                    lote.forEach(pendientes::putIfAbsent);
+                    pendientesDesde = desde;
+                    enVuelo = Map.of();
+                    errores++;
+                } finally {
+                    cerrojo.unlock();
+                }
+                throw e;
+            }
+
+            cerrojo.lock();
+            try {
+                enVuelo = Map.of();
+                for (Long clave : bajas) {
+                    if (!pendientes.containsKey(clave) && entradas.remove(clave, lote.get(clave))) {
+                        retiradas++;
+                    }
+                }
+                volcadas += lote.size();
+                volcados++;
+                ultimoVolcado = LocalDateTime.now();
+                desalojar();
+            } finally {
+                cerrojo.unlock();
+            }
+            return lote.size();
+        } finally {
+            volcando.unlock();
+        }
+    }
+
+    /**
+     * Ejecuta una consulta del almacén y la corrige con los cambios que aún no ha recibido:
+     * quita las entidades con cambios pendientes y añade su estado actual si cumple el filtro
+     * @param filtro El mismo criterio que aplica la consulta
+     * @return El resultado ordenado por ID
+     */
+    public List<T> consultar(Supplier<List<T>> consulta, Predicate<? super T> filtro) {
+        // La sombra se toma antes de consultar: lo que se vuelque entretanto sigue tapado
+        Map<Long, Entrada<T>> sombra = sombra();
+        List<T> delAlmacen = consulta.get();
+        if (sombra.isEmpty()) {
+            return delAlmacen;
+        }
+        List<T> resultado = new ArrayList<>(delAlmacen.size());
+        for (T valor : delAlmacen) {
+            if (!sombra.containsKey(id.apply(valor))) {
+                resultado.add(valor);
+            }
+        }
+        for (Entrada<T> entrada : sombra.values()) {
+            if (entrada.valor != null && filtro.test(entrada.valor)) {
+                resultado.add(entrada.valor);
+            }
+        }
+        resultado.sort(Comparator.comparing(id));
+        return resultado;
+    }
+
+    /**
+     * Agregado del almacén corregido con los cambios que aún no ha recibido: las entidades
+     * con cambios pendientes se saltan al recorrer el almacén y se acumulan al final con su
+     * estado actual
+     */
+    public <R> R agregar(Function<Collector<? super T, ?, R>, R> agregado, Collector<? super T, ?, R> collector) {
+        Map<Long, Entrada<T>> sombra = sombra();
+        return agregado.apply(sombra.isEmpty() ? collector : conSombra(collector, sombra));
+    }
+
+    public int pendientes() {
+        cerrojo.lock();
+        try {
+            return pendientes.size() + enVuelo.size();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    public Estado estado() {
+        cerrojo.lock();
+        try {
+            int sinVolcar = pendientes.size() + enVuelo.size();
+            long antiguedad = sinVolcar > 0 ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pendientesDesde) : 0;
+            return new Estado(nombre, entradas.size(), capacidad, sinVolcar, antiguedad, aciertos, fallos,
+                    volcadas, volcados, errores, intervalo, ultimoVolcado);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    // Con el cerrojo tomado
+    private void escribir(Long clave, Entrada<T> entrada) {
+        if (!filtros.isEmpty()) {
+            Entrada<T> anterior = entradas.get(clave);
+            for (Filtro<T> f : filtros) {
+                // La clave nueva entra antes de que salga la anterior: si es la misma no desaparece
+                if (entrada.valor != null) {
+                    f.filtro().anadir(f.clave().applyAsLong(entrada.valor));
+                }
+                if (anterior != null && anterior.valor != null) {
+                    f.filtro().quitar(f.clave().applyAsLong(anterior.valor));
+                } else if (anterior == null && entrada.valor == null) {
+                    // Baja de una entidad que no está en la caché: no se sabe qué clave tenía
+                    f.filtro().desfasar();
+                }
+            }
+        }
+        if (pendientes.isEmpty() && enVuelo.isEmpty()) {
+            pendientesDesde = System.nanoTime();
+        }
+        entradas.put(clave, entrada);
+        pendientes.put(clave, entrada);
+        desalojar();
+        if (pendientes.size() >= maxPendientes) {
+            solicitarVolcado();
+        }
+    }
+
+    // Con el cerrojo tomado: null si alguna versión no coincide; si no, las claves que no están
+    // en la caché ni en delAlmacen (lo leído del almacén, nulo si no existe)
+    private List<Long> comprobar(List<T> actuales, Map<Long, T> delAlmacen) {
+        List<Long> faltan = new ArrayList<>();
+        for (T actual : actuales) {
+            Long clave = id.apply(actual);
+            Entrada<T> entrada = entradas.get(clave);
+            T vigente;
+            if (entrada != null) {
+                vigente = entrada.valor;
+            } else if (delAlmacen.containsKey(clave)) {
+                vigente = delAlmacen.get(clave);
+            } else {
+                faltan.add(clave);
+                continue;
+            }
+            if (vigente == null || !Objects.equals(version.apply(vigente), version.apply(actual))) {
+                return null;
+            }
+        }
+        return faltan;
+    }
+
+    // Con el cerrojo tomado: quita las entradas más antiguas que ya están en el almacén
+    private void desalojar() {
+        Iterator<Long> claves = entradas.keySet().iterator();
+        while (entradas.size() > capacidad && claves.hasNext()) {
+            Long clave = claves.next();
+            if (!pendientes.containsKey(clave) && !enVuelo.containsKey(clave)) {
+                claves.remove();
+                retiradas++;
+            }
+        }
+    }
+
+    private void cachear(List<T> leidas, long generacion) {
+        if (leidas.isEmpty()) {
+            return;
+        }
+        cerrojo.lock();
+        try {
+            if (retiradas == generacion) {
+                for (T valor : leidas) {
+                    entradas.putIfAbsent(id.apply(valor), new Entrada<>(valor));
+                }
+                desalojar();
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    // Sin volcados mientras dura: lo que el almacén no tiene al leerlo está todo en pendientes,
+    // y con el cerrojo tomado no entra ninguna escritura hasta que el filtro queda al día
+    private void reconstruir(Filtro<T> f) {
+        volcando.lock();
+        try {
+            Map<Long, Long> claves = new HashMap<>(f.delAlmacen().get());
+            cerrojo.lock();
+            try {
+                pendientes.forEach((clave, entrada) -> {
+                    if (entrada.valor != null) {
+                        claves.put(clave, f.clave().applyAsLong(entrada.valor));
+                    } else {
+                        claves.remove(clave);
+                    }
+                });
+                f.filtro().reconstruir(claves.values());
+            } finally {
+                cerrojo.unlock();
+            }
+        } finally {
+            volcando.unlock();
+        }
+    }
+
+    // Estado actual de las entidades que el almacén aún no tiene
+    private Map<Long, Entrada<T>> sombra() {
+        cerrojo.lock();
+        try {
+            if (pendientes.isEmpty() && enVuelo.isEmpty()) {
+                return Map.of();
+            }
+            Map<Long, Entrada<T>> sombra = new HashMap<>(enVuelo);
+            sombra.putAll(pendientes);
+            return sombra;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    private void solicitarVolcado() {
+        if (programador != null && !programador.isShutdown() && volcadoSolicitado.compareAndSet(false, true)) {
+            programador.execute(this::volcarProgramado);
+        }
+    }
+
+    // Un fallo no debe cancelar los siguientes volcados programados
+    private void volcarProgramado() {
+        volcadoSolicitado.set(false);
+        try {
+            volcar();
+        } catch (RuntimeException e) {
+            System.out.println("Caché " + nombre + ": error al volcar, se reintentará (" + e.getMessage() + ")");
+        }
+    }
+
+    private <A, R> Collector<T, A, R> conSombra(Collector<? super T, A, R> collector, Map<Long, Entrada<T>> sombra) {
+        BiConsumer<A, ? super T> acumular = collector.accumulator();
+        return Collector.of(collector.supplier(),
+                (parcial, valor) -> {
+                    if (!sombra.containsKey(id.apply(valor))) {
+                        acumular.accept(parcial, valor);
+                    }
+                },
+                collector.combiner(),
+                parcial -> {
+                    for (Entrada<T> entrada : sombra.values()) {
+                        if (entrada.valor != null) {
+                            acumular.accept(parcial, entrada.valor);
+                        }
+                    }
+                    return collector.finisher().apply(parcial);
+                });
+    }
+}
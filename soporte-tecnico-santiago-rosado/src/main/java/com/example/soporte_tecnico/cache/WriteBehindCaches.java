@@ -0,0 +1,70 @@
+package com.example.soporte_tecnico.cache;
+
+import com.example.soporte_tecnico.repository.DurableStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Configuración y registro de las cachés write-behind de los repositorios SQL
+ *
+ * Los repositorios crean aquí su caché (con la capacidad, el intervalo de volcado y el máximo
+ * de cambios pendientes configurados) y la cierran al parar; el registro sirve para consultar
+ * todas a la vez y forzar el volcado desde la API.
+ */
+@Component
+@Profile("sql")
+@ConditionalOnProperty(name = "soporte.cache.habilitada", havingValue = "true", matchIfMissing = true)
+public class WriteBehindCaches {
+
+    private final int capacidad;
+    private final int maxPendientes;
+    private final Duration intervalo;
+    private final List<WriteBehindCache<?>> caches = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public WriteBehindCaches(@Value("${soporte.cache.capacidad:50000}") int capacidad,
+                             @Value("${soporte.cache.max-pendientes:1000}") int maxPendientes,
+                             @Value("${soporte.cache.intervalo-volcado:1s}") Duration intervalo) {
+        this.capacidad = capacidad;
+        this.maxPendientes = maxPendientes;
+        this.intervalo = intervalo;
+    }
+
+    /**
+     * Crea y arranca la caché de un repositorio
+     */
+    public <T> WriteBehindCache<T> crear(String nombre, DurableStore<T> almacen, Function<T, Long> id,
+                                         Function<T, Long> version) {
+        WriteBehindCache<T> cache = new WriteBehindCache<>(nombre, almacen, id, version, capacidad, maxPendientes,
+                intervalo);
+        cache.iniciar();
+        caches.add(cache);
+        System.out.println("Caché write-behind de " + nombre + ": " + capacidad + " entidades, volcado cada "
+                + intervalo + " o cada " + maxPendientes + " cambios");
+        return cache;
+    }
+
+    /**
+     * Vuelca ya los cambios pendientes de todas las cachés
+     * @return Número de entidades escritas o borradas
+     */
+    public int volcar() {
+        int volcadas = 0;
+        for (WriteBehindCache<?> cache : caches) {
+            volcadas += cache.volcar();
+        }
+        return volcadas;
+    }
+
+    public List<WriteBehindCache.Estado> estado() {
+        return caches.stream().map(WriteBehindCache::estado).toList();
+    }
+}
@@ -0,0 +1,497 @@
+package com.example.soporte_tecnico.cdc;
+
+import com.example.soporte_tecnico.exception.BadRequestException;
+import com.example.soporte_tecnico.exception.OffsetExpiredException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Registro de cambios (change data capture) de solicitudes, clientes y técnicos
+ *
+ * Cada alta, cambio o baja recibe un offset consecutivo y se añade como una línea JSON al
+ * final del segmento activo, un fichero que sólo crece. Como las líneas ya escritas no cambian,
+ * un lote de cambios consecutivos es un rango de bytes de un segmento: se sirve tal cual desde
+ * el fichero (sendfile del conector o transferTo), sin leerlo ni volver a serializarlo. Por
+ * segmento sólo se guarda en memoria dónde empieza cada línea.
+ *
+ * Al llegar a {@code segmentoBytes} se empieza un segmento nuevo, y los más antiguos se
+ * borran enteros cuando el total supera {@code retencionBytes}: se puede leer desde cualquier
+ * offset que aún se conserve. Los consumidores guardan aquí su offset (el siguiente que
+ * quieren leer) para reanudar donde lo dejaron; se reescribe de forma atómica en cada cambio.
+ *
+ * Un segmento que sale por la retención deja de poder leerse al momento, pero su fichero no se
+ * borra mientras se esté enviando ni hasta un minuto después de entregar un lote suyo (el
+ * sendfile del conector abre el fichero cuando la petición ya ha vuelto).
+ *
+ * El directorio es de una sola instancia: al abrirlo se bloquea con un fichero de cerrojo y
+ * otro proceso que intente usar el mismo no arranca.
+ *
+ * El orden entre dos escrituras concurrentes de la misma entidad lo da su versión, no el offset.
+ */
+@Component
+public final class ChangeLog implements Closeable {
+
+    public static final String SOLICITUD = "SOLICITUD";
+    public static final String CLIENTE = "CLIENTE";
+    public static final String TECNICO = "TECNICO";
+
+    public static final String ALTA = "ALTA";
+    public static final String CAMBIO = "CAMBIO";
+    public static final String BAJA = "BAJA";
+
+    /**
+     * Una línea del registro
+     * @param datos Entidad tras el cambio (nulo en las bajas)
+     */
+    public record Cambio(long offset, String entidad, String tipo, Long id, Long version, LocalDateTime fecha,
+                         JsonNode datos) {
+    }
+
+    /**
+     * Cambios [desde, siguiente) como rango de bytes de un segmento (vacío si no hay cambios nuevos)
+     */
+    public record Lote(long desde, long siguiente, Path fichero, long posicion, long longitud) {
+        public long cambios() {
+            return siguiente - desde;
+        }
+    }
+
+    /**
+     * Offset guardado por un consumidor y cambios que le quedan por leer
+     */
+    public record Consumidor(String nombre, long offset, long pendientes) {
+    }
+
+    public record EstadoCambios(boolean habilitado, long primerOffset, long ultimoOffset, int segmentos, long bytes,
+                                long errores, List<Consumidor> consumidores) {
+    }
+
+    private static final String EXTENSION = ".cdc";
+    private static final String CONSUMIDORES = "consumidores.properties";
+    private static final String CERROJO = "registro.lock";
+    private static final Pattern NOMBRE_CONSUMIDOR = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    // Margen tras entregar un lote para que el conector abra el fichero antes de borrarlo
+    private static final long GRACIA_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    // Un fichero del registro: cambios desde el offset "primero", con la posición de cada línea
+    private static final class Segmento {
+        private final long primero;
+        private final Path fichero;
+        private int[] posiciones = new int[1024];
+        private int cambios;
+        private long bytes;
+        private FileChannel canal; // sólo el activo
+        private int lectores; // envíos en curso con transferir
+        private long entregado = System.nanoTime() - GRACIA_NANOS; // último lote devuelto por leer
+
+        private Segmento(long primero, Path fichero) {
+            this.primero = primero;
+            this.fichero = fichero;
+        }
+
+        private long posicion(int i) {
+            return i < cambios ? posiciones[i] : bytes;
+        }
+
+        private void anadir(int longitud) {
+            if (cambios == posiciones.length) {
+                posiciones = Arrays.copyOf(posiciones, cambios * 2);
+            }
+            posiciones[cambios++] = (int) bytes;
+            bytes += longitud;
+        }
+    }
+
+    private final ObjectMapper mapper;
+    private final Path directorio; // null si está deshabilitado
+    private final long segmentoBytes;
+    private final long retencionBytes;
+    private final boolean sincronizar;
+
+    private final List<Segmento> segmentos = new ArrayList<>();
+    // Fuera de la retención pero con el fichero aún en uso (o entregado hace poco)
+    private final List<Segmento> retirados = new ArrayList<>();
+    private FileChannel cerrojo;
+    private final Map<String, Long> consumidores = new TreeMap<>();
+    private long siguiente = 1;
+    private long bytes;
+    private long errores;
+
+    @Autowired
+    public ChangeLog(ObjectMapper mapper,
+                     @Value("${soporte.cambios.habilitado:false}") boolean habilitado,
+                     @Value("${soporte.cambios.directorio:./data/cambios}") String directorio,
+                     @Value("${soporte.cambios.segmento:16MB}") DataSize segmento,
+                     @Value("${soporte.cambios.retencion:512MB}") DataSize retencion,
+                     @Value("${soporte.cambios.sincronizar:false}") boolean sincronizar) {
+        this(mapper, habilitado ? Path.of(directorio) : null, segmento.toBytes(), retencion.toBytes(), sincronizar);
+    }
+
+    public ChangeLog(ObjectMapper mapper, Path directorio, long segmentoBytes, long retencionBytes, boolean sincronizar) {
+        this.mapper = mapper;
+        this.directorio = directorio;
+        this.segmentoBytes = Math.min(segmentoBytes, Integer.MAX_VALUE);
+        this.retencionBytes = retencionBytes;
+        this.sincronizar = sincronizar;
+        if (directorio != null) {
+            try {
+                abrir();
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo abrir el registro de cambios en " + directorio, e);
+            }
+        }
+    }
+
+    /**
+     * Registro que no guarda nada (para montar los servicios sin Spring)
+     */
+    public static ChangeLog deshabilitado() {
+        return new ChangeLog(null, null, 0, 0, false);
+    }
+
+    public boolean habilitado() {
+        return directorio != null;
+    }
+
+    /**
+     * Añade un cambio al registro; si no se puede escribir se anota el error y sigue (el cambio
+     * ya está hecho en el repositorio)
+     */
+    public void registrar(String entidad, String tipo, Long id, Long version, Object datos) {
+        if (directorio == null) {
+            return;
+        }
+        JsonNode arbol = datos != null ? mapper.valueToTree(datos) : null;
+        LocalDateTime fecha = LocalDateTime.now();
+        synchronized (this) {
+            try {
+                byte[] json = mapper.writeValueAsBytes(new Cambio(siguiente, entidad, tipo, id, version, fecha, arbol));
+                ByteBuffer linea = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+                Segmento activo = segmentos.get(segmentos.size() - 1);
+                if (activo.cambios > 0 && activo.bytes + linea.remaining() > segmentoBytes) {
+                    activo = nuevoSegmento(siguiente);
+                }
+                int longitud = linea.remaining();
+                while (linea.hasRemaining()) {
+                    activo.canal.write(linea);
+                }
+                if (sincronizar) {
+                    activo.canal.force(false);
+                }
+                activo.anadir(longitud);
+                bytes += longitud;
+                siguiente++;
+                aplicarRetencion();
+            } catch (IOException e) {
+                errores++;
+                System.out.println("Registro de cambios: no se pudo anotar " + tipo + " de " + entidad + " " + id
+                        + " (" + e.getMessage() + ")");
+            }
+        }
+    }
+
+    /**
+     * Hasta {@code max} cambios consecutivos desde el offset indicado (incluido) y sin pasar de
+     * {@code maxBytes} (salvo si un solo cambio ya los supera); nunca cruza de segmento
+     * @throws OffsetExpiredException si el offset ya no se conserva
+     */
+    public synchronized Lote leer(long desde, int max, long maxBytes) {
+        comprobarHabilitado();
+        if (desde > siguiente) {
+            throw new BadRequestException("El offset " + desde + " todavía no existe (el siguiente es " + siguiente + ")");
+        }
+        if (desde < primerOffset()) {
+            throw new OffsetExpiredException("El offset " + desde + " ya no se conserva; el más antiguo es " + primerOffset());
+        }
+        if (desde == siguiente) {
+            return new Lote(desde, desde, null, 0, 0);
+        }
+        Segmento segmento = segmentoDe(desde);
+        int i = (int) (desde - segmento.primero);
+        int j = (int) Math.min(segmento.cambios, (long) i + max);
+        while (j > i + 1 && segmento.posicion(j) - segmento.posicion(i) > maxBytes) {
+            j--;
+        }
+        long posicion = segmento.posicion(i);
+        segmento.entregado = System.nanoTime();
+        return new Lote(desde, segmento.primero + j, segmento.fichero, posicion, segmento.posicion(j) - posicion);
+    }
+
+    /**
+     * Copia los bytes del lote al canal con transferTo (sin pasar por el heap si el canal lo permite)
+     */
+    public void transferir(Lote lote, WritableByteChannel destino) throws IOException {
+        Segmento segmento = empezarEnvio(lote);
+        try (FileChannel canal = FileChannel.open(lote.fichero(), StandardOpenOption.READ)) {
+            long enviados = 0;
+            while (enviados < lote.longitud()) {
+                enviados += canal.transferTo(lote.posicion() + enviados, lote.longitud() - enviados, destino);
+            }
+        } catch (NoSuchFileException e) {
+            throw new OffsetExpiredException("El offset " + lote.desde() + " ya no se conserva");
+        } finally {
+            terminarEnvio(segmento);
+        }
+    }
+
+    /**
+     * Guarda el offset de un consumidor (el siguiente cambio que quiere leer)
+     */
+    public synchronized Consumidor confirmar(String nombre, long offset) {
+        comprobarHabilitado();
+        if (nombre == null || !NOMBRE_CONSUMIDOR.matcher(nombre).matches()) {
+            throw new BadRequestException("Nombre de consumidor no válido: letras, dígitos, '.', '_' o '-' (máximo 64)");
+        }
+        if (offset < 1 || offset > siguiente) {
+            throw new BadRequestException("El offset debe estar entre 1 y " + siguiente);
+        }
+        consumidores.put(nombre, offset);
+        try {
+            guardarConsumidores();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el offset del consumidor " + nombre, e);
+        }
+        return consumidor(nombre, offset);
+    }
+
+    public synchronized Optional<Long> offsetDe(String nombre) {
+        return Optional.ofNullable(consumidores.get(nombre));
+    }
+
+    /**
+     * Offset más antiguo que aún se puede leer
+     */
+    public synchronized long primerOffset() {
+        return segmentos.isEmpty() ? siguiente : segmentos.get(0).primero;
+    }
+
+    /**
+     * Offset del último cambio registrado (0 si aún no hay ninguno)
+     */
+    public synchronized long ultimoOffset() {
+        return siguiente - 1;
+    }
+
+    public synchronized EstadoCambios estado() {
+        List<Consumidor> lista = new ArrayList<>();
+        consumidores.forEach((nombre, offset) -> lista.add(consumidor(nombre, offset)));
+        return new EstadoCambios(habilitado(), primerOffset(), ultimoOffset(), segmentos.size(), bytes, errores, lista);
+    }
+
+    @PreDestroy
+    @Override
+    public synchronized void close() throws IOException {
+        if (!segmentos.isEmpty()) {
+            FileChannel canal = segmentos.get(segmentos.size() - 1).canal;
+            if (canal != null) {
+                canal.close();
+            }
+        }
+        if (cerrojo != null) {
+            cerrojo.close(); // libera también el bloqueo del directorio
+            cerrojo = null;
+        }
+    }
+
+    private Consumidor consumidor(String nombre, long offset) {
+        return new Consumidor(nombre, offset, Math.max(0, siguiente - offset));
+    }
+
+    private void comprobarHabilitado() {
+        if (directorio == null) {
+            throw new BadRequestException("El registro de cambios está deshabilitado (soporte.cambios.habilitado)");
+        }
+    }
+
+    // Último segmento cuyo primer offset es <= offset
+    private Segmento segmentoDe(long offset) {
+        int bajo = 0;
+        int alto = segmentos.size() - 1;
+        while (bajo < alto) {
+            int medio = (bajo + alto + 1) >>> 1;
+            if (segmentos.get(medio).primero <= offset) {
+                bajo = medio;
+            } else {
+                alto = medio - 1;
+            }
+        }
+        return segmentos.get(bajo);
+    }
+
+    private Segmento nuevoSegmento(long primero) throws IOException {
+        if (!segmentos.isEmpty()) {
+            Segmento anterior = segmentos.get(segmentos.size() - 1);
+            anterior.canal.close();
+            anterior.canal = null;
+        }
+        Segmento segmento = new Segmento(primero, directorio.resolve(String.format("%020d%s", primero, EXTENSION)));
+        segmento.canal = FileChannel.open(segmento.fichero, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        segmentos.add(segmento);
+        return segmento;
+    }
+
+    // El segmento del lote, apuntado como en uso; si ya salió por la retención pero su fichero
+    // sigue ahí (está en los retirados) se puede enviar igual
+    private synchronized Segmento empezarEnvio(Lote lote) {
+        for (List<Segmento> lista : List.of(segmentos, retirados)) {
+            for (Segmento segmento : lista) {
+                if (segmento.fichero.equals(lote.fichero())) {
+                    segmento.lectores++;
+                    return segmento;
+                }
+            }
+        }
+        throw new OffsetExpiredException("El offset " + lote.desde() + " ya no se conserva");
+    }
+
+    private synchronized void terminarEnvio(Segmento segmento) throws IOException {
+        segmento.lectores--;
+        borrarRetirados();
+    }
+
+    // Quita los segmentos más antiguos (nunca el activo) mientras se pase de la retención
+    private void aplicarRetencion() throws IOException {
+        while (segmentos.size() > 1 && bytes > retencionBytes) {
+            Segmento antiguo = segmentos.remove(0);
+            bytes -= antiguo.bytes;
+            retirados.add(antiguo);
+        }
+        borrarRetirados();
+    }
+
+    // Borra los ficheros retirados que nadie está enviando ni se han entregado hace poco
+    private void borrarRetirados() throws IOException {
+        long ahora = System.nanoTime();
+        Iterator<Segmento> it = retirados.iterator();
+        while (it.hasNext()) {
+            Segmento retirado = it.next();
+            if (retirado.lectores == 0 && ahora - retirado.entregado >= GRACIA_NANOS) {
+                Files.deleteIfExists(retirado.fichero);
+                it.remove();
+            }
+        }
+    }
+
+    // Recupera los segmentos y sus posiciones; una línea a medio escribir (caída) se recorta
+    private void abrir() throws IOException {
+        Files.createDirectories(directorio);
+        bloquear();
+        List<Path> ficheros;
+        try (Stream<Path> lista = Files.list(directorio)) {
+            ficheros = lista.filter(f -> f.getFileName().toString().endsWith(EXTENSION)).sorted().toList();
+        }
+        for (Path fichero : ficheros) {
+            String nombre = fichero.getFileName().toString();
+            Segmento segmento = new Segmento(Long.parseLong(nombre.substring(0, nombre.length() - EXTENSION.length())), fichero);
+            try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                long leidos = 0;
+                long inicioLinea = 0;
+                while (canal.read(buffer, leidos) > 0) {
+                    buffer.flip();
+                    for (int k = 0; k < buffer.limit(); k++) {
+                        if (buffer.get(k) == '\n') {
+                            long fin = leidos + k + 1;
+                            segmento.anadir((int) (fin - inicioLinea));
+                            inicioLinea = fin;
+                        }
+                    }
+                    leidos += buffer.limit();
+                    buffer.clear();
+                }
+                if (canal.size() > inicioLinea) {
+                    canal.truncate(inicioLinea);
+                }
+            }
+            segmentos.add(segmento);
+            bytes += segmento.bytes;
+            siguiente = segmento.primero + segmento.cambios;
+        }
+        if (segmentos.isEmpty()) {
+            nuevoSegmento(siguiente);
+        } else {
+            Segmento activo = segmentos.get(segmentos.size() - 1);
+            activo.canal = FileChannel.open(activo.fichero, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        // Los retirados que no se llegaron a borrar antes de parar
+        aplicarRetencion();
+        cargarConsumidores();
+        if (siguiente > 1) {
+            System.out.println("Registro de cambios en " + directorio + ": offsets " + primerOffset() + " a "
+                    + (siguiente - 1) + ", " + consumidores.size() + " consumidores");
+        }
+    }
+
+    // Un directorio por instancia: si otro proceso (u otro registro de este) ya lo tiene, no se abre
+    private void bloquear() throws IOException {
+        FileChannel canal = FileChannel.open(directorio.resolve(CERROJO), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock bloqueo;
+        try {
+            bloqueo = canal.tryLock();
+        } catch (OverlappingFileLockException e) {
+            bloqueo = null;
+        }
+        if (bloqueo == null) {
+            canal.close();
+            throw new IOException("el directorio ya lo usa otra instancia (" + CERROJO + " bloqueado)");
+        }
+        cerrojo = canal;
+    }
+
+    private void cargarConsumidores() throws IOException {
+        Path fichero = directorio.resolve(CONSUMIDORES);
+        if (Files.exists(fichero)) {
+            Properties propiedades = new Properties();
+            try (Reader lector = Files.newBufferedReader(fichero)) {
+                propiedades.load(lector);
+            }
+            propiedades.forEach((nombre, offset) -> consumidores.put((String) nombre, Long.parseLong((String) offset)));
+        }
+    }
+
+    private void guardarConsumidores() throws IOException {
+        Properties propiedades = new Properties();
+        consumidores.forEach((nombre, offset) -> propiedades.setProperty(nombre, Long.toString(offset)));
+        Path temporal = directorio.resolve(CONSUMIDORES + ".tmp");
+        try (Writer escritor = Files.newBufferedWriter(temporal)) {
+            propiedades.store(escritor, "Offset del siguiente cambio de cada consumidor");
+        }
+        Files.move(temporal, directorio.resolve(CONSUMIDORES), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.soporte_tecnico.composite;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Cargador por lotes de una entidad para una sola consulta (al estilo DataLoader)
+ *
+ * Los IDs se piden primero y se cargan después todos juntos con una única llamada al
+ * repositorio; los IDs repetidos o ya cargados no se vuelven a pedir. Cada consulta crea sus
+ * propios cargadores, así que lo cargado nunca se comparte entre peticiones.
+ */
+final class BatchLoader<V> {
+
+    private final Function<Collection<Long>, List<V>> cargarLote;
+    private final Function<V, Long> id;
+    private final Set<Long> pendientes = new LinkedHashSet<>();
+    private final Set<Long> buscados = new HashSet<>();
+    private final Map<Long, V> cargados = new HashMap<>();
+    private int llamadas;
+
+    BatchLoader(Function<Collection<Long>, List<V>> cargarLote, Function<V, Long> id) {
+        this.cargarLote = cargarLote;
+        this.id = id;
+    }
+
+    /**
+     * Apunta un ID para la próxima carga
+     */
+    void pedir(Long clave) {
+        if (clave != null && !buscados.contains(clave)) {
+            pendientes.add(clave);
+        }
+    }
+
+    /**
+     * Carga de una vez todos los IDs pedidos desde la última carga
+     */
+    void despachar() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        List<Long> claves = new ArrayList<>(pendientes);
+        pendientes.clear();
+        buscados.addAll(claves);
+        llamadas++;
+        for (V valor : cargarLote.apply(claves)) {
+            cargados.put(id.apply(valor), valor);
+        }
+    }
+
+    /**
+     * Entidad ya cargada (vacío si no existe o aún no se ha despachado)
+     */
+    Optional<V> get(Long clave) {
+        return clave != null ? Optional.ofNullable(cargados.get(clave)) : Optional.empty();
+    }
+
+    /**
+     * Llamadas hechas al repositorio
+     */
+    int llamadas() {
+        return llamadas;
+    }
+}
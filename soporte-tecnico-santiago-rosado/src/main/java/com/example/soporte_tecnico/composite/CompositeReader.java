@@ -0,0 +1,183 @@
+package com.example.soporte_tecnico.composite;
+
+import com.example.soporte_tecnico.exception.BadRequestException;
+import com.example.soporte_tecnico.model.Cliente;
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.model.Tecnico;
+import com.example.soporte_tecnico.repository.ClienteRepository;
+import com.example.soporte_tecnico.repository.SolicitudRepository;
+import com.example.soporte_tecnico.repository.TecnicoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lectura compuesta: varias solicitudes, clientes y técnicos en una sola petición
+ *
+ * Las referencias se agrupan por entidad y cada repositorio recibe una única llamada por
+ * lotes: primero las solicitudes y después, juntos, los clientes y técnicos pedidos
+ * directamente y los que se incluyen desde las solicitudes. Así una pantalla de detalle o un
+ * listado cuestan como mucho tres lecturas, sea cual sea el número de referencias.
+ */
+@Component
+public class CompositeReader {
+
+    public static final String SOLICITUD = "SOLICITUD";
+    public static final String CLIENTE = "CLIENTE";
+    public static final String TECNICO = "TECNICO";
+
+    // Inclusiones admitidas sobre las solicitudes
+    public static final String INCLUIR_CLIENTE = "cliente";
+    public static final String INCLUIR_TECNICO = "tecnico";
+
+    // Tope de referencias por consulta
+    public static final int MAX_REFERENCIAS = 1000;
+
+    /**
+     * Entidad pedida: SOLICITUD, CLIENTE o TECNICO y su ID
+     */
+    public record Referencia(String entidad, Long id) {}
+
+    /**
+     * @param referencias Entidades a leer (las repetidas se devuelven una vez)
+     * @param incluir Entidades relacionadas que se devuelven dentro de cada solicitud
+     *                ("cliente", "tecnico"); vacío o nulo = sólo las referencias
+     */
+    public record Consulta(List<Referencia> referencias, List<String> incluir) {}
+
+    /**
+     * Entidades encontradas en el orden en que se pidieron, referencias que no existen y
+     * llamadas hechas a cada repositorio
+     */
+    public record Resultado(List<Solicitud> solicitudes, List<Cliente> clientes, List<Tecnico> tecnicos,
+                            List<Referencia> noEncontradas, Map<String, Integer> llamadas) {}
+
+    private final SolicitudRepository solicitudRepository;
+    private final ClienteRepository clienteRepository;
+    private final TecnicoRepository tecnicoRepository;
+
+    @Autowired
+    public CompositeReader(SolicitudRepository solicitudRepository, ClienteRepository clienteRepository,
+                           TecnicoRepository tecnicoRepository) {
+        this.solicitudRepository = solicitudRepository;
+        this.clienteRepository = clienteRepository;
+        this.tecnicoRepository = tecnicoRepository;
+    }
+
+    /**
+     * @throws BadRequestException si no hay referencias, son demasiadas, alguna no es válida o
+     *                             se pide una inclusión desconocida
+     */
+    public Resultado leer(Consulta consulta) {
+        List<Referencia> referencias = validar(consulta);
+        boolean incluirCliente = false;
+        boolean incluirTecnico = false;
+        if (consulta.incluir() != null) {
+            for (String inclusion : consulta.incluir()) {
+                String nombre = inclusion != null ? inclusion.trim().toLowerCase(Locale.ROOT) : "";
+                switch (nombre) {
+                    case INCLUIR_CLIENTE -> incluirCliente = true;
+                    case INCLUIR_TECNICO, "técnico" -> incluirTecnico = true;
+                    default -> throw new BadRequestException("Inclusión no válida: " + inclusion
+                            + " (se admiten " + INCLUIR_CLIENTE + " y " + INCLUIR_TECNICO + ")");
+                }
+            }
+        }
+
+        BatchLoader<Solicitud> solicitudes = new BatchLoader<>(solicitudRepository::findAllById, Solicitud::getId);
+        BatchLoader<Cliente> clientes = new BatchLoader<>(clienteRepository::findAllById, Cliente::getId);
+        BatchLoader<Tecnico> tecnicos = new BatchLoader<>(tecnicoRepository::findAllById, Tecnico::getId);
+
+        // Primera ronda: solicitudes; sus referencias se suman a las pedidas directamente
+        for (Referencia referencia : referencias) {
+            switch (referencia.entidad()) {
+                case SOLICITUD -> solicitudes.pedir(referencia.id());
+                case CLIENTE -> clientes.pedir(referencia.id());
+                default -> tecnicos.pedir(referencia.id());
+            }
+        }
+        solicitudes.despachar();
+        for (Referencia referencia : referencias) {
+            if (referencia.entidad().equals(SOLICITUD)) {
+                Solicitud solicitud = solicitudes.get(referencia.id()).orElse(null);
+                if (solicitud != null && incluirCliente) {
+                    clientes.pedir(solicitud.getClienteId());
+                }
+                if (solicitud != null && incluirTecnico) {
+                    tecnicos.pedir(solicitud.getTecnicoId());
+                }
+            }
+        }
+        // Segunda ronda: una llamada por repositorio con todos los IDs acumulados
+        clientes.despachar();
+        tecnicos.despachar();
+
+        List<Solicitud> solicitudesEncontradas = new ArrayList<>();
+        List<Cliente> clientesEncontrados = new ArrayList<>();
+        List<Tecnico> tecnicosEncontrados = new ArrayList<>();
+        List<Referencia> noEncontradas = new ArrayList<>();
+        for (Referencia referencia : referencias) {
+            boolean encontrada = switch (referencia.entidad()) {
+                case SOLICITUD -> solicitudes.get(referencia.id()).map(solicitud -> {
+                    // Copia: la solicitud guardada no se modifica
+                    Solicitud resuelta = new Solicitud(solicitud);
+                    resuelta.setCliente(null);
+                    resuelta.setTecnico(null);
+                    return solicitudesEncontradas.add(resuelta);
+                }).isPresent();
+                case CLIENTE -> clientes.get(referencia.id()).map(clientesEncontrados::add).isPresent();
+                default -> tecnicos.get(referencia.id()).map(tecnicosEncontrados::add).isPresent();
+            };
+            if (!encontrada) {
+                noEncontradas.add(referencia);
+            }
+        }
+        for (Solicitud resuelta : solicitudesEncontradas) {
+            if (incluirCliente) {
+                resuelta.setCliente(clientes.get(resuelta.getClienteId()).orElse(null));
+            }
+            if (incluirTecnico) {
+                resuelta.setTecnico(tecnicos.get(resuelta.getTecnicoId()).orElse(null));
+            }
+        }
+
+        Map<String, Integer> llamadas = new LinkedHashMap<>();
+        llamadas.put(SOLICITUD, solicitudes.llamadas());
+        llamadas.put(CLIENTE, clientes.llamadas());
+        llamadas.put(TECNICO, tecnicos.llamadas());
+        return new Resultado(solicitudesEncontradas, clientesEncontrados, tecnicosEncontrados, noEncontradas, llamadas);
+    }
+
+    // Referencias normalizadas (entidad en mayúsculas y sin repetidas), en el orden pedido
+    private static List<Referencia> validar(Consulta consulta) {
+        if (consulta == null || consulta.referencias() == null || consulta.referencias().isEmpty()) {
+            throw new BadRequestException("La consulta debe tener al menos una referencia");
+        }
+        if (consulta.referencias().size() > MAX_REFERENCIAS) {
+            throw new BadRequestException("Una consulta admite como mucho " + MAX_REFERENCIAS + " referencias");
+        }
+        Set<Referencia> distintas = new LinkedHashSet<>();
+        for (Referencia referencia : consulta.referencias()) {
+            if (referencia == null || referencia.entidad() == null || referencia.id() == null) {
+                throw new BadRequestException("Cada referencia necesita entidad e id");
+            }
+            String entidad = referencia.entidad().trim().toUpperCase(Locale.ROOT);
+            if (entidad.equals("TÉCNICO")) {
+                entidad = TECNICO;
+            }
+            if (!entidad.equals(SOLICITUD) && !entidad.equals(CLIENTE) && !entidad.equals(TECNICO)) {
+                throw new BadRequestException("Entidad no válida: " + referencia.entidad()
+                        + " (se admiten " + SOLICITUD + ", " + CLIENTE + " y " + TECNICO + ")");
+            }
+            distintas.add(new Referencia(entidad, referencia.id()));
+        }
+        return new ArrayList<>(distintas);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.soporte_tecnico.controller;
+
+import com.example.soporte_tecnico.archive.SolicitudArchiver;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/archivo")
+@Tag(name = "Archivo", description = "Solicitudes cerradas archivadas en disco fuera del heap")
+public class ArchivoController {
+
+    private final SolicitudArchiver archiver;
+
+    @Autowired
+    public ArchivoController(SolicitudArchiver archiver) {
+        this.archiver = archiver;
+    }
+
+    @Operation(summary = "Estado del archivo",
+            description = "Solicitudes en memoria y archivadas, bloques, bytes en disco, relación de compresión " +
+                    "y resultado de la última ejecución")
+    @ApiResponse(responseCode = "200", description = "Estado del archivo")
+    @GetMapping("/estado")
+    public ResponseEntity<SolicitudArchiver.EstadoArchivo> getEstado() {
+        return ResponseEntity.ok(archiver.estado());
+    }
+
+    @Operation(summary = "Archivar ahora",
+            description = "Mueve ya al archivo las solicitudes cerradas con más de la edad configurada, " +
+                    "sin esperar a la siguiente ejecución programada")
+    @ApiResponse(responseCode = "200", description = "Estado del archivo tras archivar")
+    @PostMapping("/ejecutar")
+    public ResponseEntity<SolicitudArchiver.EstadoArchivo> ejecutar() {
+        archiver.archivar();
+        return ResponseEntity.ok(archiver.estado());
+    }
+}
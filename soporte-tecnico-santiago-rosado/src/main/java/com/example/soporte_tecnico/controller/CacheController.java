@@ -0,0 +1,50 @@
+package com.example.soporte_tecnico.controller;
+
+import com.example.soporte_tecnico.cache.WriteBehindCache;
+import com.example.soporte_tecnico.cache.WriteBehindCaches;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+@Profile("sql")
+@ConditionalOnProperty(name = "soporte.cache.habilitada", havingValue = "true", matchIfMissing = true)
+@Tag(name = "Caché", description = "Cachés write-behind delante de la base de datos (perfil sql)")
+public class CacheController {
+
+    private final WriteBehindCaches caches;
+
+    @Autowired
+    public CacheController(WriteBehindCaches caches) {
+        this.caches = caches;
+    }
+
+    @Operation(summary = "Estado de las cachés",
+            description = "Entidades en el heap, cambios pendientes de volcar y antigüedad del más viejo, " +
+                    "aciertos, fallos y volcados de cada repositorio")
+    @ApiResponse(responseCode = "200", description = "Estado de cada caché")
+    @GetMapping("/estado")
+    public ResponseEntity<List<WriteBehindCache.Estado>> getEstado() {
+        return ResponseEntity.ok(caches.estado());
+    }
+
+    @Operation(summary = "Volcar ahora",
+            description = "Escribe ya en la base de datos los cambios pendientes, sin esperar al siguiente volcado")
+    @ApiResponse(responseCode = "200", description = "Estado de cada caché tras el volcado")
+    @PostMapping("/volcar")
+    public ResponseEntity<List<WriteBehindCache.Estado>> volcar() {
+        caches.volcar();
+        return ResponseEntity.ok(caches.estado());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.soporte_tecnico.controller;
+
+import com.example.soporte_tecnico.cdc.ChangeLog;
+import com.example.soporte_tecnico.exception.BadRequestException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+@RestController
+@RequestMapping("/api/cambios")
+@Tag(name = "Cambios", description = "Registro de cambios (CDC) de solicitudes, clientes y técnicos")
+public class CambiosController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    // Atributos con los que Tomcat envía un rango de un fichero con sendfile, sin copiarlo al heap
+    private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FICHERO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+    // Tope de bytes por respuesta
+    private static final long MAX_BYTES = 4L << 20;
+
+    private final ChangeLog cambios;
+
+    @Autowired
+    public CambiosController(ChangeLog cambios) {
+        this.cambios = cambios;
+    }
+
+    @Operation(summary = "Leer cambios",
+            description = "Cambios consecutivos desde un offset (incluido), uno por línea en JSON: offset, entidad " +
+                    "(SOLICITUD, CLIENTE o TECNICO), tipo (ALTA, CAMBIO o BAJA), id, versión, fecha y datos. " +
+                    "Sin desde se continúa desde el offset guardado del consumidor o, si no lo hay, desde el más " +
+                    "antiguo. La cabecera X-Siguiente-Offset indica desde dónde pedir el siguiente lote; si es igual " +
+                    "a desde no hay cambios nuevos. Un lote no supera 4 MB")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cambios en NDJSON (vacío si no hay nuevos)"),
+            @ApiResponse(responseCode = "400", description = "Offset futuro, máximo no válido o registro deshabilitado"),
+            @ApiResponse(responseCode = "410", description = "El offset ya no se conserva")
+    })
+    @GetMapping
+    public void getCambios(
+            @Parameter(description = "Primer offset a leer")
+            @RequestParam(required = false) Long desde,
+            @Parameter(description = "Número máximo de cambios (1-10000)")
+            @RequestParam(defaultValue = "500") int max,
+            @Parameter(description = "Consumidor cuyo offset guardado se usa si no se indica desde")
+            @RequestParam(required = false) String consumidor,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (max < 1 || max > 10_000) {
+            throw new BadRequestException("El máximo debe estar entre 1 y 10000");
+        }
+        Long inicio = desde;
+        if (inicio == null && consumidor != null) {
+            inicio = cambios.offsetDe(consumidor).orElse(null);
+        }
+        if (inicio == null) {
+            inicio = cambios.primerOffset();
+        }
+        ChangeLog.Lote lote = cambios.leer(inicio, max, MAX_BYTES);
+
+        response.setContentType(NDJSON);
+        response.setHeader("X-Primer-Offset", Long.toString(lote.desde()));
+        response.setHeader("X-Siguiente-Offset", Long.toString(lote.siguiente()));
+        response.setHeader("X-Ultimo-Offset", Long.toString(cambios.ultimoOffset()));
+        response.setContentLengthLong(lote.longitud());
+        if (lote.longitud() == 0) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+            request.setAttribute(SENDFILE_FICHERO, lote.fichero().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_INICIO, lote.posicion());
+            request.setAttribute(SENDFILE_FIN, lote.posicion() + lote.longitud());
+        } else {
+            cambios.transferir(lote, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    @Operation(summary = "Guardar el offset de un consumidor",
+            description = "Guarda en disco el siguiente offset que el consumidor quiere leer (normalmente el " +
+                    "X-Siguiente-Offset del último lote procesado); sobrevive a los reinicios")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Offset guardado y cambios pendientes"),
+            @ApiResponse(responseCode = "400", description = "Nombre u offset no válidos")
+    })
+    @PutMapping("/consumidores/{nombre}")
+    public ResponseEntity<ChangeLog.Consumidor> confirmar(
+            @Parameter(description = "Nombre del consumidor (letras, dígitos, '.', '_' o '-')")
+            @PathVariable String nombre,
+            @Parameter(description = "Siguiente offset a leer")
+            @RequestParam long offset) {
+        return ResponseEntity.ok(cambios.confirmar(nombre, offset));
+    }
+
+    @Operation(summary = "Estado del registro de cambios",
+            description = "Offsets conservados, segmentos, bytes en disco y offset y retraso de cada consumidor")
+    @ApiResponse(responseCode = "200", description = "Estado del registro")
+    @GetMapping("/estado")
+    public ResponseEntity<ChangeLog.EstadoCambios> getEstado() {
+        return ResponseEntity.ok(cambios.estado());
+    }
+}
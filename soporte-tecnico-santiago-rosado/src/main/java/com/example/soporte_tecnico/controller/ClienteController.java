@@ -1,10 +1,18 @@
 package com.example.soporte_tecnico.controller;
 
 import com.example.soporte_tecnico.dto.ClienteDTO;
+import com.example.soporte_tecnico.exception.BadRequestException;
 import com.example.soporte_tecnico.model.Cliente;
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.service.PoliticaBorrado;
 import com.example.soporte_tecnico.service.ClienteService;
+import com.example.soporte_tecnico.service.SolicitudService;
+import com.example.soporte_tecnico.web.ETags;
+import com.example.soporte_tecnico.web.FieldProjector;
+import com.example.soporte_tecnico.web.IdempotencyCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -26,12 +34,29 @@ public class ClienteController {
     @Autowired
     private ClienteService clienteService;
 
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+
+    @Autowired
+    private FieldProjector fieldProjector;
+
+    @Autowired
+    private SolicitudService solicitudService;
+
     @Operation(summary = "Obtener todos los clientes",
-            description = "Retorna una lista de todos los clientes registrados en el sistema")
-    @ApiResponse(responseCode = "200", description = "Lista de clientes obtenida exitosamente")
+            description = "Retorna una lista de todos los clientes registrados en el sistema. " +
+                    "Con ?fields= sólo se serializan los campos indicados")
+    @ApiResponse(responseCode = "200", description = "Lista de clientes obtenida exitosamente",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = Cliente.class))))
     @GetMapping
-    public ResponseEntity<List<Cliente>> getAllClientes() {
-        return ResponseEntity.ok(clienteService.findAll());
+    public ResponseEntity<?> getAllClientes(
+            @Parameter(description = "Campos a incluir separados por comas (p. ej. id,nombre)")
+            @RequestParam(required = false) String fields) {
+        List<Cliente> clientes = clienteService.findAll();
+        if (fields != null) {
+            return fieldProjector.lista(Cliente.class, fields, clientes);
+        }
+        return ResponseEntity.ok(clientes);
     }
 
     @Operation(summary = "Obtener cliente por ID",
@@ -43,67 +68,155 @@ public class ClienteController {
                     content = @Content)
     })
     @GetMapping("/{id}")
-    public ResponseEntity<Cliente> getClienteById(
+    public ResponseEntity<?> getClienteById(
             @Parameter(description = "ID del cliente a buscar", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @Parameter(description = "Campos a incluir separados por comas (p. ej. id,nombre)")
+            @RequestParam(required = false) String fields) {
         return clienteService.findById(id)
-                .map(ResponseEntity::ok)
+                .<ResponseEntity<?>>map(cliente -> fields != null
+                        ? fieldProjector.uno(Cliente.class, fields, cliente)
+                        : ResponseEntity.ok().eTag(ETags.of(cliente.getVersion())).body(cliente))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @Operation(summary = "Crear nuevo cliente",
-            description = "Crea un nuevo cliente en el sistema")
+            description = "Crea un nuevo cliente en el sistema. Con la cabecera Idempotency-Key " +
+                    "los reintentos devuelven el cliente creado originalmente en lugar de duplicarlo")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Cliente creado exitosamente",
                     content = @Content(schema = @Schema(implementation = Cliente.class))),
-            @ApiResponse(responseCode = "400", description = "Datos inválidos",
+            @ApiResponse(responseCode = "400", description = "Datos inválidos o email ya registrado",
+                    content = @Content),
+            @ApiResponse(responseCode = "422", description = "Clave de idempotencia reutilizada con otros datos",
                     content = @Content)
     })
     @PostMapping
     public ResponseEntity<Cliente> createCliente(
+            @Parameter(description = "Clave única del cliente HTTP para reintentos seguros")
+            @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey,
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
                     description = "Datos del cliente a crear", required = true)
             @Valid @RequestBody ClienteDTO clienteDTO) {
-        Cliente nuevoCliente = clienteService.save(clienteDTO);
-        return ResponseEntity.status(HttpStatus.CREATED).body(nuevoCliente);
+        return idempotencyCache.ejecutar("POST /api/clientes", idempotencyKey, clienteDTO, () -> {
+            Cliente nuevoCliente = clienteService.save(clienteDTO);
+            return ResponseEntity.status(HttpStatus.CREATED).body(nuevoCliente);
+        });
     }
 
     @Operation(summary = "Actualizar cliente",
-            description = "Actualiza los datos de un cliente existente")
+            description = "Actualiza los datos de un cliente existente. Con la cabecera If-Match " +
+                    "(ETag obtenido en el GET) la actualización sólo se aplica si nadie lo modificó antes")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Cliente actualizado exitosamente",
                     content = @Content(schema = @Schema(implementation = Cliente.class))),
             @ApiResponse(responseCode = "404", description = "Cliente no encontrado",
                     content = @Content),
-            @ApiResponse(responseCode = "400", description = "Datos inválidos",
+            @ApiResponse(responseCode = "400", description = "Datos inválidos, email de otro cliente o If-Match mal formada",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "El cliente fue modificado por otro usuario",
                     content = @Content)
     })
     @PutMapping("/{id}")
     public ResponseEntity<Cliente> updateCliente(
             @Parameter(description = "ID del cliente a actualizar", required = true)
             @PathVariable Long id,
+            @Parameter(description = "ETag de la versión que se está editando")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
                     description = "Nuevos datos del cliente", required = true)
             @Valid @RequestBody ClienteDTO clienteDTO) {
-        try {
-            Cliente clienteActualizado = clienteService.update(id, clienteDTO);
-            return ResponseEntity.ok(clienteActualizado);
-        } catch (RuntimeException e) {
+        // 404, 400 y 412 los traduce GlobalExceptionHandler
+        Long versionEsperada = ETags.parseIfMatch(ifMatch,
+                () -> clienteService.findById(id).map(Cliente::getVersion).orElse(null));
+        Cliente clienteActualizado = clienteService.update(id, clienteDTO, versionEsperada);
+        return ResponseEntity.ok().eTag(ETags.of(clienteActualizado.getVersion())).body(clienteActualizado);
+    }
+
+    @Operation(summary = "Buscar clientes por nombre",
+            description = "Búsqueda por nombre. Por defecto busca el texto dentro del nombre; con aproximado=true " +
+                    "tolera errores de escritura (p. ej. \"Fernandes\" encuentra \"Fernández\") y ordena del más al menos parecido")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Clientes encontrados"),
+            @ApiResponse(responseCode = "400", description = "Nombre vacío o distancia no válida")
+    })
+    @GetMapping("/buscar")
+    public ResponseEntity<List<Cliente>> buscarClientes(
+            @Parameter(description = "Nombre o parte del nombre", required = true, example = "Fernandes")
+            @RequestParam String nombre,
+            @Parameter(description = "Tolerar errores de escritura")
+            @RequestParam(defaultValue = "false") boolean aproximado,
+            @Parameter(description = "Distancia de edición máxima por palabra (0-2), sólo con aproximado=true")
+            @RequestParam(defaultValue = "2") int distancia) {
+        if (nombre.isBlank()) {
+            throw new BadRequestException("El nombre no puede estar vacío");
+        }
+        if (!aproximado) {
+            return ResponseEntity.ok(clienteService.findByNombreContaining(nombre));
+        }
+        if (distancia < 0 || distancia > 2) {
+            throw new BadRequestException("La distancia debe estar entre 0 y 2");
+        }
+        return ResponseEntity.ok(clienteService.findByNombreSimilar(nombre, distancia));
+    }
+
+    @Operation(summary = "Autocompletar clientes por nombre",
+            description = "Devuelve los primeros clientes con alguna palabra del nombre que empieza por el prefijo. " +
+                    "Pensado para consultar en cada pulsación de tecla")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sugerencias ordenadas alfabéticamente"),
+            @ApiResponse(responseCode = "400", description = "Prefijo vacío o límite no válido")
+    })
+    @GetMapping("/autocompletar")
+    public ResponseEntity<List<Cliente>> autocompletarClientes(
+            @Parameter(description = "Texto tecleado", required = true, example = "mar")
+            @RequestParam String prefijo,
+            @Parameter(description = "Número máximo de sugerencias (1-50)")
+            @RequestParam(defaultValue = "10") int limite) {
+        if (prefijo.isBlank()) {
+            throw new BadRequestException("El prefijo no puede estar vacío");
+        }
+        if (limite < 1 || limite > 50) {
+            throw new BadRequestException("El límite debe estar entre 1 y 50");
+        }
+        return ResponseEntity.ok(clienteService.autocompletar(prefijo, limite));
+    }
+
+    @Operation(summary = "Listar solicitudes de un cliente",
+            description = "Retorna las solicitudes asociadas al cliente usando el índice inverso (sin recorrer todas las solicitudes)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Solicitudes del cliente"),
+            @ApiResponse(responseCode = "404", description = "Cliente no encontrado",
+                    content = @Content)
+    })
+    @GetMapping("/{id}/solicitudes")
+    public ResponseEntity<List<Solicitud>> getSolicitudes(
+            @Parameter(description = "ID del cliente", required = true)
+            @PathVariable Long id) {
+        if (clienteService.findById(id).isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.ok(solicitudService.findByClienteId(id));
     }
 
     @Operation(summary = "Eliminar cliente",
-            description = "Elimina un cliente del sistema")
+            description = "Elimina un cliente del sistema. Sus solicitudes se eliminan (CASCADA), se reasignan "
+                    + "(REASIGNAR) o impiden el borrado (RECHAZAR) según la política indicada o la configurada en soporte.borrado.clientes")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Cliente eliminado exitosamente"),
-            @ApiResponse(responseCode = "404", description = "Cliente no encontrado")
+            @ApiResponse(responseCode = "400", description = "Cliente de reasignación no válido"),
+            @ApiResponse(responseCode = "404", description = "Cliente no encontrado"),
+            @ApiResponse(responseCode = "409", description = "El cliente tiene solicitudes y la política es RECHAZAR")
     })
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCliente(
             @Parameter(description = "ID del cliente a eliminar", required = true)
-            @PathVariable Long id) {
-        clienteService.deleteById(id);
+            @PathVariable Long id,
+            @Parameter(description = "Política para sus solicitudes: CASCADA, REASIGNAR o RECHAZAR")
+            @RequestParam(required = false) PoliticaBorrado politica,
+            @Parameter(description = "Cliente que recibe las solicitudes con REASIGNAR")
+            @RequestParam(required = false) Long reasignarA) {
+        clienteService.deleteById(id, politica, reasignarA);
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
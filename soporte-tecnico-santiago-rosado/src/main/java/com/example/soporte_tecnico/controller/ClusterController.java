@@ -0,0 +1,118 @@
+package com.example.soporte_tecnico.controller;
+
+import com.example.soporte_tecnico.exception.BadRequestException;
+import com.example.soporte_tecnico.sharding.InfoNodo;
+import com.example.soporte_tecnico.sharding.Recurso;
+import com.example.soporte_tecnico.sharding.ShardNode;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operaciones internas que el enrutador usa sobre cada nodo del clúster
+ * Trabajan con las entidades tal como están guardadas en este nodo
+ */
+@RestController
+@Profile("!sql & !lsm")
+@RequestMapping("/api/cluster")
+@Tag(name = "Clúster", description = "Operaciones internas entre el enrutador y los nodos")
+public class ClusterController {
+
+    private static final int MAX_PAGINA = 10_000;
+
+    private final ShardNode nodo;
+
+    @Autowired
+    public ClusterController(ShardNode nodo) {
+        this.nodo = nodo;
+    }
+
+    @Operation(summary = "Información del nodo", description = "Mayor ID guardado de cada colección")
+    @ApiResponse(responseCode = "200", description = "Información del nodo")
+    @GetMapping("/nodo")
+    public ResponseEntity<InfoNodo> getInfo() {
+        return ResponseEntity.ok(nodo.info());
+    }
+
+    @Operation(summary = "Leer datos locales",
+            description = "Entidades de la colección con los IDs indicados, o una página de las de ID mayor que despuesDe. " +
+                    "En solicitudes admite también clienteId o tecnicoId")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Entidades ordenadas por ID"),
+            @ApiResponse(responseCode = "400", description = "Colección o parámetros no válidos")
+    })
+    @GetMapping("/datos/{recurso}")
+    public ResponseEntity<List<?>> getDatos(
+            @Parameter(description = "clientes, tecnicos o solicitudes", required = true)
+            @PathVariable String recurso,
+            @Parameter(description = "IDs a leer")
+            @RequestParam(required = false) List<Long> ids,
+            @Parameter(description = "Leer a partir del ID siguiente a éste")
+            @RequestParam(defaultValue = "0") long despuesDe,
+            @Parameter(description = "Tamaño de la página (1-10000)")
+            @RequestParam(defaultValue = "1000") int limite,
+            @RequestParam(required = false) Long clienteId,
+            @RequestParam(required = false) Long tecnicoId) {
+        Recurso coleccion = recurso(recurso);
+        if (clienteId != null || tecnicoId != null) {
+            if (coleccion != Recurso.SOLICITUDES) {
+                throw new BadRequestException("clienteId y tecnicoId sólo se admiten en solicitudes");
+            }
+            return ResponseEntity.ok(nodo.solicitudesDe(clienteId, tecnicoId));
+        }
+        if (ids != null) {
+            return ResponseEntity.ok(nodo.buscar(coleccion, ids));
+        }
+        if (limite < 1 || limite > MAX_PAGINA) {
+            throw new BadRequestException("El límite debe estar entre 1 y " + MAX_PAGINA);
+        }
+        return ResponseEntity.ok(nodo.pagina(coleccion, despuesDe, limite));
+    }
+
+    @Operation(summary = "Importar datos", description = "Guarda entidades que pasan a ser de este nodo, conservando su versión")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Entidades guardadas"),
+            @ApiResponse(responseCode = "400", description = "Colección o entidades no válidas")
+    })
+    @PostMapping("/datos/{recurso}")
+    public ResponseEntity<Void> importar(@PathVariable String recurso, @RequestBody JsonNode entidades) {
+        if (!entidades.isArray()) {
+            throw new BadRequestException("Se esperaba una lista de entidades");
+        }
+        nodo.importar(recurso(recurso), entidades);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Descartar datos", description = "Elimina entidades que ya pertenecen a otro nodo, sin aplicar políticas de borrado")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Entidades eliminadas"),
+            @ApiResponse(responseCode = "400", description = "Colección no válida")
+    })
+    @PostMapping("/datos/{recurso}/descartar")
+    public ResponseEntity<Void> descartar(@PathVariable String recurso, @RequestBody List<Long> ids) {
+        nodo.descartar(recurso(recurso), ids);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Carga de técnicos", description = "Solicitudes de este nodo asignadas a cada técnico")
+    @ApiResponse(responseCode = "200", description = "Número de solicitudes por ID de técnico")
+    @GetMapping("/carga")
+    public ResponseEntity<Map<Long, Long>> getCarga(@RequestParam List<Long> tecnicos) {
+        return ResponseEntity.ok(nodo.carga(tecnicos));
+    }
+
+    private static Recurso recurso(String ruta) {
+        return Recurso.desdeRuta(ruta)
+                .orElseThrow(() -> new BadRequestException("Colección desconocida: " + ruta));
+    }
+}
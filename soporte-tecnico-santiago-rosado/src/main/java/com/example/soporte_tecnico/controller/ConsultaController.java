@@ -0,0 +1,41 @@
+package com.example.soporte_tecnico.controller;
+
+import com.example.soporte_tecnico.composite.CompositeReader;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/consultas")
+@Tag(name = "Consultas", description = "Lectura de varias solicitudes, clientes y técnicos en una sola petición")
+public class ConsultaController {
+
+    private final CompositeReader compositeReader;
+
+    @Autowired
+    public ConsultaController(CompositeReader compositeReader) {
+        this.compositeReader = compositeReader;
+    }
+
+    @Operation(summary = "Lectura compuesta",
+            description = "Recibe una lista de referencias {entidad, id} (SOLICITUD, CLIENTE o TECNICO, hasta 1000) y " +
+                    "las inclusiones de las solicitudes (cliente, tecnico). Cada repositorio se consulta una sola vez " +
+                    "con todos sus IDs; las entidades se devuelven en el orden pedido y las que no existen en " +
+                    "noEncontradas")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Entidades encontradas y llamadas a cada repositorio"),
+            @ApiResponse(responseCode = "400", description = "Sin referencias, demasiadas, o entidad o inclusión no válidas"),
+            @ApiResponse(responseCode = "501", description = "Con sharding: el enrutador no combina consultas compuestas")
+    })
+    @PostMapping
+    public ResponseEntity<CompositeReader.Resultado> consultar(@RequestBody CompositeReader.Consulta consulta) {
+        return ResponseEntity.ok(compositeReader.leer(consulta));
+    }
+}
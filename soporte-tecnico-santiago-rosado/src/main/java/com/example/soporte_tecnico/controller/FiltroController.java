@@ -0,0 +1,47 @@
+package com.example.soporte_tecnico.controller;
+
+import com.example.soporte_tecnico.bloom.BloomFilters;
+import com.example.soporte_tecnico.bloom.CountingBloomFilter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/filtros")
+@Tag(name = "Filtros", description = "Filtros de Bloom delante de las comprobaciones de existencia por ID y email")
+public class FiltroController {
+
+    private final BloomFilters filtros;
+
+    @Autowired
+    public FiltroController(BloomFilters filtros) {
+        this.filtros = filtros;
+    }
+
+    @Operation(summary = "Estado de los filtros",
+            description = "Claves, capas y memoria de cada filtro, tasa de falsos positivos objetivo, estimada " +
+                    "y observada, consultas ahorradas y reconstrucciones")
+    @ApiResponse(responseCode = "200", description = "Estado de cada filtro")
+    @GetMapping("/estado")
+    public ResponseEntity<List<CountingBloomFilter.Estado>> getEstado() {
+        return ResponseEntity.ok(filtros.estado());
+    }
+
+    @Operation(summary = "Reconstruir los filtros",
+            description = "Programa la reconstrucción de todos los filtros con las claves actuales, sin esperar " +
+                    "a que se degraden; se hace en segundo plano")
+    @ApiResponse(responseCode = "202", description = "Estado de cada filtro al programar la reconstrucción")
+    @PostMapping("/reconstruir")
+    public ResponseEntity<List<CountingBloomFilter.Estado>> reconstruir() {
+        filtros.reconstruir();
+        return ResponseEntity.accepted().body(filtros.estado());
+    }
+}
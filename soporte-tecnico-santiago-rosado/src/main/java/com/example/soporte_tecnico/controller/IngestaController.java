@@ -0,0 +1,40 @@
+package com.example.soporte_tecnico.controller;
+
+import com.example.soporte_tecnico.ingest.IngestionListener;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/ingesta")
+@Tag(name = "Ingesta", description = "Altas de solicitudes por TCP con tramas binarias")
+public class IngestaController {
+
+    // Sólo existe con soporte.ingesta.habilitado=true
+    private final ObjectProvider<IngestionListener> ingesta;
+
+    @Autowired
+    public IngestaController(ObjectProvider<IngestionListener> ingesta) {
+        this.ingesta = ingesta;
+    }
+
+    @Operation(summary = "Estado de la ingesta binaria",
+            description = "Puerto TCP, conexiones abiertas, tramas recibidas, altas confirmadas y rechazadas y " +
+                    "lotes aplicados")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estado de la ingesta"),
+            @ApiResponse(responseCode = "404", description = "Ingesta deshabilitada")
+    })
+    @GetMapping("/estado")
+    public ResponseEntity<IngestionListener.EstadoIngesta> getEstado() {
+        IngestionListener listener = ingesta.getIfAvailable();
+        return listener != null ? ResponseEntity.ok(listener.estado()) : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.soporte_tecnico.controller;
+
+import com.example.soporte_tecnico.lsm.LsmStore;
+import com.example.soporte_tecnico.repository.LsmSolicitudRepository;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/lsm")
+@Profile("lsm")
+@Tag(name = "LSM", description = "Almacén log-structured de las solicitudes (perfil lsm)")
+public class LsmController {
+
+    private final LsmSolicitudRepository repositorio;
+
+    @Autowired
+    public LsmController(LsmSolicitudRepository repositorio) {
+        this.repositorio = repositorio;
+    }
+
+    @Operation(summary = "Estado del almacén",
+            description = "Memtable, ficheros, bytes y entradas de cada nivel, bloques leídos, búsquedas " +
+                    "descartadas por los filtros de Bloom, volcados, compactaciones y esperas de escritura")
+    @ApiResponse(responseCode = "200", description = "Estado del almacén")
+    @GetMapping("/estado")
+    public ResponseEntity<LsmStore.Estado> getEstado() {
+        return ResponseEntity.ok(repositorio.estado());
+    }
+
+    @Operation(summary = "Volcar ahora",
+            description = "Escribe la memtable en una SSTable y espera a que terminen las compactaciones pendientes")
+    @ApiResponse(responseCode = "200", description = "Estado del almacén tras el volcado")
+    @PostMapping("/volcar")
+    public ResponseEntity<LsmStore.Estado> volcar() {
+        return ResponseEntity.ok(repositorio.volcar());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.soporte_tecnico.controller;
+
+import com.example.soporte_tecnico.replication.EstadoReplicacion;
+import com.example.soporte_tecnico.replication.ReplicaClient;
+import com.example.soporte_tecnico.replication.ReplicationPrimary;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/replicacion")
+@Tag(name = "Replicación", description = "Estado de la replicación primario/réplica")
+public class ReplicacionController {
+
+    // Sólo existe uno de los dos, según soporte.replicacion.modo
+    private final ObjectProvider<ReplicationPrimary> primario;
+    private final ObjectProvider<ReplicaClient> replica;
+
+    @Autowired
+    public ReplicacionController(ObjectProvider<ReplicationPrimary> primario, ObjectProvider<ReplicaClient> replica) {
+        this.primario = primario;
+        this.replica = replica;
+    }
+
+    @Operation(summary = "Estado de la replicación",
+            description = "En el primario, la última secuencia del registro y el retraso de cada réplica conectada; " +
+                    "en una réplica, su posición y su retraso respecto al primario")
+    @ApiResponse(responseCode = "200", description = "Estado de la replicación de esta instancia")
+    @GetMapping("/estado")
+    public ResponseEntity<EstadoReplicacion> getEstado() {
+        ReplicationPrimary p = primario.getIfAvailable();
+        if (p != null) {
+            return ResponseEntity.ok(p.estado());
+        }
+        ReplicaClient r = replica.getIfAvailable();
+        if (r != null) {
+            return ResponseEntity.ok(r.estado());
+        }
+        return ResponseEntity.ok(EstadoReplicacion.ninguno());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.soporte_tecnico.controller;
+
+import com.example.soporte_tecnico.sharding.ShardRouter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/cluster/anillo")
+@ConditionalOnProperty(name = "soporte.sharding.habilitado", havingValue = "true")
+@Tag(name = "Sharding", description = "Anillo de hash consistente del enrutador")
+public class ShardingController {
+
+    private final ShardRouter router;
+
+    @Autowired
+    public ShardingController(ShardRouter router) {
+        this.router = router;
+    }
+
+    @Operation(summary = "Estado del anillo",
+            description = "Nodos virtuales por nodo y fracción del espacio de IDs que corresponde a cada nodo")
+    @ApiResponse(responseCode = "200", description = "Estado del anillo")
+    @GetMapping
+    public ResponseEntity<ShardRouter.EstadoAnillo> getEstado() {
+        return ResponseEntity.ok(router.estado());
+    }
+
+    @Operation(summary = "Añadir un nodo",
+            description = "Copia al nodo nuevo sólo los clientes, técnicos y solicitudes que pasan a ser suyos, " +
+                    "guarda y publica el nuevo anillo y borra las copias antiguas. Las escrituras esperan mientras tanto")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Nodo añadido; incluye cuántas entidades se movieron"),
+            @ApiResponse(responseCode = "400", description = "El nodo ya está en el anillo"),
+            @ApiResponse(responseCode = "503", description = "Algún nodo no respondió")
+    })
+    @PostMapping("/nodos")
+    public ResponseEntity<ShardRouter.Rebalanceo> anadirNodo(
+            @Parameter(description = "URL base del nodo, p. ej. http://localhost:8084", required = true)
+            @RequestParam String url) {
+        return ResponseEntity.ok(router.anadirNodo(url));
+    }
+}
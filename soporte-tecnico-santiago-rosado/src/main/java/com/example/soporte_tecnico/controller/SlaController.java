@@ -0,0 +1,58 @@
+package com.example.soporte_tecnico.controller;
+
+import com.example.soporte_tecnico.exception.BadRequestException;
+import com.example.soporte_tecnico.sla.SlaEngine;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sla")
+@Tag(name = "SLA", description = "Plazos de recogida y resolución de las solicitudes abiertas")
+public class SlaController {
+
+    private final SlaEngine slaEngine;
+
+    @Autowired
+    public SlaController(SlaEngine slaEngine) {
+        this.slaEngine = slaEngine;
+    }
+
+    @Operation(summary = "Estado de la vigilancia de plazos",
+            description = "Plazos configurados, solicitudes vigiladas, plazos pendientes y escalados totales")
+    @ApiResponse(responseCode = "200", description = "Estado del SLA")
+    @GetMapping("/estado")
+    public ResponseEntity<SlaEngine.EstadoSla> getEstado() {
+        return ResponseEntity.ok(slaEngine.estado());
+    }
+
+    @Operation(summary = "Escalados por plazos vencidos",
+            description = "Solicitudes que superaron su plazo de recogida (PENDIENTE) o de resolución, en orden. " +
+                    "Se guardan los últimos 10.000; con desde se obtienen sólo los posteriores a esa secuencia. " +
+                    "También se publican como eventos ESCALADA en /api/solicitudes/stream")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Escalados ordenados por secuencia"),
+            @ApiResponse(responseCode = "400", description = "Límite no válido")
+    })
+    @GetMapping("/escalados")
+    public ResponseEntity<List<SlaEngine.Escalado>> getEscalados(
+            @Parameter(description = "Secuencia del último escalado ya recibido")
+            @RequestParam(defaultValue = "0") long desde,
+            @Parameter(description = "Número máximo de escalados (1-1000)")
+            @RequestParam(defaultValue = "100") int limite) {
+        if (limite < 1 || limite > 1000) {
+            throw new BadRequestException("El límite debe estar entre 1 y 1000");
+        }
+        return ResponseEntity.ok(slaEngine.escalados(desde, limite));
+    }
+}
@@ -1,10 +1,26 @@
 package com.example.soporte_tecnico.controller;
 
+import com.example.soporte_tecnico.analytics.ConsultaAgregada;
+import com.example.soporte_tecnico.analytics.ConsultaRollup;
+import com.example.soporte_tecnico.analytics.Dimension;
+import com.example.soporte_tecnico.analytics.FilaAgregada;
+import com.example.soporte_tecnico.analytics.FilaRollup;
+import com.example.soporte_tecnico.analytics.Granularidad;
+import com.example.soporte_tecnico.analytics.Medida;
+import com.example.soporte_tecnico.analytics.Metrica;
+import com.example.soporte_tecnico.events.SolicitudEventBus;
 import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.query.FiltroSolicitudes;
+import com.example.soporte_tecnico.search.ResultadoBusqueda;
 import com.example.soporte_tecnico.service.SolicitudService;
+import com.example.soporte_tecnico.exception.BadRequestException;
 import com.example.soporte_tecnico.exception.SolicitudNotFoundException;
+import com.example.soporte_tecnico.web.ETags;
+import com.example.soporte_tecnico.web.FieldProjector;
+import com.example.soporte_tecnico.web.IdempotencyCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,12 +28,20 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/solicitudes")
@@ -25,21 +49,200 @@ import java.util.Optional;
 public class SolicitudController {
 
     private final SolicitudService solicitudService;
+    private final SolicitudEventBus eventBus;
+    private final IdempotencyCache idempotencyCache;
+    private final FieldProjector fieldProjector;
+    private final long streamTimeoutMs;
 
     @Autowired
-    public SolicitudController(SolicitudService solicitudService) {
+    public SolicitudController(SolicitudService solicitudService,
+                               SolicitudEventBus eventBus,
+                               IdempotencyCache idempotencyCache,
+                               FieldProjector fieldProjector,
+                               @Value("${soporte.eventos.timeout-ms:1800000}") long streamTimeoutMs) {
         this.solicitudService = solicitudService;
+        this.eventBus = eventBus;
+        this.idempotencyCache = idempotencyCache;
+        this.fieldProjector = fieldProjector;
+        this.streamTimeoutMs = streamTimeoutMs;
     }
 
     @Operation(summary = "Obtener todas las solicitudes",
-            description = "Retorna una lista de todas las solicitudes de soporte técnico")
-    @ApiResponse(responseCode = "200", description = "Lista de solicitudes obtenida exitosamente")
+            description = "Retorna una lista de todas las solicitudes de soporte técnico. " +
+                    "Se puede filtrar por estado, cliente, técnico y rango de fechas de creación " +
+                    "(se cumplen todas las condiciones); el filtro parte del índice más selectivo. " +
+                    "Con ?explain=true devuelve el plan elegido en lugar de las solicitudes. " +
+                    "Con ?fields= sólo se serializan los campos indicados")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de solicitudes obtenida exitosamente",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = Solicitud.class)))),
+            @ApiResponse(responseCode = "400", description = "Rango de fechas no válido")
+    })
     @GetMapping
-    public ResponseEntity<List<Solicitud>> getAllSolicitudes() {
-        List<Solicitud> solicitudes = solicitudService.findAll();
+    public ResponseEntity<?> getAllSolicitudes(
+            @Parameter(description = "Campos a incluir separados por comas (p. ej. id,estado,fechaCreacion)")
+            @RequestParam(required = false) String fields,
+            @Parameter(description = "Sólo este estado", example = "PENDIENTE")
+            @RequestParam(required = false) String estado,
+            @Parameter(description = "Sólo las solicitudes de este cliente")
+            @RequestParam(required = false) Long clienteId,
+            @Parameter(description = "Sólo las solicitudes asignadas a este técnico")
+            @RequestParam(required = false) Long tecnicoId,
+            @Parameter(description = "Creadas desde esta fecha, incluida (ISO, p. ej. 2025-01-01T00:00:00)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @Parameter(description = "Creadas antes de esta fecha, excluida")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @Parameter(description = "Devolver el plan de la consulta en lugar de las solicitudes")
+            @RequestParam(defaultValue = "false") boolean explain) {
+        if (desde != null && hasta != null && !desde.isBefore(hasta)) {
+            throw new BadRequestException("La fecha desde debe ser anterior a hasta");
+        }
+        FiltroSolicitudes filtro = new FiltroSolicitudes(estado, clienteId, tecnicoId, desde, hasta);
+        if (explain) {
+            return ResponseEntity.ok(solicitudService.explicar(filtro));
+        }
+        List<Solicitud> solicitudes = filtro.vacio() ? solicitudService.findAll() : solicitudService.filtrar(filtro);
+        if (fields != null) {
+            return fieldProjector.lista(Solicitud.class, fields, solicitudes);
+        }
         return ResponseEntity.ok(solicitudes);
     }
 
+    @Operation(summary = "Buscar solicitudes por texto",
+            description = "Búsqueda de texto libre sobre la descripción. Ignora mayúsculas, acentos, " +
+                    "palabras vacías y plurales; los resultados se ordenan por relevancia (BM25)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resultados ordenados por puntuación"),
+            @ApiResponse(responseCode = "400", description = "Consulta vacía o límite no válido")
+    })
+    @GetMapping("/buscar")
+    public ResponseEntity<List<ResultadoBusqueda>> buscarSolicitudes(
+            @Parameter(description = "Texto a buscar", required = true, example = "no puedo conectarme a la red WiFi")
+            @RequestParam String q,
+            @Parameter(description = "Número máximo de resultados (1-100)")
+            @RequestParam(defaultValue = "20") int limite) {
+        if (q.isBlank()) {
+            throw new BadRequestException("La consulta no puede estar vacía");
+        }
+        if (limite < 1 || limite > 100) {
+            throw new BadRequestException("El límite debe estar entre 1 y 100");
+        }
+        return ResponseEntity.ok(solicitudService.buscar(q, limite));
+    }
+
+    @Operation(summary = "Agregados de solicitudes",
+            description = "Agrupa las solicitudes por las dimensiones indicadas (estado, cliente, tecnico, " +
+                    "especialidad, dia, semana, mes) y calcula por grupo count, o sum/avg/min/max del campo " +
+                    "indicado (edad en horas o version). Se calcula en paralelo sobre todas las solicitudes")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Grupos ordenados por sus valores"),
+            @ApiResponse(responseCode = "400", description = "Dimensión, métrica o campo no válidos")
+    })
+    @GetMapping("/agregados")
+    public ResponseEntity<List<FilaAgregada>> agregarSolicitudes(
+            @Parameter(description = "Dimensiones separadas por comas", example = "estado,tecnico")
+            @RequestParam(required = false) String groupBy,
+            @Parameter(description = "count, sum, avg, min o max")
+            @RequestParam(defaultValue = "count") String metric,
+            @Parameter(description = "Campo de sum/avg/min/max: edad (horas desde la creación) o version")
+            @RequestParam(defaultValue = "edad") String campo,
+            @Parameter(description = "Sólo solicitudes en estos estados, separados por comas", example = "PENDIENTE,EN_PROCESO")
+            @RequestParam(required = false) String estado) {
+        List<Dimension> dimensiones = new ArrayList<>();
+        for (String nombre : separar(groupBy)) {
+            Dimension dimension = Dimension.desdeNombre(nombre)
+                    .orElseThrow(() -> new BadRequestException("Dimensión de agrupación no válida: " + nombre));
+            if (dimensiones.contains(dimension)) {
+                throw new BadRequestException("Dimensión de agrupación repetida: " + nombre);
+            }
+            dimensiones.add(dimension);
+        }
+        Metrica metrica = Metrica.desdeNombre(metric)
+                .orElseThrow(() -> new BadRequestException("Métrica no válida: " + metric));
+        Medida medida = Medida.desdeNombre(campo)
+                .orElseThrow(() -> new BadRequestException("Campo no válido para la métrica: " + campo));
+        Set<String> estados = new HashSet<>(separar(estado));
+        return ResponseEntity.ok(solicitudService.agregar(new ConsultaAgregada(dimensiones, metrica, medida, estados)));
+    }
+
+    @Operation(summary = "Solicitudes creadas y resueltas por intervalo",
+            description = "Contadores precalculados por minuto, hora o día (se mantienen en cada alta y cambio " +
+                    "de estado, sin recorrer las solicitudes). Los periodos antiguos sólo se guardan con " +
+                    "granularidad más gruesa y salen con la suya. Por defecto, los últimos 30 días")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Contadores ordenados por inicio del intervalo"),
+            @ApiResponse(responseCode = "400", description = "Granularidad o desglose no válidos")
+    })
+    @GetMapping("/rollups")
+    public ResponseEntity<List<FilaRollup>> getRollups(
+            @Parameter(description = "minuto, hora o dia")
+            @RequestParam(defaultValue = "dia") String granularidad,
+            @Parameter(description = "Inicio del periodo (ISO, p. ej. 2025-01-01T00:00:00)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @Parameter(description = "Fin del periodo, excluido")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @Parameter(description = "Desglose separado por comas: estado, especialidad")
+            @RequestParam(required = false) String agrupar,
+            @Parameter(description = "Sólo este estado")
+            @RequestParam(required = false) String estado,
+            @Parameter(description = "Sólo esta especialidad")
+            @RequestParam(required = false) String especialidad) {
+        Granularidad g = Granularidad.desdeNombre(granularidad)
+                .orElseThrow(() -> new BadRequestException("Granularidad no válida: " + granularidad));
+        List<String> desglose = separar(agrupar);
+        for (String nombre : desglose) {
+            if (!nombre.equalsIgnoreCase("estado") && !nombre.equalsIgnoreCase("especialidad")) {
+                throw new BadRequestException("Desglose no válido: " + nombre);
+            }
+        }
+        LocalDateTime inicio = desde != null ? desde : LocalDateTime.now().minusDays(30);
+        boolean porEstado = desglose.stream().anyMatch("estado"::equalsIgnoreCase);
+        boolean porEspecialidad = desglose.stream().anyMatch("especialidad"::equalsIgnoreCase);
+        return ResponseEntity.ok(solicitudService.rollups(
+                new ConsultaRollup(g, inicio, hasta, porEstado, porEspecialidad, estado, especialidad)));
+    }
+
+    private static List<String> separar(String lista) {
+        List<String> valores = new ArrayList<>();
+        if (lista != null) {
+            for (String valor : lista.split(",")) {
+                if (!valor.isBlank()) {
+                    valores.add(valor.trim());
+                }
+            }
+        }
+        return valores;
+    }
+
+    @Operation(summary = "Suscribirse a los cambios de solicitudes",
+            description = "Flujo Server-Sent Events con los eventos CREADA, ACTUALIZADA y ELIMINADA. " +
+                    "Admite la cabecera Last-Event-ID para reanudar; si los eventos ya no están disponibles " +
+                    "se envía un evento REINICIO y el cliente debe recargar la lista")
+    @ApiResponse(responseCode = "200", description = "Flujo de eventos abierto")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSolicitudes(
+            @Parameter(description = "ID del último evento recibido")
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+
+        SolicitudEventBus.Suscripcion suscripcion = eventBus.suscribir(lastEventId, evento -> {
+            SseEmitter.SseEventBuilder sse = SseEmitter.event()
+                    .id(String.valueOf(evento.getSecuencia()))
+                    .name(evento.getTipo());
+            if (evento.getDatos() != null) {
+                sse.data(evento.getDatos(), MediaType.APPLICATION_JSON);
+            } else {
+                sse.data("");
+            }
+            emitter.send(sse);
+        });
+
+        emitter.onCompletion(suscripcion::cancelar);
+        emitter.onTimeout(suscripcion::cancelar);
+        emitter.onError(e -> suscripcion.cancelar());
+        return emitter;
+    }
+
     @Operation(summary = "Obtener solicitud por ID",
             description = "Retorna una solicitud específica por su ID")
     @ApiResponses(value = {
@@ -49,50 +252,67 @@ public class SolicitudController {
                     content = @Content)
     })
     @GetMapping("/{id}")
-    public ResponseEntity<Solicitud> getSolicitudById(
+    public ResponseEntity<?> getSolicitudById(
             @Parameter(description = "ID de la solicitud a buscar", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @Parameter(description = "Campos a incluir separados por comas (p. ej. id,estado,fechaCreacion)")
+            @RequestParam(required = false) String fields) {
         Optional<Solicitud> solicitud = solicitudService.findById(id);
-        return solicitud.map(ResponseEntity::ok)
+        return solicitud.map(s -> fields != null
+                        ? fieldProjector.uno(Solicitud.class, fields, s)
+                        : ResponseEntity.ok().eTag(ETags.of(s.getVersion())).body(s))
                 .orElseThrow(() -> new SolicitudNotFoundException("Solicitud no encontrada con ID: " + id));
     }
 
     @Operation(summary = "Crear nueva solicitud",
-            description = "Crea una nueva solicitud de soporte técnico")
+            description = "Crea una nueva solicitud de soporte técnico. Con la cabecera Idempotency-Key " +
+                    "los reintentos devuelven la solicitud creada originalmente en lugar de duplicarla")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Solicitud creada exitosamente",
                     content = @Content(schema = @Schema(implementation = Solicitud.class))),
             @ApiResponse(responseCode = "400", description = "Datos inválidos",
+                    content = @Content),
+            @ApiResponse(responseCode = "422", description = "Clave de idempotencia reutilizada con otros datos",
                     content = @Content)
     })
     @PostMapping
     public ResponseEntity<Solicitud> createSolicitud(
+            @Parameter(description = "Clave única del cliente HTTP para reintentos seguros")
+            @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey,
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
                     description = "Datos de la solicitud a crear", required = true)
             @Valid @RequestBody Solicitud solicitud) {
-        Solicitud nuevaSolicitud = solicitudService.save(solicitud);
-        return ResponseEntity.status(HttpStatus.CREATED).body(nuevaSolicitud);
+        return idempotencyCache.ejecutar("POST /api/solicitudes", idempotencyKey, solicitud, () -> {
+            Solicitud nuevaSolicitud = solicitudService.save(solicitud);
+            return ResponseEntity.status(HttpStatus.CREATED).body(nuevaSolicitud);
+        });
     }
 
     @Operation(summary = "Actualizar solicitud",
-            description = "Actualiza los datos de una solicitud existente")
+            description = "Actualiza los datos de una solicitud existente. Con la cabecera If-Match " +
+                    "(ETag obtenido en el GET) la actualización sólo se aplica si nadie la modificó antes")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Solicitud actualizada exitosamente",
                     content = @Content(schema = @Schema(implementation = Solicitud.class))),
             @ApiResponse(responseCode = "404", description = "Solicitud no encontrada",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Cabecera If-Match mal formada",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "La solicitud fue modificada por otro usuario",
                     content = @Content)
     })
     @PutMapping("/{id}")
     public ResponseEntity<Solicitud> updateSolicitud(
             @Parameter(description = "ID de la solicitud a actualizar", required = true)
             @PathVariable Long id,
+            @Parameter(description = "ETag de la versión que se está editando")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @Valid @RequestBody Solicitud solicitud) {
-        try {
-            Solicitud solicitudActualizada = solicitudService.update(id, solicitud);
-            return ResponseEntity.ok(solicitudActualizada);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+        // 404, 400 y 412 los traduce GlobalExceptionHandler
+        Long versionEsperada = ETags.parseIfMatch(ifMatch,
+                () -> solicitudService.findById(id).map(Solicitud::getVersion).orElse(null));
+        Solicitud solicitudActualizada = solicitudService.update(id, solicitud, versionEsperada);
+        return ResponseEntity.ok().eTag(ETags.of(solicitudActualizada.getVersion())).body(solicitudActualizada);
     }
 
     @Operation(summary = "Eliminar solicitud",
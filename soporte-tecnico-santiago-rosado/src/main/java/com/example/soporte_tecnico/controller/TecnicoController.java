@@ -1,10 +1,17 @@
 package com.example.soporte_tecnico.controller;
 
 import com.example.soporte_tecnico.dto.TecnicoDTO;
+import com.example.soporte_tecnico.exception.BadRequestException;
 import com.example.soporte_tecnico.model.Tecnico;
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.service.PoliticaBorrado;
 import com.example.soporte_tecnico.service.TecnicoService;
+import com.example.soporte_tecnico.service.SolicitudService;
+import com.example.soporte_tecnico.web.ETags;
+import com.example.soporte_tecnico.web.FieldProjector;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -26,12 +33,25 @@ public class TecnicoController {
     @Autowired
     private TecnicoService tecnicoService;
 
+    @Autowired
+    private FieldProjector fieldProjector;
+
+    @Autowired
+    private SolicitudService solicitudService;
+
     @Operation(summary = "Obtener todos los técnicos",
-            description = "Retorna una lista de todos los técnicos registrados")
-    @ApiResponse(responseCode = "200", description = "Lista de técnicos obtenida exitosamente")
+            description = "Retorna una lista de todos los técnicos registrados. " +
+                    "Con ?fields= sólo se serializan los campos indicados")
+    @ApiResponse(responseCode = "200", description = "Lista de técnicos obtenida exitosamente",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = Tecnico.class))))
     @GetMapping
-    public ResponseEntity<List<Tecnico>> getAllTecnicos() {
+    public ResponseEntity<?> getAllTecnicos(
+            @Parameter(description = "Campos a incluir separados por comas (p. ej. id,nombre)")
+            @RequestParam(required = false) String fields) {
         List<Tecnico> tecnicos = tecnicoService.findAll();
+        if (fields != null) {
+            return fieldProjector.lista(Tecnico.class, fields, tecnicos);
+        }
         return ResponseEntity.ok(tecnicos);
     }
 
@@ -44,11 +64,15 @@ public class TecnicoController {
                     content = @Content)
     })
     @GetMapping("/{id}")
-    public ResponseEntity<Tecnico> getTecnicoById(
+    public ResponseEntity<?> getTecnicoById(
             @Parameter(description = "ID del técnico a buscar", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @Parameter(description = "Campos a incluir separados por comas (p. ej. id,nombre)")
+            @RequestParam(required = false) String fields) {
         return tecnicoService.findById(id)
-                .map(ResponseEntity::ok)
+                .<ResponseEntity<?>>map(tecnico -> fields != null
+                        ? fieldProjector.uno(Tecnico.class, fields, tecnico)
+                        : ResponseEntity.ok().eTag(ETags.of(tecnico.getVersion())).body(tecnico))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -70,37 +94,116 @@ public class TecnicoController {
     }
 
     @Operation(summary = "Actualizar técnico",
-            description = "Actualiza los datos de un técnico existente")
+            description = "Actualiza los datos de un técnico existente. Con la cabecera If-Match " +
+                    "(ETag obtenido en el GET) la actualización sólo se aplica si nadie lo modificó antes")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Técnico actualizado exitosamente",
                     content = @Content(schema = @Schema(implementation = Tecnico.class))),
             @ApiResponse(responseCode = "404", description = "Técnico no encontrado",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Cabecera If-Match mal formada",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "El técnico fue modificado por otro usuario",
                     content = @Content)
     })
     @PutMapping("/{id}")
     public ResponseEntity<Tecnico> updateTecnico(
             @Parameter(description = "ID del técnico a actualizar", required = true)
             @PathVariable Long id,
+            @Parameter(description = "ETag de la versión que se está editando")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @Valid @RequestBody TecnicoDTO tecnicoDTO) {
-        try {
-            Tecnico tecnicoActualizado = tecnicoService.update(id, tecnicoDTO);
-            return ResponseEntity.ok(tecnicoActualizado);
-        } catch (RuntimeException e) {
+        // 404, 400 y 412 los traduce GlobalExceptionHandler
+        Long versionEsperada = ETags.parseIfMatch(ifMatch,
+                () -> tecnicoService.findById(id).map(Tecnico::getVersion).orElse(null));
+        Tecnico tecnicoActualizado = tecnicoService.update(id, tecnicoDTO, versionEsperada);
+        return ResponseEntity.ok().eTag(ETags.of(tecnicoActualizado.getVersion())).body(tecnicoActualizado);
+    }
+
+    @Operation(summary = "Buscar técnicos por nombre",
+            description = "Búsqueda por nombre. Por defecto busca el texto dentro del nombre; con aproximado=true " +
+                    "tolera errores de escritura (p. ej. \"Fernandes\" encuentra \"Fernández\") y ordena del más al menos parecido")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Técnicos encontrados"),
+            @ApiResponse(responseCode = "400", description = "Nombre vacío o distancia no válida")
+    })
+    @GetMapping("/buscar")
+    public ResponseEntity<List<Tecnico>> buscarTecnicos(
+            @Parameter(description = "Nombre o parte del nombre", required = true, example = "Fernandes")
+            @RequestParam String nombre,
+            @Parameter(description = "Tolerar errores de escritura")
+            @RequestParam(defaultValue = "false") boolean aproximado,
+            @Parameter(description = "Distancia de edición máxima por palabra (0-2), sólo con aproximado=true")
+            @RequestParam(defaultValue = "2") int distancia) {
+        if (nombre.isBlank()) {
+            throw new BadRequestException("El nombre no puede estar vacío");
+        }
+        if (!aproximado) {
+            return ResponseEntity.ok(tecnicoService.findByNombreContaining(nombre));
+        }
+        if (distancia < 0 || distancia > 2) {
+            throw new BadRequestException("La distancia debe estar entre 0 y 2");
+        }
+        return ResponseEntity.ok(tecnicoService.findByNombreSimilar(nombre, distancia));
+    }
+
+    @Operation(summary = "Autocompletar técnicos por nombre",
+            description = "Devuelve los primeros técnicos con alguna palabra del nombre que empieza por el prefijo. " +
+                    "Pensado para consultar en cada pulsación de tecla")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sugerencias ordenadas alfabéticamente"),
+            @ApiResponse(responseCode = "400", description = "Prefijo vacío o límite no válido")
+    })
+    @GetMapping("/autocompletar")
+    public ResponseEntity<List<Tecnico>> autocompletarTecnicos(
+            @Parameter(description = "Texto tecleado", required = true, example = "fer")
+            @RequestParam String prefijo,
+            @Parameter(description = "Número máximo de sugerencias (1-50)")
+            @RequestParam(defaultValue = "10") int limite) {
+        if (prefijo.isBlank()) {
+            throw new BadRequestException("El prefijo no puede estar vacío");
+        }
+        if (limite < 1 || limite > 50) {
+            throw new BadRequestException("El límite debe estar entre 1 y 50");
+        }
+        return ResponseEntity.ok(tecnicoService.autocompletar(prefijo, limite));
+    }
+
+    @Operation(summary = "Listar solicitudes de un técnico",
+            description = "Retorna las solicitudes asociadas al técnico usando el índice inverso (sin recorrer todas las solicitudes)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Solicitudes del técnico"),
+            @ApiResponse(responseCode = "404", description = "Técnico no encontrado",
+                    content = @Content)
+    })
+    @GetMapping("/{id}/solicitudes")
+    public ResponseEntity<List<Solicitud>> getSolicitudes(
+            @Parameter(description = "ID del técnico", required = true)
+            @PathVariable Long id) {
+        if (tecnicoService.findById(id).isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.ok(solicitudService.findByTecnicoId(id));
     }
 
     @Operation(summary = "Eliminar técnico",
-            description = "Elimina un técnico del sistema")
+            description = "Elimina un técnico del sistema. Sus solicitudes se eliminan (CASCADA), se reasignan "
+                    + "(REASIGNAR) o impiden el borrado (RECHAZAR) según la política indicada o la configurada en soporte.borrado.tecnicos")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Técnico eliminado exitosamente"),
-            @ApiResponse(responseCode = "404", description = "Técnico no encontrado")
+            @ApiResponse(responseCode = "400", description = "Técnico de reasignación no válido"),
+            @ApiResponse(responseCode = "404", description = "Técnico no encontrado"),
+            @ApiResponse(responseCode = "409", description = "El técnico tiene solicitudes y la política es RECHAZAR")
     })
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTecnico(
             @Parameter(description = "ID del técnico a eliminar", required = true)
-            @PathVariable Long id) {
-        tecnicoService.deleteById(id);
+            @PathVariable Long id,
+            @Parameter(description = "Política para sus solicitudes: CASCADA, REASIGNAR o RECHAZAR")
+            @RequestParam(required = false) PoliticaBorrado politica,
+            @Parameter(description = "Técnico que recibe las solicitudes con REASIGNAR (si falta, el de la misma especialidad con menos carga)")
+            @RequestParam(required = false) Long reasignarA) {
+        tecnicoService.deleteById(id, politica, reasignarA);
         return ResponseEntity.noContent().build();
     }
 
@@ -108,10 +211,15 @@ public class TecnicoController {
             description = "Retorna todos los técnicos que tienen una especialidad específica")
     @ApiResponse(responseCode = "200", description = "Lista de técnicos filtrada por especialidad")
     @GetMapping("/especialidad/{especialidad}")
-    public ResponseEntity<List<Tecnico>> getTecnicosByEspecialidad(
+    public ResponseEntity<?> getTecnicosByEspecialidad(
             @Parameter(description = "Especialidad del técnico (ej: Redes, Hardware, Software)", required = true)
-            @PathVariable String especialidad) {
+            @PathVariable String especialidad,
+            @Parameter(description = "Campos a incluir separados por comas (p. ej. id,nombre)")
+            @RequestParam(required = false) String fields) {
         List<Tecnico> tecnicos = tecnicoService.findByEspecialidad(especialidad);
+        if (fields != null) {
+            return fieldProjector.lista(Tecnico.class, fields, tecnicos);
+        }
         return ResponseEntity.ok(tecnicos);
     }
 
@@ -9,6 +9,10 @@ import jakarta.validation.constraints.Size;
  */
 public class ClienteDTO {
 
+    // Lo asigna el enrutador del clúster y sólo se usa en los nodos (soporte.sharding.nodo=true);
+    // en otro caso se ignora y lo asigna el repositorio
+    private Long id;
+
     @NotBlank(message = "El nombre es obligatorio")
     @Size(min = 2, max = 100, message = "El nombre debe tener entre 2 y 100 caracteres")
     private String nombre;
@@ -33,6 +37,14 @@ public class ClienteDTO {
 
     // GETTERS Y SETTERS (OBLIGATORIOS)
 
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getNombre() {
         return nombre;
     }
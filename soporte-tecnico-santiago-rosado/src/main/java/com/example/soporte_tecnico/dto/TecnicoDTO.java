@@ -16,6 +16,13 @@ import jakarta.validation.constraints.Size;
  */
 public class TecnicoDTO {
 
+    /**
+     * ID del técnico
+     * Lo asigna el enrutador del clúster y sólo se usa en los nodos (soporte.sharding.nodo=true);
+     * en otro caso se ignora y lo asigna el repositorio
+     */
+    private Long id;
+
     /**
      * Nombre completo del técnico
      * Ejemplo: "Carlos López"
@@ -54,6 +61,22 @@ public class TecnicoDTO {
     // GETTERS Y SETTERS
     // =====================
 
+    /**
+     * Obtiene el ID del técnico
+     * @return ID asignado por el enrutador, o null
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Establece el ID del técnico
+     * @param id ID asignado por el enrutador
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     /**
      * Obtiene el nombre del técnico
      * @return Nombre completo del técnico
@@ -0,0 +1,38 @@
+package com.example.soporte_tecnico.events;
+
+/**
+ * Evento publicado cada vez que una solicitud se crea, actualiza o elimina
+ *
+ * Los datos de la solicitud se serializan a JSON una sola vez al publicar,
+ * de modo que el mismo texto se reutiliza para todos los suscriptores
+ */
+public class SolicitudEvent {
+
+    public static final String CREADA = "CREADA";
+    public static final String ACTUALIZADA = "ACTUALIZADA";
+    public static final String ELIMINADA = "ELIMINADA";
+
+    /** Una solicitud superó un plazo de SLA; los datos son el escalado, no la solicitud */
+    public static final String ESCALADA = "ESCALADA";
+
+    /** Evento de control enviado cuando el suscriptor perdió eventos del buffer */
+    public static final String REINICIO = "REINICIO";
+
+    private final long secuencia;
+    private final String tipo;
+    private final Long solicitudId;
+    private final String datos;
+
+    public SolicitudEvent(long secuencia, String tipo, Long solicitudId, String datos) {
+        this.secuencia = secuencia;
+        this.tipo = tipo;
+        this.solicitudId = solicitudId;
+        this.datos = datos;
+    }
+
+    // GETTERS
+    public long getSecuencia() { return secuencia; }
+    public String getTipo() { return tipo; }
+    public Long getSolicitudId() { return solicitudId; }
+    public String getDatos() { return datos; }
+}
@@ -0,0 +1,10 @@
+package com.example.soporte_tecnico.exception;
+
+/**
+ * Excepción para parámetros de consulta no válidos (HTTP 400)
+ */
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.soporte_tecnico.exception;
+
+/**
+ * Excepción al dar de alta una entidad con un ID que ya está en uso (HTTP 409)
+ */
+public class DuplicateIdException extends IllegalArgumentException {
+    public DuplicateIdException(String message) {
+        super(message);
+    }
+}
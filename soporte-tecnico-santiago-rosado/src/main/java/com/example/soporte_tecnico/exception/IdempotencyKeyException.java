@@ -0,0 +1,10 @@
+package com.example.soporte_tecnico.exception;
+
+/**
+ * Excepción para claves de idempotencia inválidas o reutilizadas con otra petición
+ */
+public class IdempotencyKeyException extends RuntimeException {
+    public IdempotencyKeyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.soporte_tecnico.exception;
+
+/**
+ * Excepción cuando un nodo del clúster no responde al enrutador (HTTP 503)
+ */
+public class NodeUnavailableException extends RuntimeException {
+    public NodeUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
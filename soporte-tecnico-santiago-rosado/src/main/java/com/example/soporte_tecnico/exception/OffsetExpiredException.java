@@ -0,0 +1,10 @@
+package com.example.soporte_tecnico.exception;
+
+/**
+ * Excepción cuando se piden cambios de un offset que ya no se conserva (HTTP 410)
+ */
+public class OffsetExpiredException extends RuntimeException {
+    public OffsetExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.soporte_tecnico.exception;
+
+/**
+ * Excepción al eliminar un cliente o técnico que todavía tiene solicitudes (HTTP 409)
+ */
+public class ReferencedEntityException extends RuntimeException {
+    public ReferencedEntityException(String message) {
+        super(message);
+    }
+}
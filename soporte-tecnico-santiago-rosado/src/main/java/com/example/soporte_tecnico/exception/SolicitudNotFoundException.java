@@ -3,7 +3,7 @@ package com.example.soporte_tecnico.exception;
 /**
  * Excepción personalizada para cuando no se encuentra una solicitud
  */
-public class SolicitudNotFoundException extends RuntimeException {
+public class SolicitudNotFoundException extends ResourceNotFoundException {
     public SolicitudNotFoundException(String message) {
         super(message);
     }
@@ -0,0 +1,11 @@
+package com.example.soporte_tecnico.exception;
+
+/**
+ * Excepción para cuando la versión esperada de una entidad no coincide con la guardada
+ * (otro usuario la modificó antes); se traduce en HTTP 412 Precondition Failed
+ */
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
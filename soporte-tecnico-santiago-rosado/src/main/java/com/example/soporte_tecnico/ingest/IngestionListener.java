@@ -0,0 +1,367 @@
+package com.example.soporte_tecnico.ingest;
+
+import com.example.soporte_tecnico.exception.BadRequestException;
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.service.SolicitudService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ingesta de solicitudes por TCP con tramas binarias (ver IngestionProtocol)
+ *
+ * Pensada para los sistemas de monitorización que crean solicitudes en ráfagas: evita el
+ * coste por petición de HTTP y JSON. Un único hilo con un Selector NIO atiende todas las
+ * conexiones y sólo lee y escribe tramas; las altas que llegan en cada lectura las aplica
+ * juntas otro hilo con SolicitudService.saveAll (mismas validaciones, eventos SSE, SLA y
+ * registro de cambios que el POST), así que una escritura lenta no para el resto de
+ * conexiones. Cada lote se confirma con una sola trama. saveAll guarda todas o ninguna: si
+ * alguna alta del lote no es válida se repite alta a alta para confirmar las demás y devolver
+ * un ERROR por cada rechazada, y si falla por otro motivo todas reciben su ERROR.
+ *
+ * Mientras una conexión tiene lotes aplicándose o demasiadas respuestas sin enviar deja de
+ * leerse, así que un cliente que no lee sus confirmaciones frena sólo su propio flujo.
+ *
+ * No se puede habilitar en una réplica (sólo lectura) ni en un enrutador de sharding (sus
+ * repositorios locales no son los de ningún nodo).
+ */
+@Component
+@ConditionalOnProperty(name = "soporte.ingesta.habilitado", havingValue = "true")
+public class IngestionListener {
+
+    private static final int MAX_PENDIENTE = 1 << 20;
+
+    /**
+     * Estado del servicio de ingesta
+     */
+    public record EstadoIngesta(int puerto, int conexiones, long tramas, long altas, long rechazadas,
+                                long lotes, long desconexiones) {}
+
+    private final SolicitudService solicitudService;
+    private final int puertoConfigurado;
+    private final int lote;
+
+    private final Selector selector;
+    // Aplica los lotes fuera del hilo del selector; de uno en uno, en el orden en que llegan
+    private final ExecutorService aplicador = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ingesta-altas");
+        t.setDaemon(true);
+        return t;
+    });
+    // Respuestas de los lotes aplicados, que el hilo del selector pasa a su conexión
+    private final Queue<Aplicado> aplicados = new ConcurrentLinkedQueue<>();
+    private final List<Conexion> conexiones = new CopyOnWriteArrayList<>();
+    private final AtomicLong tramas = new AtomicLong();
+    private final AtomicLong altas = new AtomicLong();
+    private final AtomicLong rechazadas = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong desconexiones = new AtomicLong();
+    private ServerSocketChannel servidor;
+    private Thread hilo;
+    private volatile boolean activo;
+
+    /**
+     * @param puerto Puerto TCP (0 = uno libre)
+     * @param lote Máximo de altas que se aplican juntas
+     */
+    @Autowired
+    public IngestionListener(SolicitudService solicitudService,
+                             @Value("${soporte.ingesta.puerto:7071}") int puerto,
+                             @Value("${soporte.ingesta.lote:1000}") int lote,
+                             @Value("${soporte.replicacion.modo:NINGUNO}") String modoReplicacion,
+                             @Value("${soporte.sharding.habilitado:false}") boolean sharding) throws IOException {
+        if ("REPLICA".equalsIgnoreCase(modoReplicacion)) {
+            throw new IllegalStateException("Una réplica es de sólo lectura: no puede habilitar la ingesta");
+        }
+        if (sharding) {
+            throw new IllegalStateException("Un enrutador de sharding no guarda solicitudes: habilite la ingesta "
+                    + "en los nodos");
+        }
+        this.solicitudService = solicitudService;
+        this.puertoConfigurado = puerto;
+        this.lote = Math.max(1, lote);
+        this.selector = Selector.open();
+    }
+
+    @PostConstruct
+    public void iniciar() throws IOException {
+        servidor = ServerSocketChannel.open();
+        servidor.bind(new InetSocketAddress(puertoConfigurado));
+        servidor.configureBlocking(false);
+        servidor.register(selector, SelectionKey.OP_ACCEPT);
+        activo = true;
+        hilo = new Thread(this::bucle, "ingesta-nio");
+        hilo.setDaemon(true);
+        hilo.start();
+        System.out.println("Ingesta: escuchando altas binarias en el puerto " + puerto());
+    }
+
+    @PreDestroy
+    public void cerrar() throws IOException {
+        activo = false;
+        selector.wakeup();
+        aplicador.shutdown();
+        try {
+            if (hilo != null) {
+                hilo.join(2_000);
+            }
+            aplicador.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Conexion conexion : conexiones) {
+            conexion.canal.close();
+        }
+        if (servidor != null) {
+            servidor.close();
+        }
+        selector.close();
+    }
+
+    public int puerto() {
+        return servidor.socket().getLocalPort();
+    }
+
+    public EstadoIngesta estado() {
+        return new EstadoIngesta(puerto(), conexiones.size(), tramas.get(), altas.get(), rechazadas.get(),
+                lotes.get(), desconexiones.get());
+    }
+
+    private void bucle() {
+        while (activo) {
+            try {
+                selector.select();
+                entregarAplicados();
+                Iterator<SelectionKey> claves = selector.selectedKeys().iterator();
+                while (claves.hasNext()) {
+                    SelectionKey clave = claves.next();
+                    claves.remove();
+                    if (!clave.isValid()) {
+                        continue;
+                    }
+                    if (clave.isAcceptable()) {
+                        aceptar();
+                        continue;
+                    }
+                    Conexion conexion = (Conexion) clave.attachment();
+                    try {
+                        if (clave.isWritable()) {
+                            enviar(conexion);
+                        }
+                        if (clave.isValid() && clave.isReadable()) {
+                            leer(conexion);
+                            enviar(conexion);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        desconectar(conexion, e);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                if (activo) {
+                    System.out.println("Ingesta: error en el servidor: " + e);
+                }
+            }
+        }
+    }
+
+    private void aceptar() throws IOException {
+        SocketChannel canal = servidor.accept();
+        if (canal == null) {
+            return;
+        }
+        canal.configureBlocking(false);
+        canal.socket().setTcpNoDelay(true);
+        Conexion conexion = new Conexion(canal, String.valueOf(canal.getRemoteAddress()));
+        conexion.clave = canal.register(selector, SelectionKey.OP_READ, conexion);
+        conexiones.add(conexion);
+    }
+
+    private void desconectar(Conexion conexion, Exception causa) {
+        conexiones.remove(conexion);
+        desconexiones.incrementAndGet();
+        conexion.clave.cancel();
+        try {
+            conexion.canal.close();
+        } catch (IOException ignorada) {
+            // ya está cerrada
+        }
+        if (!(causa instanceof CierreRemoto)) {
+            System.out.println("Ingesta: conexión " + conexion.direccion + " cerrada (" + causa.getMessage() + ")");
+        }
+    }
+
+    private void leer(Conexion conexion) throws IOException {
+        if (conexion.canal.read(conexion.entrada) < 0) {
+            throw new CierreRemoto();
+        }
+        ByteBuffer entrada = conexion.entrada;
+        entrada.flip();
+        List<IngestionProtocol.Alta> leidas = new ArrayList<>();
+        while (entrada.remaining() >= 4) {
+            int longitud = entrada.getInt(entrada.position());
+            if (longitud < 1 || longitud > IngestionProtocol.MAX_TRAMA) {
+                throw new IOException("trama no válida: longitud " + longitud);
+            }
+            if (entrada.remaining() < 4 + longitud) {
+                break;
+            }
+            byte tipo = entrada.get(entrada.position() + 4);
+            if (tipo != IngestionProtocol.ALTA) {
+                throw new IOException("trama no válida: tipo " + tipo);
+            }
+            leidas.add(IngestionProtocol.leerAlta(entrada.slice(entrada.position() + 5, longitud - 1)));
+            entrada.position(entrada.position() + 4 + longitud);
+            if (leidas.size() == lote) {
+                programar(conexion, leidas);
+                leidas = new ArrayList<>();
+            }
+        }
+        entrada.compact();
+        if (!leidas.isEmpty()) {
+            programar(conexion, leidas);
+        }
+    }
+
+    // La conexión no se vuelve a leer hasta que se entregan las respuestas de sus lotes
+    private void programar(Conexion conexion, List<IngestionProtocol.Alta> leidas) {
+        tramas.addAndGet(leidas.size());
+        lotes.incrementAndGet();
+        conexion.enCurso++;
+        aplicador.execute(() -> {
+            aplicados.add(new Aplicado(conexion, aplicar(leidas)));
+            selector.wakeup();
+        });
+    }
+
+    // En el hilo del selector
+    private void entregarAplicados() {
+        Aplicado aplicado;
+        while ((aplicado = aplicados.poll()) != null) {
+            Conexion conexion = aplicado.conexion();
+            conexion.enCurso--;
+            if (!conexion.canal.isOpen()) {
+                continue;
+            }
+            aplicado.respuestas().forEach(trama -> encolar(conexion, trama));
+            try {
+                enviar(conexion);
+            } catch (IOException | RuntimeException e) {
+                desconectar(conexion, e);
+            }
+        }
+    }
+
+    // En el hilo que aplica los lotes
+    private List<ByteBuffer> aplicar(List<IngestionProtocol.Alta> leidas) {
+        List<ByteBuffer> respuestas = new ArrayList<>();
+        List<long[]> confirmadas = new ArrayList<>(leidas.size());
+        List<Solicitud> solicitudes = new ArrayList<>(leidas.size());
+        for (IngestionProtocol.Alta alta : leidas) {
+            solicitudes.add(alta.solicitud());
+        }
+        try {
+            List<Solicitud> guardadas = solicitudService.saveAll(solicitudes);
+            for (int i = 0; i < leidas.size(); i++) {
+                confirmadas.add(new long[] {leidas.get(i).secuencia(), guardadas.get(i).getId()});
+            }
+        } catch (BadRequestException | IllegalArgumentException loteRechazado) {
+            // Las referencias se comprueban antes de escribir nada: alta a alta para saber cuáles eran válidas
+            for (IngestionProtocol.Alta alta : leidas) {
+                try {
+                    confirmadas.add(new long[] {alta.secuencia(), solicitudService.save(alta.solicitud()).getId()});
+                } catch (RuntimeException e) {
+                    rechazadas.incrementAndGet();
+                    respuestas.add(IngestionProtocol.error(alta.secuencia(), e.getMessage()));
+                }
+            }
+        } catch (RuntimeException e) {
+            // No se guardó ninguna
+            return errores(leidas, e);
+        }
+        altas.addAndGet(confirmadas.size());
+        if (!confirmadas.isEmpty()) {
+            respuestas.add(IngestionProtocol.confirmacion(confirmadas));
+        }
+        return respuestas;
+    }
+
+    private List<ByteBuffer> errores(List<IngestionProtocol.Alta> leidas, RuntimeException causa) {
+        List<ByteBuffer> respuestas = new ArrayList<>(leidas.size());
+        for (IngestionProtocol.Alta alta : leidas) {
+            rechazadas.incrementAndGet();
+            respuestas.add(IngestionProtocol.error(alta.secuencia(), causa.getMessage()));
+        }
+        return respuestas;
+    }
+
+    private void enviar(Conexion conexion) throws IOException {
+        while (!conexion.salida.isEmpty()) {
+            ByteBuffer trama = conexion.salida.peek();
+            conexion.canal.write(trama);
+            if (trama.hasRemaining()) {
+                break;
+            }
+            conexion.salida.poll();
+            conexion.pendiente -= trama.limit();
+        }
+        // Con lotes sin aplicar o demasiadas respuestas sin enviar no se leen más altas de esta conexión
+        int interes = conexion.enCurso == 0 && conexion.pendiente < MAX_PENDIENTE ? SelectionKey.OP_READ : 0;
+        if (!conexion.salida.isEmpty()) {
+            interes |= SelectionKey.OP_WRITE;
+        }
+        if (conexion.clave.interestOps() != interes) {
+            conexion.clave.interestOps(interes);
+        }
+    }
+
+    private void encolar(Conexion conexion, ByteBuffer trama) {
+        conexion.salida.add(trama);
+        conexion.pendiente += trama.limit();
+    }
+
+    private record Aplicado(Conexion conexion, List<ByteBuffer> respuestas) {
+    }
+
+    private static final class CierreRemoto extends IOException {
+        private CierreRemoto() {
+            super("cerrada por el cliente");
+        }
+    }
+
+    private static final class Conexion {
+        private final SocketChannel canal;
+        private final String direccion;
+        private final ByteBuffer entrada = ByteBuffer.allocate(4 + IngestionProtocol.MAX_TRAMA + (64 << 10));
+        private final ArrayDeque<ByteBuffer> salida = new ArrayDeque<>();
+        private SelectionKey clave;
+        private int pendiente;
+        private int enCurso; // lotes entregados al aplicador sin respuesta todavía
+
+        private Conexion(SocketChannel canal, String direccion) {
+            this.canal = canal;
+            this.direccion = direccion;
+        }
+    }
+}
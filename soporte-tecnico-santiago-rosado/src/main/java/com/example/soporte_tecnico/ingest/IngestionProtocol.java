@@ -0,0 +1,129 @@
+package com.example.soporte_tecnico.ingest;
+
+import com.example.soporte_tecnico.model.Solicitud;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Formato binario de la ingesta de solicitudes por TCP
+ *
+ * Cada trama es [int longitud][byte tipo][cuerpo], donde la longitud cuenta el tipo y el
+ * cuerpo; todo en big-endian y los textos en UTF-8 precedidos de su longitud en bytes.
+ *
+ * Cliente -> servidor:
+ * <ul>
+ *   <li>ALTA: long secuencia (la elige el cliente), long clienteId, long tecnicoId,
+ *       long fecha de creación en milisegundos desde la época (0 = ahora),
+ *       short longitud + estado (vacío = PENDIENTE), int longitud + descripción</li>
+ * </ul>
+ * Servidor -> cliente:
+ * <ul>
+ *   <li>CONFIRMACION: int n, n x (long secuencia, long ID asignado)</li>
+ *   <li>ERROR: long secuencia, short longitud + mensaje</li>
+ * </ul>
+ * El cliente encadena altas sin esperar respuesta; el servidor aplica juntas las que llegan
+ * en cada lectura y las confirma con una sola trama, en el orden en que llegaron. Cada alta
+ * rechazada recibe su propia trama ERROR.
+ */
+public final class IngestionProtocol {
+
+    public static final byte ALTA = 1;
+    public static final byte CONFIRMACION = 10;
+    public static final byte ERROR = 11;
+
+    // Tope de la descripción y, con ella, de una trama de alta
+    public static final int MAX_DESCRIPCION = 32 * 1024;
+    static final int MAX_TRAMA = 1 + 4 * 8 + 2 + Short.MAX_VALUE + 4 + MAX_DESCRIPCION;
+
+    private IngestionProtocol() {
+    }
+
+    /**
+     * Alta leída de una trama, con la secuencia que le dio el cliente
+     */
+    record Alta(long secuencia, Solicitud solicitud) {}
+
+    /**
+     * Trama de alta lista para escribir en el canal
+     * @param fechaCreacion Fecha de creación, o null para usar la de llegada
+     * @param estado Estado inicial, o null para PENDIENTE
+     */
+    public static ByteBuffer alta(long secuencia, long clienteId, long tecnicoId, LocalDateTime fechaCreacion,
+                                  String estado, String descripcion) {
+        byte[] bytesEstado = estado != null ? estado.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[] bytesDescripcion = descripcion != null ? descripcion.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (bytesEstado.length > Short.MAX_VALUE || bytesDescripcion.length > MAX_DESCRIPCION) {
+            throw new IllegalArgumentException("Estado o descripción demasiado largos");
+        }
+        long fecha = fechaCreacion != null ? fechaCreacion.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+        int longitud = 1 + 4 * 8 + 2 + bytesEstado.length + 4 + bytesDescripcion.length;
+        ByteBuffer trama = ByteBuffer.allocate(4 + longitud);
+        trama.putInt(longitud).put(ALTA).putLong(secuencia).putLong(clienteId).putLong(tecnicoId).putLong(fecha);
+        trama.putShort((short) bytesEstado.length).put(bytesEstado);
+        trama.putInt(bytesDescripcion.length).put(bytesDescripcion);
+        return trama.flip();
+    }
+
+    /**
+     * Lee el cuerpo de una trama de alta (después del tipo)
+     * @throws IOException si el cuerpo no cuadra con la longitud de la trama
+     */
+    static Alta leerAlta(ByteBuffer cuerpo) throws IOException {
+        try {
+            long secuencia = cuerpo.getLong();
+            long clienteId = cuerpo.getLong();
+            long tecnicoId = cuerpo.getLong();
+            long fecha = cuerpo.getLong();
+            String estado = texto(cuerpo, Short.toUnsignedInt(cuerpo.getShort()));
+            int longitud = cuerpo.getInt();
+            if (longitud < 0 || longitud > MAX_DESCRIPCION) {
+                throw new IOException("descripción de " + longitud + " bytes");
+            }
+            String descripcion = texto(cuerpo, longitud);
+            if (cuerpo.hasRemaining()) {
+                throw new IOException("sobran " + cuerpo.remaining() + " bytes en la trama");
+            }
+
+            Solicitud solicitud = new Solicitud(null, descripcion,
+                    fecha != 0 ? LocalDateTime.ofInstant(Instant.ofEpochMilli(fecha), ZoneId.systemDefault()) : null,
+                    estado.isEmpty() ? null : estado, null, null);
+            solicitud.setClienteId(clienteId);
+            solicitud.setTecnicoId(tecnicoId);
+            return new Alta(secuencia, solicitud);
+        } catch (RuntimeException e) {
+            throw new IOException("trama de alta no válida: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Trama con las secuencias confirmadas y el ID asignado a cada alta
+     */
+    static ByteBuffer confirmacion(List<long[]> confirmadas) {
+        ByteBuffer trama = ByteBuffer.allocate(4 + 1 + 4 + confirmadas.size() * 16);
+        trama.putInt(trama.capacity() - 4).put(CONFIRMACION).putInt(confirmadas.size());
+        for (long[] confirmada : confirmadas) {
+            trama.putLong(confirmada[0]).putLong(confirmada[1]);
+        }
+        return trama.flip();
+    }
+
+    static ByteBuffer error(long secuencia, String mensaje) {
+        byte[] bytes = (mensaje != null ? mensaje : "error").getBytes(StandardCharsets.UTF_8);
+        int longitud = Math.min(bytes.length, Short.MAX_VALUE);
+        ByteBuffer trama = ByteBuffer.allocate(4 + 1 + 8 + 2 + longitud);
+        trama.putInt(trama.capacity() - 4).put(ERROR).putLong(secuencia).putShort((short) longitud).put(bytes, 0, longitud);
+        return trama.flip();
+    }
+
+    private static String texto(ByteBuffer cuerpo, int longitud) {
+        String texto = new String(cuerpo.array(), cuerpo.arrayOffset() + cuerpo.position(), longitud, StandardCharsets.UTF_8);
+        cuerpo.position(cuerpo.position() + longitud);
+        return texto;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.soporte_tecnico.lsm;
+
+/**
+ * Filtro de Bloom de claves long
+ *
+ * Responde "seguro que no está" o "puede estar": con 10 bits por clave y 7 funciones falla
+ * en torno al 1 % de las claves ausentes. Las k posiciones salen de dos mitades de un único
+ * hash de 64 bits (doble hashing), sin calcular k hashes distintos.
+ */
+final class BloomFilter {
+
+    private final long[] bits;
+    private final long numBits;
+    private final int funciones;
+
+    BloomFilter(long[] bits, int funciones) {
+        this.bits = bits;
+        this.numBits = (long) bits.length * 64;
+        this.funciones = funciones;
+    }
+
+    /**
+     * Filtro vacío dimensionado para un número de claves
+     */
+    static BloomFilter paraClaves(long claves, int bitsPorClave) {
+        long numBits = Math.max(64, claves * bitsPorClave);
+        // k óptimo = bits por clave * ln 2
+        int funciones = (int) Math.max(1, Math.min(30, Math.round(bitsPorClave * Math.log(2))));
+        return new BloomFilter(new long[(int) ((numBits + 63) / 64)], funciones);
+    }
+
+    void anadir(long clave) {
+        long hash = mezclar(clave);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < funciones; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean puedeContener(long clave) {
+        long hash = mezclar(clave);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < funciones; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long[] bits() {
+        return bits;
+    }
+
+    int funciones() {
+        return funciones;
+    }
+
+    // Finalizador de SplitMix64: los IDs consecutivos quedan bien repartidos
+    private static long mezclar(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+}
@@ -0,0 +1,804 @@
+package com.example.soporte_tecnico.lsm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Motor de almacenamiento log-structured merge (LSM) para entidades con ID long
+ *
+ * Las escrituras se añaden al registro (WriteAheadLog) y a la memtable, un mapa ordenado en
+ * memoria; cuando la memtable llega a {@code memtableBytes} se congela y un hilo la vuelca a
+ * una SSTable del nivel 0. Los ficheros nunca se modifican: un borrado es una entrada vacía
+ * que tapa las versiones anteriores hasta que la compactación la elimina.
+ *
+ * Compactación por niveles: cuando el nivel 0 tiene {@code ficherosNivel0} ficheros (que
+ * pueden solaparse) se mezclan con los del nivel 1 que solapan; a partir del nivel 1 los
+ * ficheros de cada nivel no se solapan y, cuando un nivel supera su tamaño (el del nivel 1
+ * por {@code factorNiveles} elevado al nivel menos uno), uno de sus ficheros, por turnos, se
+ * mezcla con los que solapa en el siguiente. Una lectura mira la memtable, las congeladas,
+ * los ficheros del nivel 0 y como mucho un fichero por nivel, y cada fichero descarta con su
+ * filtro de Bloom las claves que no tiene sin leer del disco. Si el nivel 0 se acumula (el
+ * volcado o la compactación no dan abasto) la escritura espera a que se compacte, para que
+ * las lecturas no se degraden sin límite.
+ *
+ * El fichero MANIFEST dice qué SSTables forman cada nivel; se reescribe de forma atómica en
+ * cada cambio. Al abrir el directorio se reproducen los registros de las memtables que no
+ * llegaron a volcarse y se borran los ficheros que no están en el manifiesto.
+ */
+public final class LsmStore<T> implements Closeable {
+
+    /**
+     * Tamaños y umbrales del motor
+     * @param memtableBytes Tamaño aproximado de la memtable antes de congelarla
+     * @param bloqueBytes Tamaño de los bloques de datos de las SSTables (unidad de lectura)
+     * @param ficheroBytes Tamaño de cada SSTable que escribe la compactación
+     * @param nivel1Bytes Tamaño máximo del nivel 1
+     * @param factorNiveles Cuántas veces mayor es cada nivel que el anterior
+     * @param ficherosNivel0 Ficheros del nivel 0 que disparan su compactación
+     * @param pararNivel0 Ficheros del nivel 0 a partir de los que las escrituras esperan
+     * @param bitsPorClave Bits del filtro de Bloom por clave (10 = ~1 % de falsos positivos)
+     * @param sincronizarLog Forzar al disco cada escritura del registro
+     */
+    public record Opciones(long memtableBytes, int bloqueBytes, long ficheroBytes, long nivel1Bytes,
+                           int factorNiveles, int ficherosNivel0, int pararNivel0, int bitsPorClave,
+                           boolean sincronizarLog) {
+
+        public static Opciones porDefecto() {
+            return new Opciones(4 << 20, 4 << 10, 2 << 20, 10 << 20, 10, 4, 12, 10, false);
+        }
+    }
+
+    /**
+     * Ocupación de un nivel
+     */
+    public record Nivel(int nivel, int ficheros, long bytes, long entradas, long limiteBytes) {
+    }
+
+    /**
+     * Ocupación y actividad del motor
+     * @param bloquesLeidos Bloques leídos de disco en búsquedas por clave
+     * @param descartesFiltro Búsquedas en un fichero resueltas por su filtro de Bloom sin leer
+     * @param esperas Escrituras que tuvieron que esperar a la compactación
+     */
+    public record Estado(long memtableEntradas, long memtableBytes, int memtablesCongeladas, List<Nivel> niveles,
+                         long escrituras, long lecturas, long bloquesLeidos, long descartesFiltro,
+                         long volcados, long compactaciones, long bytesCompactados, long esperas) {
+    }
+
+    private static final int NIVELES = 7;
+    private static final int MAX_CONGELADAS = 2;
+    private static final byte[] BORRADO = new byte[0];
+    private static final String MANIFIESTO = "MANIFEST";
+    // Memoria aproximada de una entrada de la memtable además de la clave y el valor
+    private static final int COSTE_ENTRADA = 64;
+
+    private static final class Memtable {
+        private final ConcurrentSkipListMap<Long, byte[]> datos = new ConcurrentSkipListMap<>();
+        private final AtomicLong bytes = new AtomicLong();
+        private final WriteAheadLog log;
+
+        private Memtable(WriteAheadLog log) {
+            this.log = log;
+        }
+
+        private void poner(long clave, byte[] valor) {
+            byte[] anterior = datos.put(clave, valor);
+            bytes.addAndGet(valor.length - (anterior != null ? anterior.length : -8 - COSTE_ENTRADA));
+        }
+    }
+
+    // Lo que ven las lecturas: se sustituye entero en cada cambio (congeladas, del más reciente
+    // al más antiguo; nivel 0 igual; niveles 1+ ordenados por clave)
+    private record Version(Memtable activa, List<Memtable> congeladas, List<List<SsTable>> niveles) {
+    }
+
+    private final Path directorio;
+    private final ObjectReader lector;
+    private final ObjectWriter escritor;
+    private final ToLongFunction<T> id;
+    private final Opciones opciones;
+
+    private volatile Version version;
+    // Escrituras en la memtable activa (y su cambio por una nueva)
+    private final ReentrantLock escritura = new ReentrantLock();
+    // Cambios de versión (congelar, volcar, compactar) y reescritura del manifiesto
+    private final ReentrantLock cambios = new ReentrantLock();
+    // Volcados y compactaciones: uno a la vez
+    private final ReentrantLock mantenimiento = new ReentrantLock();
+    // Las lecturas impiden que se cierren y borren los ficheros que están usando
+    private final ReentrantReadWriteLock ficheros = new ReentrantReadWriteLock();
+    private final AtomicLong siguiente = new AtomicLong(1);
+    // Última clave compactada de cada nivel: los ficheros se eligen por turnos
+    private final long[] punteros = new long[NIVELES];
+    private final ExecutorService hilo;
+    private final AtomicBoolean programado = new AtomicBoolean();
+    private volatile boolean cerrado;
+
+    private final AtomicLong escrituras = new AtomicLong();
+    private final AtomicLong lecturas = new AtomicLong();
+    private final AtomicLong bloquesLeidos = new AtomicLong();
+    private final AtomicLong descartesFiltro = new AtomicLong();
+    private final AtomicLong volcados = new AtomicLong();
+    private final AtomicLong compactaciones = new AtomicLong();
+    private final AtomicLong bytesCompactados = new AtomicLong();
+    private final AtomicLong esperas = new AtomicLong();
+
+    /**
+     * Abre (o crea) el motor en un directorio y recupera lo que no llegó a volcarse
+     */
+    public LsmStore(Path directorio, ObjectMapper mapper, Class<T> tipo, ToLongFunction<T> id, Opciones opciones) {
+        this.directorio = directorio;
+        this.lector = mapper.readerFor(tipo);
+        this.escritor = mapper.writerFor(tipo);
+        this.id = id;
+        this.opciones = opciones;
+        Arrays.fill(punteros, Long.MIN_VALUE);
+        try {
+            Files.createDirectories(directorio);
+            List<List<SsTable>> niveles = leerManifiesto();
+            List<Memtable> congeladas = recuperarLogs();
+            borrarHuerfanos(niveles);
+            Memtable activa = new Memtable(new WriteAheadLog(nuevoFichero(".log"), opciones.sincronizarLog()));
+            version = new Version(activa, congeladas, niveles);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el almacén LSM en " + directorio, e);
+        }
+        hilo = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "lsm-" + directorio.getFileName());
+            t.setDaemon(true);
+            return t;
+        });
+        if (!version.congeladas().isEmpty()) {
+            mantener();
+        }
+    }
+
+    public void put(T valor) {
+        escribir(List.of(new SsTable.Entrada(id.applyAsLong(valor), serializar(valor))));
+    }
+
+    /**
+     * Escribe varias entidades y borra varias claves con una sola escritura en el registro
+     */
+    public void escribir(Collection<? extends T> valores, Collection<Long> bajas) {
+        List<SsTable.Entrada> entradas = new ArrayList<>(valores.size() + bajas.size());
+        for (T valor : valores) {
+            entradas.add(new SsTable.Entrada(id.applyAsLong(valor), serializar(valor)));
+        }
+        for (Long clave : bajas) {
+            entradas.add(new SsTable.Entrada(clave, BORRADO));
+        }
+        if (!entradas.isEmpty()) {
+            escribir(entradas);
+        }
+    }
+
+    public void delete(long clave) {
+        escribir(List.of(new SsTable.Entrada(clave, BORRADO)));
+    }
+
+    public Optional<T> get(long clave) {
+        byte[] valor;
+        ficheros.readLock().lock();
+        try {
+            valor = buscar(version, clave);
+        } finally {
+            ficheros.readLock().unlock();
+        }
+        lecturas.incrementAndGet();
+        return valor == null || valor.length == 0 ? Optional.empty() : Optional.of(deserializar(valor));
+    }
+
+    /**
+     * Recorre todas las entidades vivas en orden de clave (mezcla de la memtable y los niveles)
+     */
+    public void recorrer(Consumer<? super T> accion) {
+        ficheros.readLock().lock();
+        try {
+            Iterator<SsTable.Entrada> entradas = fusionar(fuentes(version));
+            while (entradas.hasNext()) {
+                SsTable.Entrada entrada = entradas.next();
+                if (entrada.valor().length > 0) {
+                    accion.accept(deserializar(entrada.valor()));
+                }
+            }
+        } finally {
+            ficheros.readLock().unlock();
+        }
+    }
+
+    /**
+     * Congela la memtable activa y espera a que se vuelque y a que terminen las compactaciones
+     */
+    public void volcar() {
+        escritura.lock();
+        try {
+            if (!version.activa().datos.isEmpty()) {
+                congelar();
+            }
+        } finally {
+            escritura.unlock();
+        }
+        mantener();
+    }
+
+    public Estado estado() {
+        Version v = version;
+        List<Nivel> niveles = new ArrayList<>();
+        for (int n = 0; n < v.niveles().size(); n++) {
+            List<SsTable> nivel = v.niveles().get(n);
+            niveles.add(new Nivel(n, nivel.size(), bytes(nivel), nivel.stream().mapToLong(SsTable::entradas).sum(),
+                    n == 0 ? 0 : limite(n)));
+        }
+        long congeladas = v.congeladas().stream().mapToLong(m -> m.bytes.get()).sum();
+        return new Estado(v.activa().datos.size(), v.activa().bytes.get() + congeladas, v.congeladas().size(), niveles,
+                escrituras.get(), lecturas.get(), bloquesLeidos.get(), descartesFiltro.get(), volcados.get(),
+                compactaciones.get(), bytesCompactados.get(), esperas.get());
+    }
+
+    /**
+     * Cierra ficheros y registros; lo que siga en memoria se recupera del registro al abrir
+     */
+    @Override
+    public void close() throws IOException {
+        cerrado = true;
+        hilo.shutdown();
+        try {
+            hilo.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mantenimiento.lock();
+        escritura.lock();
+        ficheros.writeLock().lock();
+        try {
+            Version v = version;
+            v.activa().log.close();
+            for (Memtable m : v.congeladas()) {
+                m.log.close();
+            }
+            for (List<SsTable> nivel : v.niveles()) {
+                for (SsTable tabla : nivel) {
+                    tabla.close();
+                }
+            }
+        } finally {
+            ficheros.writeLock().unlock();
+            escritura.unlock();
+            mantenimiento.unlock();
+        }
+    }
+
+    private void escribir(List<SsTable.Entrada> entradas) {
+        boolean esperar;
+        escritura.lock();
+        try {
+            if (cerrado) {
+                throw new IllegalStateException("El almacén LSM está cerrado");
+            }
+            Memtable activa = version.activa();
+            try {
+                activa.log.anadir(entradas);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo escribir el registro " + activa.log.fichero(), e);
+            }
+            for (SsTable.Entrada entrada : entradas) {
+                activa.poner(entrada.clave(), entrada.valor());
+            }
+            escrituras.addAndGet(entradas.size());
+            if (activa.bytes.get() >= opciones.memtableBytes()) {
+                congelar();
+            }
+            Version v = version;
+            esperar = v.congeladas().size() > MAX_CONGELADAS || v.niveles().get(0).size() >= opciones.pararNivel0();
+        } finally {
+            escritura.unlock();
+        }
+        if (esperar) {
+            esperas.incrementAndGet();
+            mantener();
+        }
+    }
+
+    // Con el cerrojo de escritura: la activa pasa a congelada y se empieza otra con su registro
+    private void congelar() {
+        Memtable nueva;
+        try {
+            nueva = new Memtable(new WriteAheadLog(nuevoFichero(".log"), opciones.sincronizarLog()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el registro en " + directorio, e);
+        }
+        cambios.lock();
+        try {
+            Version v = version;
+            List<Memtable> congeladas = new ArrayList<>(v.congeladas().size() + 1);
+            congeladas.add(v.activa());
+            congeladas.addAll(v.congeladas());
+            version = new Version(nueva, List.copyOf(congeladas), v.niveles());
+        } finally {
+            cambios.unlock();
+        }
+        programar();
+    }
+
+    private void programar() {
+        if (!cerrado && programado.compareAndSet(false, true)) {
+            hilo.execute(() -> {
+                programado.set(false);
+                try {
+                    mantener();
+                } catch (RuntimeException e) {
+                    System.out.println("Almacén LSM " + directorio + ": error en el mantenimiento (" + e.getMessage() + ")");
+                }
+            });
+        }
+    }
+
+    // Vuelca las memtables congeladas y compacta hasta que ningún nivel se pasa de tamaño
+    private void mantener() {
+        mantenimiento.lock();
+        try {
+            while (true) {
+                Version v = version;
+                if (!v.congeladas().isEmpty()) {
+                    volcarMemtable(v.congeladas().get(v.congeladas().size() - 1));
+                } else if (v.niveles().get(0).size() >= opciones.ficherosNivel0()) {
+                    compactar(v, 0, v.niveles().get(0));
+                } else {
+                    int nivel = nivelDesbordado(v);
+                    if (nivel < 0) {
+                        return;
+                    }
+                    compactar(v, nivel, List.of(siguienteFichero(v.niveles().get(nivel), nivel)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error de E/S en el almacén LSM " + directorio, e);
+        } finally {
+            mantenimiento.unlock();
+        }
+    }
+
+    private void volcarMemtable(Memtable memtable) throws IOException {
+        List<SsTable> tablas = escribirTablas(fuente(memtable), false, Long.MAX_VALUE);
+        cambios.lock();
+        try {
+            Version v = version;
+            List<Memtable> congeladas = new ArrayList<>(v.congeladas());
+            congeladas.removeIf(m -> m == memtable);
+            List<List<SsTable>> niveles = new ArrayList<>(v.niveles());
+            List<SsTable> nivel0 = new ArrayList<>(tablas);
+            nivel0.addAll(v.niveles().get(0));
+            niveles.set(0, List.copyOf(nivel0));
+            guardarManifiesto(niveles);
+            version = new Version(v.activa(), List.copyOf(congeladas), List.copyOf(niveles));
+        } finally {
+            cambios.unlock();
+        }
+        memtable.log.borrar();
+        volcados.incrementAndGet();
+    }
+
+    private void compactar(Version v, int nivel, List<SsTable> origen) throws IOException {
+        int destino = nivel + 1;
+        long desde = origen.stream().mapToLong(SsTable::minima).min().orElseThrow();
+        long hasta = origen.stream().mapToLong(SsTable::maxima).max().orElseThrow();
+        List<SsTable> solapadas = v.niveles().get(destino).stream().filter(t -> t.solapa(desde, hasta)).toList();
+        // Los borrados sólo sobran si por debajo no queda nada que tapar. Las tablas que se
+        // reescriben pueden salirse del rango del origen: se mira el de todas
+        long inicio = Math.min(desde, solapadas.stream().mapToLong(SsTable::minima).min().orElse(desde));
+        long fin = Math.max(hasta, solapadas.stream().mapToLong(SsTable::maxima).max().orElse(hasta));
+        boolean fondo = true;
+        for (int n = destino + 1; n < NIVELES; n++) {
+            fondo &= v.niveles().get(n).stream().noneMatch(t -> t.solapa(inicio, fin));
+        }
+
+        List<Iterator<SsTable.Entrada>> fuentes = new ArrayList<>();
+        for (SsTable tabla : origen) {
+            fuentes.add(tabla.iterador());
+        }
+        fuentes.add(concatenar(solapadas));
+        List<SsTable> nuevas = escribirTablas(fusionar(fuentes), fondo, opciones.ficheroBytes());
+
+        Set<SsTable> retiradas = Collections.newSetFromMap(new IdentityHashMap<>());
+        retiradas.addAll(origen);
+        retiradas.addAll(solapadas);
+        cambios.lock();
+        try {
+            Version actual = version;
+            List<List<SsTable>> niveles = new ArrayList<>(actual.niveles());
+            niveles.set(nivel, actual.niveles().get(nivel).stream().filter(t -> !retiradas.contains(t)).toList());
+            List<SsTable> nivelDestino = new ArrayList<>(actual.niveles().get(destino).stream()
+                    .filter(t -> !retiradas.contains(t)).toList());
+            nivelDestino.addAll(nuevas);
+            nivelDestino.sort(Comparator.comparingLong(SsTable::minima));
+            niveles.set(destino, List.copyOf(nivelDestino));
+            guardarManifiesto(niveles);
+            version = new Version(actual.activa(), actual.congeladas(), List.copyOf(niveles));
+        } finally {
+            cambios.unlock();
+        }
+        punteros[nivel] = hasta;
+        compactaciones.incrementAndGet();
+        bytesCompactados.addAndGet(bytes(origen) + bytes(solapadas));
+        retirar(retiradas);
+    }
+
+    // Espera a que ninguna lectura los use y los borra
+    private void retirar(Collection<SsTable> tablas) throws IOException {
+        ficheros.writeLock().lock();
+        try {
+            for (SsTable tabla : tablas) {
+                tabla.close();
+                Files.deleteIfExists(tabla.fichero());
+            }
+        } finally {
+            ficheros.writeLock().unlock();
+        }
+    }
+
+    // Escribe las entradas en SSTables de hasta maxBytes (las claves llegan ordenadas)
+    private List<SsTable> escribirTablas(Iterator<SsTable.Entrada> entradas, boolean sinBorrados, long maxBytes)
+            throws IOException {
+        List<SsTable> tablas = new ArrayList<>();
+        SsTable.Escritor escritor = null;
+        Path fichero = null;
+        try {
+            while (entradas.hasNext()) {
+                SsTable.Entrada entrada = entradas.next();
+                if (sinBorrados && entrada.valor().length == 0) {
+                    continue;
+                }
+                if (escritor == null) {
+                    long numero = siguiente.getAndIncrement();
+                    fichero = directorio.resolve(nombre(numero, ".sst"));
+                    escritor = new SsTable.Escritor(numero, fichero, opciones.bloqueBytes(), opciones.bitsPorClave());
+                }
+                escritor.anadir(entrada.clave(), entrada.valor());
+                if (escritor.bytes() >= maxBytes) {
+                    tablas.add(escritor.terminar());
+                    escritor = null;
+                }
+            }
+            if (escritor != null) {
+                tablas.add(escritor.terminar());
+            }
+            return tablas;
+        } catch (IOException | RuntimeException e) {
+            if (escritor != null) {
+                escritor.close();
+                Files.deleteIfExists(fichero);
+            }
+            for (SsTable tabla : tablas) {
+                tabla.close();
+                Files.deleteIfExists(tabla.fichero());
+            }
+            throw e;
+        }
+    }
+
+    private byte[] buscar(Version v, long clave) {
+        byte[] valor = v.activa().datos.get(clave);
+        if (valor != null) {
+            return valor;
+        }
+        for (Memtable memtable : v.congeladas()) {
+            valor = memtable.datos.get(clave);
+            if (valor != null) {
+                return valor;
+            }
+        }
+        for (SsTable tabla : v.niveles().get(0)) {
+            valor = tabla.get(clave, bloquesLeidos, descartesFiltro);
+            if (valor != null) {
+                return valor;
+            }
+        }
+        for (int n = 1; n < v.niveles().size(); n++) {
+            SsTable tabla = ficheroCon(v.niveles().get(n), clave);
+            if (tabla != null) {
+                valor = tabla.get(clave, bloquesLeidos, descartesFiltro);
+                if (valor != null) {
+                    return valor;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Búsqueda binaria del único fichero del nivel (1+) que puede tener la clave
+    private static SsTable ficheroCon(List<SsTable> nivel, long clave) {
+        int bajo = 0;
+        int alto = nivel.size() - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            SsTable tabla = nivel.get(medio);
+            if (tabla.maxima() < clave) {
+                bajo = medio + 1;
+            } else if (tabla.minima() > clave) {
+                alto = medio - 1;
+            } else {
+                return tabla;
+            }
+        }
+        return null;
+    }
+
+    // De la más reciente a la más antigua: ante claves repetidas gana la primera
+    private static List<Iterator<SsTable.Entrada>> fuentes(Version v) {
+        List<Iterator<SsTable.Entrada>> fuentes = new ArrayList<>();
+        fuentes.add(fuente(v.activa()));
+        for (Memtable memtable : v.congeladas()) {
+            fuentes.add(fuente(memtable));
+        }
+        for (SsTable tabla : v.niveles().get(0)) {
+            fuentes.add(tabla.iterador());
+        }
+        for (int n = 1; n < v.niveles().size(); n++) {
+            fuentes.add(concatenar(v.niveles().get(n)));
+        }
+        return fuentes;
+    }
+
+    private static Iterator<SsTable.Entrada> fuente(Memtable memtable) {
+        return memtable.datos.entrySet().stream()
+                .map(e -> new SsTable.Entrada(e.getKey(), e.getValue()))
+                .iterator();
+    }
+
+    // Los ficheros de un nivel 1+ uno detrás de otro (no se solapan y están ordenados)
+    private static Iterator<SsTable.Entrada> concatenar(List<SsTable> tablas) {
+        return new Iterator<>() {
+            private int siguienteTabla;
+            private Iterator<SsTable.Entrada> actual = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!actual.hasNext() && siguienteTabla < tablas.size()) {
+                    actual = tablas.get(siguienteTabla++).iterador();
+                }
+                return actual.hasNext();
+            }
+
+            @Override
+            public SsTable.Entrada next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return actual.next();
+            }
+        };
+    }
+
+    private record Cabeza(SsTable.Entrada entrada, int prioridad, Iterator<SsTable.Entrada> resto) {
+    }
+
+    /**
+     * Mezcla ordenada de varias fuentes ordenadas; con claves repetidas se queda la de la
+     * fuente con menor índice (la más reciente)
+     */
+    static Iterator<SsTable.Entrada> fusionar(List<Iterator<SsTable.Entrada>> fuentes) {
+        PriorityQueue<Cabeza> cola = new PriorityQueue<>(Comparator
+                .comparingLong((Cabeza c) -> c.entrada().clave())
+                .thenComparingInt(Cabeza::prioridad));
+        for (int i = 0; i < fuentes.size(); i++) {
+            Iterator<SsTable.Entrada> fuente = fuentes.get(i);
+            if (fuente.hasNext()) {
+                cola.add(new Cabeza(fuente.next(), i, fuente));
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !cola.isEmpty();
+            }
+
+            @Override
+            public SsTable.Entrada next() {
+                Cabeza cabeza = cola.poll();
+                if (cabeza == null) {
+                    throw new NoSuchElementException();
+                }
+                avanzar(cabeza);
+                while (!cola.isEmpty() && cola.peek().entrada().clave() == cabeza.entrada().clave()) {
+                    avanzar(cola.poll());
+                }
+                return cabeza.entrada();
+            }
+
+            private void avanzar(Cabeza cabeza) {
+                if (cabeza.resto().hasNext()) {
+                    cola.add(new Cabeza(cabeza.resto().next(), cabeza.prioridad(), cabeza.resto()));
+                }
+            }
+        };
+    }
+
+    private int nivelDesbordado(Version v) {
+        for (int n = 1; n < NIVELES - 1; n++) {
+            if (bytes(v.niveles().get(n)) > limite(n)) {
+                return n;
+            }
+        }
+        return -1;
+    }
+
+    private SsTable siguienteFichero(List<SsTable> nivel, int n) {
+        for (SsTable tabla : nivel) {
+            if (tabla.minima() > punteros[n]) {
+                return tabla;
+            }
+        }
+        return nivel.get(0);
+    }
+
+    private long limite(int nivel) {
+        long limite = opciones.nivel1Bytes();
+        for (int n = 1; n < nivel; n++) {
+            limite *= opciones.factorNiveles();
+        }
+        return limite;
+    }
+
+    private static long bytes(List<SsTable> tablas) {
+        return tablas.stream().mapToLong(SsTable::bytes).sum();
+    }
+
+    // Manifiesto: "siguiente N" y una línea "nivel número" por SSTable
+    private void guardarManifiesto(List<List<SsTable>> niveles) throws IOException {
+        List<String> lineas = new ArrayList<>();
+        lineas.add("siguiente " + siguiente.get());
+        for (int n = 0; n < niveles.size(); n++) {
+            for (SsTable tabla : niveles.get(n)) {
+                lineas.add(n + " " + tabla.numero());
+            }
+        }
+        Path temporal = directorio.resolve(MANIFIESTO + ".tmp");
+        Files.write(temporal, lineas);
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+            canal.force(true);
+        }
+        Files.move(temporal, directorio.resolve(MANIFIESTO), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private List<List<SsTable>> leerManifiesto() throws IOException {
+        List<List<SsTable>> niveles = new ArrayList<>();
+        for (int n = 0; n < NIVELES; n++) {
+            niveles.add(new ArrayList<>());
+        }
+        Path manifiesto = directorio.resolve(MANIFIESTO);
+        if (Files.exists(manifiesto)) {
+            for (String linea : Files.readAllLines(manifiesto)) {
+                String[] partes = linea.trim().split(" ");
+                if (partes.length != 2) {
+                    continue;
+                }
+                if (partes[0].equals("siguiente")) {
+                    siguiente.accumulateAndGet(Long.parseLong(partes[1]), Math::max);
+                } else {
+                    long numero = Long.parseLong(partes[1]);
+                    niveles.get(Integer.parseInt(partes[0])).add(SsTable.abrir(numero, directorio.resolve(nombre(numero, ".sst"))));
+                }
+            }
+        }
+        // Nivel 0: del más reciente (número mayor) al más antiguo; el resto por clave
+        niveles.get(0).sort(Comparator.comparingLong(SsTable::numero).reversed());
+        for (int n = 1; n < NIVELES; n++) {
+            niveles.get(n).sort(Comparator.comparingLong(SsTable::minima));
+        }
+        List<List<SsTable>> inmutables = new ArrayList<>();
+        for (List<SsTable> nivel : niveles) {
+            inmutables.add(List.copyOf(nivel));
+        }
+        return List.copyOf(inmutables);
+    }
+
+    // Memtables de los registros que quedaron sin volcar, de la más reciente a la más antigua
+    private List<Memtable> recuperarLogs() throws IOException {
+        List<Path> logs;
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            logs = ficheros.filter(f -> f.getFileName().toString().endsWith(".log"))
+                    .sorted(Comparator.comparingLong(LsmStore::numero))
+                    .toList();
+        }
+        List<Memtable> congeladas = new ArrayList<>();
+        for (Path log : logs) {
+            siguiente.accumulateAndGet(numero(log) + 1, Math::max);
+            Memtable memtable = new Memtable(new WriteAheadLog(log, false));
+            int registros = WriteAheadLog.reproducir(log, memtable::poner);
+            if (registros == 0) {
+                memtable.log.borrar();
+            } else {
+                congeladas.add(0, memtable);
+                System.out.println("Almacén LSM " + directorio + ": " + registros + " escrituras recuperadas de " + log.getFileName());
+            }
+        }
+        return List.copyOf(congeladas);
+    }
+
+    private void borrarHuerfanos(List<List<SsTable>> niveles) throws IOException {
+        Set<Path> vivos = new HashSet<>();
+        for (List<SsTable> nivel : niveles) {
+            for (SsTable tabla : nivel) {
+                vivos.add(tabla.fichero());
+            }
+        }
+        try (Stream<Path> ficheros = Files.list(directorio)) {
+            for (Path fichero : ficheros.toList()) {
+                String nombre = fichero.getFileName().toString();
+                if (nombre.endsWith(".sst")) {
+                    siguiente.accumulateAndGet(numero(fichero) + 1, Math::max);
+                    if (!vivos.contains(fichero)) {
+                        Files.deleteIfExists(fichero);
+                    }
+                } else if (nombre.endsWith(".tmp")) {
+                    Files.deleteIfExists(fichero);
+                }
+            }
+        }
+    }
+
+    private Path nuevoFichero(String extension) {
+        return directorio.resolve(nombre(siguiente.getAndIncrement(), extension));
+    }
+
+    private static String nombre(long numero, String extension) {
+        return String.format("%06d%s", numero, extension);
+    }
+
+    private static long numero(Path fichero) {
+        String nombre = fichero.getFileName().toString();
+        return Long.parseLong(nombre.substring(0, nombre.indexOf('.')));
+    }
+
+    private byte[] serializar(T valor) {
+        try {
+            return escritor.writeValueAsBytes(valor);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo serializar la entidad " + id.applyAsLong(valor), e);
+        }
+    }
+
+    private T deserializar(byte[] valor) {
+        try {
+            return lector.readValue(valor);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer una entidad del almacén LSM", e);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.soporte_tecnico.lsm;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fichero inmutable de entradas ordenadas por clave (SSTable)
+ *
+ * Formato: bloques de datos de unos {@code bloqueBytes} con entradas [long clave][int longitud]
+ * [bytes] en orden de clave (longitud 0 = borrado); después el índice disperso, con una
+ * entrada [long primera clave][long posición][int longitud] por bloque; después el filtro de
+ * Bloom de todas las claves; y al final un pie de tamaño fijo con dónde empieza cada parte,
+ * la clave mínima y máxima y el número de entradas.
+ *
+ * Al abrirlo sólo se cargan en memoria el índice y el filtro: buscar una clave cuesta como
+ * mucho leer un bloque, y ninguno si el filtro dice que no está.
+ */
+final class SsTable implements Closeable {
+
+    private static final int MAGIA = 0x4c534d31; // "LSM1"
+    private static final int PIE = 8 + 4 + 8 + 4 + 4 + 8 + 8 + 8 + 4;
+
+    private final long numero;
+    private final Path fichero;
+    private final FileChannel canal;
+    private final long[] primeras;
+    private final long[] posiciones;
+    private final int[] longitudes;
+    private final BloomFilter filtro;
+    private final long minima;
+    private final long maxima;
+    private final long entradas;
+    private final long bytes;
+
+    private SsTable(long numero, Path fichero, FileChannel canal, long[] primeras, long[] posiciones,
+                    int[] longitudes, BloomFilter filtro, long minima, long maxima, long entradas, long bytes) {
+        this.numero = numero;
+        this.fichero = fichero;
+        this.canal = canal;
+        this.primeras = primeras;
+        this.posiciones = posiciones;
+        this.longitudes = longitudes;
+        this.filtro = filtro;
+        this.minima = minima;
+        this.maxima = maxima;
+        this.entradas = entradas;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Abre un fichero ya escrito (lee el pie, el índice y el filtro)
+     */
+    static SsTable abrir(long numero, Path fichero) throws IOException {
+        FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ);
+        try {
+            long tamano = canal.size();
+            if (tamano < PIE) {
+                throw new IOException("SSTable truncada: " + fichero);
+            }
+            ByteBuffer pie = leer(canal, tamano - PIE, PIE);
+            long indice = pie.getLong();
+            int bloques = pie.getInt();
+            long posicionFiltro = pie.getLong();
+            int palabras = pie.getInt();
+            int funciones = pie.getInt();
+            long minima = pie.getLong();
+            long maxima = pie.getLong();
+            long entradas = pie.getLong();
+            if (pie.getInt() != MAGIA) {
+                throw new IOException("No es una SSTable: " + fichero);
+            }
+
+            ByteBuffer datosIndice = leer(canal, indice, bloques * 20);
+            long[] primeras = new long[bloques];
+            long[] posiciones = new long[bloques];
+            int[] longitudes = new int[bloques];
+            for (int i = 0; i < bloques; i++) {
+                primeras[i] = datosIndice.getLong();
+                posiciones[i] = datosIndice.getLong();
+                longitudes[i] = datosIndice.getInt();
+            }
+            long[] bits = new long[palabras];
+            leer(canal, posicionFiltro, palabras * 8).asLongBuffer().get(bits);
+            return new SsTable(numero, fichero, canal, primeras, posiciones, longitudes,
+                    new BloomFilter(bits, funciones), minima, maxima, entradas, tamano);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    long numero() {
+        return numero;
+    }
+
+    Path fichero() {
+        return fichero;
+    }
+
+    long minima() {
+        return minima;
+    }
+
+    long maxima() {
+        return maxima;
+    }
+
+    long entradas() {
+        return entradas;
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    boolean solapa(long desde, long hasta) {
+        return minima <= hasta && maxima >= desde;
+    }
+
+    /**
+     * Valor de la clave: null si el fichero no la tiene, vacío si la borró
+     * @param lecturas Contador de bloques leídos de disco
+     * @param descartes Contador de búsquedas resueltas por el filtro sin leer nada
+     */
+    byte[] get(long clave, AtomicLong lecturas, AtomicLong descartes) {
+        if (clave < minima || clave > maxima) {
+            return null;
+        }
+        if (!filtro.puedeContener(clave)) {
+            descartes.incrementAndGet();
+            return null;
+        }
+        int bloque = Arrays.binarySearch(primeras, clave);
+        if (bloque < 0) {
+            bloque = -bloque - 2; // el bloque cuya primera clave es la mayor <= clave
+        }
+        lecturas.incrementAndGet();
+        ByteBuffer datos = bloque(bloque);
+        while (datos.hasRemaining()) {
+            long actual = datos.getLong();
+            int longitud = datos.getInt();
+            if (actual == clave) {
+                byte[] valor = new byte[longitud];
+                datos.get(valor);
+                return valor;
+            }
+            if (actual > clave) {
+                return null;
+            }
+            datos.position(datos.position() + longitud);
+        }
+        return null;
+    }
+
+    /**
+     * Recorre todas las entradas en orden de clave, un bloque cada vez
+     */
+    Iterator<Entrada> iterador() {
+        return new Iterator<>() {
+            private int siguienteBloque;
+            private ByteBuffer datos = ByteBuffer.allocate(0);
+
+            @Override
+            public boolean hasNext() {
+                while (!datos.hasRemaining() && siguienteBloque < primeras.length) {
+                    datos = bloque(siguienteBloque++);
+                }
+                return datos.hasRemaining();
+            }
+
+            @Override
+            public Entrada next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long clave = datos.getLong();
+                byte[] valor = new byte[datos.getInt()];
+                datos.get(valor);
+                return new Entrada(clave, valor);
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    private ByteBuffer bloque(int i) {
+        try {
+            return leer(canal, posiciones[i], longitudes[i]);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer " + fichero, e);
+        }
+    }
+
+    private static ByteBuffer leer(FileChannel canal, long posicion, int longitud) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(longitud);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicion + buffer.position()) < 0) {
+                throw new IOException("Fin de fichero inesperado");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Escribe una SSTable nueva; las claves deben llegar en orden creciente y sin repetir
+     */
+    static final class Escritor implements Closeable {
+
+        private final long numero;
+        private final Path fichero;
+        private final FileChannel canal;
+        private final DataOutputStream salida;
+        private final int bloqueBytes;
+        private final int bitsPorClave;
+
+        private long[] claves = new long[1024];
+        private int numClaves;
+        private long[] primeras = new long[64];
+        private long[] posiciones = new long[64];
+        private int[] longitudes = new int[64];
+        private int bloques;
+        private long posicion;
+        private long inicioBloque;
+
+        Escritor(long numero, Path fichero, int bloqueBytes, int bitsPorClave) throws IOException {
+            this.numero = numero;
+            this.fichero = fichero;
+            this.canal = FileChannel.open(fichero, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            this.salida = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal), 64 * 1024));
+            this.bloqueBytes = bloqueBytes;
+            this.bitsPorClave = bitsPorClave;
+        }
+
+        void anadir(long clave, byte[] valor) throws IOException {
+            if (numClaves > 0 && clave <= claves[numClaves - 1]) {
+                throw new IllegalArgumentException("Claves desordenadas: " + clave);
+            }
+            if (posicion == inicioBloque) {
+                if (bloques == primeras.length) {
+                    primeras = Arrays.copyOf(primeras, bloques * 2);
+                    posiciones = Arrays.copyOf(posiciones, bloques * 2);
+                    longitudes = Arrays.copyOf(longitudes, bloques * 2);
+                }
+                primeras[bloques] = clave;
+                posiciones[bloques] = posicion;
+            }
+            salida.writeLong(clave);
+            salida.writeInt(valor.length);
+            salida.write(valor);
+            posicion += 12 + valor.length;
+            if (numClaves == claves.length) {
+                claves = Arrays.copyOf(claves, numClaves * 2);
+            }
+            claves[numClaves++] = clave;
+            if (posicion - inicioBloque >= bloqueBytes) {
+                cerrarBloque();
+            }
+        }
+
+        /**
+         * Bytes escritos hasta ahora (sin índice ni filtro)
+         */
+        long bytes() {
+            return posicion;
+        }
+
+        boolean vacio() {
+            return numClaves == 0;
+        }
+
+        /**
+         * Escribe índice, filtro y pie, sincroniza con el disco y abre el fichero para leer
+         */
+        SsTable terminar() throws IOException {
+            if (posicion > inicioBloque) {
+                cerrarBloque();
+            }
+            long indice = posicion;
+            for (int i = 0; i < bloques; i++) {
+                salida.writeLong(primeras[i]);
+                salida.writeLong(posiciones[i]);
+                salida.writeInt(longitudes[i]);
+            }
+            long posicionFiltro = indice + bloques * 20L;
+            BloomFilter filtro = BloomFilter.paraClaves(numClaves, bitsPorClave);
+            for (int i = 0; i < numClaves; i++) {
+                filtro.anadir(claves[i]);
+            }
+            for (long palabra : filtro.bits()) {
+                salida.writeLong(palabra);
+            }
+            salida.writeLong(indice);
+            salida.writeInt(bloques);
+            salida.writeLong(posicionFiltro);
+            salida.writeInt(filtro.bits().length);
+            salida.writeInt(filtro.funciones());
+            salida.writeLong(numClaves > 0 ? claves[0] : 0);
+            salida.writeLong(numClaves > 0 ? claves[numClaves - 1] : -1);
+            salida.writeLong(numClaves);
+            salida.writeInt(MAGIA);
+            salida.flush();
+            canal.force(true);
+            close();
+            return abrir(numero, fichero);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (canal.isOpen()) {
+                salida.close();
+            }
+        }
+
+        private void cerrarBloque() {
+            longitudes[bloques] = (int) (posicion - inicioBloque);
+            bloques++;
+            inicioBloque = posicion;
+        }
+    }
+
+    /**
+     * Clave y valor (vacío = borrado)
+     */
+    record Entrada(long clave, byte[] valor) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.soporte_tecnico.lsm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Registro de escrituras de una memtable (write-ahead log)
+ *
+ * Cada escritura se añade al final como [int CRC][long clave][int longitud][bytes] antes de
+ * aplicarse en la memtable; un lote de escrituras va en una sola llamada al sistema. Al
+ * arrancar se reproducen los registros de las memtables que no llegaron a volcarse; la
+ * lectura para en el primer registro incompleto o con CRC incorrecto (una escritura cortada
+ * por una caída). El fichero se borra cuando su memtable ya está en una SSTable.
+ */
+final class WriteAheadLog implements Closeable {
+
+    private static final int CABECERA = 4 + 8 + 4;
+
+    private final Path fichero;
+    private final FileChannel canal;
+    private final boolean sincronizar;
+
+    /**
+     * @param sincronizar Forzar cada escritura al disco (más lento; sin él una caída del
+     *                    sistema operativo puede perder las últimas escrituras)
+     */
+    WriteAheadLog(Path fichero, boolean sincronizar) throws IOException {
+        this.fichero = fichero;
+        this.canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.sincronizar = sincronizar;
+    }
+
+    Path fichero() {
+        return fichero;
+    }
+
+    void anadir(List<SsTable.Entrada> entradas) throws IOException {
+        int total = 0;
+        for (SsTable.Entrada entrada : entradas) {
+            total += CABECERA + entrada.valor().length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        CRC32 crc = new CRC32();
+        for (SsTable.Entrada entrada : entradas) {
+            int inicio = buffer.position();
+            buffer.putInt(0);
+            buffer.putLong(entrada.clave());
+            buffer.putInt(entrada.valor().length);
+            buffer.put(entrada.valor());
+            crc.reset();
+            crc.update(buffer.array(), inicio + 4, CABECERA - 4 + entrada.valor().length);
+            buffer.putInt(inicio, (int) crc.getValue());
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        if (sincronizar) {
+            canal.force(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Cierra y borra el fichero
+     */
+    void borrar() throws IOException {
+        close();
+        Files.deleteIfExists(fichero);
+    }
+
+    /**
+     * Reproduce los registros completos de un fichero en orden
+     * @return Número de registros leídos
+     */
+    static int reproducir(Path fichero, BiConsumer<Long, byte[]> aplicar) throws IOException {
+        ByteBuffer datos = ByteBuffer.wrap(Files.readAllBytes(fichero));
+        CRC32 crc = new CRC32();
+        int registros = 0;
+        while (datos.remaining() >= CABECERA) {
+            int inicio = datos.position();
+            int esperado = datos.getInt();
+            long clave = datos.getLong();
+            int longitud = datos.getInt();
+            if (longitud < 0 || longitud > datos.remaining()) {
+                break;
+            }
+            crc.reset();
+            crc.update(datos.array(), inicio + 4, CABECERA - 4 + longitud);
+            if ((int) crc.getValue() != esperado) {
+                break;
+            }
+            byte[] valor = new byte[longitud];
+            datos.get(valor);
+            aplicar.accept(clave, valor);
+            registros++;
+        }
+        return registros;
+    }
+}
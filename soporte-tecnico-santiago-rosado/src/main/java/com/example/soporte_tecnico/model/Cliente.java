@@ -21,6 +21,9 @@ public class Cliente {
     @NotBlank(message = "El teléfono es obligatorio")
     private String telefono;
 
+    // Versión para control de concurrencia optimista (la asigna el repositorio)
+    private Long version;
+
     // Constructor vacío (OBLIGATORIO para Spring)
     public Cliente() {}
 
@@ -32,6 +35,12 @@ public class Cliente {
         this.telefono = telefono;
     }
 
+    // Constructor de copia (las actualizaciones trabajan sobre una copia, nunca sobre el objeto guardado)
+    public Cliente(Cliente otro) {
+        this(otro.id, otro.nombre, otro.email, otro.telefono);
+        this.version = otro.version;
+    }
+
     // GETTERS Y SETTERS (generar con Alt + Insert)
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -44,4 +53,7 @@ public class Cliente {
 
     public String getTelefono() { return telefono; }
     public void setTelefono(String telefono) { this.telefono = telefono; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
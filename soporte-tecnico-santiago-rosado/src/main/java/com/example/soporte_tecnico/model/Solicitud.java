@@ -6,6 +6,9 @@ import java.time.LocalDateTime;
 
 /**
  * Representa una solicitud de soporte técnico con toda su información
+ *
+ * La solicitud guarda sólo las referencias (clienteId y tecnicoId); el cliente y el técnico
+ * completos se resuelven al leer, así que siempre reflejan los datos actuales.
  */
 public class Solicitud {
     private Long id;
@@ -18,12 +21,17 @@ public class Solicitud {
     @NotBlank(message = "El estado es obligatorio")
     private String estado; // Ej: "PENDIENTE", "EN_PROCESO", "RESUELTO"
 
-    @NotNull(message = "El cliente es obligatorio")
-    private Cliente cliente;
+    // Referencias que se guardan en el repositorio
+    private Long clienteId;
+    private Long tecnicoId;
 
-    @NotNull(message = "El técnico asignado es obligatorio")
+    // Cliente y técnico resueltos a partir de las referencias (sólo en las respuestas)
+    private Cliente cliente;
     private Tecnico tecnico;
 
+    // Versión para control de concurrencia optimista (la asigna el repositorio)
+    private Long version;
+
     // Constructor vacío
     public Solicitud() {}
 
@@ -38,6 +46,14 @@ public class Solicitud {
         this.tecnico = tecnico;
     }
 
+    // Constructor de copia (las actualizaciones trabajan sobre una copia, nunca sobre el objeto guardado)
+    public Solicitud(Solicitud otra) {
+        this(otra.id, otra.descripcion, otra.fechaCreacion, otra.estado, otra.cliente, otra.tecnico);
+        this.clienteId = otra.clienteId;
+        this.tecnicoId = otra.tecnicoId;
+        this.version = otra.version;
+    }
+
     // GETTERS Y SETTERS
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -51,10 +67,22 @@ public class Solicitud {
     public String getEstado() { return estado; }
     public void setEstado(String estado) { this.estado = estado; }
 
+    // Si sólo viene el cliente embebido (p. ej. {"cliente": {"id": 1}}) se usa su ID
+    @NotNull(message = "El cliente es obligatorio")
+    public Long getClienteId() { return clienteId != null ? clienteId : (cliente != null ? cliente.getId() : null); }
+    public void setClienteId(Long clienteId) { this.clienteId = clienteId; }
+
+    @NotNull(message = "El técnico asignado es obligatorio")
+    public Long getTecnicoId() { return tecnicoId != null ? tecnicoId : (tecnico != null ? tecnico.getId() : null); }
+    public void setTecnicoId(Long tecnicoId) { this.tecnicoId = tecnicoId; }
+
     public Cliente getCliente() { return cliente; }
     public void setCliente(Cliente cliente) { this.cliente = cliente; }
 
     public Tecnico getTecnico() { return tecnico; }
     public void setTecnico(Tecnico tecnico) { this.tecnico = tecnico; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
 
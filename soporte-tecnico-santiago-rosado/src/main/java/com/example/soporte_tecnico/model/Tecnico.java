@@ -16,6 +16,9 @@ public class Tecnico {
     @NotBlank(message = "La especialidad es obligatoria")
     private String especialidad;
 
+    // Versión para control de concurrencia optimista (la asigna el repositorio)
+    private Long version;
+
     // Constructor vacío
     public Tecnico() {}
 
@@ -26,6 +29,12 @@ public class Tecnico {
         this.especialidad = especialidad;
     }
 
+    // Constructor de copia (las actualizaciones trabajan sobre una copia, nunca sobre el objeto guardado)
+    public Tecnico(Tecnico otro) {
+        this(otro.id, otro.nombre, otro.especialidad);
+        this.version = otro.version;
+    }
+
     // GETTERS Y SETTERS
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -35,4 +44,7 @@ public class Tecnico {
 
     public String getEspecialidad() { return especialidad; }
     public void setEspecialidad(String especialidad) { this.especialidad = especialidad; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -0,0 +1,46 @@
+package com.example.soporte_tecnico.query;
+
+import com.example.soporte_tecnico.model.Solicitud;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filtro combinado de solicitudes: se cumplen todas las condiciones no nulas
+ * @param estado Estado exacto
+ * @param clienteId Cliente de la solicitud
+ * @param tecnicoId Técnico asignado
+ * @param desde Fecha de creación mínima (incluida)
+ * @param hasta Fecha de creación máxima (excluida)
+ */
+public record FiltroSolicitudes(String estado, Long clienteId, Long tecnicoId,
+                                LocalDateTime desde, LocalDateTime hasta) {
+
+    public FiltroSolicitudes {
+        estado = estado == null || estado.isBlank() ? null : estado.trim();
+    }
+
+    /**
+     * Sin ninguna condición
+     */
+    public boolean vacio() {
+        return estado == null && clienteId == null && tecnicoId == null && !porFecha();
+    }
+
+    public boolean porFecha() {
+        return desde != null || hasta != null;
+    }
+
+    public boolean cumpleFecha(LocalDateTime fecha) {
+        if (!porFecha()) {
+            return true;
+        }
+        return fecha != null && (desde == null || !fecha.isBefore(desde)) && (hasta == null || fecha.isBefore(hasta));
+    }
+
+    public boolean cumple(Solicitud solicitud) {
+        return (estado == null || estado.equals(solicitud.getEstado()))
+                && (clienteId == null || clienteId.equals(solicitud.getClienteId()))
+                && (tecnicoId == null || tecnicoId.equals(solicitud.getTecnicoId()))
+                && cumpleFecha(solicitud.getFechaCreacion());
+    }
+}
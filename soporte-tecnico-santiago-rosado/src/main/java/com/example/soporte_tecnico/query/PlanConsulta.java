@@ -0,0 +1,75 @@
+package com.example.soporte_tecnico.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plan con el que se resolvió un filtro de solicitudes (modo explain)
+ * @param estrategia INDICE (se parte de un índice), RECORRIDO (se recorren todas) o SQL
+ *                   (lo decide la base de datos; su plan va en detalle)
+ * @param indice Índice del que se parte (null si se recorre)
+ * @param estimadas Filas que se esperaba examinar con la estrategia elegida (-1 con SQL)
+ * @param total Solicitudes en memoria al planificar (-1 con SQL)
+ * @param estimaciones Filas estimadas para cada índice aplicable, a partir de sus estadísticas
+ * @param intersecciones Índices que se cruzan con los IDs del índice elegido antes de leer filas
+ * @param filtros Condiciones que se comprueban en cada fila leída
+ * @param examinadas Filas leídas realmente (-1 con SQL)
+ * @param devueltas Filas que cumplen el filtro
+ * @param archivo Si además se recorrió el archivo de solicitudes cerradas (no tiene índices)
+ * @param detalle Plan de la base de datos (sólo con SQL)
+ */
+public record PlanConsulta(String estrategia, String indice, long estimadas, long total,
+                           List<Estimacion> estimaciones, List<String> intersecciones, List<String> filtros,
+                           long examinadas, long devueltas, boolean archivo, String detalle) {
+
+    public static final String INDICE = "INDICE";
+    public static final String RECORRIDO = "RECORRIDO";
+    public static final String SQL = "SQL";
+
+    // Nombres de los índices y condiciones
+    public static final String ESTADO = "estado";
+    public static final String CLIENTE = "cliente";
+    public static final String TECNICO = "tecnico";
+    public static final String FECHA = "fecha";
+
+    /**
+     * @param exacta Si sale de contar el índice (true) o de suponer las fechas repartidas por igual
+     */
+    public record Estimacion(String indice, long filas, boolean exacta) {}
+
+    /**
+     * Recorrido completo sin índices, comprobando todas las condiciones en cada fila
+     */
+    public static PlanConsulta recorrido(FiltroSolicitudes filtro, long total, long devueltas) {
+        return new PlanConsulta(RECORRIDO, null, total, total, List.of(), List.of(), condiciones(filtro),
+                total, devueltas, false, null);
+    }
+
+    /**
+     * El mismo plan con el archivo recorrido y el total final de filas
+     */
+    public PlanConsulta conArchivo(long devueltasConArchivo) {
+        return new PlanConsulta(estrategia, indice, estimadas, total, estimaciones, intersecciones, filtros,
+                examinadas, devueltasConArchivo, true, detalle);
+    }
+
+    /**
+     * Nombres de las condiciones del filtro
+     */
+    public static List<String> condiciones(FiltroSolicitudes filtro) {
+        List<String> condiciones = new ArrayList<>(4);
+        if (filtro.estado() != null) {
+            condiciones.add(ESTADO);
+        }
+        if (filtro.clienteId() != null) {
+            condiciones.add(CLIENTE);
+        }
+        if (filtro.tecnicoId() != null) {
+            condiciones.add(TECNICO);
+        }
+        if (filtro.porFecha()) {
+            condiciones.add(FECHA);
+        }
+        return condiciones;
+    }
+}
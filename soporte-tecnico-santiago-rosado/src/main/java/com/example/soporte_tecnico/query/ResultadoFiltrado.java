@@ -0,0 +1,11 @@
+package com.example.soporte_tecnico.query;
+
+import com.example.soporte_tecnico.model.Solicitud;
+
+import java.util.List;
+
+/**
+ * Solicitudes que cumplen un filtro, ordenadas por ID, y el plan con el que se obtuvieron
+ */
+public record ResultadoFiltrado(List<Solicitud> solicitudes, PlanConsulta plan) {
+}
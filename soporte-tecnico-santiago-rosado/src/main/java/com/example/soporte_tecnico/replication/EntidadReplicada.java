@@ -0,0 +1,49 @@
+package com.example.soporte_tecnico.replication;
+
+import com.example.soporte_tecnico.repository.Replicable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.function.ToLongFunction;
+
+/**
+ * Tipo de entidad replicada: su código en el protocolo, su clase y su repositorio
+ */
+final class EntidadReplicada<T> {
+
+    private final byte codigo;
+    private final Class<T> clase;
+    private final Replicable<T> repositorio;
+    private final ToLongFunction<T> id;
+
+    EntidadReplicada(byte codigo, Class<T> clase, Replicable<T> repositorio, ToLongFunction<T> id) {
+        this.codigo = codigo;
+        this.clase = clase;
+        this.repositorio = repositorio;
+        this.id = id;
+    }
+
+    byte codigo() {
+        return codigo;
+    }
+
+    Replicable<T> repositorio() {
+        return repositorio;
+    }
+
+    long id(T entidad) {
+        return id.applyAsLong(entidad);
+    }
+
+    /**
+     * Anota en el registro cada cambio del repositorio
+     */
+    void observar(MutationLog log) {
+        repositorio.observar((anterior, nuevo) -> log.anotar(codigo,
+                id.applyAsLong(nuevo != null ? nuevo : anterior), nuevo));
+    }
+
+    void aplicar(ObjectMapper mapper, byte[] json) throws IOException {
+        repositorio.aplicar(mapper.readValue(json, clase));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.soporte_tecnico.replication;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Estado de la replicación de esta instancia (GET /api/replicacion/estado)
+ *
+ * En el primario se informa de cada réplica conectada; en una réplica, de su posición
+ * respecto al primario. Los campos que no aplican al modo no se incluyen.
+ *
+ * @param modo NINGUNO, PRIMARIO o REPLICA
+ * @param epoca Ejecución del primario a la que corresponden las secuencias
+ * @param ultimaSecuencia Último cambio anotado (primario) o conocido del primario (réplica)
+ * @param replicas Réplicas conectadas (primario)
+ * @param primario Dirección del primario (réplica)
+ * @param conectada Si la réplica tiene conexión con el primario
+ * @param ultimaAplicada Último cambio aplicado por la réplica
+ * @param retrasoCambios Cambios del primario pendientes de aplicar
+ * @param retrasoMs Antigüedad del cambio pendiente más antiguo, en milisegundos
+ * @param instantaneas Instantáneas cargadas por la réplica
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record EstadoReplicacion(String modo, Long epoca, Long ultimaSecuencia, List<Replica> replicas,
+                                String primario, Boolean conectada, Long ultimaAplicada,
+                                Long retrasoCambios, Long retrasoMs, Integer instantaneas) {
+
+    /**
+     * Una réplica vista desde el primario
+     * @param enviada Último cambio enviado
+     * @param confirmada Último cambio que la réplica confirma haber aplicado
+     */
+    public record Replica(String direccion, long enviada, long confirmada, long retrasoCambios,
+                          long retrasoMs, int instantaneas) {
+    }
+
+    public static EstadoReplicacion ninguno() {
+        return new EstadoReplicacion("NINGUNO", null, null, null, null, null, null, null, null, null);
+    }
+
+    static EstadoReplicacion primario(long epoca, long ultima, List<Replica> replicas) {
+        return new EstadoReplicacion("PRIMARIO", epoca, ultima, replicas, null, null, null, null, null, null);
+    }
+
+    static EstadoReplicacion replica(String primario, boolean conectada, long epoca, long ultimaPrimario,
+                                     long ultimaAplicada, long retrasoMs, int instantaneas) {
+        return new EstadoReplicacion("REPLICA", epoca, ultimaPrimario, null, primario, conectada, ultimaAplicada,
+                Math.max(0, ultimaPrimario - ultimaAplicada), retrasoMs, instantaneas);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.soporte_tecnico.replication;
+
+/**
+ * Registro ordenado de los cambios del primario, en un búfer circular en memoria
+ *
+ * Cada cambio recibe un número de secuencia consecutivo. Al llenarse el búfer se
+ * sobrescriben los más antiguos: una réplica que se quede tan atrás no puede continuar
+ * desde su posición y vuelve a empezar con una instantánea.
+ *
+ * Las escrituras se serializan (son muy cortas: asignar la secuencia y guardar una
+ * referencia); las lecturas no bloquean y detectan por la secuencia si el hueco se reutilizó.
+ */
+final class MutationLog {
+
+    /**
+     * Un cambio: la entidad completa tal como quedó guardada, o null si se eliminó
+     * Las entidades guardadas no se modifican, así que basta con la referencia
+     */
+    record Cambio(long secuencia, long instante, byte tipo, long id, Object entidad) {
+    }
+
+    private final Cambio[] cambios;
+    private final int mascara;
+    private final Runnable alAnotar;
+    private volatile long ultima;
+
+    /**
+     * @param capacidad Cambios que se conservan (se redondea a potencia de dos)
+     * @param alAnotar Se ejecuta tras cada cambio, fuera del bloqueo (despierta al emisor)
+     */
+    MutationLog(int capacidad, Runnable alAnotar) {
+        int n = Integer.highestOneBit(Math.max(2, capacidad) - 1) << 1;
+        this.cambios = new Cambio[n];
+        this.mascara = n - 1;
+        this.alAnotar = alAnotar;
+    }
+
+    long anotar(byte tipo, long id, Object entidad) {
+        long secuencia;
+        synchronized (this) {
+            secuencia = ultima + 1;
+            cambios[(int) (secuencia & mascara)] = new Cambio(secuencia, System.currentTimeMillis(), tipo, id, entidad);
+            ultima = secuencia;
+        }
+        alAnotar.run();
+        return secuencia;
+    }
+
+    /**
+     * Secuencia del último cambio (0 si no hay ninguno)
+     */
+    long ultima() {
+        return ultima;
+    }
+
+    /**
+     * Copia en orden los cambios posteriores a una secuencia
+     * @param desde Última secuencia ya leída
+     * @param destino Array donde se copian (como mucho destino.length cambios)
+     * @return Cambios copiados, o -1 si alguno ya se sobrescribió
+     */
+    int leer(long desde, Cambio[] destino) {
+        long hasta = Math.min(ultima, desde + destino.length);
+        int n = 0;
+        for (long s = desde + 1; s <= hasta; s++) {
+            Cambio cambio = cambios[(int) (s & mascara)];
+            if (cambio == null || cambio.secuencia() != s) {
+                return -1;
+            }
+            destino[n++] = cambio;
+        }
+        return n;
+    }
+
+    /**
+     * El cambio con esa secuencia, o null si no existe o ya se sobrescribió
+     */
+    Cambio buscar(long secuencia) {
+        if (secuencia <= 0 || secuencia > ultima) {
+            return null;
+        }
+        Cambio cambio = cambios[(int) (secuencia & mascara)];
+        return cambio != null && cambio.secuencia() == secuencia ? cambio : null;
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.soporte_tecnico.replication;
+
+import com.example.soporte_tecnico.model.Cliente;
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.model.Tecnico;
+import com.example.soporte_tecnico.repository.Replicable;
+import com.example.soporte_tecnico.service.SolicitudService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lado réplica de la replicación
+ *
+ * Un hilo mantiene la conexión con el primario: se presenta con la última secuencia que
+ * aplicó, carga la instantánea si el primario se la envía y aplica en orden los lotes de
+ * cambios directamente en los repositorios. Tras cada lote confirma su posición, que el
+ * primario usa para medir el retraso. Si la conexión se pierde, reintenta y continúa
+ * desde donde se quedó (o desde una nueva instantánea si el primario ya no la tiene).
+ *
+ * La réplica sólo sirve lecturas: las escrituras las rechaza ReplicaReadOnlyFilter.
+ */
+@Component
+@ConditionalOnProperty(name = "soporte.replicacion.modo", havingValue = "REPLICA")
+public class ReplicaClient {
+
+    private final ReplicationProperties properties;
+    private final ObjectMapper mapper;
+    private final SolicitudService solicitudService;
+    private final Map<Byte, EntidadReplicada<?>> entidades;
+    private final EntidadReplicada<Solicitud> solicitudes;
+
+    private Thread hilo;
+    private volatile boolean activo;
+    private volatile SocketChannel canal;
+
+    // Posición de la réplica; se leen desde estado()
+    private volatile boolean conectada;
+    private volatile long epoca;
+    private volatile long ultimaAplicada = -1;
+    private volatile long instanteUltimaAplicada;
+    private volatile long ultimaPrimario;
+    private volatile long instantePrimario;
+    private volatile int instantaneas;
+
+    // Instantánea en curso (sólo los usa el hilo de replicación)
+    private long epocaInstantanea;
+    private long secuenciaInstantanea;
+    private Set<Long> solicitudesPrevias;
+
+    public ReplicaClient(ReplicationProperties properties, ObjectMapper mapper, SolicitudService solicitudService,
+                         Replicable<Cliente> clientes, Replicable<Tecnico> tecnicos,
+                         Replicable<Solicitud> solicitudes) {
+        this.properties = properties;
+        this.mapper = mapper;
+        this.solicitudService = solicitudService;
+        this.solicitudes = new EntidadReplicada<>(ReplicationProtocol.SOLICITUD, Solicitud.class, solicitudes, Solicitud::getId);
+        this.entidades = Map.of(
+                ReplicationProtocol.CLIENTE, new EntidadReplicada<>(ReplicationProtocol.CLIENTE, Cliente.class, clientes, Cliente::getId),
+                ReplicationProtocol.TECNICO, new EntidadReplicada<>(ReplicationProtocol.TECNICO, Tecnico.class, tecnicos, Tecnico::getId),
+                ReplicationProtocol.SOLICITUD, this.solicitudes);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        activo = true;
+        hilo = new Thread(this::bucle, "replicacion-replica");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        activo = false;
+        SocketChannel actual = canal;
+        if (actual != null) {
+            try {
+                actual.close();
+            } catch (IOException ignorada) {
+                // se está cerrando
+            }
+        }
+        if (hilo != null) {
+            hilo.interrupt();
+            try {
+                hilo.join(2_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Posición y retraso de la réplica respecto al primario
+     */
+    public EstadoReplicacion estado() {
+        long aplicada = Math.max(0, ultimaAplicada);
+        long pendientes = ultimaPrimario - aplicada;
+        long retrasoMs = pendientes > 0 ? Math.max(0, instantePrimario - instanteUltimaAplicada) : 0;
+        return EstadoReplicacion.replica(properties.getPrimario(), conectada, epoca, ultimaPrimario, aplicada,
+                retrasoMs, instantaneas);
+    }
+
+    private void bucle() {
+        InetSocketAddress direccion = direccion(properties.getPrimario());
+        while (activo) {
+            try (SocketChannel conexion = SocketChannel.open()) {
+                canal = conexion;
+                conexion.connect(new InetSocketAddress(direccion.getHostString(), direccion.getPort()));
+                conexion.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                conexion.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(conexion), 1 << 16));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(conexion)));
+                conectada = true;
+                System.out.println("Replicación: conectada al primario " + properties.getPrimario()
+                        + " (última secuencia aplicada " + ultimaAplicada + ")");
+
+                out.writeInt(17);
+                out.writeByte(ReplicationProtocol.HOLA);
+                out.writeLong(epoca);
+                out.writeLong(ultimaAplicada);
+                out.flush();
+
+                while (activo) {
+                    procesarTrama(in, out);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (activo) {
+                    System.out.println("Replicación: sin conexión con el primario " + properties.getPrimario()
+                            + " (" + e.getMessage() + "), reintentando");
+                }
+            } finally {
+                conectada = false;
+                canal = null;
+            }
+            try {
+                Thread.sleep(properties.getReintentoMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void procesarTrama(DataInputStream in, DataOutputStream out) throws IOException {
+        int longitud = in.readInt();
+        if (longitud < 1 || longitud > ReplicationProtocol.MAX_TRAMA) {
+            throw new IOException("trama no válida del primario: longitud " + longitud);
+        }
+        byte tipo = in.readByte();
+        switch (tipo) {
+            case ReplicationProtocol.INSTANTANEA_INICIO -> empezarInstantanea(in.readLong(), in.readLong());
+            case ReplicationProtocol.INSTANTANEA_DATOS -> cargarInstantanea(in);
+            case ReplicationProtocol.INSTANTANEA_FIN -> terminarInstantanea(out);
+            case ReplicationProtocol.LOTE -> aplicarLote(in, out);
+            case ReplicationProtocol.LATIDO -> {
+                ultimaPrimario = in.readLong();
+                instantePrimario = in.readLong();
+            }
+            default -> in.skipNBytes(longitud - 1);
+        }
+    }
+
+    private void empezarInstantanea(long epocaPrimario, long desde) {
+        // Hasta que termine la carga la réplica no tiene una posición válida
+        ultimaAplicada = -1;
+        epoca = 0;
+        epocaInstantanea = epocaPrimario;
+        secuenciaInstantanea = desde;
+        solicitudesPrevias = new HashSet<>();
+        for (Solicitud solicitud : solicitudes.repositorio().instantanea()) {
+            solicitudesPrevias.add(solicitud.getId());
+        }
+        for (EntidadReplicada<?> entidad : entidades.values()) {
+            entidad.repositorio().vaciar();
+        }
+        System.out.println("Replicación: cargando instantánea del primario (secuencia " + desde + ")");
+    }
+
+    private void cargarInstantanea(DataInputStream in) throws IOException {
+        EntidadReplicada<?> entidad = entidad(in.readByte());
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            entidad.aplicar(mapper, leerBytes(in));
+        }
+    }
+
+    private void terminarInstantanea(DataOutputStream out) throws IOException {
+        // El índice de texto de las solicitudes se rehace con las nuevas y sin las que ya no están
+        for (Solicitud solicitud : solicitudes.repositorio().instantanea()) {
+            solicitudesPrevias.add(solicitud.getId());
+        }
+        for (Long id : solicitudesPrevias) {
+            solicitudService.sincronizar(id, false);
+        }
+        solicitudesPrevias = null;
+        epoca = epocaInstantanea;
+        ultimaAplicada = secuenciaInstantanea;
+        instanteUltimaAplicada = System.currentTimeMillis();
+        instantaneas++;
+        confirmar(out);
+        System.out.println("Replicación: instantánea cargada hasta la secuencia " + secuenciaInstantanea);
+    }
+
+    private void aplicarLote(DataInputStream in, DataOutputStream out) throws IOException {
+        ultimaPrimario = in.readLong();
+        instantePrimario = in.readLong();
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            long secuencia = in.readLong();
+            long instante = in.readLong();
+            EntidadReplicada<?> entidad = entidad(in.readByte());
+            long id = in.readLong();
+            int longitud = in.readInt();
+            byte[] json = longitud >= 0 ? in.readNBytes(longitud) : null;
+            if (secuencia <= ultimaAplicada) {
+                continue; // ya incluido en la instantánea o en un lote anterior
+            }
+            if (json == null) {
+                entidad.repositorio().descartar(id);
+            } else {
+                entidad.aplicar(mapper, json);
+            }
+            if (entidad == solicitudes) {
+                solicitudService.sincronizar(id, true);
+            }
+            ultimaAplicada = secuencia;
+            instanteUltimaAplicada = instante;
+        }
+        confirmar(out);
+    }
+
+    private void confirmar(DataOutputStream out) throws IOException {
+        out.writeInt(9);
+        out.writeByte(ReplicationProtocol.CONFIRMACION);
+        out.writeLong(ultimaAplicada);
+        out.flush();
+    }
+
+    private EntidadReplicada<?> entidad(byte codigo) throws IOException {
+        EntidadReplicada<?> entidad = entidades.get(codigo);
+        if (entidad == null) {
+            throw new IOException("tipo de entidad desconocido: " + codigo);
+        }
+        return entidad;
+    }
+
+    private static byte[] leerBytes(DataInputStream in) throws IOException {
+        int longitud = in.readInt();
+        if (longitud < 0 || longitud > ReplicationProtocol.MAX_TRAMA) {
+            throw new IOException("longitud de entidad no válida: " + longitud);
+        }
+        return in.readNBytes(longitud);
+    }
+
+    private static InetSocketAddress direccion(String primario) {
+        int separador = primario.lastIndexOf(':');
+        if (separador <= 0) {
+            throw new IllegalArgumentException("soporte.replicacion.primario debe ser host:puerto: " + primario);
+        }
+        return InetSocketAddress.createUnresolved(primario.substring(0, separador),
+                Integer.parseInt(primario.substring(separador + 1)));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.soporte_tecnico.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * En una réplica, rechaza con 503 las escrituras sobre /api/**: el estado lo decide el
+ * primario y un cambio local se perdería con el siguiente lote o instantánea
+ */
+@Component
+@ConditionalOnProperty(name = "soporte.replicacion.modo", havingValue = "REPLICA")
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class ReplicaReadOnlyFilter extends OncePerRequestFilter {
+
+    private static final Set<String> LECTURAS = Set.of("GET", "HEAD", "OPTIONS");
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return LECTURAS.contains(request.getMethod()) || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        String cuerpo = "{\"timestamp\":\"" + LocalDateTime.now() + "\",\"status\":503," +
+                "\"error\":\"Service Unavailable\",\"message\":\"Instancia réplica de solo lectura: " +
+                "las escrituras se hacen en el primario\"," +
+                "\"path\":\"" + request.getRequestURI().replace("\"", "") + "\"}";
+        response.getOutputStream().write(cuerpo.getBytes(StandardCharsets.UTF_8));
+    }
+}
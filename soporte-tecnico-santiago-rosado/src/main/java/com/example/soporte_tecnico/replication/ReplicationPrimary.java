@@ -0,0 +1,415 @@
+package com.example.soporte_tecnico.replication;
+
+import com.example.soporte_tecnico.model.Cliente;
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.model.Tecnico;
+import com.example.soporte_tecnico.repository.Replicable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lado primario de la replicación
+ *
+ * Anota en un registro ordenado cada cambio de los repositorios (clientes, técnicos y
+ * solicitudes) y lo envía a las réplicas conectadas por TCP. Un único hilo con un Selector
+ * NIO atiende a todas: agrupa los cambios en lotes y los encadena sin esperar confirmación
+ * mientras el socket admita datos, así que una réplica lenta no frena a las demás ni a las
+ * escrituras. Una réplica nueva, o demasiado atrasada para el registro, recibe primero una
+ * instantánea de los repositorios y después los cambios posteriores.
+ */
+@Component
+@ConditionalOnProperty(name = "soporte.replicacion.modo", havingValue = "PRIMARIO")
+public class ReplicationPrimary {
+
+    private static final int ENTIDADES_POR_TRAMA = 1_000;
+    private static final int MAX_PENDIENTE = 1 << 20;
+    private static final long LATIDO_MS = 1_000;
+
+    private final ReplicationProperties properties;
+    private final ObjectMapper mapper;
+    private final List<EntidadReplicada<?>> entidades;
+    private final MutationLog log;
+    private final MutationLog.Cambio[] lote;
+
+    // Identifica esta ejecución: las secuencias de otra ejecución no son comparables
+    private final long epoca = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+
+    private final Selector selector;
+    private final AtomicBoolean despertado = new AtomicBoolean();
+    private final List<Conexion> conexiones = new CopyOnWriteArrayList<>();
+    private ServerSocketChannel servidor;
+    private Thread hilo;
+    private volatile boolean activo;
+
+    public ReplicationPrimary(ReplicationProperties properties, ObjectMapper mapper,
+                              Replicable<Cliente> clientes, Replicable<Tecnico> tecnicos,
+                              Replicable<Solicitud> solicitudes) throws IOException {
+        this.properties = properties;
+        this.mapper = mapper;
+        this.entidades = List.of(
+                new EntidadReplicada<>(ReplicationProtocol.CLIENTE, Cliente.class, clientes, Cliente::getId),
+                new EntidadReplicada<>(ReplicationProtocol.TECNICO, Tecnico.class, tecnicos, Tecnico::getId),
+                new EntidadReplicada<>(ReplicationProtocol.SOLICITUD, Solicitud.class, solicitudes, Solicitud::getId));
+        this.log = new MutationLog(properties.getCapacidadLog(), this::despertar);
+        this.lote = new MutationLog.Cambio[Math.max(1, properties.getLote())];
+        this.selector = Selector.open();
+        for (EntidadReplicada<?> entidad : entidades) {
+            entidad.observar(log);
+        }
+    }
+
+    @PostConstruct
+    public void iniciar() throws IOException {
+        servidor = ServerSocketChannel.open();
+        servidor.bind(new InetSocketAddress(properties.getPuerto()));
+        servidor.configureBlocking(false);
+        servidor.register(selector, SelectionKey.OP_ACCEPT);
+        activo = true;
+        hilo = new Thread(this::bucle, "replicacion-primario");
+        hilo.setDaemon(true);
+        hilo.start();
+        System.out.println("Replicación: primario escuchando en el puerto " + puerto());
+    }
+
+    @PreDestroy
+    public void cerrar() throws IOException {
+        activo = false;
+        selector.wakeup();
+        try {
+            if (hilo != null) {
+                hilo.join(2_000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Conexion conexion : conexiones) {
+            conexion.canal.close();
+        }
+        if (servidor != null) {
+            servidor.close();
+        }
+        selector.close();
+    }
+
+    /**
+     * Puerto TCP en el que se atiende a las réplicas
+     */
+    public int puerto() {
+        return servidor.socket().getLocalPort();
+    }
+
+    /**
+     * Estado del primario y retraso de cada réplica conectada
+     */
+    public EstadoReplicacion estado() {
+        long ultima = log.ultima();
+        long ahora = System.currentTimeMillis();
+        List<EstadoReplicacion.Replica> replicas = new ArrayList<>();
+        for (Conexion conexion : conexiones) {
+            long confirmada = conexion.confirmada;
+            long retrasoMs = 0;
+            if (confirmada < ultima) {
+                // Antigüedad del cambio más antiguo que la réplica todavía no ha confirmado
+                MutationLog.Cambio pendiente = log.buscar(Math.max(1, confirmada + 1));
+                retrasoMs = pendiente != null ? ahora - pendiente.instante() : ahora - conexion.instanteConfirmacion;
+            }
+            replicas.add(new EstadoReplicacion.Replica(conexion.direccion, conexion.enviada, confirmada,
+                    Math.max(0, ultima - confirmada), retrasoMs, conexion.instantaneas));
+        }
+        return EstadoReplicacion.primario(epoca, ultima, replicas);
+    }
+
+    private void despertar() {
+        // Un solo wakeup por vuelta del selector, no uno por cambio
+        if (despertado.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    private void bucle() {
+        while (activo) {
+            try {
+                selector.select(LATIDO_MS / 2);
+                despertado.set(false);
+                Iterator<SelectionKey> claves = selector.selectedKeys().iterator();
+                while (claves.hasNext()) {
+                    SelectionKey clave = claves.next();
+                    claves.remove();
+                    if (!clave.isValid()) {
+                        continue;
+                    }
+                    if (clave.isAcceptable()) {
+                        aceptar();
+                    } else if (clave.isReadable()) {
+                        Conexion conexion = (Conexion) clave.attachment();
+                        try {
+                            leer(conexion);
+                        } catch (IOException | RuntimeException e) {
+                            desconectar(conexion, e);
+                        }
+                    }
+                }
+                long ahora = System.currentTimeMillis();
+                for (Conexion conexion : conexiones) {
+                    try {
+                        enviar(conexion, ahora);
+                    } catch (IOException | RuntimeException e) {
+                        desconectar(conexion, e);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                if (activo) {
+                    System.out.println("Replicación: error en el primario: " + e);
+                }
+            }
+        }
+    }
+
+    private void aceptar() throws IOException {
+        SocketChannel canal = servidor.accept();
+        if (canal == null) {
+            return;
+        }
+        canal.configureBlocking(false);
+        canal.socket().setTcpNoDelay(true);
+        Conexion conexion = new Conexion(canal, String.valueOf(canal.getRemoteAddress()));
+        conexion.clave = canal.register(selector, SelectionKey.OP_READ, conexion);
+        conexiones.add(conexion);
+        System.out.println("Replicación: réplica conectada desde " + conexion.direccion);
+    }
+
+    private void desconectar(Conexion conexion, Exception causa) {
+        conexiones.remove(conexion);
+        conexion.clave.cancel();
+        try {
+            conexion.canal.close();
+        } catch (IOException ignorada) {
+            // ya está cerrada
+        }
+        System.out.println("Replicación: réplica " + conexion.direccion + " desconectada (" + causa.getMessage() + ")");
+    }
+
+    private void leer(Conexion conexion) throws IOException {
+        if (conexion.canal.read(conexion.entrada) < 0) {
+            throw new IOException("conexión cerrada por la réplica");
+        }
+        ByteBuffer entrada = conexion.entrada;
+        entrada.flip();
+        while (entrada.remaining() >= 4) {
+            int longitud = entrada.getInt(entrada.position());
+            if (longitud < 1 || longitud > 64) {
+                throw new IOException("trama no válida de la réplica: longitud " + longitud);
+            }
+            if (entrada.remaining() < 4 + longitud) {
+                break;
+            }
+            entrada.getInt();
+            byte tipo = entrada.get();
+            if (tipo == ReplicationProtocol.HOLA && longitud == 17) {
+                long epocaReplica = entrada.getLong();
+                long aplicada = entrada.getLong();
+                iniciarEnvio(conexion, epocaReplica, aplicada);
+            } else if (tipo == ReplicationProtocol.CONFIRMACION && longitud == 9) {
+                conexion.confirmada = entrada.getLong();
+                conexion.instanteConfirmacion = System.currentTimeMillis();
+            } else {
+                throw new IOException("trama no válida de la réplica: tipo " + tipo);
+            }
+        }
+        entrada.compact();
+    }
+
+    // La réplica continúa desde donde se quedó si es de esta época y el registro aún lo tiene
+    private void iniciarEnvio(Conexion conexion, long epocaReplica, long aplicada) {
+        conexion.iniciada = true;
+        if (epocaReplica == epoca && aplicada >= 0 && aplicada <= log.ultima()
+                && (aplicada == log.ultima() || log.buscar(aplicada + 1) != null)) {
+            conexion.enviada = aplicada;
+            conexion.confirmada = aplicada;
+            System.out.println("Replicación: " + conexion.direccion + " continúa desde la secuencia " + aplicada);
+        } else {
+            empezarInstantanea(conexion);
+        }
+    }
+
+    // Los lotes ya encolados se envían igualmente: la réplica vacía su estado al recibir el inicio.
+    // La secuencia se toma antes de leer los repositorios: los cambios concurrentes llegan
+    // también en los lotes y la réplica descarta los que ya tenga (gana la versión mayor)
+    private void empezarInstantanea(Conexion conexion) {
+        long desde = log.ultima();
+        encolar(conexion, ReplicationProtocol.trama(ReplicationProtocol.INSTANTANEA_INICIO, out -> {
+            out.writeLong(epoca);
+            out.writeLong(desde);
+        }));
+        conexion.instantanea = new Instantanea();
+        conexion.enviada = desde;
+        conexion.instantaneas++;
+        System.out.println("Replicación: enviando instantánea a " + conexion.direccion + " (secuencia " + desde + ")");
+    }
+
+    private void enviar(Conexion conexion, long ahora) throws IOException {
+        if (!conexion.iniciada) {
+            return;
+        }
+        while (conexion.pendiente < MAX_PENDIENTE && producir(conexion, ahora)) {
+            // se sigue llenando la cola de salida
+        }
+        while (!conexion.salida.isEmpty()) {
+            ByteBuffer trama = conexion.salida.peek();
+            conexion.canal.write(trama);
+            if (trama.hasRemaining()) {
+                break;
+            }
+            conexion.salida.poll();
+            conexion.pendiente -= trama.limit();
+        }
+        // Sólo interesa OP_WRITE mientras quede algo que el socket no aceptó
+        int interes = conexion.salida.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+        if (conexion.clave.interestOps() != interes) {
+            conexion.clave.interestOps(interes);
+        }
+    }
+
+    // Pone en cola la siguiente trama para la réplica; false si no hay nada que enviar
+    private boolean producir(Conexion conexion, long ahora) throws IOException {
+        if (conexion.instantanea != null) {
+            ByteBuffer trama = conexion.instantanea.siguiente();
+            if (trama == null) {
+                conexion.instantanea = null;
+                trama = ReplicationProtocol.trama(ReplicationProtocol.INSTANTANEA_FIN, out -> { });
+            }
+            encolar(conexion, trama);
+            return true;
+        }
+
+        int n = log.leer(conexion.enviada, lote);
+        if (n < 0) {
+            // La réplica se quedó más atrás de lo que conserva el registro
+            empezarInstantanea(conexion);
+            return true;
+        }
+        if (n > 0) {
+            encolar(conexion, tramaLote(n, ahora));
+            conexion.enviada = lote[n - 1].secuencia();
+            conexion.ultimoEnvio = ahora;
+            return true;
+        }
+        if (ahora - conexion.ultimoEnvio >= LATIDO_MS) {
+            long ultima = log.ultima();
+            encolar(conexion, ReplicationProtocol.trama(ReplicationProtocol.LATIDO, out -> {
+                out.writeLong(ultima);
+                out.writeLong(ahora);
+            }));
+            conexion.ultimoEnvio = ahora;
+        }
+        return false;
+    }
+
+    private ByteBuffer tramaLote(int n, long ahora) throws IOException {
+        // El JSON se genera aquí, en el hilo de envío, y no al escribir en el repositorio
+        byte[][] json = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            Object entidad = lote[i].entidad();
+            json[i] = entidad != null ? mapper.writeValueAsBytes(entidad) : null;
+        }
+        long ultima = log.ultima();
+        return ReplicationProtocol.trama(ReplicationProtocol.LOTE, out -> {
+            out.writeLong(ultima);
+            out.writeLong(ahora);
+            out.writeInt(n);
+            for (int i = 0; i < n; i++) {
+                MutationLog.Cambio cambio = lote[i];
+                out.writeLong(cambio.secuencia());
+                out.writeLong(cambio.instante());
+                out.writeByte(cambio.tipo());
+                out.writeLong(cambio.id());
+                if (json[i] == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(json[i].length);
+                    out.write(json[i]);
+                }
+            }
+        });
+    }
+
+    private void encolar(Conexion conexion, ByteBuffer trama) {
+        conexion.salida.add(trama);
+        conexion.pendiente += trama.limit();
+    }
+
+    /**
+     * Recorre los repositorios en tramas de como mucho ENTIDADES_POR_TRAMA entidades
+     */
+    private final class Instantanea {
+        private int entidad = -1;
+        private List<?> actual = List.of();
+        private int posicion;
+
+        ByteBuffer siguiente() throws IOException {
+            while (posicion >= actual.size()) {
+                if (++entidad >= entidades.size()) {
+                    return null;
+                }
+                actual = entidades.get(entidad).repositorio().instantanea();
+                posicion = 0;
+            }
+            int hasta = Math.min(actual.size(), posicion + ENTIDADES_POR_TRAMA);
+            List<byte[]> json = new ArrayList<>(hasta - posicion);
+            for (int i = posicion; i < hasta; i++) {
+                json.add(mapper.writeValueAsBytes(actual.get(i)));
+            }
+            posicion = hasta;
+            byte codigo = entidades.get(entidad).codigo();
+            return ReplicationProtocol.trama(ReplicationProtocol.INSTANTANEA_DATOS, out -> {
+                out.writeByte(codigo);
+                out.writeInt(json.size());
+                for (byte[] bytes : json) {
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            });
+        }
+    }
+
+    private static final class Conexion {
+        private final SocketChannel canal;
+        private final String direccion;
+        private final ByteBuffer entrada = ByteBuffer.allocate(1024);
+        private final ArrayDeque<ByteBuffer> salida = new ArrayDeque<>();
+        private SelectionKey clave;
+        private int pendiente;
+        private boolean iniciada;
+        private Instantanea instantanea;
+        private long ultimoEnvio;
+
+        // Se leen desde estado(), en otros hilos
+        private volatile long enviada;
+        private volatile long confirmada;
+        private volatile long instanteConfirmacion = System.currentTimeMillis();
+        private volatile int instantaneas;
+
+        private Conexion(SocketChannel canal, String direccion) {
+            this.canal = canal;
+            this.direccion = direccion;
+        }
+    }
+}
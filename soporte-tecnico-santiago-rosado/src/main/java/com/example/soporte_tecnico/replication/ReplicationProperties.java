@@ -0,0 +1,59 @@
+package com.example.soporte_tecnico.replication;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuración de la replicación primario/réplica (prefijo soporte.replicacion)
+ *
+ * Ejemplo con dos instancias en la misma máquina:
+ * <pre>
+ * # primario
+ * soporte.replicacion.modo=PRIMARIO
+ * soporte.replicacion.puerto=7070
+ * # réplica (otra JVM, otro server.port)
+ * soporte.replicacion.modo=REPLICA
+ * soporte.replicacion.primario=localhost:7070
+ * </pre>
+ */
+@Component
+@ConfigurationProperties(prefix = "soporte.replicacion")
+public class ReplicationProperties {
+
+    public enum Modo { NINGUNO, PRIMARIO, REPLICA }
+
+    private Modo modo = Modo.NINGUNO;
+
+    // Puerto TCP en el que el primario atiende a las réplicas (0 = cualquiera libre)
+    private int puerto = 7070;
+
+    // host:puerto del primario, para las réplicas
+    private String primario = "localhost:7070";
+
+    // Cambios como máximo por trama enviada
+    private int lote = 512;
+
+    // Cambios que guarda el primario; una réplica más atrasada recibe una instantánea
+    private int capacidadLog = 1 << 20;
+
+    // Espera antes de que una réplica intente reconectar
+    private long reintentoMs = 1000;
+
+    public Modo getModo() { return modo; }
+    public void setModo(Modo modo) { this.modo = modo; }
+
+    public int getPuerto() { return puerto; }
+    public void setPuerto(int puerto) { this.puerto = puerto; }
+
+    public String getPrimario() { return primario; }
+    public void setPrimario(String primario) { this.primario = primario; }
+
+    public int getLote() { return lote; }
+    public void setLote(int lote) { this.lote = lote; }
+
+    public int getCapacidadLog() { return capacidadLog; }
+    public void setCapacidadLog(int capacidadLog) { this.capacidadLog = capacidadLog; }
+
+    public long getReintentoMs() { return reintentoMs; }
+    public void setReintentoMs(long reintentoMs) { this.reintentoMs = reintentoMs; }
+}
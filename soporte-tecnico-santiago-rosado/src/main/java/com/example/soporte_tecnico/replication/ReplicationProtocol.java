@@ -0,0 +1,74 @@
+package com.example.soporte_tecnico.replication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Formato de las tramas entre primario y réplicas
+ *
+ * Cada trama es [int longitud][byte tipo][cuerpo], donde la longitud cuenta el tipo y el
+ * cuerpo. Todo va en big-endian (DataOutputStream) y las entidades en JSON.
+ *
+ * Primario -> réplica:
+ * <ul>
+ *   <li>INSTANTANEA_INICIO: long época, long secuencia a partir de la cual seguirán los lotes</li>
+ *   <li>INSTANTANEA_DATOS: byte entidad, int n, n x (int longitud, JSON)</li>
+ *   <li>INSTANTANEA_FIN: vacío</li>
+ *   <li>LOTE: long última secuencia del primario, long instante, int n,
+ *       n x (long secuencia, long instante, byte entidad, long id, int longitud (-1 = baja), JSON)</li>
+ *   <li>LATIDO: long última secuencia del primario, long instante</li>
+ * </ul>
+ * Réplica -> primario:
+ * <ul>
+ *   <li>HOLA: long época y long última secuencia aplicada (-1 si no tiene estado)</li>
+ *   <li>CONFIRMACION: long última secuencia aplicada</li>
+ * </ul>
+ * Los lotes no esperan confirmación (se encadenan mientras el socket admita datos);
+ * las confirmaciones sólo sirven para medir el retraso de cada réplica.
+ */
+final class ReplicationProtocol {
+
+    static final byte INSTANTANEA_INICIO = 1;
+    static final byte INSTANTANEA_DATOS = 2;
+    static final byte INSTANTANEA_FIN = 3;
+    static final byte LOTE = 4;
+    static final byte LATIDO = 5;
+    static final byte HOLA = 10;
+    static final byte CONFIRMACION = 11;
+
+    static final byte CLIENTE = 1;
+    static final byte TECNICO = 2;
+    static final byte SOLICITUD = 3;
+
+    // Tramas mayores indican un flujo corrupto
+    static final int MAX_TRAMA = 256 << 20;
+
+    private ReplicationProtocol() {
+    }
+
+    interface Cuerpo {
+        void escribir(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Construye una trama completa lista para escribir en el canal
+     */
+    static ByteBuffer trama(byte tipo, Cuerpo cuerpo) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeByte(tipo);
+            cuerpo.escribir(out);
+            out.flush();
+            ByteBuffer trama = ByteBuffer.wrap(bytes.toByteArray());
+            trama.putInt(0, trama.limit() - 4);
+            return trama;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
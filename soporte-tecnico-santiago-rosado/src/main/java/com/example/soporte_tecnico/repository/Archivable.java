@@ -0,0 +1,31 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.archive.ColdArchive;
+
+import java.util.function.Predicate;
+
+/**
+ * Repositorios en memoria que pueden sacar del heap a un archivo en disco las entidades que
+ * ya casi no se leen
+ *
+ * Las entidades archivadas se siguen leyendo por ID (más despacio) y al modificarlas vuelven
+ * a memoria. No forma parte de la API que usan los servicios.
+ */
+public interface Archivable<T> {
+
+    /**
+     * Archivo en el que se guardan las entidades archivadas (null deja de usarlo)
+     */
+    void usarArchivo(ColdArchive<T> archivo);
+
+    /**
+     * Mueve al archivo las entidades en memoria que cumplen el criterio
+     * @return Número de entidades archivadas
+     */
+    int archivar(Predicate<? super T> criterio);
+
+    /**
+     * Número de entidades en memoria
+     */
+    long enMemoria();
+}
@@ -0,0 +1,57 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.bloom.CountingBloomFilter;
+import com.example.soporte_tecnico.model.Cliente;
+
+/**
+ * Índices de una partición de clientes: los de nombre y, en un filtro de Bloom común a todas
+ * las particiones, los emails (para descartar sin recorrer los clientes un email que no existe)
+ *
+ * El filtro se actualiza bajo el cerrojo de la partición junto con el dato. Al cambiar un
+ * cliente se añade el email nuevo antes de quitar el anterior, para que el filtro no deje
+ * de ver un instante un email que sigue en uso.
+ */
+final class ClienteIndices extends NameIndexes<Cliente> {
+
+    private final CountingBloomFilter emails;
+
+    ClienteIndices(CountingBloomFilter emails) {
+        super(Cliente::getId, Cliente::getNombre);
+        this.emails = emails;
+    }
+
+    /**
+     * Clave del email en el filtro (sin distinguir mayúsculas, como la búsqueda)
+     */
+    static long claveEmail(String email) {
+        return CountingBloomFilter.claveDe(email != null ? email.toLowerCase() : "");
+    }
+
+    @Override
+    public void anadir(Cliente cliente) {
+        super.anadir(cliente);
+        emails.anadir(claveEmail(cliente.getEmail()));
+    }
+
+    @Override
+    public void quitar(Cliente cliente) {
+        super.quitar(cliente);
+        emails.quitar(claveEmail(cliente.getEmail()));
+    }
+
+    @Override
+    public void sustituir(Cliente anterior, Cliente nuevo) {
+        super.quitar(anterior);
+        super.anadir(nuevo);
+        emails.anadir(claveEmail(nuevo.getEmail()));
+        emails.quitar(claveEmail(anterior.getEmail()));
+    }
+
+    @Override
+    public void limpiar() {
+        super.limpiar();
+        // Las demás particiones pueden seguir teniendo clientes: los emails de esta se quedan
+        // como falsos positivos hasta que se reconstruya el filtro
+        emails.programarReconstruccion();
+    }
+}
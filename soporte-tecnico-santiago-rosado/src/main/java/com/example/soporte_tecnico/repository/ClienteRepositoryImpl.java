@@ -1,9 +1,19 @@
 package com.example.soporte_tecnico.repository;
 
+import com.example.soporte_tecnico.bloom.BloomFilters;
+import com.example.soporte_tecnico.bloom.CountingBloomFilter;
+import com.example.soporte_tecnico.exception.DuplicateIdException;
+import com.example.soporte_tecnico.exception.ResourceNotFoundException;
+import com.example.soporte_tecnico.exception.VersionConflictException;
 import com.example.soporte_tecnico.model.Cliente;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicLong;
@@ -14,26 +24,70 @@ import java.util.concurrent.atomic.AtomicLong;
  * @Repository Indica que esta clase es un componente de repositorio de Spring
  *             (permite la inyección de dependencias y el manejo de excepciones)
  *
- * Esta implementación usa una ArrayList en memoria para simular una base de datos
+ * Esta implementación usa mapas concurrentes ordenados por ID, repartidos en particiones por
+ * hash del ID (ver PartitionedStore), para simular una base de datos
  * Es ideal para desarrollo y pruebas, pero en producción se reemplazaría por una BD real
+ *
+ * Los clientes guardados no se modifican nunca: cada actualización sustituye el objeto
+ * por una copia con la versión incrementada mediante una operación compare-and-set
+ *
+ * La búsqueda por email recorre todos los clientes, así que antes se pregunta a un filtro de
+ * Bloom con los emails guardados: si el email seguro que no existe se responde sin recorrer.
  */
 @Repository
-public class ClienteRepositoryImpl implements ClienteRepository {
+@Profile("!sql")
+public class ClienteRepositoryImpl implements ClienteRepository, Replicable<Cliente> {
+
+    // Simulación de tabla de clientes en memoria, repartida por hash del ID en particiones
+    // con su propio cerrojo e índices de nombre (BK-tree y prefijos)
+    private final PartitionedStore<Cliente, NameIndexes<Cliente>> clientes;
 
-    // Simulación de tabla de clientes en memoria
-    private final List<Cliente> clientes = new ArrayList<>();
+    // Emails guardados (sin distinguir mayúsculas), mantenido por los índices de cada partición
+    private final CountingBloomFilter emails;
 
     // Generador de IDs automáticos (simula AUTO_INCREMENT de base de datos)
     private final AtomicLong idGenerator = new AtomicLong(1);
 
+    // Máximo de candidatos devueltos por la búsqueda aproximada
+    private static final int MAX_SIMILARES = 50;
+
+    /**
+     * Crea el repositorio con una partición por procesador
+     */
+    public ClienteRepositoryImpl() {
+        this(0);
+    }
+
+    /**
+     * @param particiones Número de particiones (soporte.particiones); 0 = una por procesador
+     */
+    public ClienteRepositoryImpl(int particiones) {
+        this(particiones, new CountingBloomFilter("clientes.email"));
+    }
+
+    @Autowired
+    public ClienteRepositoryImpl(@Value("${soporte.particiones:0}") int particiones, BloomFilters filtros) {
+        this(particiones, filtros.crear("clientes.email"));
+    }
+
+    private ClienteRepositoryImpl(int particiones, CountingBloomFilter emails) {
+        this.emails = emails;
+        this.clientes = new PartitionedStore<>(particiones > 0 ? particiones : PartitionedStore.particionesPorDefecto(),
+                Cliente::getId, () -> new ClienteIndices(emails));
+        // Con todas las particiones bloqueadas los emails leídos son exactamente los guardados
+        emails.reconstruirCon(() -> clientes.conTodoBloqueado(() -> emails.reconstruir(
+                clientes.valores().stream().map(c -> ClienteIndices.claveEmail(c.getEmail())).toList())));
+        emails.reconstruir(List.of());
+    }
+
     /**
      * Obtiene todos los clientes registrados en el sistema
      * @return Lista inmutable de todos los clientes
      */
     @Override
     public List<Cliente> findAll() {
-        // Retornamos una copia para evitar modificaciones externas a la lista interna
-        return new ArrayList<>(clientes);
+        // Retornamos una copia para evitar modificaciones externas a la colección interna
+        return clientes.valores();
     }
 
     /**
@@ -49,10 +103,29 @@ public class ClienteRepositoryImpl implements ClienteRepository {
             throw new IllegalArgumentException("El ID no puede ser nulo");
         }
 
-        // Buscar cliente por ID usando Stream API
-        return clientes.stream()
-                .filter(cliente -> id.equals(cliente.getId()))
-                .findFirst();
+        // Búsqueda directa por clave
+        return Optional.ofNullable(clientes.get(id));
+    }
+
+    /**
+     * Busca varios clientes por ID en una sola llamada
+     * @param ids IDs a buscar; los que no existen se ignoran
+     * @return Lista con los clientes encontrados
+     */
+    @Override
+    public List<Cliente> findAllById(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("La lista de IDs no puede ser nula");
+        }
+
+        List<Cliente> encontrados = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Cliente cliente = id != null ? clientes.get(id) : null;
+            if (cliente != null) {
+                encontrados.add(cliente);
+            }
+        }
+        return encontrados;
     }
 
     /**
@@ -70,10 +143,45 @@ public class ClienteRepositoryImpl implements ClienteRepository {
 
         String nombreLower = nombre.toLowerCase();
 
-        // Filtrar clientes cuyo nombre contenga el texto buscado (case-insensitive)
-        return clientes.stream()
-                .filter(cliente -> cliente.getNombre().toLowerCase().contains(nombreLower))
-                .toList(); // Java 16+ - equivalente a .collect(Collectors.toList())
+        // Filtrar clientes cuyo nombre contenga el texto buscado (case-insensitive), en paralelo por partición
+        return clientes.filtrar(cliente -> cliente.getNombre().toLowerCase().contains(nombreLower));
+    }
+
+    /**
+     * Busca clientes con un nombre parecido al indicado (distancia de Levenshtein por palabra)
+     * Usa el BK-tree de nombres, así que no recorre todos los clientes
+     * @param nombre Nombre buscado, con o sin errores
+     * @param maxDistancia Distancia de edición máxima por palabra (0 a 2)
+     * @return Lista de clientes ordenada del más al menos parecido
+     * @throws IllegalArgumentException si el nombre es nulo o vacío o la distancia no es válida
+     */
+    @Override
+    public List<Cliente> findByNombreSimilar(String nombre, int maxDistancia) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre no puede estar vacío");
+        }
+        if (maxDistancia < 0 || maxDistancia > 2) {
+            throw new IllegalArgumentException("La distancia máxima debe estar entre 0 y 2");
+        }
+
+        return NameIndexes.buscarSimilares(clientes, nombre, maxDistancia, MAX_SIMILARES);
+    }
+
+    /**
+     * Autocompletado por prefijo sobre las palabras del nombre
+     * Lee sólo el rango del índice de prefijos que empieza por el texto tecleado
+     * @param prefijo Texto tecleado
+     * @param limite Número máximo de resultados
+     * @return Lista de clientes ordenada alfabéticamente por la palabra que coincide
+     * @throws IllegalArgumentException si el prefijo es nulo o vacío
+     */
+    @Override
+    public List<Cliente> findByNombreStartingWith(String prefijo, int limite) {
+        if (prefijo == null || prefijo.trim().isEmpty()) {
+            throw new IllegalArgumentException("El prefijo no puede estar vacío");
+        }
+
+        return NameIndexes.buscarPorPrefijo(clientes, prefijo, limite);
     }
 
     /**
@@ -91,10 +199,18 @@ public class ClienteRepositoryImpl implements ClienteRepository {
 
         String emailLower = email.toLowerCase();
 
+        // Si el filtro dice que no existe no hace falta recorrer los clientes
+        if (!emails.puedeContener(ClienteIndices.claveEmail(email))) {
+            return Optional.empty();
+        }
+
         // Buscar cliente por email exacto (case-insensitive)
-        return clientes.stream()
-                .filter(cliente -> emailLower.equals(cliente.getEmail().toLowerCase()))
-                .findFirst();
+        Optional<Cliente> encontrado = clientes.filtrar(cliente -> emailLower.equals(cliente.getEmail().toLowerCase()))
+                .stream().findFirst();
+        if (encontrado.isEmpty()) {
+            emails.falsoPositivo();
+        }
+        return encontrado;
     }
 
     /**
@@ -115,14 +231,17 @@ public class ClienteRepositoryImpl implements ClienteRepository {
         if (cliente.getId() == null) {
             cliente.setId(idGenerator.getAndIncrement());
         } else {
-            // Verificar que el ID no esté duplicado
-            if (existsById(cliente.getId())) {
-                throw new IllegalArgumentException("Ya existe un cliente con ID: " + cliente.getId());
-            }
+            // Evitar que el generador reparta más tarde un ID ya usado
+            idGenerator.accumulateAndGet(cliente.getId() + 1, Math::max);
         }
 
-        // Agregar cliente a la lista
-        clientes.add(cliente);
+        // Primera versión del cliente
+        cliente.setVersion(1L);
+
+        // Agregar cliente verificando de forma atómica que el ID no esté duplicado
+        if (clientes.putIfAbsent(cliente) != null) {
+            throw new DuplicateIdException("Ya existe un cliente con ID: " + cliente.getId());
+        }
 
         System.out.println("Cliente guardado - ID: " + cliente.getId() + ", Nombre: " + cliente.getNombre());
 
@@ -131,9 +250,13 @@ public class ClienteRepositoryImpl implements ClienteRepository {
 
     /**
      * Actualiza un cliente existente en el repositorio
+     * La versión del cliente recibido es la versión esperada: si el cliente guardado tiene otra
+     * versión (alguien lo modificó antes) la actualización se rechaza. Si no trae versión se
+     * actualiza sobre la versión actual.
      * @param cliente Cliente con los datos actualizados
-     * @return El cliente actualizado
-     * @throws RuntimeException si el cliente no existe en el repositorio
+     * @return Copia guardada del cliente, con la nueva versión
+     * @throws com.example.soporte_tecnico.exception.ResourceNotFoundException si el cliente no existe en el repositorio
+     * @throws VersionConflictException si la versión esperada no coincide con la guardada
      */
     @Override
     public Cliente update(Cliente cliente) {
@@ -143,21 +266,25 @@ public class ClienteRepositoryImpl implements ClienteRepository {
         }
 
         // Buscar el cliente existente
-        Optional<Cliente> clienteExistente = findById(cliente.getId());
+        Cliente actual = findById(cliente.getId()).orElseThrow(() ->
+                new ResourceNotFoundException("No se puede actualizar: Cliente no encontrado con ID: " + cliente.getId()));
 
-        if (clienteExistente.isPresent()) {
-            // Eliminar el cliente antiguo
-            deleteById(cliente.getId());
+        long versionEsperada = cliente.getVersion() != null ? cliente.getVersion() : actual.getVersion();
+        if (actual.getVersion() != versionEsperada) {
+            throw new VersionConflictException("El cliente con ID " + cliente.getId() + " está en la versión "
+                    + actual.getVersion() + ", no en la " + versionEsperada);
+        }
 
-            // Agregar el cliente actualizado
-            clientes.add(cliente);
+        // Sustituir de forma atómica sólo si nadie lo cambió entre la lectura y la escritura
+        Cliente nuevo = new Cliente(cliente);
+        nuevo.setVersion(versionEsperada + 1);
+        if (!clientes.replace(actual, nuevo)) {
+            throw new VersionConflictException("El cliente con ID " + cliente.getId() + " fue modificado concurrentemente");
+        }
 
-            System.out.println("Cliente actualizado - ID: " + cliente.getId() + ", Nombre: " + cliente.getNombre());
+        System.out.println("Cliente actualizado - ID: " + nuevo.getId() + ", Nombre: " + nuevo.getNombre());
 
-            return cliente;
-        } else {
-            throw new RuntimeException("No se puede actualizar: Cliente no encontrado con ID: " + cliente.getId());
-        }
+        return nuevo;
     }
 
     /**
@@ -173,7 +300,7 @@ public class ClienteRepositoryImpl implements ClienteRepository {
         }
 
         // Eliminar cliente si existe
-        boolean removed = clientes.removeIf(cliente -> id.equals(cliente.getId()));
+        boolean removed = clientes.remove(id) != null;
 
         if (removed) {
             System.out.println("Cliente eliminado - ID: " + id);
@@ -195,7 +322,7 @@ public class ClienteRepositoryImpl implements ClienteRepository {
             throw new IllegalArgumentException("El ID no puede ser nulo");
         }
 
-        return clientes.stream().anyMatch(cliente -> id.equals(cliente.getId()));
+        return clientes.containsKey(id);
     }
 
     /**
@@ -207,6 +334,52 @@ public class ClienteRepositoryImpl implements ClienteRepository {
         return clientes.size();
     }
 
+    // Replicación: ver Replicable
+
+    @Override
+    public void observar(PartitionedStore.Observador<Cliente> observador) {
+        clientes.observar(observador);
+    }
+
+    @Override
+    public List<Cliente> instantanea() {
+        return clientes.valores();
+    }
+
+    @Override
+    public List<Cliente> pagina(long despuesDe, int limite) {
+        return clientes.pagina(despuesDe, limite);
+    }
+
+    @Override
+    public List<Cliente> buscar(Collection<Long> ids) {
+        List<Cliente> encontrados = findAllById(ids);
+        encontrados.sort(Comparator.comparing(Cliente::getId));
+        return encontrados;
+    }
+
+    @Override
+    public long ultimoId() {
+        return clientes.ultimaClave();
+    }
+
+    @Override
+    public void aplicar(Cliente cliente) {
+        clientes.aplicar(cliente, (recibida, actual) -> recibida.getVersion() > actual.getVersion());
+        // Si esta réplica pasa a primario no debe repartir IDs ya usados
+        idGenerator.accumulateAndGet(cliente.getId() + 1, Math::max);
+    }
+
+    @Override
+    public void descartar(Long id) {
+        clientes.remove(id);
+    }
+
+    @Override
+    public void vaciar() {
+        clientes.clear();
+    }
+
     /**
      * Método de utilidad para limpiar todos los clientes (útil para testing)
      * ATENCIÓN: Este método elimina todos los datos, usar con cuidado
@@ -0,0 +1,29 @@
+package com.example.soporte_tecnico.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Almacén durable que puede ir detrás de una caché write-behind (WriteBehindCache)
+ *
+ * La caché es la única que escribe: vuelca el último estado de cada entidad tal cual, con su
+ * versión, así que aquí no se comprueban versiones. No forma parte de la API que usan los
+ * servicios.
+ */
+public interface DurableStore<T> {
+
+    /**
+     * Lee por ID directamente del almacén (los IDs que no existen se ignoran)
+     */
+    List<T> cargar(Collection<Long> ids);
+
+    /**
+     * Escribe las entidades (alta o sustitución) y borra los IDs, todo en una transacción
+     */
+    void volcar(Collection<T> escrituras, Collection<Long> bajas);
+
+    /**
+     * Asigna ID (si no tiene) y la versión inicial a una entidad nueva, sin escribirla
+     */
+    void prepararAlta(T entidad);
+}
@@ -0,0 +1,306 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.exception.DuplicateIdException;
+import com.example.soporte_tecnico.exception.ResourceNotFoundException;
+import com.example.soporte_tecnico.exception.VersionConflictException;
+import com.example.soporte_tecnico.model.Cliente;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Repositorio de clientes sobre una base de datos SQL embebida (perfil sql)
+ *
+ * Misma semántica que ClienteRepositoryImpl. El email se busca por la columna generada
+ * email_normalizado, que tiene índice; la búsqueda aproximada y el autocompletado por nombre
+ * usan índices en memoria (BK-tree y prefijos) que se cargan al arrancar y se mantienen en
+ * cada escritura, porque la base de datos no sabe hacer esas búsquedas. Normalmente va detrás
+ * de la caché write-behind (WriteBehindClienteRepository), que es quien escribe a través de volcar.
+ */
+@Repository
+@Profile("sql")
+public class JdbcClienteRepository implements ClienteRepository, DurableStore<Cliente> {
+
+    private static final String COLUMNAS = "id, nombre, email, telefono, version";
+    private static final String ESCRIBIR = "MERGE INTO cliente (" + COLUMNAS + ") KEY (id) VALUES (?, ?, ?, ?, ?)";
+
+    private static final RowMapper<Cliente> FILA = (rs, n) -> {
+        Cliente cliente = new Cliente(rs.getLong("id"), rs.getString("nombre"), rs.getString("email"),
+                rs.getString("telefono"));
+        cliente.setVersion(rs.getLong("version"));
+        return cliente;
+    };
+
+    // Máximo de candidatos devueltos por la búsqueda aproximada
+    private static final int MAX_SIMILARES = 50;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transaccion;
+    private final AtomicLong idGenerator;
+    private final NameIndexes<Cliente> nombres = new NameIndexes<>(Cliente::getId, Cliente::getNombre);
+
+    @Autowired
+    public JdbcClienteRepository(JdbcTemplate jdbc, PlatformTransactionManager transacciones) {
+        this.jdbc = jdbc;
+        this.transaccion = new TransactionTemplate(transacciones);
+        this.idGenerator = new AtomicLong(jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cliente", Long.class) + 1);
+    }
+
+    @PostConstruct
+    public void cargarIndices() {
+        jdbc.query("SELECT id, nombre FROM cliente", rs -> {
+            nombres.anadir(new Cliente(rs.getLong(1), rs.getString(2), null, null));
+        });
+    }
+
+    @Override
+    public List<Cliente> findAll() {
+        return jdbc.query("SELECT " + COLUMNAS + " FROM cliente ORDER BY id", FILA);
+    }
+
+    @Override
+    public Optional<Cliente> findById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("El ID no puede ser nulo");
+        }
+        return jdbc.query("SELECT " + COLUMNAS + " FROM cliente WHERE id = ?", FILA, id).stream().findFirst();
+    }
+
+    /**
+     * Un solo SELECT con el array de IDs (la sentencia es la misma para cualquier número de IDs)
+     */
+    @Override
+    public List<Cliente> findAllById(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("La lista de IDs no puede ser nula");
+        }
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Object[] array = ids.stream().filter(Objects::nonNull).toArray();
+        return jdbc.query("SELECT " + COLUMNAS + " FROM cliente WHERE id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("BIGINT", array)), FILA);
+    }
+
+    @Override
+    public List<Cliente> findByNombreContaining(String nombre) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre no puede estar vacío");
+        }
+        return jdbc.query("SELECT " + COLUMNAS + " FROM cliente WHERE LOWER(nombre) LIKE ? ESCAPE '\\' ORDER BY id",
+                FILA, "%" + escaparLike(nombre.toLowerCase()) + "%");
+    }
+
+    @Override
+    public List<Cliente> findByNombreSimilar(String nombre, int maxDistancia) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre no puede estar vacío");
+        }
+        if (maxDistancia < 0 || maxDistancia > 2) {
+            throw new IllegalArgumentException("La distancia máxima debe estar entre 0 y 2");
+        }
+        return enOrden(nombres.similares(nombre, maxDistancia, MAX_SIMILARES));
+    }
+
+    @Override
+    public List<Cliente> findByNombreStartingWith(String prefijo, int limite) {
+        if (prefijo == null || prefijo.trim().isEmpty()) {
+            throw new IllegalArgumentException("El prefijo no puede estar vacío");
+        }
+        return enOrden(nombres.porPrefijo(prefijo, limite));
+    }
+
+    @Override
+    public Optional<Cliente> findByEmail(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            throw new IllegalArgumentException("El email no puede estar vacío");
+        }
+        return jdbc.query("SELECT " + COLUMNAS + " FROM cliente WHERE email_normalizado = ? ORDER BY id LIMIT 1",
+                FILA, email.toLowerCase()).stream().findFirst();
+    }
+
+    @Override
+    public Cliente save(Cliente cliente) {
+        if (cliente == null) {
+            throw new IllegalArgumentException("El cliente no puede ser nulo");
+        }
+
+        prepararAlta(cliente);
+        try {
+            jdbc.update("INSERT INTO cliente (" + COLUMNAS + ") VALUES (?, ?, ?, ?, ?)",
+                    cliente.getId(), cliente.getNombre(), cliente.getEmail(), cliente.getTelefono(), cliente.getVersion());
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateIdException("Ya existe un cliente con ID: " + cliente.getId());
+        }
+        nombres.anadir(cliente);
+
+        System.out.println("Cliente guardado - ID: " + cliente.getId() + ", Nombre: " + cliente.getNombre());
+
+        return cliente;
+    }
+
+    /**
+     * Actualiza con compare-and-set sobre la versión (UPDATE ... WHERE id = ? AND version = ?)
+     */
+    @Override
+    public Cliente update(Cliente cliente) {
+        if (cliente == null) {
+            throw new IllegalArgumentException("El cliente no puede ser nulo");
+        }
+
+        Cliente actual = findById(cliente.getId()).orElseThrow(() ->
+                new ResourceNotFoundException("No se puede actualizar: Cliente no encontrado con ID: " + cliente.getId()));
+
+        long versionEsperada = cliente.getVersion() != null ? cliente.getVersion() : actual.getVersion();
+        if (actual.getVersion() != versionEsperada) {
+            throw new VersionConflictException("El cliente con ID " + cliente.getId() + " está en la versión "
+                    + actual.getVersion() + ", no en la " + versionEsperada);
+        }
+
+        Cliente nuevo = new Cliente(cliente);
+        nuevo.setVersion(versionEsperada + 1);
+        int filas = jdbc.update("UPDATE cliente SET nombre = ?, email = ?, telefono = ?, version = ? "
+                        + "WHERE id = ? AND version = ?",
+                nuevo.getNombre(), nuevo.getEmail(), nuevo.getTelefono(), nuevo.getVersion(), nuevo.getId(), versionEsperada);
+        if (filas == 0) {
+            throw new VersionConflictException("El cliente con ID " + cliente.getId() + " fue modificado concurrentemente");
+        }
+        nombres.quitar(actual);
+        nombres.anadir(nuevo);
+
+        System.out.println("Cliente actualizado - ID: " + nuevo.getId() + ", Nombre: " + nuevo.getNombre());
+
+        return nuevo;
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("El ID no puede ser nulo");
+        }
+
+        Optional<Cliente> actual = findById(id);
+        boolean removed = jdbc.update("DELETE FROM cliente WHERE id = ?", id) > 0;
+
+        if (removed) {
+            actual.ifPresent(nombres::quitar);
+            System.out.println("Cliente eliminado - ID: " + id);
+        } else {
+            System.out.println("No se encontró cliente con ID: " + id + " para eliminar");
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("El ID no puede ser nulo");
+        }
+        return !jdbc.queryForList("SELECT id FROM cliente WHERE id = ?", Long.class, id).isEmpty();
+    }
+
+    @Override
+    public long count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM cliente", Long.class);
+    }
+
+    /**
+     * IDs guardados (para construir el filtro de existencia de la caché)
+     */
+    public List<Long> ids() {
+        return jdbc.queryForList("SELECT id FROM cliente", Long.class);
+    }
+
+    /**
+     * Email de cada cliente guardado, por ID (para construir el filtro de emails de la caché)
+     */
+    public Map<Long, String> emails() {
+        Map<Long, String> emails = new HashMap<>();
+        jdbc.query("SELECT id, email FROM cliente", rs -> {
+            emails.put(rs.getLong(1), rs.getString(2));
+        });
+        return emails;
+    }
+
+    @Override
+    public List<Cliente> cargar(Collection<Long> ids) {
+        return findAllById(ids);
+    }
+
+    /**
+     * MERGE (alta o sustitución con la versión que traen) y DELETE en una transacción;
+     * los índices de nombre se actualizan cuando se confirma
+     */
+    @Override
+    public void volcar(Collection<Cliente> escrituras, Collection<Long> bajas) {
+        List<Cliente> borrados = cargar(bajas);
+        transaccion.executeWithoutResult(estado -> {
+            if (!escrituras.isEmpty()) {
+                jdbc.batchUpdate(ESCRIBIR, escrituras, escrituras.size(), JdbcClienteRepository::fila);
+            }
+            if (!bajas.isEmpty()) {
+                jdbc.batchUpdate("DELETE FROM cliente WHERE id = ?", bajas, bajas.size(), (ps, id) -> ps.setLong(1, id));
+            }
+        });
+        borrados.forEach(nombres::quitar);
+        for (Cliente cliente : escrituras) {
+            nombres.quitar(cliente);
+            nombres.anadir(cliente);
+        }
+    }
+
+    @Override
+    public void prepararAlta(Cliente cliente) {
+        if (cliente.getId() == null) {
+            cliente.setId(idGenerator.getAndIncrement());
+        } else {
+            // Evitar que el generador reparta más tarde un ID ya usado
+            idGenerator.accumulateAndGet(cliente.getId() + 1, Math::max);
+        }
+        cliente.setVersion(1L);
+    }
+
+    private static void fila(PreparedStatement ps, Cliente c) throws SQLException {
+        ps.setLong(1, c.getId());
+        ps.setString(2, c.getNombre());
+        ps.setString(3, c.getEmail());
+        ps.setString(4, c.getTelefono());
+        ps.setLong(5, c.getVersion());
+    }
+
+    // Lee los IDs de una vez y los devuelve en el orden de la búsqueda
+    private List<Cliente> enOrden(List<Long> ids) {
+        Map<Long, Cliente> porId = new HashMap<>();
+        for (Cliente cliente : findAllById(ids)) {
+            porId.put(cliente.getId(), cliente);
+        }
+        List<Cliente> resultado = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Cliente cliente = porId.get(id);
+            if (cliente != null) {
+                resultado.add(cliente);
+            }
+        }
+        return resultado;
+    }
+
+    static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.exception.ResourceNotFoundException;
+import com.example.soporte_tecnico.exception.VersionConflictException;
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.query.FiltroSolicitudes;
+import com.example.soporte_tecnico.query.PlanConsulta;
+import com.example.soporte_tecnico.query.ResultadoFiltrado;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+
+/**
+ * Repositorio de solicitudes sobre una base de datos SQL embebida (perfil sql)
+ *
+ * Misma semántica que SolicitudRepositoryImpl: IDs repartidos por la aplicación y
+ * actualizaciones compare-and-set por versión (UPDATE ... WHERE id = ? AND version = ?).
+ * Las consultas por cliente y por técnico usan los índices (cliente_id, id) y (tecnico_id, id)
+ * y las altas y actualizaciones masivas van en lotes JDBC dentro de una transacción.
+ * Normalmente va detrás de la caché write-behind (WriteBehindSolicitudRepository), que es
+ * quien escribe a través de volcar.
+ */
+@Repository
+@Profile("sql")
+public class JdbcSolicitudRepository implements SolicitudRepository, DurableStore<Solicitud> {
+
+    private static final String COLUMNAS = "id, descripcion, fecha_creacion, estado, cliente_id, tecnico_id, version";
+    private static final String INSERTAR = "INSERT INTO solicitud (" + COLUMNAS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String ESCRIBIR = "MERGE INTO solicitud (" + COLUMNAS + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String ACTUALIZAR = "UPDATE solicitud SET descripcion = ?, fecha_creacion = ?, estado = ?, "
+            + "cliente_id = ?, tecnico_id = ?, version = ? WHERE id = ? AND version = ?";
+
+    private static final RowMapper<Solicitud> FILA = (rs, n) -> {
+        Solicitud solicitud = new Solicitud();
+        solicitud.setId(rs.getLong("id"));
+        solicitud.setDescripcion(rs.getString("descripcion"));
+        Timestamp fecha = rs.getTimestamp("fecha_creacion");
+        solicitud.setFechaCreacion(fecha != null ? fecha.toLocalDateTime() : null);
+        solicitud.setEstado(rs.getString("estado"));
+        solicitud.setClienteId(rs.getObject("cliente_id", Long.class));
+        solicitud.setTecnicoId(rs.getObject("tecnico_id", Long.class));
+        solicitud.setVersion(rs.getLong("version"));
+        return solicitud;
+    };
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transaccion;
+    private final int lote;
+    private final AtomicLong counter;
+
+    /**
+     * @param lote Filas por lote JDBC en las escrituras masivas (soporte.sql.lote)
+     */
+    @Autowired
+    public JdbcSolicitudRepository(JdbcTemplate jdbc, PlatformTransactionManager transacciones,
+                                   @Value("${soporte.sql.lote:500}") int lote) {
+        this.jdbc = jdbc;
+        this.transaccion = new TransactionTemplate(transacciones);
+        this.lote = Math.max(1, lote);
+        // Los IDs siguen donde se quedaron en el arranque anterior
+        this.counter = new AtomicLong(jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM solicitud", Long.class) + 1);
+    }
+
+    @Override
+    public List<Solicitud> findAll() {
+        return jdbc.query("SELECT " + COLUMNAS + " FROM solicitud ORDER BY id", FILA);
+    }
+
+    @Override
+    public Optional<Solicitud> findById(Long id) {
+        return jdbc.query("SELECT " + COLUMNAS + " FROM solicitud WHERE id = ?", FILA, id).stream().findFirst();
+    }
+
+    /**
+     * Un solo SELECT con el array de IDs
+     */
+    @Override
+    public List<Solicitud> findAllById(Collection<Long> ids) {
+        return cargar(ids);
+    }
+
+    @Override
+    public Solicitud save(Solicitud solicitud) {
+        prepararAlta(solicitud);
+        try {
+            jdbc.update(INSERTAR, ps -> alta(ps, solicitud));
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Ya existe una solicitud con ID: " + solicitud.getId());
+        }
+        return solicitud;
+    }
+
+    /**
+     * Inserta en lotes JDBC; si un ID ya existe no se guarda ninguna
+     */
+    @Override
+    public List<Solicitud> saveAll(List<Solicitud> solicitudes) {
+        solicitudes.forEach(this::prepararAlta);
+        try {
+            transaccion.executeWithoutResult(estado ->
+                    jdbc.batchUpdate(INSERTAR, solicitudes, lote, this::alta));
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Ya existe alguna de las solicitudes: " + e.getMostSpecificCause().getMessage());
+        }
+        return solicitudes;
+    }
+
+    /**
+     * Sustituye la solicitud si su versión sigue siendo la esperada (compare-and-set)
+     * La versión de la solicitud recibida es la esperada; si es nula se usa la actual
+     */
+    @Override
+    public Solicitud update(Solicitud solicitud) {
+        Solicitud actual = findById(solicitud.getId()).orElseThrow(() ->
+                new ResourceNotFoundException("No se puede actualizar: Solicitud no encontrada con ID: " + solicitud.getId()));
+
+        long versionEsperada = solicitud.getVersion() != null ? solicitud.getVersion() : actual.getVersion();
+        if (actual.getVersion() != versionEsperada) {
+            throw new VersionConflictException("La solicitud con ID " + solicitud.getId() + " está en la versión "
+                    + actual.getVersion() + ", no en la " + versionEsperada);
+        }
+
+        Solicitud nueva = new Solicitud(solicitud);
+        nueva.setVersion(versionEsperada + 1);
+        if (jdbc.update(ACTUALIZAR, ps -> cambio(ps, nueva)) == 0) {
+            throw new VersionConflictException("La solicitud con ID " + solicitud.getId() + " fue modificada concurrentemente");
+        }
+        return nueva;
+    }
+
+    /**
+     * Todas las actualizaciones en lotes JDBC dentro de una transacción: si alguna versión
+     * no coincide no se aplica ninguna
+     */
+    @Override
+    public List<Solicitud> updateAll(List<Solicitud> solicitudes) {
+        return transaccion.execute(estado -> {
+            Map<Long, Long> versiones = versiones(solicitudes);
+            List<Solicitud> nuevas = new ArrayList<>(solicitudes.size());
+            for (Solicitud solicitud : solicitudes) {
+                Long actual = versiones.get(solicitud.getId());
+                if (actual == null) {
+                    throw new ResourceNotFoundException("No se puede actualizar: Solicitud no encontrada con ID: " + solicitud.getId());
+                }
+                long versionEsperada = solicitud.getVersion() != null ? solicitud.getVersion() : actual;
+                Solicitud nueva = new Solicitud(solicitud);
+                nueva.setVersion(versionEsperada + 1);
+                nuevas.add(nueva);
+            }
+            int[][] filas = jdbc.batchUpdate(ACTUALIZAR, nuevas, lote, this::cambio);
+            int i = 0;
+            for (int[] porLote : filas) {
+                for (int n : porLote) {
+                    if (n == 0) {
+                        throw new VersionConflictException("La solicitud con ID " + nuevas.get(i).getId()
+                                + " fue modificada concurrentemente");
+                    }
+                    i++;
+                }
+            }
+            return nuevas;
+        });
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        jdbc.update("DELETE FROM solicitud WHERE id = ?", id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return !jdbc.queryForList("SELECT id FROM solicitud WHERE id = ?", Long.class, id).isEmpty();
+    }
+
+    @Override
+    public long count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM solicitud", Long.class);
+    }
+
+    @Override
+    public List<Solicitud> findByClienteId(Long clienteId) {
+        if (clienteId == null) {
+            return new ArrayList<>();
+        }
+        return jdbc.query("SELECT " + COLUMNAS + " FROM solicitud WHERE cliente_id = ? ORDER BY id", FILA, clienteId);
+    }
+
+    @Override
+    public List<Solicitud> findByTecnicoId(Long tecnicoId) {
+        if (tecnicoId == null) {
+            return new ArrayList<>();
+        }
+        return jdbc.query("SELECT " + COLUMNAS + " FROM solicitud WHERE tecnico_id = ? ORDER BY id", FILA, tecnicoId);
+    }
+
+    @Override
+    public long countByTecnicoId(Long tecnicoId) {
+        if (tecnicoId == null) {
+            return 0;
+        }
+        return jdbc.queryForObject("SELECT COUNT(*) FROM solicitud WHERE tecnico_id = ?", Long.class, tecnicoId);
+    }
+
+    /**
+     * Recorre la tabla una vez, fila a fila, acumulando en un único contenedor
+     */
+    @Override
+    public <R> R agregar(Collector<? super Solicitud, ?, R> collector) {
+        return reducir(collector);
+    }
+
+    private <A, R> R reducir(Collector<? super Solicitud, A, R> collector) {
+        A parcial = collector.supplier().get();
+        BiConsumer<A, ? super Solicitud> acumular = collector.accumulator();
+        jdbc.query("SELECT " + COLUMNAS + " FROM solicitud", rs -> {
+            acumular.accept(parcial, FILA.mapRow(rs, 0));
+        });
+        return collector.finisher().apply(parcial);
+    }
+
+    /**
+     * Un SELECT con las condiciones del filtro: el índice lo elige la base de datos y, si se
+     * pide explicar, su plan (EXPLAIN) va en el detalle
+     */
+    @Override
+    public ResultadoFiltrado filtrar(FiltroSolicitudes filtro, boolean explicar) {
+        List<String> condiciones = new ArrayList<>();
+        List<Object> parametros = new ArrayList<>();
+        if (filtro.estado() != null) {
+            condiciones.add("estado = ?");
+            parametros.add(filtro.estado());
+        }
+        if (filtro.clienteId() != null) {
+            condiciones.add("cliente_id = ?");
+            parametros.add(filtro.clienteId());
+        }
+        if (filtro.tecnicoId() != null) {
+            condiciones.add("tecnico_id = ?");
+            parametros.add(filtro.tecnicoId());
+        }
+        if (filtro.desde() != null) {
+            condiciones.add("fecha_creacion >= ?");
+            parametros.add(Timestamp.valueOf(filtro.desde()));
+        }
+        if (filtro.hasta() != null) {
+            condiciones.add("fecha_creacion < ?");
+            parametros.add(Timestamp.valueOf(filtro.hasta()));
+        }
+        String sql = "SELECT " + COLUMNAS + " FROM solicitud"
+                + (condiciones.isEmpty() ? "" : " WHERE " + String.join(" AND ", condiciones)) + " ORDER BY id";
+        List<Solicitud> encontradas = jdbc.query(sql, FILA, parametros.toArray());
+        String detalle = explicar
+                ? String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class, parametros.toArray()))
+                : null;
+        return new ResultadoFiltrado(encontradas, new PlanConsulta(PlanConsulta.SQL, null, -1, -1, List.of(), List.of(),
+                PlanConsulta.condiciones(filtro), -1, encontradas.size(), false, detalle));
+    }
+
+    /**
+     * IDs guardados (para construir el filtro de existencia de la caché)
+     */
+    public List<Long> ids() {
+        return jdbc.queryForList("SELECT id FROM solicitud", Long.class);
+    }
+
+    @Override
+    public List<Solicitud> cargar(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Object[] array = ids.stream().filter(Objects::nonNull).toArray();
+        return jdbc.query("SELECT " + COLUMNAS + " FROM solicitud WHERE id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("BIGINT", array)), FILA);
+    }
+
+    /**
+     * MERGE (alta o sustitución con la versión que traen) y DELETE en lotes JDBC, en una transacción
+     */
+    @Override
+    public void volcar(Collection<Solicitud> escrituras, Collection<Long> bajas) {
+        transaccion.executeWithoutResult(estado -> {
+            if (!escrituras.isEmpty()) {
+                jdbc.batchUpdate(ESCRIBIR, escrituras, lote, this::alta);
+            }
+            if (!bajas.isEmpty()) {
+                jdbc.batchUpdate("DELETE FROM solicitud WHERE id = ?", bajas, lote, (ps, id) -> ps.setLong(1, id));
+            }
+        });
+    }
+
+    @Override
+    public void prepararAlta(Solicitud solicitud) {
+        if (solicitud.getId() == null) {
+            solicitud.setId(counter.getAndIncrement());
+        } else {
+            // Evitar que el generador reparta más tarde un ID ya usado
+            counter.accumulateAndGet(solicitud.getId() + 1, Math::max);
+        }
+        solicitud.setVersion(1L);
+    }
+
+    // Versión guardada de cada solicitud (un solo SELECT por lote de IDs)
+    private Map<Long, Long> versiones(List<Solicitud> solicitudes) {
+        Map<Long, Long> versiones = new HashMap<>();
+        for (int desde = 0; desde < solicitudes.size(); desde += lote) {
+            Object[] ids = solicitudes.subList(desde, Math.min(desde + lote, solicitudes.size())).stream()
+                    .map(Solicitud::getId).toArray();
+            jdbc.query("SELECT id, version FROM solicitud WHERE id = ANY(?)",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("BIGINT", ids)),
+                    rs -> {
+                        versiones.put(rs.getLong(1), rs.getLong(2));
+                    });
+        }
+        return versiones;
+    }
+
+    private void alta(PreparedStatement ps, Solicitud s) throws SQLException {
+        ps.setLong(1, s.getId());
+        ps.setString(2, s.getDescripcion());
+        ps.setTimestamp(3, s.getFechaCreacion() != null ? Timestamp.valueOf(s.getFechaCreacion()) : null);
+        ps.setString(4, s.getEstado());
+        setLong(ps, 5, s.getClienteId());
+        setLong(ps, 6, s.getTecnicoId());
+        ps.setLong(7, s.getVersion());
+    }
+
+    // La nueva versión se escribe sólo si la guardada es la anterior
+    private void cambio(PreparedStatement ps, Solicitud s) throws SQLException {
+        ps.setString(1, s.getDescripcion());
+        ps.setTimestamp(2, s.getFechaCreacion() != null ? Timestamp.valueOf(s.getFechaCreacion()) : null);
+        ps.setString(3, s.getEstado());
+        setLong(ps, 4, s.getClienteId());
+        setLong(ps, 5, s.getTecnicoId());
+        ps.setLong(6, s.getVersion());
+        ps.setLong(7, s.getId());
+        ps.setLong(8, s.getVersion() - 1);
+    }
+
+    private static void setLong(PreparedStatement ps, int indice, Long valor) throws SQLException {
+        if (valor != null) {
+            ps.setLong(indice, valor);
+        } else {
+            ps.setNull(indice, Types.BIGINT);
+        }
+    }
+}
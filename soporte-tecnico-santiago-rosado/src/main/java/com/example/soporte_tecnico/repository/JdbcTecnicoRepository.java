@@ -0,0 +1,313 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.exception.DuplicateIdException;
+import com.example.soporte_tecnico.exception.ResourceNotFoundException;
+import com.example.soporte_tecnico.exception.VersionConflictException;
+import com.example.soporte_tecnico.model.Tecnico;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Repositorio de técnicos sobre una base de datos SQL embebida (perfil sql)
+ *
+ * Misma semántica que TecnicoRepositoryImpl. La especialidad se busca por la columna generada
+ * especialidad_normalizada, que tiene índice; la búsqueda aproximada y el autocompletado por
+ * nombre usan índices en memoria que se cargan al arrancar. Si la tabla está vacía se crean
+ * los técnicos de ejemplo en un único lote. Normalmente va detrás de la caché write-behind
+ * (WriteBehindTecnicoRepository), que es quien escribe a través de volcar.
+ */
+@Repository
+@Profile("sql")
+public class JdbcTecnicoRepository implements TecnicoRepository, DurableStore<Tecnico> {
+
+    private static final String COLUMNAS = "id, nombre, especialidad, version";
+    private static final String INSERTAR = "INSERT INTO tecnico (" + COLUMNAS + ") VALUES (?, ?, ?, ?)";
+    private static final String ESCRIBIR = "MERGE INTO tecnico (" + COLUMNAS + ") KEY (id) VALUES (?, ?, ?, ?)";
+
+    private static final RowMapper<Tecnico> FILA = (rs, n) -> {
+        Tecnico tecnico = new Tecnico(rs.getLong("id"), rs.getString("nombre"), rs.getString("especialidad"));
+        tecnico.setVersion(rs.getLong("version"));
+        return tecnico;
+    };
+
+    // Máximo de candidatos devueltos por la búsqueda aproximada
+    private static final int MAX_SIMILARES = 50;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transaccion;
+    private final AtomicLong idGenerator;
+    private final NameIndexes<Tecnico> nombres = new NameIndexes<>(Tecnico::getId, Tecnico::getNombre);
+
+    @Autowired
+    public JdbcTecnicoRepository(JdbcTemplate jdbc, PlatformTransactionManager transacciones) {
+        this.jdbc = jdbc;
+        this.transaccion = new TransactionTemplate(transacciones);
+        this.idGenerator = new AtomicLong(jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tecnico", Long.class) + 1);
+    }
+
+    @PostConstruct
+    public void cargarIndices() {
+        if (count() == 0) {
+            initializeSampleData();
+        }
+        jdbc.query("SELECT id, nombre FROM tecnico", rs -> {
+            nombres.anadir(new Tecnico(rs.getLong(1), rs.getString(2), null));
+        });
+    }
+
+    @Override
+    public List<Tecnico> findAll() {
+        return jdbc.query("SELECT " + COLUMNAS + " FROM tecnico ORDER BY id", FILA);
+    }
+
+    @Override
+    public Optional<Tecnico> findById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("El ID no puede ser nulo");
+        }
+        return jdbc.query("SELECT " + COLUMNAS + " FROM tecnico WHERE id = ?", FILA, id).stream().findFirst();
+    }
+
+    @Override
+    public List<Tecnico> findAllById(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("La lista de IDs no puede ser nula");
+        }
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Object[] array = ids.stream().filter(Objects::nonNull).toArray();
+        return jdbc.query("SELECT " + COLUMNAS + " FROM tecnico WHERE id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("BIGINT", array)), FILA);
+    }
+
+    @Override
+    public List<Tecnico> findByNombreContaining(String nombre) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre no puede estar vacío");
+        }
+        return jdbc.query("SELECT " + COLUMNAS + " FROM tecnico WHERE LOWER(nombre) LIKE ? ESCAPE '\\' ORDER BY id",
+                FILA, "%" + JdbcClienteRepository.escaparLike(nombre.toLowerCase()) + "%");
+    }
+
+    @Override
+    public List<Tecnico> findByNombreSimilar(String nombre, int maxDistancia) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre no puede estar vacío");
+        }
+        if (maxDistancia < 0 || maxDistancia > 2) {
+            throw new IllegalArgumentException("La distancia máxima debe estar entre 0 y 2");
+        }
+        return enOrden(nombres.similares(nombre, maxDistancia, MAX_SIMILARES));
+    }
+
+    @Override
+    public List<Tecnico> findByNombreStartingWith(String prefijo, int limite) {
+        if (prefijo == null || prefijo.trim().isEmpty()) {
+            throw new IllegalArgumentException("El prefijo no puede estar vacío");
+        }
+        return enOrden(nombres.porPrefijo(prefijo, limite));
+    }
+
+    @Override
+    public List<Tecnico> findByEspecialidad(String especialidad) {
+        if (especialidad == null || especialidad.trim().isEmpty()) {
+            throw new IllegalArgumentException("La especialidad no puede estar vacía");
+        }
+        return jdbc.query("SELECT " + COLUMNAS + " FROM tecnico WHERE especialidad_normalizada = ? ORDER BY id",
+                FILA, especialidad.toLowerCase());
+    }
+
+    @Override
+    public Tecnico save(Tecnico tecnico) {
+        if (tecnico == null) {
+            throw new IllegalArgumentException("El técnico no puede ser nulo");
+        }
+
+        prepararAlta(tecnico);
+        try {
+            jdbc.update(INSERTAR, tecnico.getId(), tecnico.getNombre(), tecnico.getEspecialidad(), tecnico.getVersion());
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateIdException("Ya existe un técnico con ID: " + tecnico.getId());
+        }
+        nombres.anadir(tecnico);
+
+        System.out.println("Técnico guardado - ID: " + tecnico.getId() +
+                ", Nombre: " + tecnico.getNombre() +
+                ", Especialidad: " + tecnico.getEspecialidad());
+
+        return tecnico;
+    }
+
+    /**
+     * Actualiza con compare-and-set sobre la versión (UPDATE ... WHERE id = ? AND version = ?)
+     */
+    @Override
+    public Tecnico update(Tecnico tecnico) {
+        if (tecnico == null) {
+            throw new IllegalArgumentException("El técnico no puede ser nulo");
+        }
+
+        Tecnico actual = findById(tecnico.getId()).orElseThrow(() ->
+                new ResourceNotFoundException("No se puede actualizar: Técnico no encontrado con ID: " + tecnico.getId()));
+
+        long versionEsperada = tecnico.getVersion() != null ? tecnico.getVersion() : actual.getVersion();
+        if (actual.getVersion() != versionEsperada) {
+            throw new VersionConflictException("El técnico con ID " + tecnico.getId() + " está en la versión "
+                    + actual.getVersion() + ", no en la " + versionEsperada);
+        }
+
+        Tecnico nuevo = new Tecnico(tecnico);
+        nuevo.setVersion(versionEsperada + 1);
+        int filas = jdbc.update("UPDATE tecnico SET nombre = ?, especialidad = ?, version = ? WHERE id = ? AND version = ?",
+                nuevo.getNombre(), nuevo.getEspecialidad(), nuevo.getVersion(), nuevo.getId(), versionEsperada);
+        if (filas == 0) {
+            throw new VersionConflictException("El técnico con ID " + tecnico.getId() + " fue modificado concurrentemente");
+        }
+        nombres.quitar(actual);
+        nombres.anadir(nuevo);
+
+        System.out.println("Técnico actualizado - ID: " + nuevo.getId() +
+                ", Nombre: " + nuevo.getNombre() +
+                ", Especialidad: " + nuevo.getEspecialidad());
+
+        return nuevo;
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("El ID no puede ser nulo");
+        }
+
+        Optional<Tecnico> actual = findById(id);
+        boolean removed = jdbc.update("DELETE FROM tecnico WHERE id = ?", id) > 0;
+
+        if (removed) {
+            actual.ifPresent(nombres::quitar);
+            System.out.println("Técnico eliminado - ID: " + id);
+        } else {
+            System.out.println("No se encontró técnico con ID: " + id + " para eliminar");
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("El ID no puede ser nulo");
+        }
+        return !jdbc.queryForList("SELECT id FROM tecnico WHERE id = ?", Long.class, id).isEmpty();
+    }
+
+    @Override
+    public long count() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM tecnico", Long.class);
+    }
+
+    /**
+     * Especialidades sin duplicados, en el orden en que aparecieron
+     */
+    @Override
+    public List<String> findAllEspecialidades() {
+        return jdbc.queryForList("SELECT especialidad FROM tecnico GROUP BY especialidad ORDER BY MIN(id)", String.class);
+    }
+
+    /**
+     * IDs guardados (para construir el filtro de existencia de la caché)
+     */
+    public List<Long> ids() {
+        return jdbc.queryForList("SELECT id FROM tecnico", Long.class);
+    }
+
+    @Override
+    public List<Tecnico> cargar(Collection<Long> ids) {
+        return findAllById(ids);
+    }
+
+    /**
+     * MERGE (alta o sustitución con la versión que traen) y DELETE en una transacción;
+     * los índices de nombre se actualizan cuando se confirma
+     */
+    @Override
+    public void volcar(Collection<Tecnico> escrituras, Collection<Long> bajas) {
+        List<Tecnico> borrados = cargar(bajas);
+        transaccion.executeWithoutResult(estado -> {
+            if (!escrituras.isEmpty()) {
+                jdbc.batchUpdate(ESCRIBIR, escrituras, escrituras.size(), JdbcTecnicoRepository::fila);
+            }
+            if (!bajas.isEmpty()) {
+                jdbc.batchUpdate("DELETE FROM tecnico WHERE id = ?", bajas, bajas.size(), (ps, id) -> ps.setLong(1, id));
+            }
+        });
+        borrados.forEach(nombres::quitar);
+        for (Tecnico tecnico : escrituras) {
+            nombres.quitar(tecnico);
+            nombres.anadir(tecnico);
+        }
+    }
+
+    @Override
+    public void prepararAlta(Tecnico tecnico) {
+        if (tecnico.getId() == null) {
+            tecnico.setId(idGenerator.getAndIncrement());
+        } else {
+            // Evitar que el generador reparta más tarde un ID ya usado
+            idGenerator.accumulateAndGet(tecnico.getId() + 1, Math::max);
+        }
+        tecnico.setVersion(1L);
+    }
+
+    private static void fila(PreparedStatement ps, Tecnico t) throws SQLException {
+        ps.setLong(1, t.getId());
+        ps.setString(2, t.getNombre());
+        ps.setString(3, t.getEspecialidad());
+        ps.setLong(4, t.getVersion());
+    }
+
+    private List<Tecnico> enOrden(List<Long> ids) {
+        Map<Long, Tecnico> porId = new HashMap<>();
+        for (Tecnico tecnico : findAllById(ids)) {
+            porId.put(tecnico.getId(), tecnico);
+        }
+        List<Tecnico> resultado = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Tecnico tecnico = porId.get(id);
+            if (tecnico != null) {
+                resultado.add(tecnico);
+            }
+        }
+        return resultado;
+    }
+
+    // Los mismos técnicos de ejemplo que el repositorio en memoria, en un solo lote JDBC
+    private void initializeSampleData() {
+        List<Tecnico> ejemplo = List.of(
+                new Tecnico(null, "Carlos López", "Redes"),
+                new Tecnico(null, "Ana Martínez", "Software"),
+                new Tecnico(null, "Pedro García", "Hardware"),
+                new Tecnico(null, "Luisa Fernández", "Base de Datos"),
+                new Tecnico(null, "Miguel Rodríguez", "Redes"),
+                new Tecnico(null, "Elena Castro", "Seguridad"));
+        ejemplo.forEach(this::prepararAlta);
+        jdbc.batchUpdate(INSERTAR, ejemplo, ejemplo.size(), JdbcTecnicoRepository::fila);
+        System.out.println("Datos de ejemplo de técnicos inicializados - Total: " + count() + " técnicos");
+    }
+}
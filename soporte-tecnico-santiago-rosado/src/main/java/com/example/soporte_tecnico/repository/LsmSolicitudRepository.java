@@ -0,0 +1,323 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.exception.ResourceNotFoundException;
+import com.example.soporte_tecnico.exception.VersionConflictException;
+import com.example.soporte_tecnico.lsm.LsmStore;
+import com.example.soporte_tecnico.model.Solicitud;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+
+/**
+ * Repositorio de solicitudes sobre el motor LSM en disco (perfil lsm)
+ *
+ * Pensado para históricos con muchas altas: cada escritura es un añadido al registro y a la
+ * memtable, y el disco sólo recibe escrituras secuenciales (volcados y compactaciones). En el
+ * heap sólo quedan las referencias de cada solicitud (cliente, técnico y versión), que sirven
+ * para los conteos, los índices inversos y la comprobación de versión sin leer del disco; se
+ * reconstruyen recorriendo el almacén al arrancar.
+ */
+@Repository
+@Profile("lsm")
+public class LsmSolicitudRepository implements SolicitudRepository {
+
+    // Cerrojos por ID para que la comprobación de versión y la escritura sean atómicas
+    private static final int CERROJOS = 64;
+
+    private record Referencia(Long clienteId, Long tecnicoId, long version) {
+        static Referencia de(Solicitud solicitud) {
+            return new Referencia(solicitud.getClienteId(), solicitud.getTecnicoId(), solicitud.getVersion());
+        }
+    }
+
+    private final LsmStore<Solicitud> almacen;
+    private final Map<Long, Referencia> referencias = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> porCliente = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> porTecnico = new ConcurrentHashMap<>();
+    private final AtomicLong counter = new AtomicLong(1);
+    private final ReentrantLock[] cerrojos = new ReentrantLock[CERROJOS];
+
+    @Autowired
+    public LsmSolicitudRepository(ObjectMapper mapper,
+                                  @Value("${soporte.lsm.directorio:./data/lsm-solicitudes}") String directorio,
+                                  @Value("${soporte.lsm.memtable:4MB}") DataSize memtable,
+                                  @Value("${soporte.lsm.bloque:4KB}") DataSize bloque,
+                                  @Value("${soporte.lsm.fichero:2MB}") DataSize fichero,
+                                  @Value("${soporte.lsm.nivel1:10MB}") DataSize nivel1,
+                                  @Value("${soporte.lsm.factor-niveles:10}") int factorNiveles,
+                                  @Value("${soporte.lsm.ficheros-nivel0:4}") int ficherosNivel0,
+                                  @Value("${soporte.lsm.parar-nivel0:12}") int pararNivel0,
+                                  @Value("${soporte.lsm.bits-por-clave:10}") int bitsPorClave,
+                                  @Value("${soporte.lsm.sincronizar-log:false}") boolean sincronizarLog) {
+        this(new LsmStore<>(Path.of(directorio), mapper, Solicitud.class, Solicitud::getId,
+                new LsmStore.Opciones(memtable.toBytes(), (int) bloque.toBytes(), fichero.toBytes(), nivel1.toBytes(),
+                        factorNiveles, ficherosNivel0, pararNivel0, bitsPorClave, sincronizarLog)));
+        System.out.println("Solicitudes en el almacén LSM " + directorio + ": " + referencias.size() + " cargadas");
+    }
+
+    public LsmSolicitudRepository(LsmStore<Solicitud> almacen) {
+        this.almacen = almacen;
+        for (int i = 0; i < CERROJOS; i++) {
+            cerrojos[i] = new ReentrantLock();
+        }
+        almacen.recorrer(solicitud -> {
+            indexar(solicitud);
+            counter.accumulateAndGet(solicitud.getId() + 1, Math::max);
+        });
+    }
+
+    @PreDestroy
+    public void cerrar() throws IOException {
+        almacen.close();
+    }
+
+    /**
+     * Ocupación por niveles y actividad del motor
+     */
+    public LsmStore.Estado estado() {
+        return almacen.estado();
+    }
+
+    /**
+     * Vuelca la memtable y espera a las compactaciones pendientes
+     */
+    public LsmStore.Estado volcar() {
+        almacen.volcar();
+        return almacen.estado();
+    }
+
+    @Override
+    public List<Solicitud> findAll() {
+        List<Solicitud> todas = new ArrayList<>(referencias.size());
+        almacen.recorrer(todas::add);
+        return todas;
+    }
+
+    @Override
+    public Optional<Solicitud> findById(Long id) {
+        if (id == null || !referencias.containsKey(id)) {
+            return Optional.empty();
+        }
+        return almacen.get(id);
+    }
+
+    @Override
+    public Solicitud save(Solicitud solicitud) {
+        return saveAll(List.of(solicitud)).get(0);
+    }
+
+    /**
+     * Todas las altas van al registro en una sola escritura; si algún ID ya existe no se
+     * guarda ninguna
+     */
+    @Override
+    public List<Solicitud> saveAll(List<Solicitud> solicitudes) {
+        for (Solicitud solicitud : solicitudes) {
+            if (solicitud.getId() == null) {
+                solicitud.setId(counter.getAndIncrement());
+            } else {
+                // Evitar que el generador reparta más tarde un ID ya usado
+                counter.accumulateAndGet(solicitud.getId() + 1, Math::max);
+            }
+            solicitud.setVersion(1L);
+        }
+        List<ReentrantLock> bloqueados = bloquear(solicitudes);
+        try {
+            Set<Long> ids = new TreeSet<>();
+            for (Solicitud solicitud : solicitudes) {
+                if (referencias.containsKey(solicitud.getId()) || !ids.add(solicitud.getId())) {
+                    throw new IllegalArgumentException("Ya existe una solicitud con ID: " + solicitud.getId());
+                }
+            }
+            almacen.escribir(solicitudes, List.of());
+            solicitudes.forEach(this::indexar);
+        } finally {
+            bloqueados.forEach(ReentrantLock::unlock);
+        }
+        return solicitudes;
+    }
+
+    /**
+     * Sustituye la solicitud si su versión sigue siendo la esperada (compare-and-set)
+     * La versión de la solicitud recibida es la esperada; si es nula se usa la actual
+     */
+    @Override
+    public Solicitud update(Solicitud solicitud) {
+        return updateAll(List.of(solicitud)).get(0);
+    }
+
+    /**
+     * Comprueba todas las versiones y escribe todas las solicitudes a la vez: si alguna
+     * versión no coincide no se aplica ninguna
+     */
+    @Override
+    public List<Solicitud> updateAll(List<Solicitud> solicitudes) {
+        List<ReentrantLock> bloqueados = bloquear(solicitudes);
+        try {
+            List<Solicitud> nuevas = new ArrayList<>(solicitudes.size());
+            for (Solicitud solicitud : solicitudes) {
+                Referencia actual = solicitud.getId() != null ? referencias.get(solicitud.getId()) : null;
+                if (actual == null) {
+                    throw new ResourceNotFoundException("No se puede actualizar: Solicitud no encontrada con ID: " + solicitud.getId());
+                }
+                long versionEsperada = solicitud.getVersion() != null ? solicitud.getVersion() : actual.version();
+                if (actual.version() != versionEsperada) {
+                    throw new VersionConflictException("La solicitud con ID " + solicitud.getId() + " está en la versión "
+                            + actual.version() + ", no en la " + versionEsperada);
+                }
+                Solicitud nueva = new Solicitud(solicitud);
+                nueva.setVersion(versionEsperada + 1);
+                nuevas.add(nueva);
+            }
+            almacen.escribir(nuevas, List.of());
+            for (Solicitud nueva : nuevas) {
+                desindexar(nueva.getId());
+                indexar(nueva);
+            }
+            return nuevas;
+        } finally {
+            bloqueados.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        if (id == null) {
+            return;
+        }
+        ReentrantLock cerrojo = cerrojo(id);
+        cerrojo.lock();
+        try {
+            if (referencias.containsKey(id)) {
+                almacen.delete(id);
+                desindexar(id);
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return id != null && referencias.containsKey(id);
+    }
+
+    @Override
+    public long count() {
+        return referencias.size();
+    }
+
+    @Override
+    public List<Solicitud> findByClienteId(Long clienteId) {
+        return clienteId != null ? buscar(porCliente.get(clienteId)) : new ArrayList<>();
+    }
+
+    @Override
+    public List<Solicitud> findByTecnicoId(Long tecnicoId) {
+        return tecnicoId != null ? buscar(porTecnico.get(tecnicoId)) : new ArrayList<>();
+    }
+
+    @Override
+    public long countByTecnicoId(Long tecnicoId) {
+        Set<Long> ids = tecnicoId != null ? porTecnico.get(tecnicoId) : null;
+        return ids != null ? ids.size() : 0;
+    }
+
+    /**
+     * Un solo recorrido ordenado del almacén (las SSTables se leen bloque a bloque)
+     */
+    @Override
+    public <R> R agregar(Collector<? super Solicitud, ?, R> collector) {
+        return reducir(collector);
+    }
+
+    private <A, R> R reducir(Collector<? super Solicitud, A, R> collector) {
+        A acumulado = collector.supplier().get();
+        BiConsumer<A, ? super Solicitud> acumular = collector.accumulator();
+        almacen.recorrer(solicitud -> acumular.accept(acumulado, solicitud));
+        return collector.finisher().apply(acumulado);
+    }
+
+    // Lecturas por ID de las solicitudes de un índice, ordenadas por ID
+    private List<Solicitud> buscar(Set<Long> ids) {
+        List<Solicitud> encontradas = new ArrayList<>();
+        if (ids != null) {
+            for (Long id : new TreeSet<>(ids)) {
+                almacen.get(id).ifPresent(encontradas::add);
+            }
+        }
+        return encontradas;
+    }
+
+    private ReentrantLock cerrojo(Long id) {
+        return cerrojos[Math.floorMod(Long.hashCode(id), CERROJOS)];
+    }
+
+    // Cerrojos de varias solicitudes, siempre en el mismo orden para no interbloquearse
+    private List<ReentrantLock> bloquear(List<Solicitud> solicitudes) {
+        TreeSet<Integer> indices = new TreeSet<>();
+        for (Solicitud solicitud : solicitudes) {
+            if (solicitud.getId() != null) {
+                indices.add(Math.floorMod(Long.hashCode(solicitud.getId()), CERROJOS));
+            }
+        }
+        List<ReentrantLock> bloqueados = new ArrayList<>(indices.size());
+        for (int i : indices) {
+            cerrojos[i].lock();
+            bloqueados.add(cerrojos[i]);
+        }
+        return bloqueados;
+    }
+
+    private void indexar(Solicitud solicitud) {
+        referencias.put(solicitud.getId(), Referencia.de(solicitud));
+        anadir(porCliente, solicitud.getClienteId(), solicitud.getId());
+        anadir(porTecnico, solicitud.getTecnicoId(), solicitud.getId());
+    }
+
+    private void desindexar(Long id) {
+        Referencia anterior = referencias.remove(id);
+        if (anterior != null) {
+            quitar(porCliente, anterior.clienteId(), id);
+            quitar(porTecnico, anterior.tecnicoId(), id);
+        }
+    }
+
+    // compute() hace atómico el alta/baja de cada conjunto frente a su eliminación cuando se vacía
+    private static void anadir(Map<Long, Set<Long>> indice, Long clave, Long id) {
+        if (clave != null) {
+            indice.compute(clave, (k, ids) -> {
+                Set<Long> conjunto = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                conjunto.add(id);
+                return conjunto;
+            });
+        }
+    }
+
+    private static void quitar(Map<Long, Set<Long>> indice, Long clave, Long id) {
+        if (clave != null) {
+            indice.computeIfPresent(clave, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+}
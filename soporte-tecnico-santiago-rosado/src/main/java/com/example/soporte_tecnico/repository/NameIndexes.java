@@ -0,0 +1,115 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.search.FuzzyNameIndex;
+import com.example.soporte_tecnico.search.PrefixIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Índices de nombre de una partición: búsqueda aproximada (BK-tree) y autocompletado
+ *
+ * Cada partición indexa sólo sus propias entidades; las consultas preguntan a todas las
+ * particiones y mezclan sus resultados, que ya vienen ordenados. Los repositorios SQL usan
+ * uno solo para toda la tabla, porque la base de datos no sabe hacer estas búsquedas.
+ */
+class NameIndexes<T> implements PartitionedStore.Indices<T> {
+
+    private final FuzzyNameIndex nombres = new FuzzyNameIndex();
+    private final PrefixIndex prefijos = new PrefixIndex();
+    private final ToLongFunction<T> id;
+    private final Function<T, String> nombre;
+
+    NameIndexes(ToLongFunction<T> id, Function<T, String> nombre) {
+        this.id = id;
+        this.nombre = nombre;
+    }
+
+    @Override
+    public void anadir(T valor) {
+        nombres.indexar(id.applyAsLong(valor), nombre.apply(valor));
+        prefijos.indexar(id.applyAsLong(valor), nombre.apply(valor));
+    }
+
+    @Override
+    public void quitar(T valor) {
+        nombres.eliminar(id.applyAsLong(valor));
+        prefijos.eliminar(id.applyAsLong(valor));
+    }
+
+    @Override
+    public void limpiar() {
+        nombres.limpiar();
+        prefijos.limpiar();
+    }
+
+    /**
+     * IDs con un nombre parecido, del más al menos parecido
+     */
+    List<Long> similares(String nombre, int maxDistancia, int limite) {
+        List<Long> ids = new ArrayList<>();
+        for (FuzzyNameIndex.Candidato candidato : nombres.buscar(nombre, maxDistancia, limite)) {
+            ids.add(candidato.id());
+        }
+        return ids;
+    }
+
+    /**
+     * IDs con alguna palabra del nombre que empieza por el prefijo, en orden alfabético
+     */
+    List<Long> porPrefijo(String prefijo, int limite) {
+        List<PrefixIndex.Coincidencia> coincidencias = prefijos.buscarCoincidencias(prefijo, limite);
+        coincidencias.sort(PrefixIndex.Coincidencia.ORDEN);
+        List<Long> ids = new ArrayList<>(coincidencias.size());
+        for (PrefixIndex.Coincidencia coincidencia : coincidencias) {
+            ids.add(coincidencia.id());
+        }
+        return ids;
+    }
+
+    /**
+     * Entidades con un nombre parecido, de la más a la menos parecida
+     */
+    static <T> List<T> buscarSimilares(PartitionedStore<T, NameIndexes<T>> almacen, String nombre,
+                                       int maxDistancia, int limite) {
+        List<FuzzyNameIndex.Candidato> candidatos = almacen.recorrer(
+                p -> p.indices().nombres.buscar(nombre, maxDistancia, limite), FuzzyNameIndex.Candidato.ORDEN);
+        List<T> resultado = new ArrayList<>();
+        for (FuzzyNameIndex.Candidato candidato : candidatos) {
+            // Puede haberse eliminado entre la búsqueda y la lectura
+            T valor = almacen.get(candidato.id());
+            if (valor != null) {
+                resultado.add(valor);
+                if (resultado.size() == limite) {
+                    break;
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Entidades con alguna palabra del nombre que empieza por el prefijo, en orden alfabético
+     */
+    static <T> List<T> buscarPorPrefijo(PartitionedStore<T, NameIndexes<T>> almacen, String prefijo, int limite) {
+        List<PrefixIndex.Coincidencia> coincidencias = almacen.recorrer(p -> {
+            // El índice desempata por el ID como texto; la mezcla necesita el orden numérico
+            List<PrefixIndex.Coincidencia> deLaParticion = p.indices().prefijos.buscarCoincidencias(prefijo, limite);
+            deLaParticion.sort(PrefixIndex.Coincidencia.ORDEN);
+            return deLaParticion;
+        }, PrefixIndex.Coincidencia.ORDEN);
+        List<T> resultado = new ArrayList<>();
+        for (PrefixIndex.Coincidencia coincidencia : coincidencias) {
+            T valor = almacen.get(coincidencia.id());
+            if (valor != null) {
+                resultado.add(valor);
+                if (resultado.size() == limite) {
+                    break;
+                }
+            }
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,552 @@
+package com.example.soporte_tecnico.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+/**
+ * Almacén en memoria repartido en N particiones por hash del ID
+ *
+ * Cada partición tiene su propio mapa ordenado por ID, su propio cerrojo de escritura y sus
+ * propios índices secundarios (nombres, referencias...), de modo que las escrituras sobre IDs
+ * de particiones distintas no compiten entre sí. Las lecturas por ID no toman ningún cerrojo.
+ *
+ * Los recorridos completos y los filtros se ejecutan partición a partición en paralelo con
+ * fork/join: cada partición produce su resultado ya ordenado y las mitades se mezclan al
+ * unirse, así que el resultado final sale ordenado por ID sin una ordenación global.
+ *
+ * @param <T> Tipo de entidad guardada
+ * @param <I> Índices secundarios de cada partición
+ */
+public final class PartitionedStore<T, I extends PartitionedStore.Indices<T>> {
+
+    /**
+     * Índices secundarios de una partición; se actualizan bajo el cerrojo de la partición
+     * junto con el propio dato, así que nunca ven dos escrituras del mismo ID a la vez
+     */
+    public interface Indices<T> {
+        void anadir(T valor);
+
+        void quitar(T valor);
+
+        /**
+         * Cambio de una entidad por otra versión de sí misma
+         */
+        default void sustituir(T anterior, T nuevo) {
+            quitar(anterior);
+            anadir(nuevo);
+        }
+
+        void limpiar();
+    }
+
+    /**
+     * Recibe cada cambio bajo el cerrojo de la partición, así que los cambios de un mismo ID
+     * llegan en el mismo orden en que se aplicaron (lo usa el registro de replicación)
+     */
+    public interface Observador<T> {
+        /**
+         * @param anterior Valor sustituido o eliminado (null en un alta)
+         * @param nuevo Valor guardado (null en una baja)
+         */
+        void alCambiar(T anterior, T nuevo);
+    }
+
+    /**
+     * Índices vacíos, para almacenes que sólo se consultan por ID
+     */
+    public static <T> Indices<T> sinIndices() {
+        return new Indices<>() {
+            @Override
+            public void anadir(T valor) {
+            }
+
+            @Override
+            public void quitar(T valor) {
+            }
+
+            @Override
+            public void limpiar() {
+            }
+        };
+    }
+
+    // Por debajo de este tamaño un recorrido en paralelo cuesta más de lo que ahorra
+    private static final int UMBRAL_PARALELO = 8_192;
+
+    private final Particion<T, I>[] particiones;
+    private final int desplazamiento;
+    private final ToLongFunction<T> id;
+    private final ForkJoinPool pool;
+    private volatile Observador<T> observador;
+
+    /**
+     * @param particiones Número de particiones (se redondea a la potencia de dos siguiente)
+     * @param id Extrae el ID de una entidad
+     * @param indices Crea los índices de cada partición
+     */
+    public PartitionedStore(int particiones, ToLongFunction<T> id, Supplier<I> indices) {
+        this(particiones, id, indices, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool Pool fork/join para los recorridos en paralelo
+     */
+    public PartitionedStore(int particiones, ToLongFunction<T> id, Supplier<I> indices, ForkJoinPool pool) {
+        if (particiones < 1) {
+            throw new IllegalArgumentException("El número de particiones debe ser positivo");
+        }
+        int n = Integer.highestOneBit(particiones - 1) << 1;
+        n = Math.max(1, Math.min(n, 1 << 16));
+        @SuppressWarnings("unchecked")
+        Particion<T, I>[] tabla = (Particion<T, I>[]) new Particion<?, ?>[n];
+        for (int i = 0; i < n; i++) {
+            tabla[i] = new Particion<>(indices.get());
+        }
+        this.particiones = tabla;
+        this.desplazamiento = 64 - Integer.numberOfTrailingZeros(n);
+        this.id = id;
+        this.pool = pool;
+    }
+
+    /**
+     * Número de particiones por defecto: una por procesador, redondeado a potencia de dos
+     */
+    public static int particionesPorDefecto() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    public int particiones() {
+        return particiones.length;
+    }
+
+    /**
+     * Registra el observador de cambios (sustituye al anterior; null lo quita)
+     */
+    public void observar(Observador<T> observador) {
+        this.observador = observador;
+    }
+
+    public T get(long clave) {
+        return particion(clave).datos.get(clave);
+    }
+
+    public boolean containsKey(long clave) {
+        return particion(clave).datos.containsKey(clave);
+    }
+
+    /**
+     * Inserta la entidad si su ID no existe
+     * @return La entidad que ya existía con ese ID, o null si se insertó
+     */
+    public T putIfAbsent(T valor) {
+        long clave = id.applyAsLong(valor);
+        Particion<T, I> p = particion(clave);
+        p.cerrojo.lock();
+        try {
+            T existente = p.datos.putIfAbsent(clave, valor);
+            if (existente == null) {
+                p.indices.anadir(valor);
+                notificar(null, valor);
+            }
+            return existente;
+        } finally {
+            p.cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Sustituye la entidad sólo si la guardada sigue siendo exactamente la esperada
+     * (misma instancia: las entidades guardadas no se modifican, se sustituyen)
+     * @return true si se sustituyó
+     */
+    public boolean replace(T esperado, T nuevo) {
+        long clave = id.applyAsLong(nuevo);
+        Particion<T, I> p = particion(clave);
+        p.cerrojo.lock();
+        try {
+            if (p.datos.get(clave) != esperado) {
+                return false;
+            }
+            p.datos.put(clave, nuevo);
+            p.indices.sustituir(esperado, nuevo);
+            notificar(esperado, nuevo);
+            return true;
+        } finally {
+            p.cerrojo.unlock();
+        }
+    }
+
+    /**
+     * @return La entidad eliminada, o null si no existía
+     */
+    public T remove(long clave) {
+        Particion<T, I> p = particion(clave);
+        p.cerrojo.lock();
+        try {
+            T eliminado = p.datos.remove(clave);
+            if (eliminado != null) {
+                p.indices.quitar(eliminado);
+                notificar(eliminado, null);
+            }
+            return eliminado;
+        } finally {
+            p.cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Quita la entidad si la guardada sigue siendo exactamente la esperada, sin avisar al
+     * observador: no es una baja sino un traslado fuera del almacén (archivado)
+     * @return true si se quitó
+     */
+    public boolean retirar(T esperado) {
+        long clave = id.applyAsLong(esperado);
+        Particion<T, I> p = particion(clave);
+        p.cerrojo.lock();
+        try {
+            if (p.datos.get(clave) != esperado) {
+                return false;
+            }
+            p.datos.remove(clave);
+            p.indices.quitar(esperado);
+            return true;
+        } finally {
+            p.cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Avisa al observador de la baja de una entidad que ya no estaba en el almacén
+     * (se eliminó del archivo), bajo el cerrojo de su partición como el resto de cambios
+     */
+    public void notificarBaja(T eliminado) {
+        Particion<T, I> p = particion(id.applyAsLong(eliminado));
+        p.cerrojo.lock();
+        try {
+            notificar(eliminado, null);
+        } finally {
+            p.cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Inserta o sustituye la entidad sólo si es más reciente que la guardada
+     * (aplicación de cambios replicados, que pueden llegar repetidos)
+     * @param masReciente Decide si el valor recibido (primer argumento) sustituye al guardado
+     * @return true si se guardó
+     */
+    public boolean aplicar(T valor, BiPredicate<? super T, ? super T> masReciente) {
+        long clave = id.applyAsLong(valor);
+        Particion<T, I> p = particion(clave);
+        p.cerrojo.lock();
+        try {
+            T actual = p.datos.get(clave);
+            if (actual != null && !masReciente.test(valor, actual)) {
+                return false;
+            }
+            p.datos.put(clave, valor);
+            if (actual != null) {
+                p.indices.sustituir(actual, valor);
+            } else {
+                p.indices.anadir(valor);
+            }
+            notificar(actual, valor);
+            return true;
+        } finally {
+            p.cerrojo.unlock();
+        }
+    }
+
+    public void clear() {
+        for (Particion<T, I> p : particiones) {
+            p.cerrojo.lock();
+            try {
+                p.datos.clear();
+                p.indices.limpiar();
+            } finally {
+                p.cerrojo.unlock();
+            }
+        }
+    }
+
+    /**
+     * Ejecuta la acción con los cerrojos de todas las particiones tomados: mientras dura no hay
+     * ninguna escritura a medias (las lecturas siguen sin bloquearse)
+     */
+    public void conTodoBloqueado(Runnable accion) {
+        int bloqueadas = 0;
+        try {
+            for (Particion<T, I> p : particiones) {
+                p.cerrojo.lock();
+                bloqueadas++;
+            }
+            accion.run();
+        } finally {
+            for (int i = bloqueadas - 1; i >= 0; i--) {
+                particiones[i].cerrojo.unlock();
+            }
+        }
+    }
+
+    public long size() {
+        long total = 0;
+        for (Particion<T, I> p : particiones) {
+            total += p.datos.size();
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        for (Particion<T, I> p : particiones) {
+            if (!p.datos.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Todas las entidades ordenadas por ID
+     */
+    public List<T> valores() {
+        return recorrer(p -> new ArrayList<>(p.datos.values()), porId());
+    }
+
+    /**
+     * Entidades que cumplen el filtro, ordenadas por ID (en paralelo por partición)
+     */
+    public List<T> filtrar(Predicate<? super T> filtro) {
+        return recorrer(p -> {
+            List<T> encontradas = new ArrayList<>();
+            for (T valor : p.datos.values()) {
+                if (filtro.test(valor)) {
+                    encontradas.add(valor);
+                }
+            }
+            return encontradas;
+        }, porId());
+    }
+
+    /**
+     * Las primeras entidades con ID mayor que el indicado, ordenadas por ID (recorrido por
+     * páginas: cada partición aporta como mucho el límite y se mezclan)
+     */
+    public List<T> pagina(long despuesDe, int limite) {
+        List<T> mezcla = recorrer(p -> {
+            List<T> deLaParticion = new ArrayList<>(Math.min(limite, p.datos.size()));
+            for (T valor : p.datos.tailMap(despuesDe, false).values()) {
+                if (deLaParticion.size() == limite) {
+                    break;
+                }
+                deLaParticion.add(valor);
+            }
+            return deLaParticion;
+        }, porId());
+        return mezcla.size() > limite ? new ArrayList<>(mezcla.subList(0, limite)) : mezcla;
+    }
+
+    /**
+     * Mayor ID guardado, o 0 si no hay ninguno
+     */
+    public long ultimaClave() {
+        long ultima = 0;
+        for (Particion<T, I> p : particiones) {
+            Map.Entry<Long, T> entrada = p.datos.lastEntry();
+            if (entrada != null) {
+                ultima = Math.max(ultima, entrada.getKey());
+            }
+        }
+        return ultima;
+    }
+
+    /**
+     * Consulta cada partición y mezcla los resultados
+     * @param consulta Resultado de una partición, ya ordenado según el comparador
+     * @param orden Orden de los resultados de cada partición y del resultado final
+     */
+    public <R> List<R> recorrer(Function<Particion<T, I>, List<R>> consulta, Comparator<? super R> orden) {
+        if (particiones.length == 1) {
+            return consulta.apply(particiones[0]);
+        }
+        Recorrido<R> recorrido = new Recorrido<>(consulta, orden, 0, particiones.length);
+        return size() < UMBRAL_PARALELO ? recorrido.compute() : pool.invoke(recorrido);
+    }
+
+    /**
+     * Suma un valor calculado en cada partición (recuentos en los índices, sin recorrer datos)
+     */
+    public long sumar(ToLongFunction<Particion<T, I>> porParticion) {
+        long total = 0;
+        for (Particion<T, I> p : particiones) {
+            total += porParticion.applyAsLong(p);
+        }
+        return total;
+    }
+
+    /**
+     * Reduce todas las entidades con un Collector: cada partición acumula en su propio
+     * contenedor parcial (en paralelo con fork/join) y los parciales se combinan al unirse
+     */
+    public <A, R> R reducir(Collector<? super T, A, R> collector) {
+        return collector.finisher().apply(acumular(collector));
+    }
+
+    /**
+     * Como reducir pero sin aplicar el finisher, para combinar el resultado con otros parciales
+     */
+    public <A> A acumular(Collector<? super T, A, ?> collector) {
+        Reduccion<A> reduccion = new Reduccion<>(collector, 0, particiones.length);
+        return particiones.length > 1 && size() >= UMBRAL_PARALELO ? pool.invoke(reduccion) : reduccion.compute();
+    }
+
+    private void notificar(T anterior, T nuevo) {
+        Observador<T> o = observador;
+        if (o != null) {
+            o.alCambiar(anterior, nuevo);
+        }
+    }
+
+    private Comparator<T> porId() {
+        return Comparator.comparingLong(id);
+    }
+
+    private Particion<T, I> particion(long clave) {
+        if (particiones.length == 1) {
+            return particiones[0];
+        }
+        // Hash de Fibonacci: reparte bien también los IDs consecutivos
+        return particiones[(int) ((clave * 0x9E3779B97F4A7C15L) >>> desplazamiento)];
+    }
+
+    /**
+     * Una partición: sus datos (lectura sin cerrojo) y sus índices
+     */
+    public static final class Particion<T, I> {
+        private final ConcurrentNavigableMap<Long, T> datos = new ConcurrentSkipListMap<>();
+        private final ReentrantLock cerrojo = new ReentrantLock();
+        private final I indices;
+
+        private Particion(I indices) {
+            this.indices = indices;
+        }
+
+        public T get(long clave) {
+            return datos.get(clave);
+        }
+
+        /**
+         * Entidades de la partición ordenadas por ID
+         */
+        public Collection<T> valores() {
+            return datos.values();
+        }
+
+        public I indices() {
+            return indices;
+        }
+    }
+
+    // Divide el rango de particiones en mitades; cada hoja acumula una partición
+    private final class Reduccion<A> extends RecursiveTask<A> {
+        private final Collector<? super T, A, ?> collector;
+        private final int desde;
+        private final int hasta;
+
+        Reduccion(Collector<? super T, A, ?> collector, int desde, int hasta) {
+            this.collector = collector;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected A compute() {
+            if (hasta - desde == 1) {
+                A parcial = collector.supplier().get();
+                BiConsumer<A, ? super T> acumular = collector.accumulator();
+                for (T valor : particiones[desde].datos.values()) {
+                    acumular.accept(parcial, valor);
+                }
+                return parcial;
+            }
+            int medio = (desde + hasta) >>> 1;
+            Reduccion<A> izquierda = new Reduccion<>(collector, desde, medio);
+            Reduccion<A> derecha = new Reduccion<>(collector, medio, hasta);
+            if (inForkJoinPool()) {
+                izquierda.fork();
+                A b = derecha.compute();
+                return collector.combiner().apply(izquierda.join(), b);
+            }
+            A a = izquierda.compute();
+            return collector.combiner().apply(a, derecha.compute());
+        }
+    }
+
+    // Divide el rango de particiones en mitades y mezcla los resultados ordenados al unirlas
+    private final class Recorrido<R> extends RecursiveTask<List<R>> {
+        private final Function<Particion<T, I>, List<R>> consulta;
+        private final Comparator<? super R> orden;
+        private final int desde;
+        private final int hasta;
+
+        Recorrido(Function<Particion<T, I>, List<R>> consulta, Comparator<? super R> orden, int desde, int hasta) {
+            this.consulta = consulta;
+            this.orden = orden;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected List<R> compute() {
+            if (hasta - desde == 1) {
+                return consulta.apply(particiones[desde]);
+            }
+            int medio = (desde + hasta) >>> 1;
+            Recorrido<R> izquierda = new Recorrido<>(consulta, orden, desde, medio);
+            Recorrido<R> derecha = new Recorrido<>(consulta, orden, medio, hasta);
+            List<R> b;
+            List<R> a;
+            if (inForkJoinPool()) {
+                izquierda.fork();
+                b = derecha.compute();
+                a = izquierda.join();
+            } else {
+                a = izquierda.compute();
+                b = derecha.compute();
+            }
+            return mezclar(a, b);
+        }
+
+        private List<R> mezclar(List<R> a, List<R> b) {
+            if (a.isEmpty()) {
+                return b;
+            }
+            if (b.isEmpty()) {
+                return a;
+            }
+            List<R> resultado = new ArrayList<>(a.size() + b.size());
+            int i = 0;
+            int j = 0;
+            while (i < a.size() && j < b.size()) {
+                resultado.add(orden.compare(a.get(i), b.get(j)) <= 0 ? a.get(i++) : b.get(j++));
+            }
+            resultado.addAll(a.subList(i, a.size()));
+            resultado.addAll(b.subList(j, b.size()));
+            return resultado;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.soporte_tecnico.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Operaciones de los repositorios en memoria que usan la replicación primario/réplica y el
+ * reparto de datos entre nodos
+ *
+ * En el primario se observan los cambios para enviarlos a las réplicas; en una réplica
+ * se vacía el repositorio, se carga la instantánea y se aplican los cambios recibidos.
+ * Entre nodos, el enrutador recorre los datos por páginas para mover a otro nodo los que
+ * ya no le corresponden. No forman parte de la API que usan los servicios.
+ */
+public interface Replicable<T> {
+
+    /**
+     * Observa los cambios confirmados (se notifican bajo el cerrojo de la partición)
+     */
+    void observar(PartitionedStore.Observador<T> observador);
+
+    /**
+     * Todas las entidades, para la instantánea con la que arranca una réplica
+     */
+    List<T> instantanea();
+
+    /**
+     * Las primeras entidades con ID mayor que el indicado, ordenadas por ID
+     */
+    List<T> pagina(long despuesDe, int limite);
+
+    /**
+     * Las entidades con esos IDs que existan, ordenadas por ID
+     */
+    List<T> buscar(Collection<Long> ids);
+
+    /**
+     * Mayor ID guardado (0 si está vacío)
+     */
+    long ultimoId();
+
+    /**
+     * Guarda la entidad recibida si su versión es más reciente que la local
+     */
+    void aplicar(T entidad);
+
+    /**
+     * Elimina la entidad (no hace nada si no existe)
+     */
+    void descartar(Long id);
+
+    /**
+     * Vacía el repositorio antes de cargar una instantánea
+     */
+    void vaciar();
+}
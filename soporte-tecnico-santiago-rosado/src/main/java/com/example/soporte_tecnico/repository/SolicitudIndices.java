@@ -0,0 +1,152 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.query.FiltroSolicitudes;
+import com.example.soporte_tecnico.query.PlanConsulta;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Índices de una partición de solicitudes: cliente, técnico y estado -> IDs, y fecha de
+ * creación -> IDs ordenado por fecha (para rangos)
+ *
+ * Se escriben bajo el cerrojo de la partición y se leen sin bloquear, así que quien lee IDs
+ * de un índice debe volver a comprobar la condición en la solicitud que obtiene.
+ */
+final class SolicitudIndices implements PartitionedStore.Indices<Solicitud> {
+
+    final Map<Long, Set<Long>> porCliente = new ConcurrentHashMap<>();
+    final Map<Long, Set<Long>> porTecnico = new ConcurrentHashMap<>();
+    final Map<String, Set<Long>> porEstado = new ConcurrentHashMap<>();
+    final ConcurrentNavigableMap<LocalDateTime, Set<Long>> porFecha = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void anadir(Solicitud solicitud) {
+        indexar(porCliente, solicitud.getClienteId(), solicitud.getId());
+        indexar(porTecnico, solicitud.getTecnicoId(), solicitud.getId());
+        indexar(porEstado, solicitud.getEstado(), solicitud.getId());
+        indexar(porFecha, solicitud.getFechaCreacion(), solicitud.getId());
+    }
+
+    @Override
+    public void quitar(Solicitud solicitud) {
+        desindexar(porCliente, solicitud.getClienteId(), solicitud.getId());
+        desindexar(porTecnico, solicitud.getTecnicoId(), solicitud.getId());
+        desindexar(porEstado, solicitud.getEstado(), solicitud.getId());
+        desindexar(porFecha, solicitud.getFechaCreacion(), solicitud.getId());
+    }
+
+    @Override
+    public void limpiar() {
+        porCliente.clear();
+        porTecnico.clear();
+        porEstado.clear();
+        porFecha.clear();
+    }
+
+    /**
+     * IDs de la partición con el valor del filtro en un índice de igualdad (null si no hay ninguno)
+     */
+    Set<Long> igualdad(String indice, FiltroSolicitudes filtro) {
+        return switch (indice) {
+            case PlanConsulta.ESTADO -> porEstado.get(filtro.estado());
+            case PlanConsulta.CLIENTE -> porCliente.get(filtro.clienteId());
+            case PlanConsulta.TECNICO -> porTecnico.get(filtro.tecnicoId());
+            default -> throw new IllegalArgumentException("No es un índice de igualdad: " + indice);
+        };
+    }
+
+    /**
+     * Entradas del índice de fechas dentro del rango del filtro
+     */
+    Collection<Set<Long>> rango(FiltroSolicitudes filtro) {
+        if (filtro.desde() != null && filtro.hasta() != null) {
+            return filtro.desde().isBefore(filtro.hasta())
+                    ? porFecha.subMap(filtro.desde(), true, filtro.hasta(), false).values()
+                    : List.of();
+        }
+        if (filtro.desde() != null) {
+            return porFecha.tailMap(filtro.desde(), true).values();
+        }
+        return filtro.hasta() != null ? porFecha.headMap(filtro.hasta(), false).values() : porFecha.values();
+    }
+
+    /**
+     * IDs ordenados que da un índice para el filtro
+     */
+    long[] ids(String indice, FiltroSolicitudes filtro) {
+        Collection<Set<Long>> conjuntos;
+        if (indice.equals(PlanConsulta.FECHA)) {
+            conjuntos = rango(filtro);
+        } else {
+            Set<Long> ids = igualdad(indice, filtro);
+            conjuntos = ids != null ? List.of(ids) : List.of();
+        }
+        int total = 0;
+        for (Set<Long> ids : conjuntos) {
+            total += ids.size();
+        }
+        long[] ordenados = new long[total];
+        int n = 0;
+        for (Set<Long> ids : conjuntos) {
+            for (Long id : ids) {
+                // El conjunto puede crecer mientras se copia
+                if (n == ordenados.length) {
+                    ordenados = Arrays.copyOf(ordenados, n * 2 + 1);
+                }
+                ordenados[n++] = id;
+            }
+        }
+        ordenados = Arrays.copyOf(ordenados, n);
+        Arrays.sort(ordenados);
+        return ordenados;
+    }
+
+    // Solicitudes de la partición referenciadas por la clave, ordenadas por ID
+    static List<Solicitud> buscar(PartitionedStore.Particion<Solicitud, SolicitudIndices> particion,
+                                  Map<Long, Set<Long>> indice, Long clave) {
+        Set<Long> ids = indice.get(clave);
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        List<Solicitud> encontradas = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Solicitud solicitud = particion.get(id);
+            if (solicitud != null) {
+                encontradas.add(solicitud);
+            }
+        }
+        encontradas.sort(Comparator.comparing(Solicitud::getId));
+        return encontradas;
+    }
+
+    // compute() hace atómico el alta/baja de cada conjunto frente a su eliminación cuando se vacía
+    private static <K> void indexar(Map<K, Set<Long>> indice, K clave, Long id) {
+        if (clave != null) {
+            indice.compute(clave, (k, ids) -> {
+                Set<Long> conjunto = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                conjunto.add(id);
+                return conjunto;
+            });
+        }
+    }
+
+    private static <K> void desindexar(Map<K, Set<Long>> indice, K clave, Long id) {
+        if (clave != null) {
+            indice.computeIfPresent(clave, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.query.FiltroSolicitudes;
+import com.example.soporte_tecnico.query.PlanConsulta;
+import com.example.soporte_tecnico.query.ResultadoFiltrado;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Planificador de filtros sobre las solicitudes en memoria
+ *
+ * Estima cuántas filas daría cada índice aplicable a partir de sus estadísticas (tamaño de
+ * los conjuntos de estado, cliente y técnico; para las fechas, el rango pedido frente al rango
+ * indexado suponiendo un reparto uniforme) y parte del más selectivo: en cada partición saca
+ * sus IDs ordenados, descarta los que no están en los demás índices de igualdad (sondeando sus
+ * conjuntos, sin leer filas) y sólo lee las solicitudes que quedan, en las que comprueba el
+ * resto de condiciones. Si no hay índice aplicable, o el mejor devolvería más de la mitad de
+ * las solicitudes, se recorren todas.
+ */
+final class SolicitudQueryPlanner {
+
+    // Por encima de esta fracción de las solicitudes sale más barato recorrerlas todas
+    static final double UMBRAL_RECORRIDO = 0.5;
+
+    private static final List<String> IGUALDAD = List.of(PlanConsulta.ESTADO, PlanConsulta.CLIENTE, PlanConsulta.TECNICO);
+
+    private final PartitionedStore<Solicitud, SolicitudIndices> almacen;
+
+    SolicitudQueryPlanner(PartitionedStore<Solicitud, SolicitudIndices> almacen) {
+        this.almacen = almacen;
+    }
+
+    ResultadoFiltrado filtrar(FiltroSolicitudes filtro) {
+        long total = almacen.size();
+        List<PlanConsulta.Estimacion> estimaciones = estimar(filtro, total);
+        PlanConsulta.Estimacion mejor = estimaciones.stream()
+                .min(Comparator.comparingLong(PlanConsulta.Estimacion::filas)).orElse(null);
+        LongAdder examinadas = new LongAdder();
+
+        if (mejor == null || mejor.filas() > total * UMBRAL_RECORRIDO) {
+            List<Solicitud> encontradas = almacen.recorrer(p -> {
+                List<Solicitud> deLaParticion = new ArrayList<>();
+                for (Solicitud solicitud : p.valores()) {
+                    examinadas.increment();
+                    if (filtro.cumple(solicitud)) {
+                        deLaParticion.add(solicitud);
+                    }
+                }
+                return deLaParticion;
+            }, Comparator.comparing(Solicitud::getId));
+            return new ResultadoFiltrado(encontradas, new PlanConsulta(PlanConsulta.RECORRIDO, null, total, total,
+                    estimaciones, List.of(), PlanConsulta.condiciones(filtro), examinadas.sum(), encontradas.size(),
+                    false, null));
+        }
+
+        String indice = mejor.indice();
+        List<String> intersecciones = new ArrayList<>();
+        for (PlanConsulta.Estimacion estimacion : estimaciones) {
+            if (!estimacion.indice().equals(indice) && IGUALDAD.contains(estimacion.indice())) {
+                intersecciones.add(estimacion.indice());
+            }
+        }
+        List<String> filtros = filtro.porFecha() && !indice.equals(PlanConsulta.FECHA)
+                ? List.of(PlanConsulta.FECHA) : List.of();
+        List<Solicitud> encontradas = almacen.recorrer(p -> porIndice(p, filtro, indice, intersecciones, examinadas),
+                Comparator.comparing(Solicitud::getId));
+        return new ResultadoFiltrado(encontradas, new PlanConsulta(PlanConsulta.INDICE, indice, mejor.filas(), total,
+                estimaciones, intersecciones, filtros, examinadas.sum(), encontradas.size(), false, null));
+    }
+
+    private static List<Solicitud> porIndice(PartitionedStore.Particion<Solicitud, SolicitudIndices> particion,
+                                             FiltroSolicitudes filtro, String indice, List<String> intersecciones,
+                                             LongAdder examinadas) {
+        SolicitudIndices indices = particion.indices();
+        List<Set<Long>> sondas = new ArrayList<>(intersecciones.size());
+        for (String otro : intersecciones) {
+            Set<Long> ids = indices.igualdad(otro, filtro);
+            if (ids == null) {
+                // Ninguna solicitud de la partición tiene ese valor
+                return new ArrayList<>();
+            }
+            sondas.add(ids);
+        }
+        List<Solicitud> encontradas = new ArrayList<>();
+        siguiente:
+        for (long id : indices.ids(indice, filtro)) {
+            for (Set<Long> sonda : sondas) {
+                if (!sonda.contains(id)) {
+                    continue siguiente;
+                }
+            }
+            Solicitud solicitud = particion.get(id);
+            examinadas.increment();
+            // Los índices se leen sin cerrojo: la condición se vuelve a comprobar en la fila
+            if (solicitud != null && filtro.cumple(solicitud)) {
+                encontradas.add(solicitud);
+            }
+        }
+        return encontradas;
+    }
+
+    // Filas que daría cada índice aplicable al filtro, sumando las particiones
+    private List<PlanConsulta.Estimacion> estimar(FiltroSolicitudes filtro, long total) {
+        List<PlanConsulta.Estimacion> estimaciones = new ArrayList<>(4);
+        if (filtro.estado() != null) {
+            estimaciones.add(exacta(PlanConsulta.ESTADO, p -> p.porEstado, filtro.estado()));
+        }
+        if (filtro.clienteId() != null) {
+            estimaciones.add(exacta(PlanConsulta.CLIENTE, p -> p.porCliente, filtro.clienteId()));
+        }
+        if (filtro.tecnicoId() != null) {
+            estimaciones.add(exacta(PlanConsulta.TECNICO, p -> p.porTecnico, filtro.tecnicoId()));
+        }
+        if (filtro.porFecha()) {
+            estimaciones.add(new PlanConsulta.Estimacion(PlanConsulta.FECHA, estimarFechas(filtro, total), false));
+        }
+        return estimaciones;
+    }
+
+    private <K> PlanConsulta.Estimacion exacta(String indice,
+                                               Function<SolicitudIndices, Map<K, Set<Long>>> mapa,
+                                               K clave) {
+        long filas = almacen.sumar(p -> {
+            Set<Long> ids = mapa.apply(p.indices()).get(clave);
+            return ids != null ? ids.size() : 0;
+        });
+        return new PlanConsulta.Estimacion(indice, filas, true);
+    }
+
+    // Parte del total proporcional al solape entre el rango pedido y el de las fechas indexadas
+    private long estimarFechas(FiltroSolicitudes filtro, long total) {
+        // Primera y última fecha de cada partición, mezcladas en orden: el mínimo y el máximo quedan en los extremos
+        List<LocalDateTime> extremos = almacen.recorrer(p -> {
+            Map.Entry<LocalDateTime, Set<Long>> primera = p.indices().porFecha.firstEntry();
+            Map.Entry<LocalDateTime, Set<Long>> ultima = p.indices().porFecha.lastEntry();
+            return primera != null && ultima != null ? List.of(primera.getKey(), ultima.getKey()) : List.of();
+        }, Comparator.naturalOrder());
+        if (extremos.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime minima = extremos.get(0);
+        LocalDateTime maxima = extremos.get(extremos.size() - 1);
+        LocalDateTime desde = filtro.desde() != null && filtro.desde().isAfter(minima) ? filtro.desde() : minima;
+        LocalDateTime hasta = filtro.hasta() != null && filtro.hasta().isBefore(maxima) ? filtro.hasta() : maxima;
+        if (hasta.isBefore(desde) || (filtro.hasta() != null && !filtro.hasta().isAfter(desde))) {
+            return 0;
+        }
+        long rango = Duration.between(minima, maxima).toMillis();
+        if (rango == 0) {
+            return total;
+        }
+        double fraccion = (double) Duration.between(desde, hasta).toMillis() / rango;
+        return Math.min(total, Math.max(1, Math.round(total * fraccion)));
+    }
+}
@@ -1,8 +1,15 @@
 package com.example.soporte_tecnico.repository;
 
 import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.query.FiltroSolicitudes;
+import com.example.soporte_tecnico.query.PlanConsulta;
+import com.example.soporte_tecnico.query.ResultadoFiltrado;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collector;
 
 public interface SolicitudRepository {
     List<Solicitud> findAll();
@@ -11,4 +18,90 @@ public interface SolicitudRepository {
     Solicitud update(Solicitud solicitud);
     void deleteById(Long id);
     boolean existsById(Long id);
+    long count();
+
+    /**
+     * Busca varias solicitudes por ID en una sola llamada (resolución por lotes)
+     * Los IDs que no existen se ignoran; por defecto se busca una a una
+     */
+    default List<Solicitud> findAllById(Collection<Long> ids) {
+        List<Solicitud> encontradas = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (id != null) {
+                findById(id).ifPresent(encontradas::add);
+            }
+        }
+        return encontradas;
+    }
+
+    /**
+     * Guarda varias solicitudes nuevas (en lotes si el almacén lo permite); o se guardan todas
+     * o ninguna
+     */
+    default List<Solicitud> saveAll(List<Solicitud> solicitudes) {
+        List<Solicitud> guardadas = new ArrayList<>(solicitudes.size());
+        try {
+            for (Solicitud solicitud : solicitudes) {
+                guardadas.add(save(solicitud));
+            }
+        } catch (RuntimeException e) {
+            // Se deshacen las que ya se habían guardado
+            for (Solicitud guardada : guardadas) {
+                deleteById(guardada.getId());
+            }
+            throw e;
+        }
+        return guardadas;
+    }
+
+    /**
+     * Actualiza varias solicitudes con la misma comprobación de versión que update
+     * (en lotes si el almacén lo permite)
+     */
+    default List<Solicitud> updateAll(List<Solicitud> solicitudes) {
+        List<Solicitud> actualizadas = new ArrayList<>(solicitudes.size());
+        for (Solicitud solicitud : solicitudes) {
+            actualizadas.add(update(solicitud));
+        }
+        return actualizadas;
+    }
+
+    /**
+     * Solicitudes de un cliente (índice inverso, sin recorrer todas las solicitudes)
+     */
+    List<Solicitud> findByClienteId(Long clienteId);
+
+    /**
+     * Solicitudes asignadas a un técnico (índice inverso)
+     */
+    List<Solicitud> findByTecnicoId(Long tecnicoId);
+
+    /**
+     * Número de solicitudes asignadas a un técnico
+     */
+    long countByTecnicoId(Long tecnicoId);
+
+    /**
+     * Solicitudes que cumplen todas las condiciones del filtro, ordenadas por ID, con el plan usado
+     * Por defecto se recorren todas; los almacenes con índices eligen el más selectivo
+     * @param explicar Si se piden los detalles que cuesten una consulta más (el plan de la base de datos)
+     */
+    default ResultadoFiltrado filtrar(FiltroSolicitudes filtro, boolean explicar) {
+        List<Solicitud> encontradas = new ArrayList<>();
+        long total = 0;
+        for (Solicitud solicitud : findAll()) {
+            total++;
+            if (filtro.cumple(solicitud)) {
+                encontradas.add(solicitud);
+            }
+        }
+        encontradas.sort(Comparator.comparing(Solicitud::getId));
+        return new ResultadoFiltrado(encontradas, PlanConsulta.recorrido(filtro, total, encontradas.size()));
+    }
+
+    /**
+     * Reduce todas las solicitudes con un Collector, en paralelo si el almacén lo permite
+     * (cada hilo acumula sus propios parciales, que se combinan al final)
+     */
+    <R> R agregar(Collector<? super Solicitud, ?, R> collector);
 }
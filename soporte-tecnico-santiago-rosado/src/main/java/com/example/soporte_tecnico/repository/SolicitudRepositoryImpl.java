@@ -1,54 +1,383 @@
 package com.example.soporte_tecnico.repository;
 
+import com.example.soporte_tecnico.archive.ColdArchive;
+import com.example.soporte_tecnico.archive.SolicitudArchiver;
+import com.example.soporte_tecnico.exception.ResourceNotFoundException;
+import com.example.soporte_tecnico.exception.VersionConflictException;
 import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.query.FiltroSolicitudes;
+import com.example.soporte_tecnico.query.ResultadoFiltrado;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
 
 @Repository
-public class SolicitudRepositoryImpl implements SolicitudRepository {
+@Profile("!sql & !lsm")
+public class SolicitudRepositoryImpl implements SolicitudRepository, Replicable<Solicitud>, Archivable<Solicitud> {
 
-    private final List<Solicitud> solicitudes = new ArrayList<>();
+    // Máximo de solicitudes que se escriben en el archivo de una vez
+    private static final int LOTE_ARCHIVO = 10_000;
+
+    // ID -> solicitud repartido en particiones por hash del ID, cada una con sus índices inversos;
+    // las solicitudes guardadas no se modifican, se sustituyen por copias versionadas
+    private final PartitionedStore<Solicitud, SolicitudIndices> solicitudes;
+    private final SolicitudQueryPlanner planificador;
     private final AtomicLong counter = new AtomicLong(1);
+    // Solicitudes sacadas del heap (null si no se archiva); una solicitud está en memoria o
+    // en el archivo, y si por un momento está en los dos gana la de memoria
+    private volatile ColdArchive<Solicitud> archivo;
+
+    public SolicitudRepositoryImpl() {
+        this(0);
+    }
+
+    @Autowired
+    public SolicitudRepositoryImpl(@Value("${soporte.particiones:0}") int particiones) {
+        this.solicitudes = new PartitionedStore<>(particiones > 0 ? particiones : PartitionedStore.particionesPorDefecto(),
+                Solicitud::getId, SolicitudIndices::new);
+        this.planificador = new SolicitudQueryPlanner(solicitudes);
+    }
 
     @Override
     public List<Solicitud> findAll() {
-        return new ArrayList<>(solicitudes);
+        ColdArchive<Solicitud> a = archivo;
+        if (a == null || a.isEmpty()) {
+            return solicitudes.valores();
+        }
+        return mezclar(solicitudes.valores(), a.todas());
     }
 
     @Override
     public Optional<Solicitud> findById(Long id) {
-        return solicitudes.stream()
-                .filter(s -> s.getId().equals(id))
-                .findFirst();
+        Solicitud solicitud = solicitudes.get(id);
+        if (solicitud != null) {
+            return Optional.of(solicitud);
+        }
+        ColdArchive<Solicitud> a = archivo;
+        return a != null ? a.get(id) : Optional.empty();
     }
 
     @Override
     public Solicitud save(Solicitud solicitud) {
         if (solicitud.getId() == null) {
             solicitud.setId(counter.getAndIncrement());
+        } else {
+            // Evitar que el generador reparta más tarde un ID ya usado
+            counter.accumulateAndGet(solicitud.getId() + 1, Math::max);
+        }
+        solicitud.setVersion(1L);
+        if (solicitudes.putIfAbsent(solicitud) != null) {
+            throw new IllegalArgumentException("Ya existe una solicitud con ID: " + solicitud.getId());
         }
-        solicitudes.add(solicitud);
         return solicitud;
     }
 
+    /**
+     * Sustituye la solicitud si su versión sigue siendo la esperada (compare-and-set)
+     * La versión de la solicitud recibida es la esperada; si es nula se usa la actual
+     */
     @Override
     public Solicitud update(Solicitud solicitud) {
-        deleteById(solicitud.getId());
-        solicitudes.add(solicitud);
-        return solicitud;
+        Solicitud actual = solicitudes.get(solicitud.getId());
+        if (actual == null) {
+            actual = restaurar(solicitud.getId());
+        }
+        if (actual == null) {
+            throw new ResourceNotFoundException("No se puede actualizar: Solicitud no encontrada con ID: " + solicitud.getId());
+        }
+
+        long versionEsperada = solicitud.getVersion() != null ? solicitud.getVersion() : actual.getVersion();
+        if (actual.getVersion() != versionEsperada) {
+            throw new VersionConflictException("La solicitud con ID " + solicitud.getId() + " está en la versión "
+                    + actual.getVersion() + ", no en la " + versionEsperada);
+        }
+
+        Solicitud nueva = new Solicitud(solicitud);
+        nueva.setVersion(versionEsperada + 1);
+        if (!solicitudes.replace(actual, nueva)) {
+            throw new VersionConflictException("La solicitud con ID " + solicitud.getId() + " fue modificada concurrentemente");
+        }
+        return nueva;
     }
 
     @Override
     public void deleteById(Long id) {
-        solicitudes.removeIf(s -> s.getId().equals(id));
+        if (solicitudes.remove(id) == null) {
+            ColdArchive<Solicitud> a = archivo;
+            if (a != null) {
+                a.eliminar(id).ifPresent(solicitudes::notificarBaja);
+            }
+        }
     }
 
     @Override
     public boolean existsById(Long id) {
-        return solicitudes.stream().anyMatch(s -> s.getId().equals(id));
+        if (solicitudes.containsKey(id)) {
+            return true;
+        }
+        ColdArchive<Solicitud> a = archivo;
+        return a != null && a.contains(id);
+    }
+
+    @Override
+    public long count() {
+        ColdArchive<Solicitud> a = archivo;
+        return solicitudes.size() + (a != null ? a.size() : 0);
+    }
+
+    @Override
+    public List<Solicitud> findByClienteId(Long clienteId) {
+        if (clienteId == null) {
+            return new ArrayList<>();
+        }
+        return conArchivadas(solicitudes.recorrer(p -> SolicitudIndices.buscar(p, p.indices().porCliente, clienteId),
+                Comparator.comparing(Solicitud::getId)), SolicitudArchiver.POR_CLIENTE, clienteId, s -> true);
+    }
+
+    @Override
+    public List<Solicitud> findByTecnicoId(Long tecnicoId) {
+        if (tecnicoId == null) {
+            return new ArrayList<>();
+        }
+        return conArchivadas(solicitudes.recorrer(p -> SolicitudIndices.buscar(p, p.indices().porTecnico, tecnicoId),
+                Comparator.comparing(Solicitud::getId)), SolicitudArchiver.POR_TECNICO, tecnicoId, s -> true);
+    }
+
+    /**
+     * Filtro resuelto por el planificador sobre los índices de cada partición
+     */
+    @Override
+    public ResultadoFiltrado filtrar(FiltroSolicitudes filtro, boolean explicar) {
+        ResultadoFiltrado enMemoria = planificador.filtrar(filtro);
+        ColdArchive<Solicitud> a = archivo;
+        if (a == null || a.isEmpty()) {
+            return enMemoria;
+        }
+        List<Solicitud> todas;
+        if (filtro.clienteId() != null) {
+            todas = conArchivadas(enMemoria.solicitudes(), SolicitudArchiver.POR_CLIENTE, filtro.clienteId(),
+                    filtro::cumple);
+        } else if (filtro.tecnicoId() != null) {
+            todas = conArchivadas(enMemoria.solicitudes(), SolicitudArchiver.POR_TECNICO, filtro.tecnicoId(),
+                    filtro::cumple);
+        } else {
+            todas = conArchivadas(enMemoria.solicitudes(), filtro::cumple);
+        }
+        return new ResultadoFiltrado(todas, enMemoria.plan().conArchivo(todas.size()));
+    }
+
+    // Las archivadas no están en los índices inversos: sin cliente ni técnico se recorre el archivo
+    private List<Solicitud> conArchivadas(List<Solicitud> enMemoria, Predicate<Solicitud> filtro) {
+        ColdArchive<Solicitud> a = archivo;
+        if (a == null || a.isEmpty()) {
+            return enMemoria;
+        }
+        List<Solicitud> archivadas = new ArrayList<>();
+        a.recorrer(solicitud -> {
+            if (filtro.test(solicitud)) {
+                archivadas.add(solicitud);
+            }
+        });
+        return archivadas.isEmpty() ? enMemoria : mezclar(enMemoria, archivadas);
+    }
+
+    // Con cliente o técnico sólo se leen los bloques del archivo que lo contienen
+    private List<Solicitud> conArchivadas(List<Solicitud> enMemoria, int atributo, long valor,
+                                          Predicate<Solicitud> filtro) {
+        ColdArchive<Solicitud> a = archivo;
+        if (a == null || a.isEmpty()) {
+            return enMemoria;
+        }
+        List<Solicitud> archivadas = new ArrayList<>();
+        a.recorrer(atributo, valor, solicitud -> {
+            if (filtro.test(solicitud)) {
+                archivadas.add(solicitud);
+            }
+        });
+        return archivadas.isEmpty() ? enMemoria : mezclar(enMemoria, archivadas);
+    }
+
+    /**
+     * Sólo cuenta las solicitudes en memoria: las archivadas están cerradas y no son carga
+     */
+    @Override
+    public long countByTecnicoId(Long tecnicoId) {
+        if (tecnicoId == null) {
+            return 0;
+        }
+        return solicitudes.sumar(p -> {
+            Set<Long> ids = p.indices().porTecnico.get(tecnicoId);
+            return ids != null ? ids.size() : 0;
+        });
+    }
+
+    @Override
+    public <R> R agregar(Collector<? super Solicitud, ?, R> collector) {
+        return agregarConArchivo(collector);
+    }
+
+    // Los parciales de memoria y del archivo se combinan antes de aplicar el finisher
+    private <A, R> R agregarConArchivo(Collector<? super Solicitud, A, R> collector) {
+        ColdArchive<Solicitud> a = archivo;
+        if (a == null || a.isEmpty()) {
+            return solicitudes.reducir(collector);
+        }
+        A enMemoria = solicitudes.acumular(collector);
+        A archivadas = collector.supplier().get();
+        BiConsumer<A, ? super Solicitud> acumular = collector.accumulator();
+        a.recorrer(solicitud -> acumular.accept(archivadas, solicitud));
+        return collector.finisher().apply(collector.combiner().apply(enMemoria, archivadas));
+    }
+
+    // Archivado: ver Archivable
+
+    /**
+     * El archivo debe indexar el cliente y el técnico: ver SolicitudArchiver.nuevoArchivo
+     */
+    @Override
+    public void usarArchivo(ColdArchive<Solicitud> archivo) {
+        this.archivo = archivo;
+    }
+
+    /**
+     * Primero se escriben en el archivo y luego se quitan de memoria; si entre tanto una
+     * cambió o se eliminó, su copia archivada se descarta y se queda la de memoria
+     */
+    @Override
+    public int archivar(Predicate<? super Solicitud> criterio) {
+        ColdArchive<Solicitud> a = archivo;
+        if (a == null) {
+            return 0;
+        }
+        List<Solicitud> candidatas = solicitudes.filtrar(criterio);
+        int archivadas = 0;
+        for (int desde = 0; desde < candidatas.size(); desde += LOTE_ARCHIVO) {
+            List<Solicitud> lote = candidatas.subList(desde, Math.min(desde + LOTE_ARCHIVO, candidatas.size()));
+            a.archivar(lote);
+            for (Solicitud solicitud : lote) {
+                if (solicitudes.retirar(solicitud)) {
+                    archivadas++;
+                } else {
+                    a.eliminar(solicitud.getId());
+                }
+            }
+        }
+        return archivadas;
+    }
+
+    @Override
+    public long enMemoria() {
+        return solicitudes.size();
+    }
+
+    // Devuelve a memoria una solicitud archivada para poder modificarla
+    private Solicitud restaurar(Long id) {
+        ColdArchive<Solicitud> a = archivo;
+        if (a == null || id == null) {
+            return null;
+        }
+        Optional<Solicitud> archivada = a.get(id);
+        if (archivada.isEmpty()) {
+            return solicitudes.get(id);
+        }
+        Solicitud existente = solicitudes.putIfAbsent(archivada.get());
+        a.eliminar(id);
+        return existente != null ? existente : archivada.get();
+    }
+
+    // Mezcla dos listas ordenadas por ID; si un ID está en las dos gana la de memoria
+    private static List<Solicitud> mezclar(List<Solicitud> enMemoria, List<Solicitud> archivadas) {
+        List<Solicitud> mezcla = new ArrayList<>(enMemoria.size() + archivadas.size());
+        int i = 0;
+        int j = 0;
+        while (i < enMemoria.size() || j < archivadas.size()) {
+            if (j == archivadas.size()
+                    || (i < enMemoria.size() && enMemoria.get(i).getId() <= archivadas.get(j).getId())) {
+                Solicitud solicitud = enMemoria.get(i++);
+                if (j < archivadas.size() && archivadas.get(j).getId().equals(solicitud.getId())) {
+                    j++;
+                }
+                mezcla.add(solicitud);
+            } else {
+                mezcla.add(archivadas.get(j++));
+            }
+        }
+        return mezcla;
+    }
+
+    // Replicación: ver Replicable
+
+    @Override
+    public void observar(PartitionedStore.Observador<Solicitud> observador) {
+        solicitudes.observar(observador);
+    }
+
+    @Override
+    public List<Solicitud> instantanea() {
+        return solicitudes.valores();
+    }
+
+    @Override
+    public List<Solicitud> pagina(long despuesDe, int limite) {
+        return solicitudes.pagina(despuesDe, limite);
+    }
+
+    @Override
+    public List<Solicitud> buscar(Collection<Long> ids) {
+        List<Solicitud> encontradas = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Solicitud solicitud = id != null ? solicitudes.get(id) : null;
+            if (solicitud != null) {
+                encontradas.add(solicitud);
+            }
+        }
+        encontradas.sort(Comparator.comparing(Solicitud::getId));
+        return encontradas;
+    }
+
+    @Override
+    public long ultimoId() {
+        return solicitudes.ultimaClave();
+    }
+
+    @Override
+    public void aplicar(Solicitud solicitud) {
+        solicitudes.aplicar(solicitud, (recibida, actual) -> recibida.getVersion() > actual.getVersion());
+        ColdArchive<Solicitud> a = archivo;
+        if (a != null) {
+            a.eliminar(solicitud.getId());
+        }
+        // Si esta réplica pasa a primario no debe repartir IDs ya usados
+        counter.accumulateAndGet(solicitud.getId() + 1, Math::max);
+    }
+
+    @Override
+    public void descartar(Long id) {
+        solicitudes.remove(id);
+        ColdArchive<Solicitud> a = archivo;
+        if (a != null) {
+            a.eliminar(id);
+        }
+    }
+
+    @Override
+    public void vaciar() {
+        solicitudes.clear();
+        ColdArchive<Solicitud> a = archivo;
+        if (a != null) {
+            a.vaciar();
+        }
     }
 }
@@ -1,6 +1,7 @@
 package com.example.soporte_tecnico.repository;
 
 import com.example.soporte_tecnico.model.Tecnico;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +28,13 @@ public interface TecnicoRepository {
      */
     Optional<Tecnico> findById(Long id);
 
+    /**
+     * Busca varios técnicos por ID en una sola llamada (resolución por lotes)
+     * @param ids IDs a buscar (no puede ser nulo; los IDs que no existen se ignoran)
+     * @return Lista con los técnicos encontrados
+     */
+    List<Tecnico> findAllById(Collection<Long> ids);
+
     /**
      * Busca técnicos por su nombre (búsqueda parcial case-insensitive)
      * @param nombre Nombre o parte del nombre a buscar (no puede ser nulo o vacío)
@@ -35,6 +43,25 @@ public interface TecnicoRepository {
      */
     List<Tecnico> findByNombreContaining(String nombre);
 
+    /**
+     * Busca técnicos con un nombre parecido al indicado, tolerando errores de escritura
+     * (p. ej. "Fernandes" encuentra "Fernández")
+     * @param nombre Nombre buscado, con o sin errores (no puede ser nulo o vacío)
+     * @param maxDistancia Distancia de edición máxima por palabra (0 a 2)
+     * @return Lista de técnicos ordenada del más al menos parecido (puede estar vacía)
+     * @throws IllegalArgumentException si el nombre es nulo o vacío o la distancia no es válida
+     */
+    List<Tecnico> findByNombreSimilar(String nombre, int maxDistancia);
+
+    /**
+     * Autocompletado: técnicos con alguna palabra del nombre que empieza por el prefijo
+     * @param prefijo Texto tecleado, sin distinguir mayúsculas ni acentos (no puede ser nulo o vacío)
+     * @param limite Número máximo de resultados
+     * @return Lista de técnicos ordenada alfabéticamente por la palabra que coincide
+     * @throws IllegalArgumentException si el prefijo es nulo o vacío
+     */
+    List<Tecnico> findByNombreStartingWith(String prefijo, int limite);
+
     /**
      * Busca técnicos por su especialidad (búsqueda exacta case-insensitive)
      * @param especialidad Especialidad de los técnicos a buscar (no puede ser nulo o vacío)
@@ -57,7 +84,7 @@ public interface TecnicoRepository {
      * El técnico debe existir previamente (tener un ID válido)
      * @param tecnico Técnico con los datos actualizados (no puede ser nulo)
      * @return El técnico actualizado
-     * @throws RuntimeException si el técnico no existe en el repositorio
+     * @throws com.example.soporte_tecnico.exception.ResourceNotFoundException si el técnico no existe en el repositorio
      */
     Tecnico update(Tecnico tecnico);
 
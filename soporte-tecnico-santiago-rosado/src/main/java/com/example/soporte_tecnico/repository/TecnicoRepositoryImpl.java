@@ -1,9 +1,17 @@
 package com.example.soporte_tecnico.repository;
 
+import com.example.soporte_tecnico.exception.DuplicateIdException;
+import com.example.soporte_tecnico.exception.ResourceNotFoundException;
+import com.example.soporte_tecnico.exception.VersionConflictException;
 import com.example.soporte_tecnico.model.Tecnico;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicLong;
@@ -15,22 +23,43 @@ import java.util.stream.Collectors;
  * @Repository Indica que esta clase es un componente de repositorio de Spring
  *             Permite la inyección de dependencias y el manejo automático de excepciones
  *
- * Esta implementación simula una base de datos usando una ArrayList en memoria
+ * Esta implementación simula una base de datos usando mapas concurrentes ordenados por ID,
+ * repartidos en particiones por hash del ID (ver PartitionedStore)
  * Es adecuada para desarrollo, pruebas y demostraciones
+ *
+ * Los técnicos guardados no se modifican nunca: cada actualización sustituye el objeto
+ * por una copia con la versión incrementada mediante una operación compare-and-set
  */
 @Repository
-public class TecnicoRepositoryImpl implements TecnicoRepository {
+@Profile("!sql")
+public class TecnicoRepositoryImpl implements TecnicoRepository, Replicable<Tecnico> {
 
-    // Simulación de tabla de técnicos en memoria
-    private final List<Tecnico> tecnicos = new ArrayList<>();
+    // Simulación de tabla de técnicos en memoria, repartida por hash del ID en particiones
+    // con su propio cerrojo e índices de nombre (BK-tree y prefijos)
+    private final PartitionedStore<Tecnico, NameIndexes<Tecnico>> tecnicos;
 
     // Generador de IDs automáticos (simula AUTO_INCREMENT de base de datos)
     private final AtomicLong idGenerator = new AtomicLong(1);
 
+    // Máximo de candidatos devueltos por la búsqueda aproximada
+    private static final int MAX_SIMILARES = 50;
+
     /**
-     * Constructor que inicializa datos de ejemplo al crear el repositorio
+     * Crea el repositorio con una partición por procesador
      */
     public TecnicoRepositoryImpl() {
+        this(0);
+    }
+
+    /**
+     * Constructor que inicializa datos de ejemplo al crear el repositorio
+     * @param particiones Número de particiones (soporte.particiones); 0 = una por procesador
+     */
+    @Autowired
+    public TecnicoRepositoryImpl(@Value("${soporte.particiones:0}") int particiones) {
+        this.tecnicos = new PartitionedStore<>(particiones > 0 ? particiones : PartitionedStore.particionesPorDefecto(),
+                Tecnico::getId, () -> new NameIndexes<>(Tecnico::getId, Tecnico::getNombre));
+
         // Inicializar con algunos técnicos de ejemplo
         initializeSampleData();
     }
@@ -41,8 +70,8 @@ public class TecnicoRepositoryImpl implements TecnicoRepository {
      */
     @Override
     public List<Tecnico> findAll() {
-        // Retornamos una copia para evitar modificaciones externas a la lista interna
-        return new ArrayList<>(tecnicos);
+        // Retornamos una copia para evitar modificaciones externas a la colección interna
+        return tecnicos.valores();
     }
 
     /**
@@ -58,10 +87,29 @@ public class TecnicoRepositoryImpl implements TecnicoRepository {
             throw new IllegalArgumentException("El ID no puede ser nulo");
         }
 
-        // Buscar técnico por ID usando Stream API
-        return tecnicos.stream()
-                .filter(tecnico -> id.equals(tecnico.getId()))
-                .findFirst();
+        // Búsqueda directa por clave
+        return Optional.ofNullable(tecnicos.get(id));
+    }
+
+    /**
+     * Busca varios técnicos por ID en una sola llamada
+     * @param ids IDs a buscar; los que no existen se ignoran
+     * @return Lista con los técnicos encontrados
+     */
+    @Override
+    public List<Tecnico> findAllById(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("La lista de IDs no puede ser nula");
+        }
+
+        List<Tecnico> encontrados = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Tecnico tecnico = id != null ? tecnicos.get(id) : null;
+            if (tecnico != null) {
+                encontrados.add(tecnico);
+            }
+        }
+        return encontrados;
     }
 
     /**
@@ -79,10 +127,45 @@ public class TecnicoRepositoryImpl implements TecnicoRepository {
 
         String nombreLower = nombre.toLowerCase();
 
-        // Filtrar técnicos cuyo nombre contenga el texto buscado (case-insensitive)
-        return tecnicos.stream()
-                .filter(tecnico -> tecnico.getNombre().toLowerCase().contains(nombreLower))
-                .collect(Collectors.toList());
+        // Filtrar técnicos cuyo nombre contenga el texto buscado (case-insensitive), en paralelo por partición
+        return tecnicos.filtrar(tecnico -> tecnico.getNombre().toLowerCase().contains(nombreLower));
+    }
+
+    /**
+     * Busca técnicos con un nombre parecido al indicado (distancia de Levenshtein por palabra)
+     * Usa el BK-tree de nombres, así que no recorre todos los técnicos
+     * @param nombre Nombre buscado, con o sin errores
+     * @param maxDistancia Distancia de edición máxima por palabra (0 a 2)
+     * @return Lista de técnicos ordenada del más al menos parecido
+     * @throws IllegalArgumentException si el nombre es nulo o vacío o la distancia no es válida
+     */
+    @Override
+    public List<Tecnico> findByNombreSimilar(String nombre, int maxDistancia) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre no puede estar vacío");
+        }
+        if (maxDistancia < 0 || maxDistancia > 2) {
+            throw new IllegalArgumentException("La distancia máxima debe estar entre 0 y 2");
+        }
+
+        return NameIndexes.buscarSimilares(tecnicos, nombre, maxDistancia, MAX_SIMILARES);
+    }
+
+    /**
+     * Autocompletado por prefijo sobre las palabras del nombre
+     * Lee sólo el rango del índice de prefijos que empieza por el texto tecleado
+     * @param prefijo Texto tecleado
+     * @param limite Número máximo de resultados
+     * @return Lista de técnicos ordenada alfabéticamente por la palabra que coincide
+     * @throws IllegalArgumentException si el prefijo es nulo o vacío
+     */
+    @Override
+    public List<Tecnico> findByNombreStartingWith(String prefijo, int limite) {
+        if (prefijo == null || prefijo.trim().isEmpty()) {
+            throw new IllegalArgumentException("El prefijo no puede estar vacío");
+        }
+
+        return NameIndexes.buscarPorPrefijo(tecnicos, prefijo, limite);
     }
 
     /**
@@ -100,10 +183,8 @@ public class TecnicoRepositoryImpl implements TecnicoRepository {
 
         String especialidadLower = especialidad.toLowerCase();
 
-        // Filtrar técnicos por especialidad (case-insensitive)
-        return tecnicos.stream()
-                .filter(tecnico -> especialidadLower.equals(tecnico.getEspecialidad().toLowerCase()))
-                .collect(Collectors.toList());
+        // Filtrar técnicos por especialidad (case-insensitive), en paralelo por partición
+        return tecnicos.filtrar(tecnico -> especialidadLower.equals(tecnico.getEspecialidad().toLowerCase()));
     }
 
     /**
@@ -124,14 +205,17 @@ public class TecnicoRepositoryImpl implements TecnicoRepository {
         if (tecnico.getId() == null) {
             tecnico.setId(idGenerator.getAndIncrement());
         } else {
-            // Verificar que el ID no esté duplicado
-            if (existsById(tecnico.getId())) {
-                throw new IllegalArgumentException("Ya existe un técnico con ID: " + tecnico.getId());
-            }
+            // Evitar que el generador reparta más tarde un ID ya usado
+            idGenerator.accumulateAndGet(tecnico.getId() + 1, Math::max);
         }
 
-        // Agregar técnico a la lista
-        tecnicos.add(tecnico);
+        // Primera versión del técnico
+        tecnico.setVersion(1L);
+
+        // Agregar técnico verificando de forma atómica que el ID no esté duplicado
+        if (tecnicos.putIfAbsent(tecnico) != null) {
+            throw new DuplicateIdException("Ya existe un técnico con ID: " + tecnico.getId());
+        }
 
         System.out.println("Técnico guardado - ID: " + tecnico.getId() +
                 ", Nombre: " + tecnico.getNombre() +
@@ -142,9 +226,12 @@ public class TecnicoRepositoryImpl implements TecnicoRepository {
 
     /**
      * Actualiza un técnico existente en el repositorio
+     * La versión del técnico recibido es la versión esperada: si el técnico guardado tiene otra
+     * versión la actualización se rechaza. Si no trae versión se actualiza sobre la versión actual.
      * @param tecnico Técnico con los datos actualizados
-     * @return El técnico actualizado
-     * @throws RuntimeException si el técnico no existe en el repositorio
+     * @return Copia guardada del técnico, con la nueva versión
+     * @throws com.example.soporte_tecnico.exception.ResourceNotFoundException si el técnico no existe en el repositorio
+     * @throws VersionConflictException si la versión esperada no coincide con la guardada
      */
     @Override
     public Tecnico update(Tecnico tecnico) {
@@ -154,23 +241,27 @@ public class TecnicoRepositoryImpl implements TecnicoRepository {
         }
 
         // Buscar el técnico existente
-        Optional<Tecnico> tecnicoExistente = findById(tecnico.getId());
+        Tecnico actual = findById(tecnico.getId()).orElseThrow(() ->
+                new ResourceNotFoundException("No se puede actualizar: Técnico no encontrado con ID: " + tecnico.getId()));
 
-        if (tecnicoExistente.isPresent()) {
-            // Eliminar el técnico antiguo
-            deleteById(tecnico.getId());
+        long versionEsperada = tecnico.getVersion() != null ? tecnico.getVersion() : actual.getVersion();
+        if (actual.getVersion() != versionEsperada) {
+            throw new VersionConflictException("El técnico con ID " + tecnico.getId() + " está en la versión "
+                    + actual.getVersion() + ", no en la " + versionEsperada);
+        }
 
-            // Agregar el técnico actualizado
-            tecnicos.add(tecnico);
+        // Sustituir de forma atómica sólo si nadie lo cambió entre la lectura y la escritura
+        Tecnico nuevo = new Tecnico(tecnico);
+        nuevo.setVersion(versionEsperada + 1);
+        if (!tecnicos.replace(actual, nuevo)) {
+            throw new VersionConflictException("El técnico con ID " + tecnico.getId() + " fue modificado concurrentemente");
+        }
 
-            System.out.println("Técnico actualizado - ID: " + tecnico.getId() +
-                    ", Nombre: " + tecnico.getNombre() +
-                    ", Especialidad: " + tecnico.getEspecialidad());
+        System.out.println("Técnico actualizado - ID: " + nuevo.getId() +
+                ", Nombre: " + nuevo.getNombre() +
+                ", Especialidad: " + nuevo.getEspecialidad());
 
-            return tecnico;
-        } else {
-            throw new RuntimeException("No se puede actualizar: Técnico no encontrado con ID: " + tecnico.getId());
-        }
+        return nuevo;
     }
 
     /**
@@ -186,7 +277,7 @@ public class TecnicoRepositoryImpl implements TecnicoRepository {
         }
 
         // Eliminar técnico si existe
-        boolean removed = tecnicos.removeIf(tecnico -> id.equals(tecnico.getId()));
+        boolean removed = tecnicos.remove(id) != null;
 
         if (removed) {
             System.out.println("Técnico eliminado - ID: " + id);
@@ -208,7 +299,7 @@ public class TecnicoRepositoryImpl implements TecnicoRepository {
             throw new IllegalArgumentException("El ID no puede ser nulo");
         }
 
-        return tecnicos.stream().anyMatch(tecnico -> id.equals(tecnico.getId()));
+        return tecnicos.containsKey(id);
     }
 
     /**
@@ -226,7 +317,7 @@ public class TecnicoRepositoryImpl implements TecnicoRepository {
      */
     @Override
     public List<String> findAllEspecialidades() {
-        return tecnicos.stream()
+        return tecnicos.valores().stream()
                 .map(Tecnico::getEspecialidad)
                 .distinct() // Eliminar duplicados
                 .collect(Collectors.toList());
@@ -251,6 +342,52 @@ public class TecnicoRepositoryImpl implements TecnicoRepository {
         }
     }
 
+    // Replicación: ver Replicable
+
+    @Override
+    public void observar(PartitionedStore.Observador<Tecnico> observador) {
+        tecnicos.observar(observador);
+    }
+
+    @Override
+    public List<Tecnico> instantanea() {
+        return tecnicos.valores();
+    }
+
+    @Override
+    public List<Tecnico> pagina(long despuesDe, int limite) {
+        return tecnicos.pagina(despuesDe, limite);
+    }
+
+    @Override
+    public List<Tecnico> buscar(Collection<Long> ids) {
+        List<Tecnico> encontrados = findAllById(ids);
+        encontrados.sort(Comparator.comparing(Tecnico::getId));
+        return encontrados;
+    }
+
+    @Override
+    public long ultimoId() {
+        return tecnicos.ultimaClave();
+    }
+
+    @Override
+    public void aplicar(Tecnico tecnico) {
+        tecnicos.aplicar(tecnico, (recibida, actual) -> recibida.getVersion() > actual.getVersion());
+        // Si esta réplica pasa a primario no debe repartir IDs ya usados
+        idGenerator.accumulateAndGet(tecnico.getId() + 1, Math::max);
+    }
+
+    @Override
+    public void descartar(Long id) {
+        tecnicos.remove(id);
+    }
+
+    @Override
+    public void vaciar() {
+        tecnicos.clear();
+    }
+
     /**
      * Método de utilidad para limpiar todos los técnicos (útil para testing)
      * ATENCIÓN: Este método elimina todos los datos, usar con cuidado
@@ -0,0 +1,205 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.bloom.BloomFilters;
+import com.example.soporte_tecnico.bloom.CountingBloomFilter;
+import com.example.soporte_tecnico.cache.WriteBehindCache;
+import com.example.soporte_tecnico.cache.WriteBehindCaches;
+import com.example.soporte_tecnico.exception.DuplicateIdException;
+import com.example.soporte_tecnico.exception.ResourceNotFoundException;
+import com.example.soporte_tecnico.exception.VersionConflictException;
+import com.example.soporte_tecnico.model.Cliente;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Repositorio de clientes con caché write-behind delante de la base de datos (perfil sql)
+ *
+ * Las lecturas por ID (también las de lote con las que se resuelven los clientes de las
+ * solicitudes) y las escrituras se resuelven en el heap. Los listados y la búsqueda por nombre
+ * se corrigen con los cambios que la base de datos aún no tiene; el email, la búsqueda
+ * aproximada, el autocompletado y el conteo vuelcan antes los cambios pendientes, porque
+ * dependen de índices que sólo se actualizan al volcar.
+ *
+ * Filtros de Bloom de IDs y de emails descartan sin ir a la base de datos (ni volcar) los
+ * que seguro que no existen, el caso habitual al dar de alta clientes nuevos.
+ */
+@Repository
+@Primary
+@Profile("sql")
+@ConditionalOnProperty(name = "soporte.cache.habilitada", havingValue = "true", matchIfMissing = true)
+public class WriteBehindClienteRepository implements ClienteRepository {
+
+    // Reintentos de una actualización cuya entrada se desalojó entre la lectura y el cambio
+    private static final int INTENTOS = 3;
+
+    private final JdbcClienteRepository almacen;
+    private final WriteBehindCache<Cliente> cache;
+    // Emails de los clientes, en la base de datos o pendientes de volcar
+    private final CountingBloomFilter emails;
+
+    @Autowired
+    public WriteBehindClienteRepository(JdbcClienteRepository almacen, WriteBehindCaches caches, BloomFilters filtros) {
+        this.almacen = almacen;
+        this.cache = caches.crear("clientes", almacen, Cliente::getId, Cliente::getVersion);
+        cache.filtrarIds(filtros.crear("clientes.id"), almacen::ids);
+        this.emails = filtros.crear("clientes.email");
+        cache.filtrar(emails, c -> ClienteIndices.claveEmail(c.getEmail()), () -> {
+            Map<Long, Long> claves = new HashMap<>();
+            almacen.emails().forEach((id, email) -> claves.put(id, ClienteIndices.claveEmail(email)));
+            return claves;
+        });
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        cache.close();
+    }
+
+    @Override
+    public List<Cliente> findAll() {
+        return cache.consultar(almacen::findAll, c -> true);
+    }
+
+    @Override
+    public Optional<Cliente> findById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("El ID no puede ser nulo");
+        }
+        return cache.get(id);
+    }
+
+    @Override
+    public List<Cliente> findAllById(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("La lista de IDs no puede ser nula");
+        }
+        Set<Long> distintos = new LinkedHashSet<>(ids);
+        distintos.remove(null);
+        if (distintos.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return cache.getAll(distintos);
+    }
+
+    @Override
+    public List<Cliente> findByNombreContaining(String nombre) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre no puede estar vacío");
+        }
+        String buscado = nombre.toLowerCase();
+        return cache.consultar(() -> almacen.findByNombreContaining(nombre),
+                c -> c.getNombre() != null && c.getNombre().toLowerCase().contains(buscado));
+    }
+
+    @Override
+    public List<Cliente> findByNombreSimilar(String nombre, int maxDistancia) {
+        cache.volcar();
+        return almacen.findByNombreSimilar(nombre, maxDistancia);
+    }
+
+    @Override
+    public List<Cliente> findByNombreStartingWith(String prefijo, int limite) {
+        cache.volcar();
+        return almacen.findByNombreStartingWith(prefijo, limite);
+    }
+
+    @Override
+    public Optional<Cliente> findByEmail(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            throw new IllegalArgumentException("El email no puede estar vacío");
+        }
+        // Un email que seguro que no existe no necesita volcar ni consultar
+        if (!emails.puedeContener(ClienteIndices.claveEmail(email))) {
+            return Optional.empty();
+        }
+        cache.volcar();
+        Optional<Cliente> encontrado = almacen.findByEmail(email);
+        if (encontrado.isEmpty()) {
+            emails.falsoPositivo();
+        }
+        return encontrado;
+    }
+
+    @Override
+    public Cliente save(Cliente cliente) {
+        if (cliente == null) {
+            throw new IllegalArgumentException("El cliente no puede ser nulo");
+        }
+        if (cliente.getId() != null && cache.get(cliente.getId()).isPresent()) {
+            throw new DuplicateIdException("Ya existe un cliente con ID: " + cliente.getId());
+        }
+        almacen.prepararAlta(cliente);
+        if (!cache.insertar(cliente)) {
+            throw new DuplicateIdException("Ya existe un cliente con ID: " + cliente.getId());
+        }
+
+        System.out.println("Cliente guardado - ID: " + cliente.getId() + ", Nombre: " + cliente.getNombre());
+
+        return cliente;
+    }
+
+    /**
+     * Sustituye el cliente si su versión sigue siendo la esperada (compare-and-set)
+     */
+    @Override
+    public Cliente update(Cliente cliente) {
+        if (cliente == null) {
+            throw new IllegalArgumentException("El cliente no puede ser nulo");
+        }
+
+        for (int intento = 1; ; intento++) {
+            Cliente actual = findById(cliente.getId()).orElseThrow(() ->
+                    new ResourceNotFoundException("No se puede actualizar: Cliente no encontrado con ID: " + cliente.getId()));
+
+            long versionEsperada = cliente.getVersion() != null ? cliente.getVersion() : actual.getVersion();
+            if (actual.getVersion() != versionEsperada) {
+                throw new VersionConflictException("El cliente con ID " + cliente.getId() + " está en la versión "
+                        + actual.getVersion() + ", no en la " + versionEsperada);
+            }
+
+            Cliente nuevo = new Cliente(cliente);
+            nuevo.setVersion(versionEsperada + 1);
+            if (cache.reemplazar(actual, nuevo)) {
+                System.out.println("Cliente actualizado - ID: " + nuevo.getId() + ", Nombre: " + nuevo.getNombre());
+                return nuevo;
+            }
+            if (intento == INTENTOS) {
+                throw new VersionConflictException("El cliente con ID " + cliente.getId() + " fue modificado concurrentemente");
+            }
+        }
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        if (!existsById(id)) {
+            System.out.println("No se encontró cliente con ID: " + id + " para eliminar");
+            return;
+        }
+        cache.eliminar(id);
+        System.out.println("Cliente eliminado - ID: " + id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public long count() {
+        cache.volcar();
+        return almacen.count();
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.bloom.BloomFilters;
+import com.example.soporte_tecnico.cache.WriteBehindCache;
+import com.example.soporte_tecnico.cache.WriteBehindCaches;
+import com.example.soporte_tecnico.exception.ResourceNotFoundException;
+import com.example.soporte_tecnico.exception.VersionConflictException;
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.query.FiltroSolicitudes;
+import com.example.soporte_tecnico.query.PlanConsulta;
+import com.example.soporte_tecnico.query.ResultadoFiltrado;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collector;
+
+/**
+ * Repositorio de solicitudes con caché write-behind delante de la base de datos (perfil sql)
+ *
+ * Las lecturas por ID y todas las escrituras se resuelven en el heap; la base de datos recibe
+ * los cambios agrupados en segundo plano (WriteBehindCache). Las consultas por cliente, por
+ * técnico, los listados y los agregados van a la base de datos y se corrigen con los cambios
+ * que aún no tiene; los conteos vuelcan antes los cambios pendientes.
+ *
+ * Un filtro de Bloom de IDs descarta sin ir a la base de datos los que seguro que no existen.
+ */
+@Repository
+@Primary
+@Profile("sql")
+@ConditionalOnProperty(name = "soporte.cache.habilitada", havingValue = "true", matchIfMissing = true)
+public class WriteBehindSolicitudRepository implements SolicitudRepository {
+
+    // Reintentos de una actualización cuya entrada se desalojó entre la lectura y el cambio
+    private static final int INTENTOS = 3;
+
+    private final JdbcSolicitudRepository almacen;
+    private final WriteBehindCache<Solicitud> cache;
+
+    @Autowired
+    public WriteBehindSolicitudRepository(JdbcSolicitudRepository almacen, WriteBehindCaches caches, BloomFilters filtros) {
+        this.almacen = almacen;
+        this.cache = caches.crear("solicitudes", almacen, Solicitud::getId, Solicitud::getVersion);
+        cache.filtrarIds(filtros.crear("solicitudes.id"), almacen::ids);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        cache.close();
+    }
+
+    @Override
+    public List<Solicitud> findAll() {
+        return cache.consultar(almacen::findAll, s -> true);
+    }
+
+    @Override
+    public Optional<Solicitud> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return cache.get(id);
+    }
+
+    @Override
+    public List<Solicitud> findAllById(Collection<Long> ids) {
+        Set<Long> distintos = new LinkedHashSet<>(ids);
+        distintos.remove(null);
+        if (distintos.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return cache.getAll(distintos);
+    }
+
+    @Override
+    public Solicitud save(Solicitud solicitud) {
+        if (solicitud.getId() != null && findById(solicitud.getId()).isPresent()) {
+            throw new IllegalArgumentException("Ya existe una solicitud con ID: " + solicitud.getId());
+        }
+        almacen.prepararAlta(solicitud);
+        if (!cache.insertar(solicitud)) {
+            throw new IllegalArgumentException("Ya existe una solicitud con ID: " + solicitud.getId());
+        }
+        return solicitud;
+    }
+
+    /**
+     * Sustituye la solicitud si su versión sigue siendo la esperada (compare-and-set)
+     * La versión de la solicitud recibida es la esperada; si es nula se usa la actual
+     */
+    @Override
+    public Solicitud update(Solicitud solicitud) {
+        for (int intento = 1; ; intento++) {
+            Solicitud actual = findById(solicitud.getId()).orElseThrow(() ->
+                    new ResourceNotFoundException("No se puede actualizar: Solicitud no encontrada con ID: " + solicitud.getId()));
+
+            Solicitud nueva = nuevaVersion(solicitud, actual);
+            if (cache.reemplazar(actual, nueva)) {
+                return nueva;
+            }
+            if (intento == INTENTOS) {
+                throw new VersionConflictException("La solicitud con ID " + solicitud.getId() + " fue modificada concurrentemente");
+            }
+        }
+    }
+
+    /**
+     * Comprueba todas las versiones y sustituye todas las solicitudes a la vez: si alguna
+     * versión no coincide no se aplica ninguna
+     */
+    @Override
+    public List<Solicitud> updateAll(List<Solicitud> solicitudes) {
+        for (int intento = 1; ; intento++) {
+            Map<Long, Solicitud> actuales = new HashMap<>();
+            for (Solicitud actual : cache.getAll(solicitudes.stream().map(Solicitud::getId).toList())) {
+                actuales.put(actual.getId(), actual);
+            }
+            List<Solicitud> nuevas = new ArrayList<>(solicitudes.size());
+            for (Solicitud solicitud : solicitudes) {
+                Solicitud actual = actuales.get(solicitud.getId());
+                if (actual == null) {
+                    throw new ResourceNotFoundException("No se puede actualizar: Solicitud no encontrada con ID: " + solicitud.getId());
+                }
+                nuevas.add(nuevaVersion(solicitud, actual));
+            }
+            if (cache.reemplazarTodas(new ArrayList<>(actuales.values()), nuevas)) {
+                return nuevas;
+            }
+            if (intento == INTENTOS) {
+                throw new VersionConflictException("Alguna de las solicitudes fue modificada concurrentemente");
+            }
+        }
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        if (id != null) {
+            cache.eliminar(id);
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public long count() {
+        cache.volcar();
+        return almacen.count();
+    }
+
+    @Override
+    public List<Solicitud> findByClienteId(Long clienteId) {
+        if (clienteId == null) {
+            return new ArrayList<>();
+        }
+        return cache.consultar(() -> almacen.findByClienteId(clienteId), s -> clienteId.equals(s.getClienteId()));
+    }
+
+    @Override
+    public List<Solicitud> findByTecnicoId(Long tecnicoId) {
+        if (tecnicoId == null) {
+            return new ArrayList<>();
+        }
+        return cache.consultar(() -> almacen.findByTecnicoId(tecnicoId), s -> tecnicoId.equals(s.getTecnicoId()));
+    }
+
+    /**
+     * Filtro del almacén corregido con los cambios que aún no ha recibido; el plan es el del almacén
+     */
+    @Override
+    public ResultadoFiltrado filtrar(FiltroSolicitudes filtro, boolean explicar) {
+        List<PlanConsulta> plan = new ArrayList<>(1);
+        List<Solicitud> encontradas = cache.consultar(() -> {
+            ResultadoFiltrado delAlmacen = almacen.filtrar(filtro, explicar);
+            plan.add(delAlmacen.plan());
+            return delAlmacen.solicitudes();
+        }, filtro::cumple);
+        return new ResultadoFiltrado(encontradas, plan.get(0));
+    }
+
+    @Override
+    public long countByTecnicoId(Long tecnicoId) {
+        if (tecnicoId == null) {
+            return 0;
+        }
+        cache.volcar();
+        return almacen.countByTecnicoId(tecnicoId);
+    }
+
+    @Override
+    public <R> R agregar(Collector<? super Solicitud, ?, R> collector) {
+        return cache.agregar(almacen::agregar, collector);
+    }
+
+    private static Solicitud nuevaVersion(Solicitud solicitud, Solicitud actual) {
+        long versionEsperada = solicitud.getVersion() != null ? solicitud.getVersion() : actual.getVersion();
+        if (actual.getVersion() != versionEsperada) {
+            throw new VersionConflictException("La solicitud con ID " + solicitud.getId() + " está en la versión "
+                    + actual.getVersion() + ", no en la " + versionEsperada);
+        }
+        Solicitud nueva = new Solicitud(solicitud);
+        nueva.setVersion(versionEsperada + 1);
+        return nueva;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.bloom.BloomFilters;
+import com.example.soporte_tecnico.cache.WriteBehindCache;
+import com.example.soporte_tecnico.cache.WriteBehindCaches;
+import com.example.soporte_tecnico.exception.DuplicateIdException;
+import com.example.soporte_tecnico.exception.ResourceNotFoundException;
+import com.example.soporte_tecnico.exception.VersionConflictException;
+import com.example.soporte_tecnico.model.Tecnico;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Repositorio de técnicos con caché write-behind delante de la base de datos (perfil sql)
+ *
+ * Las lecturas por ID (también las de lote con las que se resuelven los técnicos de las
+ * solicitudes) y las escrituras se resuelven en el heap. Los listados y las búsquedas por
+ * nombre y por especialidad se corrigen con los cambios que la base de datos aún no tiene; la
+ * búsqueda aproximada, el autocompletado, las especialidades y el conteo vuelcan antes los
+ * cambios pendientes.
+ *
+ * Un filtro de Bloom de IDs descarta sin ir a la base de datos los que seguro que no existen.
+ */
+@Repository
+@Primary
+@Profile("sql")
+@ConditionalOnProperty(name = "soporte.cache.habilitada", havingValue = "true", matchIfMissing = true)
+public class WriteBehindTecnicoRepository implements TecnicoRepository {
+
+    // Reintentos de una actualización cuya entrada se desalojó entre la lectura y el cambio
+    private static final int INTENTOS = 3;
+
+    private final JdbcTecnicoRepository almacen;
+    private final WriteBehindCache<Tecnico> cache;
+
+    @Autowired
+    public WriteBehindTecnicoRepository(JdbcTecnicoRepository almacen, WriteBehindCaches caches, BloomFilters filtros) {
+        this.almacen = almacen;
+        this.cache = caches.crear("tecnicos", almacen, Tecnico::getId, Tecnico::getVersion);
+        cache.filtrarIds(filtros.crear("tecnicos.id"), almacen::ids);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        cache.close();
+    }
+
+    @Override
+    public List<Tecnico> findAll() {
+        return cache.consultar(almacen::findAll, c -> true);
+    }
+
+    @Override
+    public Optional<Tecnico> findById(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("El ID no puede ser nulo");
+        }
+        return cache.get(id);
+    }
+
+    @Override
+    public List<Tecnico> findAllById(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("La lista de IDs no puede ser nula");
+        }
+        Set<Long> distintos = new LinkedHashSet<>(ids);
+        distintos.remove(null);
+        if (distintos.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return cache.getAll(distintos);
+    }
+
+    @Override
+    public List<Tecnico> findByNombreContaining(String nombre) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre no puede estar vacío");
+        }
+        String buscado = nombre.toLowerCase();
+        return cache.consultar(() -> almacen.findByNombreContaining(nombre),
+                c -> c.getNombre() != null && c.getNombre().toLowerCase().contains(buscado));
+    }
+
+    @Override
+    public List<Tecnico> findByNombreSimilar(String nombre, int maxDistancia) {
+        cache.volcar();
+        return almacen.findByNombreSimilar(nombre, maxDistancia);
+    }
+
+    @Override
+    public List<Tecnico> findByNombreStartingWith(String prefijo, int limite) {
+        cache.volcar();
+        return almacen.findByNombreStartingWith(prefijo, limite);
+    }
+
+    @Override
+    public List<Tecnico> findByEspecialidad(String especialidad) {
+        if (especialidad == null || especialidad.trim().isEmpty()) {
+            throw new IllegalArgumentException("La especialidad no puede estar vacía");
+        }
+        return cache.consultar(() -> almacen.findByEspecialidad(especialidad),
+                t -> especialidad.equalsIgnoreCase(t.getEspecialidad()));
+    }
+
+    @Override
+    public Tecnico save(Tecnico tecnico) {
+        if (tecnico == null) {
+            throw new IllegalArgumentException("El técnico no puede ser nulo");
+        }
+        if (tecnico.getId() != null && cache.get(tecnico.getId()).isPresent()) {
+            throw new DuplicateIdException("Ya existe un técnico con ID: " + tecnico.getId());
+        }
+        almacen.prepararAlta(tecnico);
+        if (!cache.insertar(tecnico)) {
+            throw new DuplicateIdException("Ya existe un técnico con ID: " + tecnico.getId());
+        }
+
+        System.out.println("Técnico guardado - ID: " + tecnico.getId() +
+                ", Nombre: " + tecnico.getNombre() +
+                ", Especialidad: " + tecnico.getEspecialidad());
+
+        return tecnico;
+    }
+
+    /**
+     * Sustituye el técnico si su versión sigue siendo la esperada (compare-and-set)
+     */
+    @Override
+    public Tecnico update(Tecnico tecnico) {
+        if (tecnico == null) {
+            throw new IllegalArgumentException("El técnico no puede ser nulo");
+        }
+
+        for (int intento = 1; ; intento++) {
+            Tecnico actual = findById(tecnico.getId()).orElseThrow(() ->
+                    new ResourceNotFoundException("No se puede actualizar: Técnico no encontrado con ID: " + tecnico.getId()));
+
+            long versionEsperada = tecnico.getVersion() != null ? tecnico.getVersion() : actual.getVersion();
+            if (actual.getVersion() != versionEsperada) {
+                throw new VersionConflictException("El técnico con ID " + tecnico.getId() + " está en la versión "
+                        + actual.getVersion() + ", no en la " + versionEsperada);
+            }
+
+            Tecnico nuevo = new Tecnico(tecnico);
+            nuevo.setVersion(versionEsperada + 1);
+            if (cache.reemplazar(actual, nuevo)) {
+                System.out.println("Tecnico actualizado - ID: " + nuevo.getId() + ", Nombre: " + nuevo.getNombre());
+                return nuevo;
+            }
+            if (intento == INTENTOS) {
+                throw new VersionConflictException("El técnico con ID " + tecnico.getId() + " fue modificado concurrentemente");
+            }
+        }
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        if (!existsById(id)) {
+            System.out.println("No se encontró técnico con ID: " + id + " para eliminar");
+            return;
+        }
+        cache.eliminar(id);
+        System.out.println("Técnico eliminado - ID: " + id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public long count() {
+        cache.volcar();
+        return almacen.count();
+    }
+
+    @Override
+    public List<String> findAllEspecialidades() {
+        cache.volcar();
+        return almacen.findAllEspecialidades();
+    }
+}
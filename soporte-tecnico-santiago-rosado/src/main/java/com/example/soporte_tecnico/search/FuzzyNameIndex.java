@@ -0,0 +1,319 @@
+package com.example.soporte_tecnico.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de nombres tolerante a errores tipográficos (distancia de Levenshtein)
+ *
+ * Los nombres se separan en palabras normalizadas (minúsculas y sin acentos) y cada
+ * palabra distinta se guarda una sola vez en un BK-tree. Una búsqueda con distancia
+ * máxima k sólo visita los hijos cuya distancia al nodo está en [d - k, d + k]
+ * (desigualdad triangular), así que recorre una pequeña parte del vocabulario.
+ *
+ * Las palabras que dejan de usarse se quedan en el árbol como lápidas y se ignoran;
+ * cuando hay más lápidas que palabras vivas el árbol se reconstruye.
+ */
+public class FuzzyNameIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Nodo raiz;
+    private int nodos;
+
+    // Palabra -> ids que la contienen; id -> palabras de su nombre
+    private final Map<String, Set<Long>> idsPorPalabra = new HashMap<>();
+    private final Map<Long, String[]> palabrasPorId = new HashMap<>();
+
+    /**
+     * Indexa (o reindexa) el nombre de una entidad
+     */
+    public void indexar(long id, String nombre) {
+        String[] palabras = palabras(nombre).toArray(new String[0]);
+        lock.writeLock().lock();
+        try {
+            eliminarSinBloqueo(id);
+            palabrasPorId.put(id, palabras);
+            for (String palabra : palabras) {
+                Set<Long> ids = idsPorPalabra.get(palabra);
+                if (ids == null) {
+                    ids = new HashSet<>(2);
+                    idsPorPalabra.put(palabra, ids);
+                    insertarEnArbol(palabra);
+                }
+                ids.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina una entidad del índice (no hace nada si no estaba)
+     */
+    public void eliminar(long id) {
+        lock.writeLock().lock();
+        try {
+            eliminarSinBloqueo(id);
+            if (nodos > 1024 && nodos > idsPorPalabra.size() * 2) {
+                reconstruir();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vacía el índice
+     */
+    public void limpiar() {
+        lock.writeLock().lock();
+        try {
+            raiz = null;
+            nodos = 0;
+            idsPorPalabra.clear();
+            palabrasPorId.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca nombres parecidos al indicado
+     *
+     * Cada palabra de la consulta se compara con las palabras indexadas; un candidato
+     * puntúa por cuántas palabras de la consulta casan y por la suma de sus distancias.
+     * @param nombre Nombre buscado (puede tener errores)
+     * @param maxDistancia Distancia de edición máxima por palabra
+     * @param limite Número máximo de candidatos
+     * @return Candidatos del más al menos parecido
+     */
+    public List<Candidato> buscar(String nombre, int maxDistancia, int limite) {
+        List<String> consulta = new ArrayList<>(new LinkedHashSet<>(palabras(nombre)));
+        if (consulta.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        Map<Long, int[]> acumulado = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (int q = 0; q < consulta.size(); q++) {
+                // Mejor distancia de cada id para esta palabra de la consulta
+                Map<Long, Integer> mejorPorId = new HashMap<>();
+                for (Map.Entry<String, Integer> parecida : parecidas(consulta.get(q), maxDistancia).entrySet()) {
+                    Set<Long> ids = idsPorPalabra.get(parecida.getKey());
+                    if (ids == null) {
+                        continue; // lápida
+                    }
+                    for (Long id : ids) {
+                        mejorPorId.merge(id, parecida.getValue(), Math::min);
+                    }
+                }
+                for (Map.Entry<Long, Integer> entrada : mejorPorId.entrySet()) {
+                    int[] puntuacion = acumulado.computeIfAbsent(entrada.getKey(), k -> new int[2]);
+                    puntuacion[0]++;
+                    puntuacion[1] += entrada.getValue();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Candidato> candidatos = new ArrayList<>(acumulado.size());
+        for (Map.Entry<Long, int[]> entrada : acumulado.entrySet()) {
+            candidatos.add(new Candidato(entrada.getKey(), entrada.getValue()[0], entrada.getValue()[1]));
+        }
+        candidatos.sort(Candidato.ORDEN);
+        return candidatos.size() > limite ? new ArrayList<>(candidatos.subList(0, limite)) : candidatos;
+    }
+
+    /**
+     * Número de palabras distintas en uso
+     */
+    public int palabrasDistintas() {
+        lock.readLock().lock();
+        try {
+            return idsPorPalabra.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Palabras del árbol a distancia <= k de la palabra buscada
+    private Map<String, Integer> parecidas(String palabra, int k) {
+        Map<String, Integer> resultado = new HashMap<>();
+        if (raiz == null) {
+            return resultado;
+        }
+        char[] buscada = palabra.toCharArray();
+        int[][] filas = new int[2][buscada.length + 1];
+        ArrayDeque<Nodo> pendientes = new ArrayDeque<>();
+        pendientes.push(raiz);
+        while (!pendientes.isEmpty()) {
+            Nodo nodo = pendientes.pop();
+            int d = levenshtein(buscada, nodo.palabra, filas);
+            if (d <= k) {
+                resultado.put(nodo.texto, d);
+            }
+            for (int i = 0; i < nodo.numHijos; i++) {
+                int dh = nodo.distancias[i];
+                if (dh >= d - k && dh <= d + k) {
+                    pendientes.push(nodo.hijos[i]);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private void insertarEnArbol(String palabra) {
+        nodos++;
+        if (raiz == null) {
+            raiz = new Nodo(palabra);
+            return;
+        }
+        char[] nueva = palabra.toCharArray();
+        int[][] filas = new int[2][nueva.length + 1];
+        Nodo nodo = raiz;
+        while (true) {
+            int d = levenshtein(nueva, nodo.palabra, filas);
+            if (d == 0) {
+                nodos--; // ya estaba (lápida reutilizada)
+                return;
+            }
+            Nodo hijo = nodo.hijo(d);
+            if (hijo == null) {
+                nodo.anadirHijo(d, new Nodo(palabra));
+                return;
+            }
+            nodo = hijo;
+        }
+    }
+
+    private void eliminarSinBloqueo(long id) {
+        String[] anteriores = palabrasPorId.remove(id);
+        if (anteriores == null) {
+            return;
+        }
+        for (String palabra : anteriores) {
+            Set<Long> ids = idsPorPalabra.get(palabra);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    idsPorPalabra.remove(palabra); // queda como lápida en el árbol
+                }
+            }
+        }
+    }
+
+    private void reconstruir() {
+        raiz = null;
+        nodos = 0;
+        for (String palabra : idsPorPalabra.keySet()) {
+            insertarEnArbol(palabra);
+        }
+    }
+
+    // Palabras normalizadas del nombre (sin acentos ni mayúsculas, sin repetir)
+    static List<String> palabras(String nombre) {
+        List<String> palabras = new ArrayList<>();
+        if (nombre == null) {
+            return palabras;
+        }
+        StringBuilder palabra = new StringBuilder();
+        for (int i = 0; i <= nombre.length(); i++) {
+            char c = i < nombre.length() ? SpanishAnalyzer.plegar(nombre.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                palabra.append(c);
+            } else if (palabra.length() > 0) {
+                String p = palabra.toString();
+                if (!palabras.contains(p)) {
+                    palabras.add(p);
+                }
+                palabra.setLength(0);
+            }
+        }
+        return palabras;
+    }
+
+    /**
+     * Distancia de Levenshtein con dos filas reutilizables
+     */
+    static int levenshtein(char[] a, char[] b, int[][] filas) {
+        if (filas[0].length < a.length + 1) {
+            filas[0] = new int[a.length + 1];
+            filas[1] = new int[a.length + 1];
+        }
+        int[] anterior = filas[0];
+        int[] actual = filas[1];
+        for (int i = 0; i <= a.length; i++) {
+            anterior[i] = i;
+        }
+        for (int j = 1; j <= b.length; j++) {
+            actual[0] = j;
+            char cb = b[j - 1];
+            for (int i = 1; i <= a.length; i++) {
+                int coste = a[i - 1] == cb ? 0 : 1;
+                actual[i] = Math.min(Math.min(actual[i - 1] + 1, anterior[i] + 1), anterior[i - 1] + coste);
+            }
+            int[] tmp = anterior;
+            anterior = actual;
+            actual = tmp;
+        }
+        return anterior[a.length];
+    }
+
+    /**
+     * Entidad candidata: palabras de la consulta que casan y suma de sus distancias
+     */
+    public record Candidato(long id, int coincidencias, int distancia) {
+
+        /**
+         * Del más al menos parecido: más palabras coincidentes, menor distancia total y menor ID
+         */
+        public static final Comparator<Candidato> ORDEN = Comparator.comparingInt(Candidato::coincidencias).reversed()
+                .thenComparingInt(Candidato::distancia)
+                .thenComparingLong(Candidato::id);
+    }
+
+    private static final class Nodo {
+        private final String texto;
+        private final char[] palabra;
+        private int[] distancias = new int[0];
+        private Nodo[] hijos = new Nodo[0];
+        private int numHijos;
+
+        private Nodo(String texto) {
+            this.texto = texto;
+            this.palabra = texto.toCharArray();
+        }
+
+        Nodo hijo(int distancia) {
+            for (int i = 0; i < numHijos; i++) {
+                if (distancias[i] == distancia) {
+                    return hijos[i];
+                }
+            }
+            return null;
+        }
+
+        void anadirHijo(int distancia, Nodo hijo) {
+            if (numHijos == hijos.length) {
+                int nueva = Math.max(2, numHijos * 2);
+                distancias = Arrays.copyOf(distancias, nueva);
+                hijos = Arrays.copyOf(hijos, nueva);
+            }
+            distancias[numHijos] = distancia;
+            hijos[numHijos] = hijo;
+            numHijos++;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.soporte_tecnico.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Índice de autocompletado por prefijo sobre las palabras de un nombre
+ *
+ * Cada palabra normalizada del nombre se guarda en un conjunto ordenado concurrente
+ * como "palabra\0id". Las entradas que empiezan por un prefijo forman un rango contiguo,
+ * así que una consulta es una búsqueda logarítmica más la lectura de los primeros N
+ * elementos del rango, sin recorrer todos los nombres.
+ *
+ * Las lecturas no bloquean; las escrituras se serializan para que el cambio de las
+ * palabras de un mismo id no se mezcle con otro.
+ */
+public class PrefixIndex {
+
+    private static final char SEPARADOR = '\0';
+
+    private final NavigableSet<String> entradas = new ConcurrentSkipListSet<>();
+    private final Map<Long, List<String>> palabrasPorId = new ConcurrentHashMap<>();
+
+    /**
+     * Indexa (o reindexa) el nombre de una entidad
+     */
+    public synchronized void indexar(long id, String nombre) {
+        eliminarSinBloqueo(id);
+        List<String> palabras = FuzzyNameIndex.palabras(nombre);
+        for (String palabra : palabras) {
+            entradas.add(palabra + SEPARADOR + id);
+        }
+        palabrasPorId.put(id, palabras);
+    }
+
+    /**
+     * Elimina una entidad del índice (no hace nada si no estaba)
+     */
+    public synchronized void eliminar(long id) {
+        eliminarSinBloqueo(id);
+    }
+
+    /**
+     * Vacía el índice
+     */
+    public synchronized void limpiar() {
+        entradas.clear();
+        palabrasPorId.clear();
+    }
+
+    /**
+     * Ids cuyos nombres tienen alguna palabra que empieza por el prefijo
+     *
+     * Si el prefijo tiene varias palabras ("luisa fer"), todas deben ser prefijo de alguna
+     * palabra del nombre. El orden es alfabético por la palabra que casa.
+     * @param prefijo Texto tecleado (sin distinguir mayúsculas ni acentos)
+     * @param limite Número máximo de ids
+     */
+    public List<Long> buscar(String prefijo, int limite) {
+        List<Coincidencia> coincidencias = buscarCoincidencias(prefijo, limite);
+        List<Long> ids = new ArrayList<>(coincidencias.size());
+        for (Coincidencia coincidencia : coincidencias) {
+            ids.add(coincidencia.id());
+        }
+        return ids;
+    }
+
+    /**
+     * Como {@link #buscar}, pero con la palabra que casa de cada id, para poder mezclar
+     * los resultados de varios índices manteniendo el orden
+     */
+    public List<Coincidencia> buscarCoincidencias(String prefijo, int limite) {
+        List<String> consulta = FuzzyNameIndex.palabras(prefijo);
+        if (consulta.isEmpty() || limite <= 0) {
+            return new ArrayList<>();
+        }
+
+        // El rango se recorre con la palabra más larga, la más selectiva
+        String guia = consulta.get(0);
+        for (String palabra : consulta) {
+            if (palabra.length() > guia.length()) {
+                guia = palabra;
+            }
+        }
+
+        Set<Long> vistos = new HashSet<>();
+        List<Coincidencia> coincidencias = new ArrayList<>();
+        for (String entrada : entradas.subSet(guia, true, guia + Character.MAX_VALUE, false)) {
+            int separador = entrada.lastIndexOf(SEPARADOR);
+            long id = Long.parseLong(entrada.substring(separador + 1));
+            if ((consulta.size() == 1 || contieneTodas(palabrasPorId.get(id), consulta)) && vistos.add(id)) {
+                coincidencias.add(new Coincidencia(entrada.substring(0, separador), id));
+                if (coincidencias.size() == limite) {
+                    break;
+                }
+            }
+        }
+        return coincidencias;
+    }
+
+    /**
+     * Número de entidades indexadas
+     */
+    public int size() {
+        return palabrasPorId.size();
+    }
+
+    /**
+     * Id que casa con el prefijo y la palabra del nombre por la que casa
+     */
+    public record Coincidencia(String palabra, long id) {
+
+        /**
+         * Orden alfabético por la palabra que casa
+         */
+        public static final Comparator<Coincidencia> ORDEN = Comparator.comparing(Coincidencia::palabra)
+                .thenComparingLong(Coincidencia::id);
+    }
+
+    private void eliminarSinBloqueo(long id) {
+        List<String> anteriores = palabrasPorId.remove(id);
+        if (anteriores != null) {
+            for (String palabra : anteriores) {
+                entradas.remove(palabra + SEPARADOR + id);
+            }
+        }
+    }
+
+    // Cada palabra de la consulta es prefijo de alguna palabra del nombre
+    private static boolean contieneTodas(List<String> palabrasNombre, List<String> consulta) {
+        if (palabrasNombre == null) {
+            return false;
+        }
+        for (String prefijo : consulta) {
+            boolean encontrada = false;
+            for (String palabra : palabrasNombre) {
+                if (palabra.startsWith(prefijo)) {
+                    encontrada = true;
+                    break;
+                }
+            }
+            if (!encontrada) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
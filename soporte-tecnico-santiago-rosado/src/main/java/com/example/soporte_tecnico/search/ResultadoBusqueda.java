@@ -0,0 +1,25 @@
+package com.example.soporte_tecnico.search;
+
+import com.example.soporte_tecnico.model.Solicitud;
+
+/**
+ * Solicitud encontrada por la búsqueda de texto junto con su puntuación BM25
+ */
+public class ResultadoBusqueda {
+
+    private final Solicitud solicitud;
+    private final double puntuacion;
+
+    public ResultadoBusqueda(Solicitud solicitud, double puntuacion) {
+        this.solicitud = solicitud;
+        this.puntuacion = puntuacion;
+    }
+
+    public Solicitud getSolicitud() {
+        return solicitud;
+    }
+
+    public double getPuntuacion() {
+        return puntuacion;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.soporte_tecnico.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Analizador de texto en español para el índice de búsqueda
+ *
+ * Pasos: minúsculas, eliminación de acentos (también ñ -> n y ü -> u), separación en
+ * palabras, descarte de palabras vacías y un stemming ligero que quita plurales y la
+ * vocal final de género ("redes" -> "red", "conectada" -> "conectad").
+ * El mismo análisis se aplica a los documentos y a las consultas.
+ */
+public final class SpanishAnalyzer {
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "algo", "ante", "antes", "como", "con", "contra", "cual", "cuando", "de", "del",
+            "desde", "donde", "durante", "e", "el", "ella", "ellas", "ellos", "en", "entre", "era", "es",
+            "esa", "esas", "ese", "eso", "esos", "esta", "estas", "este", "esto", "estos", "fue", "ha",
+            "hay", "la", "las", "le", "les", "lo", "los", "me", "mi", "mis", "mucho", "muy", "nada", "ni",
+            "no", "nos", "o", "os", "otra", "otro", "para", "pero", "poco", "por", "porque", "que", "quien",
+            "se", "sea", "ser", "si", "sin", "sobre", "son", "su", "sus", "tambien", "te", "tiene", "todo",
+            "tu", "tus", "un", "una", "uno", "unos", "unas", "y", "ya", "yo");
+
+    private SpanishAnalyzer() {
+    }
+
+    /**
+     * Convierte un texto en la lista de términos que se indexan (con repeticiones)
+     * @param texto Texto libre; null produce una lista vacía
+     */
+    public static List<String> analizar(String texto) {
+        List<String> terminos = new ArrayList<>();
+        if (texto == null) {
+            return terminos;
+        }
+        StringBuilder palabra = new StringBuilder(16);
+        for (int i = 0; i < texto.length(); i++) {
+            char c = plegar(texto.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                palabra.append(c);
+            } else if (palabra.length() > 0) {
+                anadir(terminos, palabra);
+            }
+        }
+        if (palabra.length() > 0) {
+            anadir(terminos, palabra);
+        }
+        return terminos;
+    }
+
+    private static void anadir(List<String> terminos, StringBuilder palabra) {
+        String termino = palabra.toString();
+        palabra.setLength(0);
+        if (!PALABRAS_VACIAS.contains(termino)) {
+            terminos.add(raiz(termino));
+        }
+    }
+
+    // Minúsculas sin acentos; evita Normalizer para no crear cadenas por carácter
+    static char plegar(char c) {
+        c = Character.toLowerCase(c);
+        switch (c) {
+            case 'á', 'à', 'â', 'ä' -> { return 'a'; }
+            case 'é', 'è', 'ê', 'ë' -> { return 'e'; }
+            case 'í', 'ì', 'î', 'ï' -> { return 'i'; }
+            case 'ó', 'ò', 'ô', 'ö' -> { return 'o'; }
+            case 'ú', 'ù', 'û', 'ü' -> { return 'u'; }
+            case 'ñ' -> { return 'n'; }
+            case 'ç' -> { return 'c'; }
+            default -> { return c; }
+        }
+    }
+
+    /**
+     * Stemming ligero: plurales, adverbios en -mente y vocal final de género
+     */
+    static String raiz(String palabra) {
+        int n = palabra.length();
+        if (n <= 3 || Character.isDigit(palabra.charAt(n - 1))) {
+            return palabra;
+        }
+        String r = palabra;
+        if (n > 7 && r.endsWith("mente")) {
+            r = r.substring(0, n - 5);
+        } else if (n > 4 && r.endsWith("ces")) {
+            r = r.substring(0, n - 3) + "z";
+        } else if (n > 4 && r.endsWith("es")) {
+            r = r.substring(0, n - 2);
+        } else if (r.endsWith("s")) {
+            r = r.substring(0, n - 1);
+        }
+        int m = r.length();
+        if (m > 3) {
+            char ultima = r.charAt(m - 1);
+            if (ultima == 'a' || ultima == 'o' || ultima == 'e') {
+                r = r.substring(0, m - 1);
+            }
+        }
+        return r;
+    }
+}
@@ -10,5 +10,11 @@ public interface ClienteService {
     Optional<Cliente> findById(Long id);
     Cliente save(ClienteDTO clienteDTO);
     Cliente update(Long id, ClienteDTO clienteDTO);
+    Cliente update(Long id, ClienteDTO clienteDTO, Long versionEsperada);
     void deleteById(Long id);
+    // politica null = la configurada en soporte.borrado.clientes
+    void deleteById(Long id, PoliticaBorrado politica, Long reasignarA);
+    List<Cliente> findByNombreContaining(String nombre);
+    List<Cliente> findByNombreSimilar(String nombre, int maxDistancia);
+    List<Cliente> autocompletar(String prefijo, int limite);
 }
@@ -1,14 +1,18 @@
 package com.example.soporte_tecnico.service;
 
+import com.example.soporte_tecnico.cdc.ChangeLog;
 import com.example.soporte_tecnico.dto.ClienteDTO;
+import com.example.soporte_tecnico.exception.BadRequestException;
+import com.example.soporte_tecnico.exception.DuplicateIdException;
+import com.example.soporte_tecnico.exception.ResourceNotFoundException;
 import com.example.soporte_tecnico.model.Cliente;
 import com.example.soporte_tecnico.repository.ClienteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Implementación del servicio para la gestión de clientes
@@ -20,7 +24,20 @@ public class ClienteServiceImpl implements ClienteService {
     @Autowired
     private ClienteRepository clienteRepository;
 
-    private final AtomicLong counter = new AtomicLong(1);
+    @Autowired
+    private SolicitudService solicitudService;
+
+    // Registro de cambios para los consumidores externos (CDC)
+    @Autowired
+    private ChangeLog cambios;
+
+    // Qué hacer con las solicitudes de un cliente eliminado si la petición no lo indica
+    @Value("${soporte.borrado.clientes:RECHAZAR}")
+    private PoliticaBorrado politicaBorrado;
+
+    // Sólo en un nodo del clúster el alta trae el ID (asignado por el enrutador)
+    @Value("${soporte.sharding.nodo:false}")
+    private boolean nodoDelCluster;
 
     /**
      * Constructor vacío - SIN inicialización automática
@@ -71,15 +88,21 @@ public class ClienteServiceImpl implements ClienteService {
             throw new IllegalArgumentException("El teléfono del cliente es obligatorio");
         }
 
+        // El email identifica al cliente: no puede haber dos iguales (sin distinguir mayúsculas).
+        // En una importación casi siempre es nuevo, y el filtro del repositorio lo descarta sin buscar
+        comprobarEmailLibre(clienteDTO.getEmail().trim(), null);
+
         // Crear nueva entidad Cliente a partir del DTO
         Cliente cliente = new Cliente();
-        cliente.setId(counter.getAndIncrement()); // Generar ID automático
+        // El ID lo asigna el repositorio, que es quien conoce los ya usados (o el enrutador del clúster)
+        cliente.setId(idDelEnrutador(clienteDTO.getId()));
         cliente.setNombre(clienteDTO.getNombre().trim());
         cliente.setEmail(clienteDTO.getEmail().trim());
         cliente.setTelefono(clienteDTO.getTelefono().trim());
 
         // Guardar en el repositorio
         Cliente clienteGuardado = clienteRepository.save(cliente);
+        cambios.registrar(ChangeLog.CLIENTE, ChangeLog.ALTA, clienteGuardado.getId(), clienteGuardado.getVersion(), clienteGuardado);
 
         System.out.println("Cliente creado exitosamente - ID: " + clienteGuardado.getId() +
                 ", Nombre: " + clienteGuardado.getNombre());
@@ -92,6 +115,14 @@ public class ClienteServiceImpl implements ClienteService {
      */
     @Override
     public Cliente update(Long id, ClienteDTO clienteDTO) {
+        return update(id, clienteDTO, null);
+    }
+
+    /**
+     * Actualiza un cliente sólo si sigue en la versión esperada (null = versión actual)
+     */
+    @Override
+    public Cliente update(Long id, ClienteDTO clienteDTO, Long versionEsperada) {
         // Validar parámetros
         if (id == null) {
             throw new IllegalArgumentException("El ID no puede ser nulo");
@@ -105,7 +136,11 @@ public class ClienteServiceImpl implements ClienteService {
         Optional<Cliente> clienteExistente = clienteRepository.findById(id);
 
         if (clienteExistente.isPresent()) {
-            Cliente cliente = clienteExistente.get();
+            // Trabajar sobre una copia: el cliente guardado lo pueden estar leyendo otros hilos
+            Cliente cliente = new Cliente(clienteExistente.get());
+            if (versionEsperada != null) {
+                cliente.setVersion(versionEsperada);
+            }
 
             // Actualizar solo los campos permitidos (no actualizamos el ID)
             if (clienteDTO.getNombre() != null && !clienteDTO.getNombre().trim().isEmpty()) {
@@ -113,6 +148,9 @@ public class ClienteServiceImpl implements ClienteService {
             }
 
             if (clienteDTO.getEmail() != null && !clienteDTO.getEmail().trim().isEmpty()) {
+                if (!clienteDTO.getEmail().trim().equalsIgnoreCase(cliente.getEmail())) {
+                    comprobarEmailLibre(clienteDTO.getEmail().trim(), id);
+                }
                 cliente.setEmail(clienteDTO.getEmail().trim());
             }
 
@@ -120,8 +158,9 @@ public class ClienteServiceImpl implements ClienteService {
                 cliente.setTelefono(clienteDTO.getTelefono().trim());
             }
 
-            // Guardar los cambios en el repositorio
+            // Guardar los cambios (compare-and-set sobre la versión)
             Cliente clienteActualizado = clienteRepository.update(cliente);
+            cambios.registrar(ChangeLog.CLIENTE, ChangeLog.CAMBIO, id, clienteActualizado.getVersion(), clienteActualizado);
 
             System.out.println("Cliente actualizado exitosamente - ID: " + id +
                     ", Nuevo nombre: " + clienteActualizado.getNombre());
@@ -130,7 +169,7 @@ public class ClienteServiceImpl implements ClienteService {
 
         } else {
             // Lanzar excepción si el cliente no existe
-            throw new RuntimeException("Cliente no encontrado con ID: " + id);
+            throw new ResourceNotFoundException("Cliente no encontrado con ID: " + id);
         }
     }
 
@@ -139,6 +178,15 @@ public class ClienteServiceImpl implements ClienteService {
      */
     @Override
     public void deleteById(Long id) {
+        deleteById(id, null, null);
+    }
+
+    /**
+     * Elimina un cliente aplicando antes la política de borrado a sus solicitudes
+     * (CASCADA las elimina, REASIGNAR las pasa al cliente reasignarA, RECHAZAR impide el borrado)
+     */
+    @Override
+    public void deleteById(Long id, PoliticaBorrado politica, Long reasignarA) {
         // Validar parámetro
         if (id == null) {
             throw new IllegalArgumentException("El ID no puede ser nulo");
@@ -146,7 +194,10 @@ public class ClienteServiceImpl implements ClienteService {
 
         // Verificar si el cliente existe antes de eliminar
         if (clienteRepository.existsById(id)) {
+            // Sus solicitudes no pueden quedar huérfanas
+            solicitudService.liberarCliente(id, politica != null ? politica : politicaBorrado, reasignarA);
             clienteRepository.deleteById(id);
+            cambios.registrar(ChangeLog.CLIENTE, ChangeLog.BAJA, id, null, null);
             System.out.println("Cliente con ID " + id + " eliminado correctamente");
         } else {
             System.out.println("No se pudo eliminar: Cliente con ID " + id + " no encontrado");
@@ -156,6 +207,7 @@ public class ClienteServiceImpl implements ClienteService {
     /**
      * Busca clientes por su nombre (búsqueda parcial case-insensitive)
      */
+    @Override
     public List<Cliente> findByNombreContaining(String nombre) {
         if (nombre == null || nombre.trim().isEmpty()) {
             throw new IllegalArgumentException("El nombre no puede estar vacío");
@@ -164,6 +216,30 @@ public class ClienteServiceImpl implements ClienteService {
         return clienteRepository.findByNombreContaining(nombre);
     }
 
+    /**
+     * Busca clientes con un nombre parecido, tolerando errores de escritura
+     */
+    @Override
+    public List<Cliente> findByNombreSimilar(String nombre, int maxDistancia) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre no puede estar vacío");
+        }
+
+        return clienteRepository.findByNombreSimilar(nombre, maxDistancia);
+    }
+
+    /**
+     * Clientes cuyo nombre tiene una palabra que empieza por el prefijo (autocompletado)
+     */
+    @Override
+    public List<Cliente> autocompletar(String prefijo, int limite) {
+        if (prefijo == null || prefijo.trim().isEmpty()) {
+            throw new IllegalArgumentException("El prefijo no puede estar vacío");
+        }
+
+        return clienteRepository.findByNombreStartingWith(prefijo, limite);
+    }
+
     /**
      * Busca un cliente por su dirección de email (búsqueda exacta)
      */
@@ -201,13 +277,11 @@ public class ClienteServiceImpl implements ClienteService {
         try {
             if (clienteRepository.count() == 0) {
                 Cliente cliente1 = new Cliente();
-                cliente1.setId(counter.getAndIncrement());
                 cliente1.setNombre("Juan Pérez");
                 cliente1.setEmail("juan@empresa.com");
                 cliente1.setTelefono("123456789");
 
                 Cliente cliente2 = new Cliente();
-                cliente2.setId(counter.getAndIncrement());
                 cliente2.setNombre("María García");
                 cliente2.setEmail("maria@empresa.com");
                 cliente2.setTelefono("987654321");
@@ -221,4 +295,28 @@ public class ClienteServiceImpl implements ClienteService {
             System.err.println("Error inicializando datos de ejemplo: " + e.getMessage());
         }
     }
+
+    // Fuera de un nodo del clúster el ID del cuerpo se ignora
+    private Long idDelEnrutador(Long id) {
+        if (!nodoDelCluster || id == null) {
+            return null;
+        }
+        // Long.MAX_VALUE desbordaría el generador de IDs del repositorio
+        if (id < 1 || id == Long.MAX_VALUE) {
+            throw new BadRequestException("ID de cliente no válido: " + id);
+        }
+        if (clienteRepository.existsById(id)) {
+            throw new DuplicateIdException("Ya existe un cliente con ID: " + id);
+        }
+        return id;
+    }
+
+    // El email no puede ser de un cliente distinto de propio
+    private void comprobarEmailLibre(String email, Long propio) {
+        clienteRepository.findByEmail(email)
+                .filter(otro -> !otro.getId().equals(propio))
+                .ifPresent(otro -> {
+                    throw new BadRequestException("Ya existe un cliente con el email " + email + " (ID " + otro.getId() + ")");
+                });
+    }
 }
@@ -0,0 +1,13 @@
+package com.example.soporte_tecnico.service;
+
+/**
+ * Qué hacer con las solicitudes de un cliente o técnico que se elimina
+ */
+public enum PoliticaBorrado {
+    /** Eliminar también sus solicitudes */
+    CASCADA,
+    /** Pasar sus solicitudes a otro cliente o técnico */
+    REASIGNAR,
+    /** No permitir el borrado mientras tenga solicitudes (HTTP 409) */
+    RECHAZAR
+}
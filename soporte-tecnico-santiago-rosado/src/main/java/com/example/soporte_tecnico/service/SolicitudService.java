@@ -1,6 +1,13 @@
 package com.example.soporte_tecnico.service;
 
+import com.example.soporte_tecnico.analytics.ConsultaAgregada;
+import com.example.soporte_tecnico.analytics.ConsultaRollup;
+import com.example.soporte_tecnico.analytics.FilaAgregada;
+import com.example.soporte_tecnico.analytics.FilaRollup;
 import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.query.FiltroSolicitudes;
+import com.example.soporte_tecnico.query.PlanConsulta;
+import com.example.soporte_tecnico.search.ResultadoBusqueda;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +21,17 @@ public interface SolicitudService {
      */
     List<Solicitud> findAll();
 
+    /**
+     * Solicitudes que cumplen todas las condiciones del filtro, resueltas y ordenadas por ID
+     * El repositorio elige el índice del que partir según sus estadísticas
+     */
+    List<Solicitud> filtrar(FiltroSolicitudes filtro);
+
+    /**
+     * Ejecuta el filtro y devuelve el plan con el que se resolvió, sin las solicitudes
+     */
+    PlanConsulta explicar(FiltroSolicitudes filtro);
+
     /**
      * Busca una solicitud por su ID
      */
@@ -24,13 +42,85 @@ public interface SolicitudService {
      */
     Solicitud save(Solicitud solicitud);
 
+    /**
+     * Guarda varias solicitudes nuevas: las referencias se comprueban con una consulta por
+     * repositorio y se escriben en un solo lote; si alguna referencia no es válida no se
+     * guarda ninguna
+     * @throws com.example.soporte_tecnico.exception.BadRequestException si un cliente o técnico no existe
+     */
+    List<Solicitud> saveAll(List<Solicitud> solicitudes);
+
     /**
      * Actualiza una solicitud existente
      */
     Solicitud update(Long id, Solicitud solicitud);
 
+    /**
+     * Actualiza una solicitud sólo si sigue en la versión esperada (If-Match)
+     * Si la versión esperada es nula se actualiza sobre la versión actual
+     */
+    Solicitud update(Long id, Solicitud solicitud, Long versionEsperada);
+
     /**
      * Elimina una solicitud por su ID
      */
     void deleteById(Long id);
+
+    /**
+     * Búsqueda de texto libre sobre la descripción, ordenada por relevancia (BM25)
+     * @param consulta Texto a buscar
+     * @param limite Número máximo de resultados
+     */
+    List<ResultadoBusqueda> buscar(String consulta, int limite);
+
+    /**
+     * Agrupa las solicitudes por las dimensiones pedidas y calcula la métrica de cada grupo
+     * Los grupos se devuelven ordenados por sus valores
+     */
+    List<FilaAgregada> agregar(ConsultaAgregada consulta);
+
+    /**
+     * Solicitudes creadas y resueltas por intervalo, a partir de los contadores precalculados
+     * (sin recorrer las solicitudes)
+     */
+    List<FilaRollup> rollups(ConsultaRollup consulta);
+
+    /**
+     * Solicitudes de un cliente, resueltas
+     */
+    List<Solicitud> findByClienteId(Long clienteId);
+
+    /**
+     * Solicitudes asignadas a un técnico, resueltas
+     */
+    List<Solicitud> findByTecnicoId(Long tecnicoId);
+
+    /**
+     * Aplica la política de borrado a las solicitudes de un cliente que se va a eliminar
+     * @param clienteId Cliente que se elimina
+     * @param politica CASCADA, REASIGNAR o RECHAZAR
+     * @param reasignarA Cliente que recibe las solicitudes (obligatorio con REASIGNAR)
+     * @return Número de solicitudes afectadas
+     * @throws com.example.soporte_tecnico.exception.ReferencedEntityException si la política es RECHAZAR y tiene solicitudes
+     */
+    int liberarCliente(Long clienteId, PoliticaBorrado politica, Long reasignarA);
+
+    /**
+     * Aplica la política de borrado a las solicitudes de un técnico que se va a eliminar
+     * Con REASIGNAR y sin técnico indicado se elige el de la misma especialidad con menos solicitudes
+     * @param tecnicoId Técnico que se elimina
+     * @param politica CASCADA, REASIGNAR o RECHAZAR
+     * @param reasignarA Técnico que recibe las solicitudes (opcional)
+     * @return Número de solicitudes afectadas
+     * @throws com.example.soporte_tecnico.exception.ReferencedEntityException si no se puede liberar al técnico
+     */
+    int liberarTecnico(Long tecnicoId, PoliticaBorrado politica, Long reasignarA);
+
+    /**
+     * Pone al día el índice de texto con una solicitud cambiada directamente en el repositorio
+     * (cambios replicados desde el primario); si ya no existe se quita del índice
+     * @param id ID de la solicitud
+     * @param notificar Si se publica el evento SSE correspondiente (no al cargar una instantánea)
+     */
+    void sincronizar(Long id, boolean notificar);
 }
\ No newline at end of file
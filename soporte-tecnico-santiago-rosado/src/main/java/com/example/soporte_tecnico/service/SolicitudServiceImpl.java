@@ -1,60 +1,124 @@
 package com.example.soporte_tecnico.service;
 
+import com.example.soporte_tecnico.analytics.Agregador;
+import com.example.soporte_tecnico.analytics.ConsultaAgregada;
+import com.example.soporte_tecnico.analytics.Dimension;
+import com.example.soporte_tecnico.analytics.ConsultaRollup;
+import com.example.soporte_tecnico.analytics.FilaAgregada;
+import com.example.soporte_tecnico.analytics.FilaRollup;
+import com.example.soporte_tecnico.analytics.RollupStore;
+import com.example.soporte_tecnico.cdc.ChangeLog;
+import com.example.soporte_tecnico.events.SolicitudEvent;
+import com.example.soporte_tecnico.events.SolicitudEventBus;
 import com.example.soporte_tecnico.model.Solicitud;
 import com.example.soporte_tecnico.model.Cliente;
 import com.example.soporte_tecnico.model.Tecnico;
+import com.example.soporte_tecnico.query.FiltroSolicitudes;
+import com.example.soporte_tecnico.query.PlanConsulta;
+import com.example.soporte_tecnico.repository.ClienteRepository;
+import com.example.soporte_tecnico.repository.SolicitudRepository;
+import com.example.soporte_tecnico.repository.TecnicoRepository;
+import com.example.soporte_tecnico.search.InvertedIndex;
+import com.example.soporte_tecnico.search.ResultadoBusqueda;
+import com.example.soporte_tecnico.sla.SlaEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import com.example.soporte_tecnico.exception.BadRequestException;
+import com.example.soporte_tecnico.exception.ReferencedEntityException;
 import com.example.soporte_tecnico.exception.SolicitudNotFoundException;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
- * Implementación del servicio de solicitudes usando almacenamiento en memoria
+ * Implementación del servicio de solicitudes
+ * El almacenamiento se delega en el SolicitudRepository
+ *
+ * Las solicitudes se guardan con las referencias clienteId y tecnicoId. Al leer, el cliente
+ * y el técnico se resuelven por lotes: una consulta por repositorio para toda la lista y un
+ * mapa de identidad, de modo que un cliente con muchas solicitudes es el mismo objeto en todas.
  */
 @Service
 public class SolicitudServiceImpl implements SolicitudService {
 
-    // Simulamos una base de datos en memoria
-    private final List<Solicitud> solicitudes = new ArrayList<>();
-    private final AtomicLong counter = new AtomicLong(1); // Generador de IDs
+    private final SolicitudRepository solicitudRepository;
+    private final ClienteRepository clienteRepository;
+    private final TecnicoRepository tecnicoRepository;
 
-    public SolicitudServiceImpl() {
+    // Notifica los cambios a los clientes conectados por SSE
+    private final SolicitudEventBus eventBus;
+
+    // Índice de texto sobre la descripción, mantenido en cada alta, cambio y baja
+    private final InvertedIndex indiceTexto = new InvertedIndex();
+
+    // Contadores por intervalo de creadas y resueltas, mantenidos en cada alta y cambio de estado
+    private final RollupStore rollups;
+
+    // Plazos de recogida y resolución, programados en cada alta y cambio de estado
+    private final SlaEngine sla;
+
+    // Registro de cambios para los consumidores externos (CDC)
+    private final ChangeLog cambios;
+
+    // Como nodo de un clúster repartido, el cliente y el técnico pueden estar en otro nodo:
+    // el enrutador comprueba que existen antes de reenviar la petición
+    @Value("${soporte.sharding.nodo:false}")
+    private boolean referenciasExternas;
+
+    public SolicitudServiceImpl(SolicitudRepository solicitudRepository,
+                                ClienteRepository clienteRepository,
+                                TecnicoRepository tecnicoRepository,
+                                SolicitudEventBus eventBus) {
+        this(solicitudRepository, clienteRepository, tecnicoRepository, eventBus, new RollupStore(),
+                new SlaEngine(eventBus), ChangeLog.deshabilitado());
+    }
+
+    @Autowired
+    public SolicitudServiceImpl(SolicitudRepository solicitudRepository,
+                                ClienteRepository clienteRepository,
+                                TecnicoRepository tecnicoRepository,
+                                SolicitudEventBus eventBus,
+                                RollupStore rollups,
+                                SlaEngine sla,
+                                ChangeLog cambios) {
+        this.solicitudRepository = solicitudRepository;
+        this.clienteRepository = clienteRepository;
+        this.tecnicoRepository = tecnicoRepository;
+        this.eventBus = eventBus;
+        this.rollups = rollups;
+        this.sla = sla;
+        this.cambios = cambios;
         // Datos de ejemplo para pruebas
         inicializarDatosEjemplo();
     }
 
     private void inicializarDatosEjemplo() {
-        // Crear clientes de ejemplo
-        Cliente cliente1 = new Cliente();
-        cliente1.setId(1L);
-        cliente1.setNombre("Juan Pérez");
-        cliente1.setEmail("juan@empresa.com");
-        cliente1.setTelefono("123456789");
-
-        Cliente cliente2 = new Cliente();
-        cliente2.setId(2L);
-        cliente2.setNombre("María García");
-        cliente2.setEmail("maria@empresa.com");
-        cliente2.setTelefono("987654321");
-
-        // Crear técnicos de ejemplo
-        Tecnico tecnico1 = new Tecnico();
-        tecnico1.setId(1L);
-        tecnico1.setNombre("Carlos López");
-        tecnico1.setEspecialidad("Redes");
-
-        Tecnico tecnico2 = new Tecnico();
-        tecnico2.setId(2L);
-        tecnico2.setNombre("Ana Martínez");
-        tecnico2.setEspecialidad("Software");
+        // Con un almacén persistente (perfil sql) las solicitudes ya guardadas sustituyen a las
+        // de ejemplo; sólo hay que rehacer el estado en memoria que se mantiene en cada escritura
+        if (solicitudRepository.count() > 0) {
+            reconstruirEstadoEnMemoria();
+            return;
+        }
+
+        // Clientes de ejemplo: se registran en su repositorio para poder referenciarlos
+        Cliente cliente1 = clienteEjemplo("Juan Pérez", "juan@empresa.com", "123456789");
+        Cliente cliente2 = clienteEjemplo("María García", "maria@empresa.com", "987654321");
+
+        // Técnicos de ejemplo (los crea el TecnicoRepositoryImpl al arrancar)
+        Tecnico tecnico1 = tecnicoEjemplo("Carlos López", "Redes");
+        Tecnico tecnico2 = tecnicoEjemplo("Ana Martínez", "Software");
 
         // Crear solicitudes de ejemplo
         Solicitud solicitud1 = new Solicitud();
-        solicitud1.setId(counter.getAndIncrement());
         solicitud1.setDescripcion("No puedo conectarme a la red WiFi");
         solicitud1.setFechaCreacion(LocalDateTime.now().minusDays(2));
         solicitud1.setEstado("EN_PROCESO");
@@ -62,27 +126,65 @@ public class SolicitudServiceImpl implements SolicitudService {
         solicitud1.setTecnico(tecnico1);
 
         Solicitud solicitud2 = new Solicitud();
-        solicitud2.setId(counter.getAndIncrement());
         solicitud2.setDescripcion("Error al iniciar el sistema");
         solicitud2.setFechaCreacion(LocalDateTime.now().minusDays(1));
         solicitud2.setEstado("PENDIENTE");
         solicitud2.setCliente(cliente2);
         solicitud2.setTecnico(tecnico2);
 
-        solicitudes.add(solicitud1);
-        solicitudes.add(solicitud2);
+        Solicitud guardada1 = solicitudRepository.save(conReferencias(solicitud1));
+        Solicitud guardada2 = solicitudRepository.save(conReferencias(solicitud2));
+        indiceTexto.indexar(guardada1.getId(), guardada1.getDescripcion());
+        indiceTexto.indexar(guardada2.getId(), guardada2.getDescripcion());
+        rollups.creada(guardada1.getFechaCreacion(), guardada1.getEstado(), tecnico1.getEspecialidad());
+        rollups.creada(guardada2.getFechaCreacion(), guardada2.getEstado(), tecnico2.getEspecialidad());
+        sla.vigilar(guardada1.getId(), guardada1.getFechaCreacion(), guardada1.getEstado());
+        sla.vigilar(guardada2.getId(), guardada2.getFechaCreacion(), guardada2.getEstado());
+    }
+
+    // Índice de texto, contadores y plazos a partir de las solicitudes guardadas
+    private void reconstruirEstadoEnMemoria() {
+        Map<Long, String> especialidades = new HashMap<>();
+        for (Tecnico tecnico : tecnicoRepository.findAll()) {
+            especialidades.put(tecnico.getId(), tecnico.getEspecialidad());
+        }
+        List<Solicitud> guardadas = solicitudRepository.findAll();
+        for (Solicitud solicitud : guardadas) {
+            indiceTexto.indexar(solicitud.getId(), solicitud.getDescripcion());
+            rollups.creada(solicitud.getFechaCreacion(), solicitud.getEstado(), especialidades.get(solicitud.getTecnicoId()));
+            sla.vigilar(solicitud.getId(), solicitud.getFechaCreacion(), solicitud.getEstado());
+        }
+        System.out.println("Estado en memoria reconstruido con " + guardadas.size() + " solicitudes guardadas");
+    }
+
+    private Cliente clienteEjemplo(String nombre, String email, String telefono) {
+        return clienteRepository.findByEmail(email)
+                .orElseGet(() -> clienteRepository.save(new Cliente(null, nombre, email, telefono)));
+    }
+
+    private Tecnico tecnicoEjemplo(String nombre, String especialidad) {
+        return tecnicoRepository.findByNombreContaining(nombre).stream().findFirst()
+                .orElseGet(() -> tecnicoRepository.save(new Tecnico(null, nombre, especialidad)));
     }
 
     @Override
     public List<Solicitud> findAll() {
-        return new ArrayList<>(solicitudes);
+        return resolver(solicitudRepository.findAll());
+    }
+
+    @Override
+    public List<Solicitud> filtrar(FiltroSolicitudes filtro) {
+        return resolver(solicitudRepository.filtrar(filtro, false).solicitudes());
+    }
+
+    @Override
+    public PlanConsulta explicar(FiltroSolicitudes filtro) {
+        return solicitudRepository.filtrar(filtro, true).plan();
     }
 
     @Override
     public Optional<Solicitud> findById(Long id) {
-        return solicitudes.stream()
-                .filter(s -> s.getId().equals(id))
-                .findFirst();
+        return solicitudRepository.findById(id).map(s -> resolver(List.of(s)).get(0));
     }
 
     @Override
@@ -90,36 +192,66 @@ public class SolicitudServiceImpl implements SolicitudService {
         if (solicitud == null) {
             throw new IllegalArgumentException("La solicitud no puede ser nula");
         }
+        return saveAll(List.of(solicitud)).get(0);
+    }
 
-        if (solicitud.getId() == null) {
-            solicitud.setId(counter.getAndIncrement());
-        }
-
-        if (solicitud.getFechaCreacion() == null) {
-            solicitud.setFechaCreacion(LocalDateTime.now());
+    @Override
+    public List<Solicitud> saveAll(List<Solicitud> solicitudes) {
+        for (Solicitud solicitud : solicitudes) {
+            if (solicitud == null) {
+                throw new IllegalArgumentException("La solicitud no puede ser nula");
+            }
+            if (solicitud.getFechaCreacion() == null) {
+                solicitud.setFechaCreacion(LocalDateTime.now());
+            }
+            if (solicitud.getEstado() == null || solicitud.getEstado().trim().isEmpty()) {
+                solicitud.setEstado("PENDIENTE");
+            }
         }
 
-        if (solicitud.getEstado() == null || solicitud.getEstado().trim().isEmpty()) {
-            solicitud.setEstado("PENDIENTE");
+        // Se guardan sólo las referencias; el repositorio asigna el ID si no viene informado
+        List<Solicitud> guardadas = solicitudRepository.saveAll(conReferencias(solicitudes));
+        List<Solicitud> resueltas = resolver(guardadas);
+        for (Solicitud resuelta : resueltas) {
+            indiceTexto.indexar(resuelta.getId(), resuelta.getDescripcion());
+            rollups.creada(resuelta.getFechaCreacion(), resuelta.getEstado(), especialidad(resuelta));
+            sla.vigilar(resuelta.getId(), resuelta.getFechaCreacion(), resuelta.getEstado());
+            notificar(SolicitudEvent.CREADA, resuelta.getId(), resuelta);
         }
-
-        solicitudes.add(solicitud);
-        return solicitud;
+        return resueltas;
     }
 
     @Override
     public Solicitud update(Long id, Solicitud solicitud) {
-        Optional<Solicitud> existingSolicitud = findById(id);
+        return update(id, solicitud, null);
+    }
+
+    @Override
+    public Solicitud update(Long id, Solicitud solicitud, Long versionEsperada) {
+        Optional<Solicitud> existingSolicitud = solicitudRepository.findById(id);
 
         if (existingSolicitud.isPresent()) {
-            Solicitud toUpdate = existingSolicitud.get();
+            // Trabajar sobre una copia: la solicitud guardada la pueden estar leyendo otros hilos
+            Solicitud pedida = conReferencias(solicitud);
+            Solicitud toUpdate = new Solicitud(existingSolicitud.get());
 
-            toUpdate.setDescripcion(solicitud.getDescripcion());
-            toUpdate.setEstado(solicitud.getEstado());
-            toUpdate.setCliente(solicitud.getCliente());
-            toUpdate.setTecnico(solicitud.getTecnico());
+            toUpdate.setDescripcion(pedida.getDescripcion());
+            toUpdate.setEstado(pedida.getEstado());
+            toUpdate.setClienteId(pedida.getClienteId());
+            toUpdate.setTecnicoId(pedida.getTecnicoId());
+            if (versionEsperada != null) {
+                toUpdate.setVersion(versionEsperada);
+            }
 
-            return toUpdate;
+            // Compare-and-set: falla con VersionConflictException si otro la modificó antes
+            Solicitud actualizada = solicitudRepository.update(toUpdate);
+            indiceTexto.indexar(id, actualizada.getDescripcion());
+            Solicitud resuelta = resolver(List.of(actualizada)).get(0);
+            rollups.cambioDeEstado(LocalDateTime.now(), existingSolicitud.get().getEstado(), actualizada.getEstado(),
+                    especialidad(resuelta));
+            sla.vigilar(id, actualizada.getFechaCreacion(), actualizada.getEstado());
+            notificar(SolicitudEvent.ACTUALIZADA, id, resuelta);
+            return resuelta;
         } else {
             throw new SolicitudNotFoundException("Solicitud no encontrada con ID: " + id);
         }
@@ -127,6 +259,261 @@ public class SolicitudServiceImpl implements SolicitudService {
 
     @Override
     public void deleteById(Long id) {
-        solicitudes.removeIf(s -> s.getId().equals(id));
+        if (solicitudRepository.existsById(id)) {
+            solicitudRepository.deleteById(id);
+            indiceTexto.eliminar(id);
+            sla.olvidar(id);
+            notificar(SolicitudEvent.ELIMINADA, id, null);
+        }
+    }
+
+    @Override
+    public List<ResultadoBusqueda> buscar(String consulta, int limite) {
+        List<Solicitud> encontradas = new ArrayList<>();
+        List<Double> puntuaciones = new ArrayList<>();
+        for (InvertedIndex.Resultado resultado : indiceTexto.buscar(consulta, limite)) {
+            // Una baja concurrente puede dejar un id ya eliminado: se omite
+            solicitudRepository.findById(resultado.id()).ifPresent(s -> {
+                encontradas.add(s);
+                puntuaciones.add(resultado.puntuacion());
+            });
+        }
+
+        List<Solicitud> resueltas = resolver(encontradas);
+        List<ResultadoBusqueda> resultados = new ArrayList<>(resueltas.size());
+        for (int i = 0; i < resueltas.size(); i++) {
+            resultados.add(new ResultadoBusqueda(resueltas.get(i), puntuaciones.get(i)));
+        }
+        return resultados;
+    }
+
+    @Override
+    public void sincronizar(Long id, boolean notificar) {
+        Optional<Solicitud> solicitud = solicitudRepository.findById(id);
+        if (solicitud.isPresent()) {
+            indiceTexto.indexar(id, solicitud.get().getDescripcion());
+            if (notificar) {
+                Solicitud resuelta = resolver(List.of(solicitud.get())).get(0);
+                eventBus.publicar(resuelta.getVersion() == 1 ? SolicitudEvent.CREADA : SolicitudEvent.ACTUALIZADA,
+                        id, resuelta);
+            }
+        } else {
+            indiceTexto.eliminar(id);
+            if (notificar) {
+                eventBus.publicar(SolicitudEvent.ELIMINADA, id, null);
+            }
+        }
+    }
+
+    @Override
+    public List<FilaAgregada> agregar(ConsultaAgregada consulta) {
+        // La especialidad se toma de una foto de los técnicos, no técnico a técnico por solicitud
+        Map<Long, String> especialidades = new HashMap<>();
+        if (consulta.dimensiones().contains(Dimension.ESPECIALIDAD)) {
+            for (Tecnico tecnico : tecnicoRepository.findAll()) {
+                especialidades.put(tecnico.getId(), tecnico.getEspecialidad());
+            }
+        }
+        Agregador agregador = new Agregador(consulta, especialidades, LocalDateTime.now());
+        return solicitudRepository.agregar(agregador.collector());
+    }
+
+    @Override
+    public List<FilaRollup> rollups(ConsultaRollup consulta) {
+        return rollups.consultar(consulta);
+    }
+
+    @Override
+    public List<Solicitud> findByClienteId(Long clienteId) {
+        return resolver(solicitudRepository.findByClienteId(clienteId));
+    }
+
+    @Override
+    public List<Solicitud> findByTecnicoId(Long tecnicoId) {
+        return resolver(solicitudRepository.findByTecnicoId(tecnicoId));
+    }
+
+    @Override
+    public int liberarCliente(Long clienteId, PoliticaBorrado politica, Long reasignarA) {
+        List<Solicitud> afectadas = solicitudRepository.findByClienteId(clienteId);
+        if (afectadas.isEmpty()) {
+            return 0;
+        }
+        if (politica == PoliticaBorrado.REASIGNAR) {
+            if (reasignarA == null || reasignarA.equals(clienteId)) {
+                throw new BadRequestException("Para reasignar las solicitudes indique otro cliente en reasignarA");
+            }
+            clienteRepository.findById(reasignarA)
+                    .orElseThrow(() -> new BadRequestException("No existe el cliente con ID: " + reasignarA));
+        }
+        return liberar("el cliente " + clienteId, afectadas, politica, s -> s.setClienteId(reasignarA));
+    }
+
+    @Override
+    public int liberarTecnico(Long tecnicoId, PoliticaBorrado politica, Long reasignarA) {
+        List<Solicitud> afectadas = solicitudRepository.findByTecnicoId(tecnicoId);
+        if (afectadas.isEmpty()) {
+            return 0;
+        }
+        Long destino = reasignarA;
+        if (politica == PoliticaBorrado.REASIGNAR) {
+            if (destino == null) {
+                destino = tecnicoConMenosCarga(tecnicoId);
+            } else if (destino.equals(tecnicoId) || !tecnicoRepository.existsById(destino)) {
+                throw new BadRequestException("No se puede reasignar al técnico con ID: " + destino);
+            }
+        }
+        Long nuevoTecnico = destino;
+        return liberar("el técnico " + tecnicoId, afectadas, politica, s -> s.setTecnicoId(nuevoTecnico));
+    }
+
+    // Recorre sólo las solicitudes afectadas (las que da el índice inverso)
+    private int liberar(String entidad, List<Solicitud> afectadas, PoliticaBorrado politica,
+                        Consumer<Solicitud> reasignar) {
+        switch (politica) {
+            case RECHAZAR -> throw new ReferencedEntityException("No se puede eliminar " + entidad
+                    + ": tiene " + afectadas.size() + " solicitudes");
+            case CASCADA -> afectadas.forEach(s -> deleteById(s.getId()));
+            case REASIGNAR -> {
+                List<Solicitud> liberadas = new ArrayList<>(afectadas.size());
+                for (Solicitud s : afectadas) {
+                    Solicitud cambio = new Solicitud(s);
+                    reasignar.accept(cambio);
+                    cambio.setVersion(null);
+                    liberadas.add(cambio);
+                }
+                // Un solo lote de actualizaciones si el almacén lo permite
+                for (Solicitud actualizada : resolver(solicitudRepository.updateAll(liberadas))) {
+                    notificar(SolicitudEvent.ACTUALIZADA, actualizada.getId(), actualizada);
+                }
+            }
+        }
+        System.out.println("Política " + politica + " aplicada a " + afectadas.size() + " solicitudes de " + entidad);
+        return afectadas.size();
+    }
+
+    // Técnico de la misma especialidad (o cualquiera si no hay) con menos solicitudes asignadas
+    private Long tecnicoConMenosCarga(Long tecnicoId) {
+        String especialidad = tecnicoRepository.findById(tecnicoId).map(Tecnico::getEspecialidad).orElse(null);
+        Comparator<Tecnico> porCarga = Comparator.comparingLong(t -> solicitudRepository.countByTecnicoId(t.getId()));
+        List<Tecnico> otros = tecnicoRepository.findAll().stream()
+                .filter(t -> !t.getId().equals(tecnicoId))
+                .toList();
+        return otros.stream()
+                .filter(t -> especialidad != null && especialidad.equalsIgnoreCase(t.getEspecialidad()))
+                .min(porCarga)
+                .or(() -> otros.stream().min(porCarga))
+                .map(Tecnico::getId)
+                .orElseThrow(() -> new ReferencedEntityException("No se puede eliminar el técnico " + tecnicoId
+                        + ": no hay otro técnico al que reasignar sus solicitudes"));
+    }
+
+    /**
+     * Copia de la solicitud lista para guardar: sólo referencias, sin cliente ni técnico embebidos
+     * Comprueba que el cliente y el técnico existen y reutiliza sus IDs (un Long por cliente,
+     * no uno por solicitud). Como nodo de un clúster se admiten referencias a otros nodos
+     * @throws BadRequestException si el cliente o el técnico no existen
+     */
+    private Solicitud conReferencias(Solicitud solicitud) {
+        return conReferencias(List.of(solicitud)).get(0);
+    }
+
+    // Igual para varias solicitudes, con una consulta por lotes a cada repositorio
+    private List<Solicitud> conReferencias(List<Solicitud> solicitudes) {
+        Set<Long> clienteIds = new HashSet<>();
+        Set<Long> tecnicoIds = new HashSet<>();
+        for (Solicitud solicitud : solicitudes) {
+            if (solicitud.getClienteId() != null) {
+                clienteIds.add(solicitud.getClienteId());
+            }
+            if (solicitud.getTecnicoId() != null) {
+                tecnicoIds.add(solicitud.getTecnicoId());
+            }
+        }
+        Map<Long, Cliente> clientes = new HashMap<>();
+        if (!clienteIds.isEmpty()) {
+            for (Cliente cliente : clienteRepository.findAllById(clienteIds)) {
+                clientes.put(cliente.getId(), cliente);
+            }
+        }
+        Map<Long, Tecnico> tecnicos = new HashMap<>();
+        if (!tecnicoIds.isEmpty()) {
+            for (Tecnico tecnico : tecnicoRepository.findAllById(tecnicoIds)) {
+                tecnicos.put(tecnico.getId(), tecnico);
+            }
+        }
+
+        List<Solicitud> conReferencias = new ArrayList<>(solicitudes.size());
+        for (Solicitud solicitud : solicitudes) {
+            Long clienteId = solicitud.getClienteId();
+            Long tecnicoId = solicitud.getTecnicoId();
+            Cliente cliente = clienteId == null ? null : clientes.get(clienteId);
+            if (clienteId != null && cliente == null && !referenciasExternas) {
+                throw new BadRequestException("No existe el cliente con ID: " + clienteId);
+            }
+            Tecnico tecnico = tecnicoId == null ? null : tecnicos.get(tecnicoId);
+            if (tecnicoId != null && tecnico == null && !referenciasExternas) {
+                throw new BadRequestException("No existe el técnico con ID: " + tecnicoId);
+            }
+
+            Solicitud referencias = new Solicitud(solicitud);
+            referencias.setClienteId(cliente != null ? cliente.getId() : clienteId);
+            referencias.setTecnicoId(tecnico != null ? tecnico.getId() : tecnicoId);
+            referencias.setCliente(null);
+            referencias.setTecnico(null);
+            conReferencias.add(referencias);
+        }
+        return conReferencias;
+    }
+
+    // Suscriptores SSE y registro de cambios (sincronizar sólo avisa por SSE: aplica cambios
+    // que ya se anotaron en el primario o en el enrutador)
+    private void notificar(String tipo, Long id, Solicitud resuelta) {
+        eventBus.publicar(tipo, id, resuelta);
+        switch (tipo) {
+            case SolicitudEvent.CREADA -> cambios.registrar(ChangeLog.SOLICITUD, ChangeLog.ALTA, id, resuelta.getVersion(), resuelta);
+            case SolicitudEvent.ACTUALIZADA -> cambios.registrar(ChangeLog.SOLICITUD, ChangeLog.CAMBIO, id, resuelta.getVersion(), resuelta);
+            default -> cambios.registrar(ChangeLog.SOLICITUD, ChangeLog.BAJA, id, null, null);
+        }
+    }
+
+    private static String especialidad(Solicitud resuelta) {
+        return resuelta.getTecnico() != null ? resuelta.getTecnico().getEspecialidad() : null;
+    }
+
+    /**
+     * Resuelve cliente y técnico de una lista de solicitudes con una consulta por lotes a cada
+     * repositorio; las solicitudes guardadas no se modifican, se devuelven copias resueltas
+     */
+    private List<Solicitud> resolver(List<Solicitud> solicitudes) {
+        Set<Long> clienteIds = new HashSet<>();
+        Set<Long> tecnicoIds = new HashSet<>();
+        for (Solicitud s : solicitudes) {
+            if (s.getClienteId() != null) {
+                clienteIds.add(s.getClienteId());
+            }
+            if (s.getTecnicoId() != null) {
+                tecnicoIds.add(s.getTecnicoId());
+            }
+        }
+
+        // Mapas de identidad: cada cliente y técnico se carga y se comparte una sola vez
+        Map<Long, Cliente> clientes = new HashMap<>();
+        for (Cliente cliente : clienteRepository.findAllById(clienteIds)) {
+            clientes.put(cliente.getId(), cliente);
+        }
+        Map<Long, Tecnico> tecnicos = new HashMap<>();
+        for (Tecnico tecnico : tecnicoRepository.findAllById(tecnicoIds)) {
+            tecnicos.put(tecnico.getId(), tecnico);
+        }
+
+        List<Solicitud> resueltas = new ArrayList<>(solicitudes.size());
+        for (Solicitud s : solicitudes) {
+            Solicitud resuelta = new Solicitud(s);
+            resuelta.setCliente(clientes.get(s.getClienteId()));
+            resuelta.setTecnico(tecnicos.get(s.getTecnicoId()));
+            resueltas.add(resuelta);
+        }
+        return resueltas;
     }
 }
\ No newline at end of file
@@ -45,11 +45,23 @@ public interface TecnicoService {
      * @param id ID del técnico a actualizar (no puede ser nulo)
      * @param tecnicoDTO DTO con los nuevos datos del técnico (no puede ser nulo)
      * @return El técnico actualizado
-     * @throws RuntimeException si no se encuentra el técnico con el ID especificado
+     * @throws com.example.soporte_tecnico.exception.ResourceNotFoundException si no se encuentra el técnico con el ID especificado
      * @throws IllegalArgumentException si alguno de los parámetros es nulo
      */
     Tecnico update(Long id, TecnicoDTO tecnicoDTO);
 
+    /**
+     * Actualiza un técnico sólo si su versión actual coincide con la esperada
+     * Permite implementar If-Match: dos editores concurrentes nunca se sobrescriben en silencio
+     *
+     * @param id ID del técnico a actualizar (no puede ser nulo)
+     * @param tecnicoDTO DTO con los nuevos datos del técnico (no puede ser nulo)
+     * @param versionEsperada Versión que el cliente leyó, o null para no comprobarla
+     * @return El técnico actualizado con su nueva versión
+     * @throws com.example.soporte_tecnico.exception.VersionConflictException si la versión no coincide
+     */
+    Tecnico update(Long id, TecnicoDTO tecnicoDTO, Long versionEsperada);
+
     /**
      * Elimina un técnico del sistema por su ID
      * Realiza validaciones antes de proceder con la eliminación
@@ -59,6 +71,16 @@ public interface TecnicoService {
      */
     void deleteById(Long id);
 
+    /**
+     * Elimina un técnico aplicando antes la política de borrado a sus solicitudes
+     *
+     * @param id ID del técnico a eliminar (no puede ser nulo)
+     * @param politica Política a aplicar, o null para usar la configurada (soporte.borrado.tecnicos)
+     * @param reasignarA Técnico que recibe las solicitudes con REASIGNAR (null = elegir automáticamente)
+     * @throws com.example.soporte_tecnico.exception.ReferencedEntityException si el borrado se rechaza
+     */
+    void deleteById(Long id, PoliticaBorrado politica, Long reasignarA);
+
     /**
      * Busca técnicos por su especialidad (búsqueda exacta case-insensitive)
      * @param especialidad Especialidad de los técnicos a buscar (no puede ser nula o vacía)
@@ -75,6 +97,24 @@ public interface TecnicoService {
      */
     List<Tecnico> findByNombreContaining(String nombre);
 
+    /**
+     * Busca técnicos con un nombre parecido al indicado, tolerando errores de escritura
+     * @param nombre Nombre buscado, con o sin errores (no puede ser nulo o vacío)
+     * @param maxDistancia Distancia de edición máxima por palabra (0 a 2)
+     * @return Lista de técnicos ordenada del más al menos parecido (puede estar vacía)
+     * @throws IllegalArgumentException si el nombre es nulo o vacío
+     */
+    List<Tecnico> findByNombreSimilar(String nombre, int maxDistancia);
+
+    /**
+     * Autocompletado: técnicos cuyo nombre tiene una palabra que empieza por el prefijo
+     * @param prefijo Texto tecleado (no puede ser nulo o vacío)
+     * @param limite Número máximo de resultados
+     * @return Lista de técnicos (puede estar vacía)
+     * @throws IllegalArgumentException si el prefijo es nulo o vacío
+     */
+    List<Tecnico> autocompletar(String prefijo, int limite);
+
     /**
      * Verifica si existe un técnico con el ID especificado
      * @param id ID del técnico a verificar (no puede ser nulo)
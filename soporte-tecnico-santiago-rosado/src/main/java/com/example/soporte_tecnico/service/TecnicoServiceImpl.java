@@ -1,14 +1,18 @@
 package com.example.soporte_tecnico.service;
 
+import com.example.soporte_tecnico.cdc.ChangeLog;
 import com.example.soporte_tecnico.dto.TecnicoDTO;
+import com.example.soporte_tecnico.exception.BadRequestException;
+import com.example.soporte_tecnico.exception.DuplicateIdException;
+import com.example.soporte_tecnico.exception.ResourceNotFoundException;
 import com.example.soporte_tecnico.model.Tecnico;
 import com.example.soporte_tecnico.repository.TecnicoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Implementación del servicio para la gestión de técnicos
@@ -27,8 +31,20 @@ public class TecnicoServiceImpl implements TecnicoService {
     @Autowired
     private TecnicoRepository tecnicoRepository;
 
-    // Contador para generar IDs automáticos (comienza en 7 porque ya tenemos 6 técnicos de ejemplo)
-    private final AtomicLong idCounter = new AtomicLong(7);
+    @Autowired
+    private SolicitudService solicitudService;
+
+    // Registro de cambios para los consumidores externos (CDC)
+    @Autowired
+    private ChangeLog cambios;
+
+    // Qué hacer con las solicitudes de un técnico eliminado si la petición no lo indica
+    @Value("${soporte.borrado.tecnicos:REASIGNAR}")
+    private PoliticaBorrado politicaBorrado;
+
+    // Sólo en un nodo del clúster el alta trae el ID (asignado por el enrutador)
+    @Value("${soporte.sharding.nodo:false}")
+    private boolean nodoDelCluster;
 
     /**
      * Obtiene todos los técnicos registrados en el sistema
@@ -90,7 +106,8 @@ public class TecnicoServiceImpl implements TecnicoService {
 
         // Crear nueva entidad Tecnico a partir del DTO
         Tecnico tecnico = new Tecnico();
-        tecnico.setId(idCounter.getAndIncrement()); // Generar ID automático
+        // El ID lo asigna el repositorio, que es quien conoce los ya usados (o el enrutador del clúster)
+        tecnico.setId(idDelEnrutador(tecnicoDTO.getId()));
         tecnico.setNombre(tecnicoDTO.getNombre().trim());
         tecnico.setEspecialidad(tecnicoDTO.getEspecialidad().trim());
 
@@ -99,6 +116,7 @@ public class TecnicoServiceImpl implements TecnicoService {
 
         // Guardar en el repositorio
         Tecnico tecnicoGuardado = tecnicoRepository.save(tecnico);
+        cambios.registrar(ChangeLog.TECNICO, ChangeLog.ALTA, tecnicoGuardado.getId(), tecnicoGuardado.getVersion(), tecnicoGuardado);
 
         System.out.println("Técnico creado exitosamente - ID: " + tecnicoGuardado.getId() +
                 ", Nombre: " + tecnicoGuardado.getNombre());
@@ -113,10 +131,24 @@ public class TecnicoServiceImpl implements TecnicoService {
      * @param id ID del técnico a actualizar
      * @param tecnicoDTO DTO con los nuevos datos del técnico
      * @return El técnico actualizado
-     * @throws RuntimeException si no se encuentra el técnico con el ID especificado
+     * @throws com.example.soporte_tecnico.exception.ResourceNotFoundException si no se encuentra el técnico con el ID especificado
      */
     @Override
     public Tecnico update(Long id, TecnicoDTO tecnicoDTO) {
+        return update(id, tecnicoDTO, null);
+    }
+
+    /**
+     * Actualiza un técnico sólo si sigue en la versión esperada
+     *
+     * @param id ID del técnico a actualizar
+     * @param tecnicoDTO DTO con los nuevos datos del técnico
+     * @param versionEsperada Versión indicada por el cliente (If-Match), o null para usar la actual
+     * @return El técnico actualizado con su nueva versión
+     * @throws com.example.soporte_tecnico.exception.VersionConflictException si la versión no coincide
+     */
+    @Override
+    public Tecnico update(Long id, TecnicoDTO tecnicoDTO, Long versionEsperada) {
         // Validar parámetros
         if (id == null) {
             throw new IllegalArgumentException("El ID no puede ser nulo");
@@ -130,7 +162,11 @@ public class TecnicoServiceImpl implements TecnicoService {
         Optional<Tecnico> tecnicoExistente = tecnicoRepository.findById(id);
 
         if (tecnicoExistente.isPresent()) {
-            Tecnico tecnico = tecnicoExistente.get();
+            // Trabajar sobre una copia: el técnico guardado lo pueden estar leyendo otros hilos
+            Tecnico tecnico = new Tecnico(tecnicoExistente.get());
+            if (versionEsperada != null) {
+                tecnico.setVersion(versionEsperada);
+            }
 
             // Actualizar solo los campos permitidos (no actualizamos el ID)
             if (tecnicoDTO.getNombre() != null && !tecnicoDTO.getNombre().trim().isEmpty()) {
@@ -141,8 +177,9 @@ public class TecnicoServiceImpl implements TecnicoService {
                 tecnico.setEspecialidad(capitalizeFirstLetter(tecnicoDTO.getEspecialidad().trim()));
             }
 
-            // Guardar los cambios en el repositorio
+            // Guardar los cambios (compare-and-set sobre la versión)
             Tecnico tecnicoActualizado = tecnicoRepository.update(tecnico);
+            cambios.registrar(ChangeLog.TECNICO, ChangeLog.CAMBIO, id, tecnicoActualizado.getVersion(), tecnicoActualizado);
 
             System.out.println("Técnico actualizado exitosamente - ID: " + id +
                     ", Nuevo nombre: " + tecnicoActualizado.getNombre() +
@@ -152,7 +189,7 @@ public class TecnicoServiceImpl implements TecnicoService {
 
         } else {
             // Lanzar excepción si el técnico no existe
-            throw new RuntimeException("Técnico no encontrado con ID: " + id);
+            throw new ResourceNotFoundException("Técnico no encontrado con ID: " + id);
         }
     }
 
@@ -162,6 +199,17 @@ public class TecnicoServiceImpl implements TecnicoService {
      */
     @Override
     public void deleteById(Long id) {
+        deleteById(id, null, null);
+    }
+
+    /**
+     * Elimina un técnico aplicando antes la política de borrado a sus solicitudes
+     * @param id ID del técnico a eliminar
+     * @param politica Política a aplicar (null = la configurada)
+     * @param reasignarA Técnico que recibe las solicitudes con REASIGNAR (null = automático)
+     */
+    @Override
+    public void deleteById(Long id, PoliticaBorrado politica, Long reasignarA) {
         // Validar parámetro
         if (id == null) {
             throw new IllegalArgumentException("El ID no puede ser nulo");
@@ -169,9 +217,11 @@ public class TecnicoServiceImpl implements TecnicoService {
 
         // Verificar si el técnico existe antes de eliminar
         if (tecnicoRepository.existsById(id)) {
-            // Podríamos agregar lógica de negocio aquí (ej: verificar si el técnico tiene solicitudes activas)
+            // Sus solicitudes no pueden quedar huérfanas: cascada, reasignación o rechazo (409)
+            solicitudService.liberarTecnico(id, politica != null ? politica : politicaBorrado, reasignarA);
 
             tecnicoRepository.deleteById(id);
+            cambios.registrar(ChangeLog.TECNICO, ChangeLog.BAJA, id, null, null);
             System.out.println("Técnico con ID " + id + " eliminado correctamente");
         } else {
             System.out.println("No se pudo eliminar: Técnico con ID " + id + " no encontrado");
@@ -217,6 +267,38 @@ public class TecnicoServiceImpl implements TecnicoService {
         return tecnicoRepository.findByNombreContaining(nombre);
     }
 
+    /**
+     * Busca técnicos con un nombre parecido, tolerando errores de escritura
+     * @param nombre Nombre buscado, con o sin errores
+     * @param maxDistancia Distancia de edición máxima por palabra (0 a 2)
+     * @return Lista de técnicos ordenada del más al menos parecido
+     * @throws IllegalArgumentException si el nombre es nulo o vacío
+     */
+    @Override
+    public List<Tecnico> findByNombreSimilar(String nombre, int maxDistancia) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            throw new IllegalArgumentException("El nombre no puede estar vacío");
+        }
+
+        return tecnicoRepository.findByNombreSimilar(nombre, maxDistancia);
+    }
+
+    /**
+     * Autocompletado: técnicos cuyo nombre tiene una palabra que empieza por el prefijo
+     * @param prefijo Texto tecleado
+     * @param limite Número máximo de resultados
+     * @return Lista de técnicos
+     * @throws IllegalArgumentException si el prefijo es nulo o vacío
+     */
+    @Override
+    public List<Tecnico> autocompletar(String prefijo, int limite) {
+        if (prefijo == null || prefijo.trim().isEmpty()) {
+            throw new IllegalArgumentException("El prefijo no puede estar vacío");
+        }
+
+        return tecnicoRepository.findByNombreStartingWith(prefijo, limite);
+    }
+
     /**
      * Verifica si existe un técnico con el ID especificado
      * @param id ID del técnico a verificar
@@ -254,6 +336,21 @@ public class TecnicoServiceImpl implements TecnicoService {
         return especialidades;
     }
 
+    // Fuera de un nodo del clúster el ID del cuerpo se ignora
+    private Long idDelEnrutador(Long id) {
+        if (!nodoDelCluster || id == null) {
+            return null;
+        }
+        // Long.MAX_VALUE desbordaría el generador de IDs del repositorio
+        if (id < 1 || id == Long.MAX_VALUE) {
+            throw new BadRequestException("ID de técnico no válido: " + id);
+        }
+        if (tecnicoRepository.existsById(id)) {
+            throw new DuplicateIdException("Ya existe un técnico con ID: " + id);
+        }
+        return id;
+    }
+
     /**
      * Método de utilidad para capitalizar la primera letra de un string
      * Convierte "redes" en "Redes", "BASE DE DATOS" en "Base de datos", etc.
@@ -0,0 +1,121 @@
+package com.example.soporte_tecnico.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Anillo de hash consistente con nodos virtuales
+ *
+ * Cada nodo ocupa varias posiciones del anillo (sus nodos virtuales) y cada ID pertenece al
+ * primer nodo que aparece en el anillo a partir del hash del ID. Al añadir un nodo sólo
+ * cambian de dueño los IDs que caen en sus nuevas posiciones, todos hacia el nodo nuevo;
+ * los nodos virtuales hacen que esa parte salga repartida entre todos los nodos anteriores.
+ *
+ * Es inmutable: añadir un nodo devuelve un anillo nuevo, así que las consultas en curso
+ * siguen viendo el anterior hasta que se publica el nuevo.
+ */
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> posiciones;
+    private final List<String> nodos;
+    private final int virtuales;
+
+    /**
+     * @param nodos Nodos del anillo (URL base de cada uno)
+     * @param virtuales Posiciones en el anillo por nodo
+     */
+    public ConsistentHashRing(Collection<String> nodos, int virtuales) {
+        if (nodos.isEmpty()) {
+            throw new IllegalArgumentException("El anillo necesita al menos un nodo");
+        }
+        if (virtuales < 1) {
+            throw new IllegalArgumentException("El número de nodos virtuales debe ser positivo");
+        }
+        this.nodos = List.copyOf(nodos);
+        this.virtuales = virtuales;
+        this.posiciones = new TreeMap<>();
+        for (String nodo : this.nodos) {
+            for (int i = 0; i < virtuales; i++) {
+                // Ante una colisión (improbable) conserva la posición el primero, en todos los nodos igual
+                posiciones.putIfAbsent(hash(nodo + "#" + i), nodo);
+            }
+        }
+    }
+
+    /**
+     * Nodo dueño del ID
+     */
+    public String nodo(long id) {
+        Map.Entry<Long, String> entrada = posiciones.ceilingEntry(hash(id));
+        return (entrada != null ? entrada : posiciones.firstEntry()).getValue();
+    }
+
+    /**
+     * Anillo con un nodo más
+     */
+    public ConsistentHashRing con(String nodo) {
+        if (nodos.contains(nodo)) {
+            throw new IllegalArgumentException("El nodo ya está en el anillo: " + nodo);
+        }
+        List<String> ampliado = new ArrayList<>(nodos);
+        ampliado.add(nodo);
+        return new ConsistentHashRing(ampliado, virtuales);
+    }
+
+    public List<String> nodos() {
+        return nodos;
+    }
+
+    public int virtuales() {
+        return virtuales;
+    }
+
+    /**
+     * Fracción del anillo (y por tanto de los IDs) que corresponde a cada nodo
+     */
+    public Map<String, Double> reparto() {
+        Map<String, Double> reparto = new LinkedHashMap<>();
+        for (String nodo : nodos) {
+            reparto.put(nodo, 0.0);
+        }
+        long anterior = posiciones.lastKey();
+        for (Map.Entry<Long, String> entrada : posiciones.entrySet()) {
+            // Cada posición recibe el arco que la precede; la resta módulo 2^64 da la vuelta al anillo
+            double arco = posiciones.size() == 1 ? 1.0 : sinSigno(entrada.getKey() - anterior) / 0x1p64;
+            reparto.merge(entrada.getValue(), arco, Double::sum);
+            anterior = entrada.getKey();
+        }
+        return reparto;
+    }
+
+    private static double sinSigno(long valor) {
+        return valor >= 0 ? valor : valor + 0x1p64;
+    }
+
+    // Finalizador de MurmurHash3: los IDs consecutivos quedan repartidos por todo el anillo
+    static long hash(long valor) {
+        long h = valor;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // FNV-1a de 64 bits, mezclado con el mismo finalizador
+    static long hash(String texto) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : texto.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return hash(h);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.soporte_tecnico.sharding;
+
+import java.util.Map;
+
+/**
+ * Lo que el enrutador necesita saber de un nodo al arrancar
+ * @param ultimosIds Mayor ID guardado de cada colección, por su ruta ("clientes", ...)
+ */
+public record InfoNodo(Map<String, Long> ultimosIds) {
+}
@@ -0,0 +1,31 @@
+package com.example.soporte_tecnico.sharding;
+
+import java.util.Optional;
+
+/**
+ * Colecciones que se reparten entre los nodos, con su ruta en la API
+ */
+public enum Recurso {
+    CLIENTES("clientes"),
+    TECNICOS("tecnicos"),
+    SOLICITUDES("solicitudes");
+
+    private final String ruta;
+
+    Recurso(String ruta) {
+        this.ruta = ruta;
+    }
+
+    public String ruta() {
+        return ruta;
+    }
+
+    public static Optional<Recurso> desdeRuta(String ruta) {
+        for (Recurso recurso : values()) {
+            if (recurso.ruta.equals(ruta)) {
+                return Optional.of(recurso);
+            }
+        }
+        return Optional.empty();
+    }
+}
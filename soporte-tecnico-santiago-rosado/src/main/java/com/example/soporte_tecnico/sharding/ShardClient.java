@@ -0,0 +1,98 @@
+package com.example.soporte_tecnico.sharding;
+
+import com.example.soporte_tecnico.exception.NodeUnavailableException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Peticiones HTTP del enrutador a los nodos
+ *
+ * Las peticiones a varios nodos salen a la vez y se espera a todas; si alguno no responde
+ * a tiempo la petición completa falla con NodeUnavailableException (HTTP 503), porque un
+ * resultado sin los datos de un nodo sería incompleto sin que el cliente lo supiera.
+ */
+final class ShardClient {
+
+    /**
+     * Respuesta de un nodo
+     * @param nodo Nodo que respondió
+     * @param tipo Content-Type (null si no lo indica)
+     * @param etag ETag (null si no lo indica)
+     */
+    record Respuesta(String nodo, int estado, String tipo, String etag, byte[] cuerpo) {
+        boolean correcta() {
+            return estado >= 200 && estado < 300;
+        }
+    }
+
+    private final HttpClient http;
+    private final Duration espera;
+
+    ShardClient(Duration espera) {
+        this.espera = espera;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(espera)
+                .build();
+    }
+
+    Respuesta enviar(String nodo, String metodo, String ruta, byte[] cuerpo, Map<String, String> cabeceras) {
+        return esperar(enviarAsync(nodo, metodo, ruta, cuerpo, cabeceras));
+    }
+
+    /**
+     * La misma petición a cada nodo, en paralelo; las respuestas en el orden de los nodos
+     */
+    List<Respuesta> enviarATodos(List<String> nodos, String metodo, String ruta, Map<String, String> cabeceras) {
+        List<CompletableFuture<Respuesta>> pendientes = new ArrayList<>(nodos.size());
+        for (String nodo : nodos) {
+            pendientes.add(enviarAsync(nodo, metodo, ruta, null, cabeceras));
+        }
+        List<Respuesta> respuestas = new ArrayList<>(nodos.size());
+        for (CompletableFuture<Respuesta> pendiente : pendientes) {
+            respuestas.add(esperar(pendiente));
+        }
+        return respuestas;
+    }
+
+    CompletableFuture<Respuesta> enviarAsync(String nodo, String metodo, String ruta, byte[] cuerpo,
+                                             Map<String, String> cabeceras) {
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(URI.create(nodo + ruta))
+                .timeout(espera)
+                .method(metodo, cuerpo != null ? HttpRequest.BodyPublishers.ofByteArray(cuerpo)
+                        : HttpRequest.BodyPublishers.noBody());
+        cabeceras.forEach(peticion::header);
+        return http.sendAsync(peticion.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .handle((respuesta, error) -> {
+                    if (error != null) {
+                        Throwable causa = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        throw new NodeUnavailableException("El nodo " + nodo + " no responde: " + causa, causa);
+                    }
+                    return new Respuesta(nodo, respuesta.statusCode(),
+                            respuesta.headers().firstValue("Content-Type").orElse(null),
+                            respuesta.headers().firstValue("ETag").orElse(null),
+                            respuesta.body());
+                });
+    }
+
+    static Respuesta esperar(CompletableFuture<Respuesta> pendiente) {
+        try {
+            return pendiente.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof NodeUnavailableException noDisponible) {
+                throw noDisponible;
+            }
+            throw e;
+        }
+    }
+}
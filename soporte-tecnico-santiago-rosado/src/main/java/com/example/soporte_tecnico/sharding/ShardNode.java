@@ -0,0 +1,125 @@
+package com.example.soporte_tecnico.sharding;
+
+import com.example.soporte_tecnico.exception.BadRequestException;
+import com.example.soporte_tecnico.model.Cliente;
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.model.Tecnico;
+import com.example.soporte_tecnico.repository.Replicable;
+import com.example.soporte_tecnico.repository.SolicitudRepository;
+import com.example.soporte_tecnico.service.SolicitudService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lado nodo del reparto: los datos locales tal como están guardados, para el enrutador
+ *
+ * El enrutador lee por páginas o por IDs las entidades de este nodo (sin resolver el
+ * cliente y el técnico de las solicitudes, que pueden estar en otro nodo), copia aquí las
+ * que pasan a ser de este nodo y descarta las que ya no lo son. Copiar y descartar no son
+ * cambios de negocio: conservan la versión y no publican eventos.
+ * Necesita los repositorios en memoria (no existe con los perfiles sql ni lsm).
+ */
+@Component
+@Profile("!sql & !lsm")
+public class ShardNode {
+
+    private final ObjectMapper mapper;
+    private final SolicitudService solicitudService;
+    private final SolicitudRepository solicitudRepository;
+    private final Map<Recurso, Coleccion<?>> colecciones = new EnumMap<>(Recurso.class);
+
+    public ShardNode(ObjectMapper mapper, SolicitudService solicitudService, SolicitudRepository solicitudRepository,
+                     Replicable<Cliente> clientes, Replicable<Tecnico> tecnicos, Replicable<Solicitud> solicitudes) {
+        this.mapper = mapper;
+        this.solicitudService = solicitudService;
+        this.solicitudRepository = solicitudRepository;
+        colecciones.put(Recurso.CLIENTES, new Coleccion<>(Cliente.class, clientes));
+        colecciones.put(Recurso.TECNICOS, new Coleccion<>(Tecnico.class, tecnicos));
+        colecciones.put(Recurso.SOLICITUDES, new Coleccion<>(Solicitud.class, solicitudes));
+    }
+
+    public InfoNodo info() {
+        Map<String, Long> ultimos = new LinkedHashMap<>();
+        colecciones.forEach((recurso, coleccion) -> ultimos.put(recurso.ruta(), coleccion.repositorio().ultimoId()));
+        return new InfoNodo(ultimos);
+    }
+
+    public List<?> pagina(Recurso recurso, long despuesDe, int limite) {
+        return colecciones.get(recurso).repositorio().pagina(despuesDe, limite);
+    }
+
+    public List<?> buscar(Recurso recurso, Collection<Long> ids) {
+        return colecciones.get(recurso).repositorio().buscar(ids);
+    }
+
+    /**
+     * Solicitudes locales de un cliente o de un técnico (índices inversos)
+     */
+    public List<Solicitud> solicitudesDe(Long clienteId, Long tecnicoId) {
+        return clienteId != null ? solicitudRepository.findByClienteId(clienteId)
+                : solicitudRepository.findByTecnicoId(tecnicoId);
+    }
+
+    /**
+     * Solicitudes locales asignadas a cada técnico
+     */
+    public Map<Long, Long> carga(Collection<Long> tecnicos) {
+        Map<Long, Long> carga = new LinkedHashMap<>();
+        for (Long tecnico : tecnicos) {
+            carga.put(tecnico, solicitudRepository.countByTecnicoId(tecnico));
+        }
+        return carga;
+    }
+
+    /**
+     * Guarda las entidades recibidas de otro nodo (gana la versión mayor si ya existían)
+     * @return Número de entidades recibidas
+     */
+    public int importar(Recurso recurso, JsonNode entidades) {
+        return importar(colecciones.get(recurso), recurso, entidades);
+    }
+
+    /**
+     * Elimina las entidades que ya pertenecen a otro nodo
+     */
+    public int descartar(Recurso recurso, Collection<Long> ids) {
+        Replicable<?> repositorio = colecciones.get(recurso).repositorio();
+        for (Long id : ids) {
+            repositorio.descartar(id);
+            if (recurso == Recurso.SOLICITUDES) {
+                solicitudService.sincronizar(id, false);
+            }
+        }
+        return ids.size();
+    }
+
+    private <T> int importar(Coleccion<T> coleccion, Recurso recurso, JsonNode entidades) {
+        List<T> recibidas = new ArrayList<>(entidades.size());
+        for (JsonNode entidad : entidades) {
+            try {
+                recibidas.add(mapper.convertValue(entidad, coleccion.clase()));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Entidad no válida para " + recurso.ruta() + ": " + e.getMessage());
+            }
+        }
+        for (T entidad : recibidas) {
+            coleccion.repositorio().aplicar(entidad);
+            if (recurso == Recurso.SOLICITUDES) {
+                solicitudService.sincronizar(((Solicitud) entidad).getId(), false);
+            }
+        }
+        return recibidas.size();
+    }
+
+    private record Coleccion<T>(Class<T> clase, Replicable<T> repositorio) {
+    }
+}
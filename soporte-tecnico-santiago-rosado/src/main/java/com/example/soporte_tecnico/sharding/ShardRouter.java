@@ -0,0 +1,382 @@
+package com.example.soporte_tecnico.sharding;
+
+import com.example.soporte_tecnico.exception.BadRequestException;
+import com.example.soporte_tecnico.exception.NodeUnavailableException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Enrutador del clúster: qué nodo es dueño de cada ID y cómo se reparten los datos
+ *
+ * Los IDs se asignan aquí (cada nodo sólo conoce los suyos) y se reparten por hash
+ * consistente. Al añadir un nodo se recorren los datos de los demás por páginas y se le
+ * copian sólo los que caen en sus posiciones del anillo; después se guarda y publica el
+ * anillo nuevo y se descartan las copias antiguas. La lista de nodos se guarda en
+ * soporte.sharding.fichero-nodos antes de borrar nada, para que un reinicio no vuelva a un
+ * anillo cuyos datos ya no están en su dueño. Mientras dura el traspaso se detienen las
+ * escrituras (las lecturas siguen contra el anillo anterior). Si algo falla a medias el
+ * anillo no cambia, y las copias que queden fuera de su dueño no se ven: los resultados de
+ * cada nodo se filtran por dueño.
+ */
+@Component
+@ConditionalOnProperty(name = "soporte.sharding.habilitado", havingValue = "true")
+public class ShardRouter {
+
+    static final Map<String, String> JSON = Map.of("Content-Type", "application/json", "Accept", "application/json");
+
+    // Claves de idempotencia recordadas para repetir el mismo ID en los reintentos
+    private static final int MAX_CLAVES = 10_000;
+
+    /**
+     * Resultado de añadir un nodo
+     * @param movidas Entidades copiadas al nodo nuevo, por colección
+     * @param revisadas Entidades recorridas en los demás nodos
+     */
+    public record Rebalanceo(String nodo, Map<String, Long> movidas, long revisadas, long duracionMs) {
+    }
+
+    /**
+     * @param reparto Fracción de los IDs que corresponde a cada nodo
+     */
+    public record EstadoAnillo(int nodosVirtuales, Map<String, Double> reparto) {
+    }
+
+    /**
+     * Escritura que se ejecuta con el anillo fijo (no coincide con un traspaso de datos)
+     */
+    public interface Escritura<T> {
+        T ejecutar() throws IOException;
+    }
+
+    private final ShardingProperties properties;
+    private final ObjectMapper mapper;
+    private final ShardClient cliente;
+    private final Path ficheroNodos;
+    private volatile ConsistentHashRing anillo;
+
+    // Las escrituras toman la parte de lectura; el traspaso de datos, la de escritura
+    private final ReentrantReadWriteLock traspaso = new ReentrantReadWriteLock(true);
+
+    private final Map<Recurso, AtomicLong> ultimosIds = new EnumMap<>(Recurso.class);
+    private volatile boolean idsCargados;
+    private final Map<String, Long> idsPorClave = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> mayor) {
+            return size() > MAX_CLAVES;
+        }
+    };
+
+    public ShardRouter(ShardingProperties properties, ObjectMapper mapper) {
+        if (properties.getNodos().isEmpty()) {
+            throw new IllegalStateException("Con soporte.sharding.habilitado=true hay que indicar soporte.sharding.nodos");
+        }
+        this.properties = properties;
+        this.mapper = mapper;
+        this.cliente = new ShardClient(Duration.ofMillis(properties.getTimeoutMs()));
+        this.ficheroNodos = properties.getFicheroNodos() == null || properties.getFicheroNodos().isBlank()
+                ? null : Path.of(properties.getFicheroNodos());
+        List<String> nodos = properties.getNodos().stream().map(ShardRouter::normalizar).toList();
+        List<String> guardados = leerNodos();
+        if (guardados != null) {
+            if (!guardados.containsAll(nodos)) {
+                System.out.println("Sharding: " + ficheroNodos + " no incluye todos los nodos de soporte.sharding.nodos;"
+                        + " se usa el fichero (los nodos nuevos se añaden con POST /api/cluster/anillo/nodos)");
+            }
+            nodos = guardados;
+        }
+        this.anillo = new ConsistentHashRing(nodos, properties.getNodosVirtuales());
+        for (Recurso recurso : Recurso.values()) {
+            ultimosIds.put(recurso, new AtomicLong());
+        }
+        System.out.println("Sharding: enrutando entre " + anillo.nodos() + " con "
+                + properties.getNodosVirtuales() + " nodos virtuales por nodo");
+    }
+
+    public String nodoDe(long id) {
+        return anillo.nodo(id);
+    }
+
+    public List<String> nodos() {
+        return anillo.nodos();
+    }
+
+    ShardClient cliente() {
+        return cliente;
+    }
+
+    /**
+     * Si la entidad devuelta por un nodo le pertenece según el anillo actual
+     * (descarta las copias que quedan durante un traspaso o tras uno fallido)
+     */
+    boolean esDeSuNodo(String nodo, JsonNode entidad) {
+        JsonNode id = entidad.get("id");
+        return id == null || !id.canConvertToLong() || anillo.nodo(id.asLong()).equals(nodo);
+    }
+
+    public <T> T escribir(Escritura<T> escritura) throws IOException {
+        traspaso.readLock().lock();
+        try {
+            return escritura.ejecutar();
+        } finally {
+            traspaso.readLock().unlock();
+        }
+    }
+
+    /**
+     * ID para una entidad nueva; con clave de idempotencia, el mismo en cada reintento
+     */
+    public long nuevoId(Recurso recurso, String claveIdempotencia) {
+        cargarIds();
+        AtomicLong generador = ultimosIds.get(recurso);
+        if (claveIdempotencia == null) {
+            return generador.incrementAndGet();
+        }
+        synchronized (idsPorClave) {
+            return idsPorClave.computeIfAbsent(recurso.ruta() + " " + claveIdempotencia, k -> generador.incrementAndGet());
+        }
+    }
+
+    /**
+     * Entidades de la colección con esos IDs, pedidas a la vez a cada dueño
+     */
+    public Map<Long, JsonNode> leer(Recurso recurso, Collection<Long> ids) {
+        Map<String, List<Long>> porNodo = ids.stream().distinct().collect(Collectors.groupingBy(this::nodoDe));
+        List<CompletableFuture<ShardClient.Respuesta>> pendientes = new ArrayList<>();
+        porNodo.forEach((nodo, delNodo) -> pendientes.add(cliente.enviarAsync(nodo, "GET",
+                "/api/cluster/datos/" + recurso.ruta() + "?ids=" + delNodo.stream().map(String::valueOf)
+                        .collect(Collectors.joining(",")), null, JSON)));
+        Map<Long, JsonNode> encontradas = new HashMap<>();
+        for (CompletableFuture<ShardClient.Respuesta> pendiente : pendientes) {
+            ShardClient.Respuesta respuesta = comprobar(ShardClient.esperar(pendiente));
+            for (JsonNode entidad : json(respuesta)) {
+                encontradas.put(entidad.get("id").asLong(), entidad);
+            }
+        }
+        return encontradas;
+    }
+
+    /**
+     * Solicitudes de un cliente o técnico en todos los nodos, tal como están guardadas
+     * @param campo clienteId o tecnicoId
+     */
+    public List<JsonNode> solicitudesDe(String campo, long id) {
+        List<JsonNode> solicitudes = new ArrayList<>();
+        for (ShardClient.Respuesta respuesta : cliente.enviarATodos(nodos(), "GET",
+                "/api/cluster/datos/solicitudes?" + campo + "=" + id, JSON)) {
+            for (JsonNode solicitud : json(comprobar(respuesta))) {
+                if (esDeSuNodo(respuesta.nodo(), solicitud)) {
+                    solicitudes.add(solicitud);
+                }
+            }
+        }
+        return solicitudes;
+    }
+
+    /**
+     * Añade un nodo al anillo y le mueve los datos que pasan a ser suyos
+     */
+    public Rebalanceo anadirNodo(String url) {
+        String nodo = normalizar(url);
+        if (anillo.nodos().contains(nodo)) {
+            throw new BadRequestException("El nodo ya está en el anillo: " + nodo);
+        }
+        cargarIds();
+        // Un nodo con datos propios no debe hacer repetir sus IDs
+        registrarIds(info(nodo));
+
+        long inicio = System.currentTimeMillis();
+        traspaso.writeLock().lock();
+        try {
+            ConsistentHashRing actual = anillo;
+            ConsistentHashRing nuevo = actual.con(nodo);
+            int pagina = Math.max(1, properties.getTamanoPagina());
+            Map<String, Long> movidas = new LinkedHashMap<>();
+            Map<String, Map<Recurso, List<Long>>> copiadas = new LinkedHashMap<>();
+            long revisadas = 0;
+
+            // Clientes y técnicos antes que las solicitudes que los referencian
+            for (Recurso recurso : Recurso.values()) {
+                long movidasRecurso = 0;
+                for (String origen : actual.nodos()) {
+                    long despuesDe = 0;
+                    while (true) {
+                        JsonNode datos = json(comprobar(cliente.enviar(origen, "GET", "/api/cluster/datos/"
+                                + recurso.ruta() + "?despuesDe=" + despuesDe + "&limite=" + pagina, null, JSON)));
+                        ArrayNode mover = mapper.createArrayNode();
+                        List<Long> ids = new ArrayList<>();
+                        for (JsonNode entidad : datos) {
+                            long id = entidad.get("id").asLong();
+                            // Por ser consistente, un ID sólo puede quedarse donde está o ir al nodo nuevo
+                            if (nuevo.nodo(id).equals(nodo) && actual.nodo(id).equals(origen)) {
+                                mover.add(entidad);
+                                ids.add(id);
+                            }
+                            despuesDe = id;
+                        }
+                        revisadas += datos.size();
+                        if (!mover.isEmpty()) {
+                            comprobar(cliente.enviar(nodo, "POST", "/api/cluster/datos/" + recurso.ruta(),
+                                    bytes(mover), JSON));
+                            copiadas.computeIfAbsent(origen, k -> new EnumMap<>(Recurso.class))
+                                    .computeIfAbsent(recurso, k -> new ArrayList<>()).addAll(ids);
+                            movidasRecurso += ids.size();
+                        }
+                        if (datos.size() < pagina) {
+                            break;
+                        }
+                    }
+                }
+                movidas.put(recurso.ruta(), movidasRecurso);
+            }
+
+            // Si no se puede guardar el anillo no cambia: sin guardarlo, un reinicio volvería al
+            // anterior después de haber borrado los datos que movemos de sus dueños
+            guardarNodos(nuevo.nodos());
+            anillo = nuevo;
+
+            // Sólo ahora se borran del origen: hasta publicar el anillo las lecturas iban allí
+            copiadas.forEach((origen, porRecurso) -> porRecurso.forEach((recurso, ids) -> {
+                for (int i = 0; i < ids.size(); i += pagina) {
+                    List<Long> bloque = ids.subList(i, Math.min(ids.size(), i + pagina));
+                    comprobar(cliente.enviar(origen, "POST", "/api/cluster/datos/" + recurso.ruta() + "/descartar",
+                            bytes(bloque), JSON));
+                }
+            }));
+
+            long duracion = System.currentTimeMillis() - inicio;
+            System.out.println("Sharding: nodo " + nodo + " añadido en " + duracion + " ms; movidas " + movidas
+                    + " de " + revisadas);
+            return new Rebalanceo(nodo, movidas, revisadas, duracion);
+        } finally {
+            traspaso.writeLock().unlock();
+        }
+    }
+
+    public EstadoAnillo estado() {
+        ConsistentHashRing actual = anillo;
+        return new EstadoAnillo(actual.virtuales(), actual.reparto());
+    }
+
+    JsonNode json(ShardClient.Respuesta respuesta) {
+        try {
+            return mapper.readTree(respuesta.cuerpo());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    byte[] bytes(Object valor) {
+        try {
+            return mapper.writeValueAsBytes(valor);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Las operaciones internas no deberían fallar; si lo hacen el nodo no está en condiciones
+    static ShardClient.Respuesta comprobar(ShardClient.Respuesta respuesta) {
+        if (!respuesta.correcta()) {
+            throw new NodeUnavailableException("El nodo " + respuesta.nodo() + " respondió " + respuesta.estado()
+                    + " a una operación interna del clúster", null);
+        }
+        return respuesta;
+    }
+
+    // Una URL por línea, en el orden del anillo; null si no hay fichero
+    private List<String> leerNodos() {
+        if (ficheroNodos == null || !Files.exists(ficheroNodos)) {
+            return null;
+        }
+        try {
+            List<String> nodos = Files.readAllLines(ficheroNodos).stream()
+                    .filter(linea -> !linea.isBlank()).map(ShardRouter::normalizar).toList();
+            return nodos.isEmpty() ? null : nodos;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer " + ficheroNodos, e);
+        }
+    }
+
+    private void guardarNodos(List<String> nodos) {
+        if (ficheroNodos == null) {
+            return;
+        }
+        try {
+            Path directorio = ficheroNodos.toAbsolutePath().getParent();
+            Files.createDirectories(directorio);
+            Path temporal = directorio.resolve(ficheroNodos.getFileName() + ".tmp");
+            Files.write(temporal, nodos);
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+                canal.force(true);
+            }
+            Files.move(temporal, ficheroNodos, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el anillo en " + ficheroNodos, e);
+        }
+    }
+
+    private InfoNodo info(String nodo) {
+        return leerInfo(comprobar(cliente.enviar(nodo, "GET", "/api/cluster/nodo", null, JSON)));
+    }
+
+    private InfoNodo leerInfo(ShardClient.Respuesta respuesta) {
+        try {
+            return mapper.readValue(respuesta.cuerpo(), InfoNodo.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Los generadores parten del mayor ID de todos los nodos; se consulta una vez, en la primera alta
+    private void cargarIds() {
+        if (idsCargados) {
+            return;
+        }
+        synchronized (ultimosIds) {
+            if (!idsCargados) {
+                for (ShardClient.Respuesta respuesta : cliente.enviarATodos(nodos(), "GET", "/api/cluster/nodo", JSON)) {
+                    registrarIds(leerInfo(comprobar(respuesta)));
+                }
+                idsCargados = true;
+            }
+        }
+    }
+
+    private void registrarIds(InfoNodo info) {
+        info.ultimosIds().forEach((ruta, ultimo) -> Recurso.desdeRuta(ruta)
+                .ifPresent(recurso -> ultimosIds.get(recurso).accumulateAndGet(ultimo, Math::max)));
+    }
+
+    private static String normalizar(String url) {
+        String nodo = url.trim();
+        while (nodo.endsWith("/")) {
+            nodo = nodo.substring(0, nodo.length() - 1);
+        }
+        if (!nodo.startsWith("http://") && !nodo.startsWith("https://")) {
+            throw new BadRequestException("La URL del nodo debe empezar por http:// o https://: " + url);
+        }
+        return nodo;
+    }
+}
@@ -0,0 +1,659 @@
+package com.example.soporte_tecnico.sharding;
+
+import com.example.soporte_tecnico.exception.ErrorResponse;
+import com.example.soporte_tecnico.exception.NodeUnavailableException;
+import com.example.soporte_tecnico.search.FuzzyNameIndex;
+import com.example.soporte_tecnico.search.PrefixIndex;
+import com.example.soporte_tecnico.service.PoliticaBorrado;
+import com.example.soporte_tecnico.web.IdempotencyCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Enrutador de las APIs de clientes, técnicos y solicitudes hacia los nodos del clúster
+ *
+ * <ul>
+ *   <li>Peticiones sobre un ID: se reenvían a su dueño en el anillo.</li>
+ *   <li>Altas: el enrutador asigna el ID y la reenvía a su dueño.</li>
+ *   <li>Listados y búsquedas: se piden a todos los nodos a la vez y se mezclan sus
+ *       resultados, que cada nodo ya devuelve ordenados (por ID, por puntuación o por
+ *       parecido del nombre, que aquí se vuelve a calcular sobre los candidatos).</li>
+ *   <li>Las solicitudes referencian clientes y técnicos que pueden estar en otro nodo: el
+ *       enrutador comprueba que existen al escribir y los resuelve al leer.</li>
+ *   <li>Borrar un cliente o técnico aplica la política de borrado a sus solicitudes de
+ *       todos los nodos.</li>
+ *   <li>Con ?fields= los nodos devuelven también el id (y el de las referencias pedidas),
+ *       que hacen falta para mezclar y resolver; aquí se quitan los que no se pidieron.</li>
+ *   <li>Lo que no se reparte responde 501: los eventos en directo, los agregados, el plan
+ *       de los listados (explain) y el resto de rutas de /api (consultas compuestas, cambios,
+ *       SLA, archivo...), que son de cada nodo.</li>
+ * </ul>
+ * Sólo la administración del clúster (/api/cluster) y /api/tecnicos/health las atiende esta
+ * misma instancia, igual que las rutas fuera de /api.
+ */
+@Component
+@ConditionalOnProperty(name = "soporte.sharding.habilitado", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE + 6)
+public class ShardingFilter extends OncePerRequestFilter {
+
+    private static final Pattern RUTA = Pattern.compile("^/api/(clientes|tecnicos|solicitudes)(?:/([^/]+))?(/.*)?$");
+    // Rutas de /api que atiende esta instancia
+    private static final Pattern LOCALES = Pattern.compile("^/api/(?:cluster(?:/.*)?|tecnicos/health)$");
+    private static final Pattern ID = Pattern.compile("\\d{1,18}");
+    private static final List<String> CABECERAS = List.of("Content-Type", "Accept", "If-Match", "If-None-Match",
+            IdempotencyCache.HEADER);
+
+    // Como los repositorios: máximo de resultados de la búsqueda aproximada
+    private static final int MAX_SIMILARES = 50;
+
+    private final ShardRouter router;
+    private final ObjectMapper mapper;
+
+    @Value("${soporte.borrado.clientes:RECHAZAR}")
+    private PoliticaBorrado politicaClientes;
+
+    @Value("${soporte.borrado.tecnicos:REASIGNAR}")
+    private PoliticaBorrado politicaTecnicos;
+
+    public ShardingFilter(ShardRouter router, ObjectMapper mapper) {
+        this.router = router;
+        this.mapper = mapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String ruta = request.getRequestURI();
+        return !ruta.startsWith("/api/") || LOCALES.matcher(ruta).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        Matcher ruta = RUTA.matcher(request.getRequestURI());
+        if (!ruta.matches()) {
+            // Consultas compuestas, cambios, SLA...: sólo tienen sentido con los datos de un nodo
+            error(response, HttpStatus.NOT_IMPLEMENTED, "Esta ruta no pasa por el enrutador: "
+                    + "consúltela en cada nodo", request.getRequestURI());
+            return;
+        }
+        Recurso recurso = Recurso.desdeRuta(ruta.group(1)).orElseThrow();
+        String segmento = ruta.group(2);
+        String resto = ruta.group(3);
+        String metodo = request.getMethod();
+        String destino = request.getRequestURI()
+                + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        String fields = request.getParameter("fields");
+        List<String> anadidos = "GET".equals(metodo) ? camposAnadidos(recurso, fields) : List.of();
+        if (!anadidos.isEmpty()) {
+            destino = UriComponentsBuilder.fromUriString(destino)
+                    .replaceQueryParam("fields", fields + "," + String.join(",", anadidos)).build().toUriString();
+        }
+        Peticion peticion = new Peticion(recurso, metodo, destino, cabeceras(request), request, anadidos);
+
+        try {
+            boolean listado = segmento == null || "especialidad".equals(segmento);
+            if (listado && "GET".equals(metodo) && "true".equalsIgnoreCase(request.getParameter("explain"))) {
+                error(response, HttpStatus.NOT_IMPLEMENTED, "El plan de la consulta es de cada nodo: "
+                        + "pida explain a cada nodo", peticion.ruta());
+            } else if (segmento == null) {
+                switch (metodo) {
+                    case "GET" -> listar(peticion, response, Comparator.comparingLong(ShardingFilter::id));
+                    case "POST" -> router.escribir(() -> {
+                        crear(peticion, response);
+                        return null;
+                    });
+                    default -> chain.doFilter(request, response);
+                }
+            } else if (ID.matcher(segmento).matches()) {
+                long id = Long.parseLong(segmento);
+                if (resto == null && "DELETE".equals(metodo) && recurso != Recurso.SOLICITUDES) {
+                    router.escribir(() -> {
+                        borrar(peticion, id, response);
+                        return null;
+                    });
+                } else if ("/solicitudes".equals(resto) && "GET".equals(metodo) && recurso != Recurso.SOLICITUDES) {
+                    solicitudesDe(peticion, id, response);
+                } else if ("GET".equals(metodo) || "HEAD".equals(metodo)) {
+                    reenviar(peticion, router.nodoDe(id), null, response);
+                } else {
+                    router.escribir(() -> {
+                        byte[] cuerpo = request.getInputStream().readAllBytes();
+                        if (recurso == Recurso.SOLICITUDES && cuerpo.length > 0) {
+                            JsonNode solicitud = leerCuerpo(cuerpo, response, peticion);
+                            if (solicitud == null || !referenciasValidas(solicitud, response, peticion)) {
+                                return null;
+                            }
+                        }
+                        reenviar(peticion, router.nodoDe(id), cuerpo, response);
+                        return null;
+                    });
+                }
+            } else if ("stream".equals(segmento)) {
+                error(response, HttpStatus.NOT_IMPLEMENTED, "Los eventos en directo no pasan por el enrutador: "
+                        + "suscríbase a /api/solicitudes/stream de cada nodo", peticion.ruta());
+            } else if ("agregados".equals(segmento) || "rollups".equals(segmento)) {
+                // Agrupar por especialidad necesita técnicos de otros nodos: no se combina aquí
+                error(response, HttpStatus.NOT_IMPLEMENTED, "Los agregados no pasan por el enrutador: "
+                        + "consulte /api/solicitudes/" + segmento + " de cada nodo", peticion.ruta());
+            } else if ("GET".equals(metodo) && resto == null && "buscar".equals(segmento)) {
+                buscar(peticion, request, response);
+            } else if ("GET".equals(metodo) && resto == null && "autocompletar".equals(segmento)) {
+                autocompletar(peticion, request, response);
+            } else if ("GET".equals(metodo) && "especialidad".equals(segmento)) {
+                listar(peticion, response, Comparator.comparingLong(ShardingFilter::id));
+            } else {
+                error(response, HttpStatus.NOT_IMPLEMENTED, "Esta ruta no pasa por el enrutador: "
+                        + "consúltela en cada nodo", peticion.ruta());
+            }
+        } catch (NodeUnavailableException e) {
+            error(response, HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), peticion.ruta());
+        }
+    }
+
+    private void crear(Peticion peticion, HttpServletResponse response) throws IOException {
+        JsonNode entrada = leerCuerpo(peticion.request().getInputStream().readAllBytes(), response, peticion);
+        if (entrada == null) {
+            return;
+        }
+        if (peticion.recurso() == Recurso.SOLICITUDES && !referenciasValidas(entrada, response, peticion)) {
+            return;
+        }
+        long id = router.nuevoId(peticion.recurso(), peticion.cabeceras().get(IdempotencyCache.HEADER));
+        ((ObjectNode) entrada).put("id", id);
+        reenviar(peticion, router.nodoDe(id), router.bytes(entrada), response);
+    }
+
+    /**
+     * Borrado de un cliente o técnico: la política se aplica a sus solicitudes de todos los
+     * nodos y después se borra en su dueño (que ya no tiene solicitudes suyas que tratar)
+     * Si un nodo rechaza el borrado o la reasignación de una solicitud no se borra (503)
+     */
+    private void borrar(Peticion peticion, long id, HttpServletResponse response) throws IOException {
+        String dueno = router.nodoDe(id);
+        boolean esCliente = peticion.recurso() == Recurso.CLIENTES;
+        String entidad = esCliente ? "el cliente " + id : "el técnico " + id;
+        if (router.leer(peticion.recurso(), List.of(id)).isEmpty()) {
+            reenviar(peticion, dueno, null, response); // la respuesta de "no encontrado" la da el nodo
+            return;
+        }
+
+        PoliticaBorrado politica = esCliente ? politicaClientes : politicaTecnicos;
+        String parametro = peticion.request().getParameter("politica");
+        if (parametro != null) {
+            try {
+                politica = PoliticaBorrado.valueOf(parametro);
+            } catch (IllegalArgumentException e) {
+                error(response, HttpStatus.BAD_REQUEST, "Valor no válido para el parámetro 'politica': " + parametro,
+                        peticion.ruta());
+                return;
+            }
+        }
+        Long reasignarA = null;
+        String destino = peticion.request().getParameter("reasignarA");
+        if (destino != null) {
+            if (!ID.matcher(destino).matches()) {
+                error(response, HttpStatus.BAD_REQUEST, "Valor no válido para el parámetro 'reasignarA': " + destino,
+                        peticion.ruta());
+                return;
+            }
+            reasignarA = Long.parseLong(destino);
+        }
+
+        List<JsonNode> afectadas = router.solicitudesDe(esCliente ? "clienteId" : "tecnicoId", id);
+        if (!afectadas.isEmpty()) {
+            switch (politica) {
+                case RECHAZAR -> {
+                    error(response, HttpStatus.CONFLICT, "No se puede eliminar " + entidad + ": tiene "
+                            + afectadas.size() + " solicitudes", peticion.ruta());
+                    return;
+                }
+                case CASCADA -> {
+                    for (JsonNode solicitud : afectadas) {
+                        long solicitudId = id(solicitud);
+                        ShardRouter.comprobar(router.cliente().enviar(router.nodoDe(solicitudId), "DELETE",
+                                "/api/solicitudes/" + solicitudId, null, ShardRouter.JSON));
+                    }
+                }
+                case REASIGNAR -> {
+                    Long nuevo = esCliente ? reasignarA : (reasignarA != null ? reasignarA : tecnicoConMenosCarga(id));
+                    String mensaje = esCliente ? "Para reasignar las solicitudes indique otro cliente en reasignarA"
+                            : "No se puede reasignar al técnico con ID: " + nuevo;
+                    if (nuevo == null && !esCliente) {
+                        error(response, HttpStatus.CONFLICT, "No se puede eliminar " + entidad
+                                + ": no hay otro técnico al que reasignar sus solicitudes", peticion.ruta());
+                        return;
+                    }
+                    if (nuevo == null || nuevo == id || router.leer(peticion.recurso(), List.of(nuevo)).isEmpty()) {
+                        error(response, HttpStatus.BAD_REQUEST, nuevo == null || nuevo == id || !esCliente ? mensaje
+                                : "No existe el cliente con ID: " + nuevo, peticion.ruta());
+                        return;
+                    }
+                    for (JsonNode solicitud : afectadas) {
+                        ObjectNode cambiada = ((ObjectNode) solicitud).deepCopy();
+                        cambiada.put(esCliente ? "clienteId" : "tecnicoId", nuevo);
+                        cambiada.remove(List.of("cliente", "tecnico", "version"));
+                        long solicitudId = id(solicitud);
+                        ShardRouter.comprobar(router.cliente().enviar(router.nodoDe(solicitudId), "PUT",
+                                "/api/solicitudes/" + solicitudId, router.bytes(cambiada), ShardRouter.JSON));
+                    }
+                }
+            }
+        }
+        reenviar(peticion, dueno, null, response);
+    }
+
+    /**
+     * Técnico de la misma especialidad (o, si no hay, cualquiera) con menos solicitudes
+     * sumando las de todos los nodos; null si no queda otro técnico
+     */
+    private Long tecnicoConMenosCarga(long tecnicoId) {
+        List<JsonNode> tecnicos = mezclar(todos("/api/tecnicos"), Comparator.comparingLong(ShardingFilter::id),
+                Integer.MAX_VALUE);
+        String especialidad = null;
+        List<Long> otros = new ArrayList<>();
+        for (JsonNode tecnico : tecnicos) {
+            if (id(tecnico) == tecnicoId) {
+                especialidad = tecnico.path("especialidad").asText(null);
+            } else {
+                otros.add(id(tecnico));
+            }
+        }
+        if (otros.isEmpty()) {
+            return null;
+        }
+        Map<Long, Long> carga = new HashMap<>();
+        String lista = String.join(",", otros.stream().map(String::valueOf).toList());
+        for (ShardClient.Respuesta respuesta : router.cliente().enviarATodos(router.nodos(), "GET",
+                "/api/cluster/carga?tecnicos=" + lista, ShardRouter.JSON)) {
+            for (Map.Entry<String, JsonNode> e : router.json(respuesta).properties()) {
+                carga.merge(Long.parseLong(e.getKey()), e.getValue().asLong(), Long::sum);
+            }
+        }
+        Long elegido = null;
+        boolean mismaEspecialidad = false;
+        for (JsonNode tecnico : tecnicos) {
+            long candidato = id(tecnico);
+            if (candidato == tecnicoId) {
+                continue;
+            }
+            boolean misma = especialidad != null && especialidad.equalsIgnoreCase(tecnico.path("especialidad").asText());
+            if (elegido == null || (misma && !mismaEspecialidad)
+                    || (misma == mismaEspecialidad && carga.getOrDefault(candidato, 0L) < carga.getOrDefault(elegido, 0L))) {
+                elegido = candidato;
+                mismaEspecialidad = misma;
+            }
+        }
+        return elegido;
+    }
+
+    private void solicitudesDe(Peticion peticion, long id, HttpServletResponse response) throws IOException {
+        if (router.leer(peticion.recurso(), List.of(id)).isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        List<JsonNode> solicitudes = new ArrayList<>(router.solicitudesDe(
+                peticion.recurso() == Recurso.CLIENTES ? "clienteId" : "tecnicoId", id));
+        solicitudes.sort(Comparator.comparingLong(ShardingFilter::id));
+        resolverReferencias(solicitudes);
+        escribirJson(response, HttpStatus.OK.value(), mapper.valueToTree(solicitudes));
+    }
+
+    // Listados: cada nodo devuelve su parte ordenada y aquí se mezclan
+    private void listar(Peticion peticion, HttpServletResponse response, Comparator<JsonNode> orden) throws IOException {
+        List<ShardClient.Respuesta> respuestas = router.cliente().enviarATodos(router.nodos(), "GET",
+                peticion.ruta(), peticion.cabeceras());
+        ShardClient.Respuesta fallida = fallida(respuestas);
+        if (fallida != null) {
+            copiar(fallida, response);
+            return;
+        }
+        List<JsonNode> fusion = mezclar(partes(respuestas, null), orden, Integer.MAX_VALUE);
+        if (peticion.recurso() == Recurso.SOLICITUDES) {
+            resolverReferencias(fusion);
+        }
+        fusion.forEach(entidad -> quitarAnadidos(peticion, entidad));
+        escribirJson(response, HttpStatus.OK.value(), mapper.valueToTree(fusion));
+    }
+
+    private void buscar(Peticion peticion, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        List<ShardClient.Respuesta> respuestas = router.cliente().enviarATodos(router.nodos(), "GET",
+                peticion.ruta(), peticion.cabeceras());
+        ShardClient.Respuesta fallida = fallida(respuestas);
+        if (fallida != null) {
+            copiar(fallida, response);
+            return;
+        }
+        List<JsonNode> fusion;
+        if (peticion.recurso() == Recurso.SOLICITUDES) {
+            // Cada nodo puntúa con sus propias estadísticas: se mezclan por puntuación tal cual
+            Comparator<JsonNode> porPuntuacion = Comparator.comparingDouble((JsonNode r) -> r.path("puntuacion").asDouble())
+                    .reversed().thenComparingLong(r -> id(r.path("solicitud")));
+            fusion = mezclar(partes(respuestas, "solicitud"), porPuntuacion, entero(request, "limite", 20));
+            List<JsonNode> solicitudes = new ArrayList<>();
+            fusion.forEach(r -> solicitudes.add(r.path("solicitud")));
+            resolverReferencias(solicitudes);
+        } else if ("true".equalsIgnoreCase(request.getParameter("aproximado"))) {
+            // El parecido no viaja en la respuesta: se vuelve a ordenar con un índice de los candidatos
+            Map<Long, JsonNode> candidatos = porId(partes(respuestas, null));
+            FuzzyNameIndex indice = new FuzzyNameIndex();
+            candidatos.forEach((id, entidad) -> indice.indexar(id, entidad.path("nombre").asText()));
+            fusion = new ArrayList<>();
+            for (FuzzyNameIndex.Candidato candidato : indice.buscar(request.getParameter("nombre"),
+                    entero(request, "distancia", 2), MAX_SIMILARES)) {
+                fusion.add(candidatos.get(candidato.id()));
+            }
+        } else {
+            fusion = mezclar(partes(respuestas, null), Comparator.comparingLong(ShardingFilter::id), Integer.MAX_VALUE);
+        }
+        escribirJson(response, HttpStatus.OK.value(), mapper.valueToTree(fusion));
+    }
+
+    private void autocompletar(Peticion peticion, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        List<ShardClient.Respuesta> respuestas = router.cliente().enviarATodos(router.nodos(), "GET",
+                peticion.ruta(), peticion.cabeceras());
+        ShardClient.Respuesta fallida = fallida(respuestas);
+        if (fallida != null) {
+            copiar(fallida, response);
+            return;
+        }
+        // Mismo orden que en cada nodo: alfabético por la palabra que casa y después por ID
+        Map<Long, JsonNode> candidatos = porId(partes(respuestas, null));
+        PrefixIndex indice = new PrefixIndex();
+        candidatos.forEach((id, entidad) -> indice.indexar(id, entidad.path("nombre").asText()));
+        int limite = entero(request, "limite", 10);
+        List<PrefixIndex.Coincidencia> coincidencias = indice.buscarCoincidencias(request.getParameter("prefijo"),
+                candidatos.size());
+        coincidencias.sort(PrefixIndex.Coincidencia.ORDEN);
+        List<JsonNode> fusion = new ArrayList<>();
+        for (PrefixIndex.Coincidencia coincidencia : coincidencias.subList(0, Math.min(limite, coincidencias.size()))) {
+            fusion.add(candidatos.get(coincidencia.id()));
+        }
+        escribirJson(response, HttpStatus.OK.value(), mapper.valueToTree(fusion));
+    }
+
+    private void reenviar(Peticion peticion, String nodo, byte[] cuerpo, HttpServletResponse response)
+            throws IOException {
+        ShardClient.Respuesta respuesta = router.cliente().enviar(nodo, peticion.metodo(), peticion.ruta(), cuerpo,
+                peticion.cabeceras());
+        boolean retocar = peticion.recurso() == Recurso.SOLICITUDES || !peticion.anadidos().isEmpty();
+        if (retocar && respuesta.correcta() && esJson(respuesta) && respuesta.cuerpo().length > 0) {
+            JsonNode entidad = router.json(respuesta);
+            if (entidad.isObject()) {
+                if (peticion.recurso() == Recurso.SOLICITUDES) {
+                    resolverReferencias(List.of(entidad));
+                }
+                quitarAnadidos(peticion, entidad);
+                if (respuesta.etag() != null) {
+                    response.setHeader("ETag", respuesta.etag());
+                }
+                escribirJson(response, respuesta.estado(), entidad);
+                return;
+            }
+        }
+        copiar(respuesta, response);
+    }
+
+    /**
+     * Campos que se añaden al ?fields= pedido: el id, para mezclar y filtrar por dueño, y en las
+     * solicitudes el id del cliente o técnico pedido, para resolverlo
+     */
+    static List<String> camposAnadidos(Recurso recurso, String fields) {
+        if (fields == null || fields.isBlank()) {
+            return List.of();
+        }
+        Set<String> pedidos = new HashSet<>();
+        for (String campo : fields.split(",")) {
+            pedidos.add(campo.trim());
+        }
+        List<String> anadidos = new ArrayList<>();
+        if (!pedidos.contains("id")) {
+            anadidos.add("id");
+        }
+        if (recurso == Recurso.SOLICITUDES) {
+            if (pedidos.contains("cliente") && !pedidos.contains("clienteId")) {
+                anadidos.add("clienteId");
+            }
+            if (pedidos.contains("tecnico") && !pedidos.contains("tecnicoId")) {
+                anadidos.add("tecnicoId");
+            }
+        }
+        return anadidos;
+    }
+
+    private static void quitarAnadidos(Peticion peticion, JsonNode entidad) {
+        if (!peticion.anadidos().isEmpty() && entidad.isObject()) {
+            ((ObjectNode) entidad).remove(peticion.anadidos());
+        }
+    }
+
+    /**
+     * Comprueba en su nodo que el cliente y el técnico de la solicitud existen
+     */
+    private boolean referenciasValidas(JsonNode solicitud, HttpServletResponse response, Peticion peticion)
+            throws IOException {
+        Long clienteId = referencia(solicitud, "clienteId", "cliente");
+        if (clienteId != null && router.leer(Recurso.CLIENTES, List.of(clienteId)).isEmpty()) {
+            error(response, HttpStatus.BAD_REQUEST, "No existe el cliente con ID: " + clienteId, peticion.ruta());
+            return false;
+        }
+        Long tecnicoId = referencia(solicitud, "tecnicoId", "tecnico");
+        if (tecnicoId != null && router.leer(Recurso.TECNICOS, List.of(tecnicoId)).isEmpty()) {
+            error(response, HttpStatus.BAD_REQUEST, "No existe el técnico con ID: " + tecnicoId, peticion.ruta());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Rellena el cliente y el técnico de las solicitudes que su nodo no pudo resolver
+     * (los que están en otro nodo), con una petición por nodo dueño
+     */
+    private void resolverReferencias(List<JsonNode> solicitudes) {
+        resolverReferencias(solicitudes, "clienteId", "cliente", Recurso.CLIENTES);
+        resolverReferencias(solicitudes, "tecnicoId", "tecnico", Recurso.TECNICOS);
+    }
+
+    private void resolverReferencias(List<JsonNode> solicitudes, String campoId, String campo, Recurso recurso) {
+        List<Long> pendientes = new ArrayList<>();
+        for (JsonNode solicitud : solicitudes) {
+            if (pendiente(solicitud, campoId, campo)) {
+                pendientes.add(solicitud.get(campoId).asLong());
+            }
+        }
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        Map<Long, JsonNode> encontradas = router.leer(recurso, pendientes);
+        for (JsonNode solicitud : solicitudes) {
+            if (pendiente(solicitud, campoId, campo)) {
+                ((ObjectNode) solicitud).set(campo, encontradas.getOrDefault(solicitud.get(campoId).asLong(),
+                        NullNode.getInstance()));
+            }
+        }
+    }
+
+    // Sólo si el campo viene (no lo ha quitado una proyección con fields) y el nodo lo dejó vacío
+    private static boolean pendiente(JsonNode solicitud, String campoId, String campo) {
+        return solicitud.isObject() && solicitud.has(campo) && solicitud.get(campo).isNull()
+                && solicitud.path(campoId).canConvertToLong();
+    }
+
+    private static Long referencia(JsonNode solicitud, String campoId, String campo) {
+        if (solicitud.path(campoId).canConvertToLong()) {
+            return solicitud.get(campoId).asLong();
+        }
+        JsonNode embebido = solicitud.path(campo).path("id");
+        return embebido.canConvertToLong() ? embebido.asLong() : null;
+    }
+
+    /**
+     * Mezcla listas ya ordenadas (una por nodo) en una sola, sin reordenar todo
+     */
+    static List<JsonNode> mezclar(List<List<JsonNode>> partes, Comparator<JsonNode> orden, int limite) {
+        PriorityQueue<int[]> cabezas = new PriorityQueue<>((a, b) -> orden.compare(
+                partes.get(a[0]).get(a[1]), partes.get(b[0]).get(b[1])));
+        for (int i = 0; i < partes.size(); i++) {
+            if (!partes.get(i).isEmpty()) {
+                cabezas.add(new int[]{i, 0});
+            }
+        }
+        List<JsonNode> resultado = new ArrayList<>();
+        while (!cabezas.isEmpty() && resultado.size() < limite) {
+            int[] cabeza = cabezas.poll();
+            List<JsonNode> parte = partes.get(cabeza[0]);
+            resultado.add(parte.get(cabeza[1]));
+            if (cabeza[1] + 1 < parte.size()) {
+                cabezas.add(new int[]{cabeza[0], cabeza[1] + 1});
+            }
+        }
+        return resultado;
+    }
+
+    // Elementos de la respuesta de cada nodo que le pertenecen (la entidad puede ir anidada en un campo)
+    private List<List<JsonNode>> partes(List<ShardClient.Respuesta> respuestas, String campo) {
+        List<List<JsonNode>> partes = new ArrayList<>(respuestas.size());
+        for (ShardClient.Respuesta respuesta : respuestas) {
+            List<JsonNode> parte = new ArrayList<>();
+            for (JsonNode elemento : router.json(respuesta)) {
+                if (router.esDeSuNodo(respuesta.nodo(), campo != null ? elemento.path(campo) : elemento)) {
+                    parte.add(elemento);
+                }
+            }
+            partes.add(parte);
+        }
+        return partes;
+    }
+
+    private List<List<JsonNode>> todos(String ruta) {
+        List<ShardClient.Respuesta> respuestas = router.cliente().enviarATodos(router.nodos(), "GET", ruta,
+                ShardRouter.JSON);
+        if (fallida(respuestas) != null) {
+            ShardClient.Respuesta respuesta = fallida(respuestas);
+            throw new NodeUnavailableException("El nodo " + respuesta.nodo() + " respondió " + respuesta.estado()
+                    + " a " + ruta, null);
+        }
+        return partes(respuestas, null);
+    }
+
+    private static Map<Long, JsonNode> porId(List<List<JsonNode>> partes) {
+        Map<Long, JsonNode> entidades = new LinkedHashMap<>();
+        for (List<JsonNode> parte : partes) {
+            for (JsonNode entidad : parte) {
+                entidades.put(id(entidad), entidad);
+            }
+        }
+        return entidades;
+    }
+
+    private static long id(JsonNode entidad) {
+        return entidad.path("id").asLong();
+    }
+
+    private static ShardClient.Respuesta fallida(List<ShardClient.Respuesta> respuestas) {
+        for (ShardClient.Respuesta respuesta : respuestas) {
+            if (!respuesta.correcta()) {
+                return respuesta;
+            }
+        }
+        return null;
+    }
+
+    private static int entero(HttpServletRequest request, String nombre, int porDefecto) {
+        String valor = request.getParameter(nombre);
+        try {
+            return valor != null ? Integer.parseInt(valor) : porDefecto;
+        } catch (NumberFormatException e) {
+            return porDefecto; // si no es válido ya lo habrá rechazado cada nodo
+        }
+    }
+
+    private static boolean esJson(ShardClient.Respuesta respuesta) {
+        return respuesta.tipo() != null && respuesta.tipo().startsWith(MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    private JsonNode leerCuerpo(byte[] cuerpo, HttpServletResponse response, Peticion peticion) throws IOException {
+        try {
+            JsonNode json = mapper.readTree(cuerpo);
+            if (json != null && json.isObject()) {
+                return json;
+            }
+        } catch (JsonProcessingException e) {
+            // se responde abajo
+        }
+        error(response, HttpStatus.BAD_REQUEST, "El cuerpo debe ser un objeto JSON", peticion.ruta());
+        return null;
+    }
+
+    private static Map<String, String> cabeceras(HttpServletRequest request) {
+        Map<String, String> cabeceras = new HashMap<>();
+        for (String nombre : CABECERAS) {
+            String valor = request.getHeader(nombre);
+            if (valor != null) {
+                cabeceras.put(nombre, valor);
+            }
+        }
+        return cabeceras;
+    }
+
+    private static void copiar(ShardClient.Respuesta respuesta, HttpServletResponse response) throws IOException {
+        response.setStatus(respuesta.estado());
+        if (respuesta.tipo() != null) {
+            response.setContentType(respuesta.tipo());
+        }
+        if (respuesta.etag() != null) {
+            response.setHeader("ETag", respuesta.etag());
+        }
+        response.getOutputStream().write(respuesta.cuerpo());
+    }
+
+    private void escribirJson(HttpServletResponse response, int estado, JsonNode cuerpo) throws IOException {
+        response.setStatus(estado);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        mapper.writeValue(response.getOutputStream(), cuerpo);
+    }
+
+    private void error(HttpServletResponse response, HttpStatus estado, String mensaje, String ruta) throws IOException {
+        response.setStatus(estado.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        mapper.writeValue(response.getOutputStream(),
+                new ErrorResponse(estado.value(), estado.getReasonPhrase(), mensaje, ruta));
+    }
+
+    /**
+     * @param ruta Ruta y consulta que se envían a los nodos
+     * @param anadidos Campos añadidos a ?fields= que no se devuelven
+     */
+    private record Peticion(Recurso recurso, String metodo, String ruta, Map<String, String> cabeceras,
+                            HttpServletRequest request, List<String> anadidos) {
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.soporte_tecnico.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuración del reparto de datos entre nodos (prefijo soporte.sharding)
+ *
+ * Ejemplo con dos nodos y un enrutador en la misma máquina:
+ * <pre>
+ * # nodos (cada uno en su JVM y su server.port)
+ * soporte.sharding.nodo=true
+ * # enrutador
+ * soporte.sharding.habilitado=true
+ * soporte.sharding.nodos=http://localhost:8082,http://localhost:8083
+ * </pre>
+ * Todas las escrituras deben pasar por el enrutador, que es quien asigna los IDs.
+ */
+@Component
+@ConfigurationProperties(prefix = "soporte.sharding")
+public class ShardingProperties {
+
+    // Esta instancia enruta las peticiones hacia los nodos en lugar de atenderlas
+    private boolean habilitado;
+
+    // Esta instancia es un nodo: admite solicitudes que referencian clientes o técnicos de otro nodo
+    private boolean nodo;
+
+    // URL base de cada nodo
+    private List<String> nodos = new ArrayList<>();
+
+    // Posiciones en el anillo por nodo: más posiciones, reparto más uniforme
+    private int nodosVirtuales = 128;
+
+    // Tiempo máximo de espera de cada petición a un nodo
+    private long timeoutMs = 5000;
+
+    // Entidades por página al mover datos a un nodo nuevo
+    private int tamanoPagina = 1000;
+
+    // Fichero con los nodos del anillo, reescrito al añadir uno; si existe manda sobre nodos (vacío = no se guarda)
+    private String ficheroNodos = "";
+
+    public boolean isHabilitado() { return habilitado; }
+    public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+
+    public boolean isNodo() { return nodo; }
+    public void setNodo(boolean nodo) { this.nodo = nodo; }
+
+    public List<String> getNodos() { return nodos; }
+    public void setNodos(List<String> nodos) { this.nodos = nodos; }
+
+    public int getNodosVirtuales() { return nodosVirtuales; }
+    public void setNodosVirtuales(int nodosVirtuales) { this.nodosVirtuales = nodosVirtuales; }
+
+    public long getTimeoutMs() { return timeoutMs; }
+    public void setTimeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; }
+
+    public int getTamanoPagina() { return tamanoPagina; }
+    public void setTamanoPagina(int tamanoPagina) { this.tamanoPagina = tamanoPagina; }
+
+    public String getFicheroNodos() { return ficheroNodos; }
+    public void setFicheroNodos(String ficheroNodos) { this.ficheroNodos = ficheroNodos; }
+}
@@ -0,0 +1,258 @@
+package com.example.soporte_tecnico.sla;
+
+import com.example.soporte_tecnico.events.SolicitudEvent;
+import com.example.soporte_tecnico.events.SolicitudEventBus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Vigilancia de los plazos (SLA) de las solicitudes abiertas
+ *
+ * Una solicitud PENDIENTE debe recogerse antes del plazo de recogida y cualquier solicitud no
+ * resuelta debe resolverse antes del plazo de resolución, ambos contados desde su creación.
+ * Cada alta o cambio de estado programa o cancela sus plazos en una rueda de temporizadores
+ * (O(1), sin recorrer las solicitudes); un hilo avanza la rueda cada segundo y cada plazo
+ * vencido se convierte en un escalado, que se guarda (los últimos 10.000) y se publica como
+ * evento ESCALADA en el flujo SSE de solicitudes. Una solicitud resuelta pierde sus
+ * temporizadores pero conserva qué plazos vencieron, para no escalarlos otra vez si se reabre.
+ */
+@Component
+public class SlaEngine {
+
+    public enum Tipo { RECOGIDA, RESOLUCION }
+
+    /**
+     * Plazo vencido de una solicitud
+     */
+    public record Escalado(long secuencia, Long solicitudId, Tipo tipo, LocalDateTime vencimiento,
+                           LocalDateTime escaladaEn) {
+    }
+
+    /**
+     * @param solicitudesVigiladas Solicitudes con plazos pendientes o ya vencidos
+     */
+    public record EstadoSla(Duration recogida, Duration resolucion, int solicitudesVigiladas,
+                            int plazosPendientes, long escalados) {
+    }
+
+    private static final int MAX_ESCALADOS = 10_000;
+
+    private final SolicitudEventBus eventBus;
+    private final Duration recogida;
+    private final Duration resolucion;
+    private final Set<String> estadosResueltos;
+    private final Clock reloj;
+
+    // Todo el estado se protege con el mismo cerrojo; las operaciones son O(1)
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private final TimingWheel rueda;
+    private final TablaPlazos plazos = new TablaPlazos(1024);
+    private final ArrayDeque<Escalado> escalados = new ArrayDeque<>();
+    private long secuencia;
+
+    private ScheduledExecutorService avance;
+
+    public SlaEngine(SolicitudEventBus eventBus) {
+        this(eventBus, Duration.ofHours(4), Duration.ofHours(48), Set.of("RESUELTO", "CERRADO"),
+                Clock.systemDefaultZone());
+    }
+
+    @Autowired
+    public SlaEngine(SolicitudEventBus eventBus,
+                     @Value("${soporte.sla.recogida:4h}") Duration recogida,
+                     @Value("${soporte.sla.resolucion:48h}") Duration resolucion,
+                     @Value("${soporte.sla.estados-resueltos:RESUELTO,CERRADO}") Set<String> estadosResueltos) {
+        this(eventBus, recogida, resolucion, estadosResueltos, Clock.systemDefaultZone());
+    }
+
+    public SlaEngine(SolicitudEventBus eventBus, Duration recogida, Duration resolucion,
+                     Set<String> estadosResueltos, Clock reloj) {
+        this.eventBus = eventBus;
+        this.recogida = recogida;
+        this.resolucion = resolucion;
+        this.estadosResueltos = Set.copyOf(estadosResueltos);
+        this.reloj = reloj;
+        this.rueda = new TimingWheel(tick(LocalDateTime.now(reloj)), 1024);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        avance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sla-rueda");
+            t.setDaemon(true);
+            return t;
+        });
+        avance.scheduleWithFixedDelay(this::avanzar, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        if (avance != null) {
+            avance.shutdownNow();
+        }
+    }
+
+    /**
+     * Ajusta los plazos de una solicitud a su estado: tras un alta o un cambio de estado
+     * Un plazo que ya escaló no se vuelve a programar
+     */
+    public void vigilar(Long id, LocalDateTime fechaCreacion, String estado) {
+        LocalDateTime creada = fechaCreacion != null ? fechaCreacion : LocalDateTime.now(reloj);
+        boolean resuelta = estado != null && estadosResueltos.contains(estado);
+        cerrojo.lock();
+        try {
+            if (resuelta) {
+                int p = plazos.buscar(id);
+                if (p >= 0) {
+                    cancelar(p);
+                    // Sin nada vencido no hay que recordarla: si se reabre empieza de cero
+                    if (!plazos.algunaVencida(p)) {
+                        plazos.quitar(p);
+                    }
+                }
+                return;
+            }
+            int p = plazos.obtener(id);
+            if ("PENDIENTE".equals(estado)) {
+                if (plazos.recogida(p) == TablaPlazos.NINGUNO && !plazos.recogidaVencida(p)) {
+                    long vence = tick(creada.plus(recogida));
+                    plazos.programarRecogida(p, rueda.programar(vence, dato(id, Tipo.RECOGIDA)), vence);
+                }
+            } else if (plazos.recogida(p) != TablaPlazos.NINGUNO) {
+                rueda.cancelar(plazos.recogida(p));
+                plazos.quitarRecogida(p);
+            }
+            if (plazos.resolucion(p) == TablaPlazos.NINGUNO && !plazos.resolucionVencida(p)) {
+                long vence = tick(creada.plus(resolucion));
+                plazos.programarResolucion(p, rueda.programar(vence, dato(id, Tipo.RESOLUCION)), vence);
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Deja de vigilar una solicitud eliminada
+     */
+    public void olvidar(Long id) {
+        cerrojo.lock();
+        try {
+            int p = plazos.buscar(id);
+            if (p >= 0) {
+                cancelar(p);
+                plazos.quitar(p);
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Avanza la rueda hasta ahora y escala los plazos vencidos
+     * @return Número de escalados nuevos
+     */
+    public int avanzar() {
+        List<Escalado> nuevos = new ArrayList<>();
+        LocalDateTime ahora = LocalDateTime.now(reloj);
+        cerrojo.lock();
+        try {
+            rueda.avanzar(tick(ahora), valor -> {
+                long id = valor >>> 1;
+                Tipo tipo = Tipo.values()[(int) (valor & 1)];
+                int p = plazos.buscar(id);
+                // Un plazo ya pasado al programarlo vence en el siguiente tick: se informa el real
+                long vencimiento = rueda.actual();
+                if (p >= 0) {
+                    if (tipo == Tipo.RECOGIDA) {
+                        plazos.vencerRecogida(p);
+                        vencimiento = plazos.venceRecogida(p);
+                    } else {
+                        plazos.vencerResolucion(p);
+                        vencimiento = plazos.venceResolucion(p);
+                    }
+                }
+                Escalado escalado = new Escalado(++secuencia, id, tipo, fecha(vencimiento), ahora);
+                if (escalados.size() == MAX_ESCALADOS) {
+                    escalados.removeFirst();
+                }
+                escalados.addLast(escalado);
+                nuevos.add(escalado);
+            });
+        } finally {
+            cerrojo.unlock();
+        }
+        for (Escalado escalado : nuevos) {
+            System.out.println("SLA: la solicitud " + escalado.solicitudId() + " superó el plazo de "
+                    + escalado.tipo() + " (" + escalado.vencimiento() + ")");
+            eventBus.publicar(SolicitudEvent.ESCALADA, escalado.solicitudId(), escalado);
+        }
+        return nuevos.size();
+    }
+
+    /**
+     * Escalados con secuencia mayor que la indicada, en orden
+     */
+    public List<Escalado> escalados(long desde, int limite) {
+        cerrojo.lock();
+        try {
+            List<Escalado> resultado = new ArrayList<>();
+            for (Escalado escalado : escalados) {
+                if (escalado.secuencia() > desde) {
+                    resultado.add(escalado);
+                    if (resultado.size() == limite) {
+                        break;
+                    }
+                }
+            }
+            return resultado;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    public EstadoSla estado() {
+        cerrojo.lock();
+        try {
+            return new EstadoSla(recogida, resolucion, plazos.size(), rueda.size(), secuencia);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    private void cancelar(int p) {
+        rueda.cancelar(plazos.recogida(p));
+        rueda.cancelar(plazos.resolucion(p));
+        plazos.quitarRecogida(p);
+        plazos.quitarResolucion(p);
+    }
+
+    // El tipo de plazo va en el bit bajo del dato del temporizador
+    private static long dato(long id, Tipo tipo) {
+        return (id << 1) | tipo.ordinal();
+    }
+
+    // Ticks de un segundo; las fechas de las solicitudes son locales, como LocalDateTime.now()
+    private static long tick(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fecha(long tick) {
+        return LocalDateTime.ofEpochSecond(tick, 0, ZoneOffset.UTC);
+    }
+}
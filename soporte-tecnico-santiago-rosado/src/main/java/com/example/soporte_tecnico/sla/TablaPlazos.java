@@ -0,0 +1,187 @@
+package com.example.soporte_tecnico.sla;
+
+/**
+ * Plazos de las solicitudes vigiladas, indexados por id
+ *
+ * Tabla hash de direccionamiento abierto (sondeo lineal, borrado con desplazamiento hacia atrás)
+ * sobre arrays paralelos: id, identificadores de los temporizadores de recogida y resolución en
+ * la rueda, sus vencimientos y las marcas de plazo vencido. Unos 33 bytes por solicitud, sin
+ * objetos ni ids en caja. Las posiciones devueltas sólo valen hasta la siguiente alta o baja.
+ *
+ * No es segura entre hilos: quien la use debe sincronizar los accesos.
+ */
+final class TablaPlazos {
+
+    static final long NINGUNO = -1;
+
+    private static final byte OCUPADA = 1;
+    private static final byte RECOGIDA_VENCIDA = 2;
+    private static final byte RESOLUCION_VENCIDA = 4;
+
+    private long[] claves;
+    private long[] recogida;
+    private long[] resolucion;
+    private long[] venceRecogida;
+    private long[] venceResolucion;
+    private byte[] marcas;
+    private int mascara;
+    private int tamano;
+
+    TablaPlazos(int capacidad) {
+        reservar(Integer.highestOneBit(Math.max(16, capacidad) * 2 - 1) * 2);
+    }
+
+    int size() {
+        return tamano;
+    }
+
+    /**
+     * @return Posición del id, o -1 si no está
+     */
+    int buscar(long id) {
+        for (int i = posicion(id); marcas[i] != 0; i = (i + 1) & mascara) {
+            if (claves[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Posición del id, dándolo de alta sin temporizadores si no estaba
+     */
+    int obtener(long id) {
+        if ((tamano + 1) * 2 > claves.length) {
+            crecer();
+        }
+        int i = posicion(id);
+        for (; marcas[i] != 0; i = (i + 1) & mascara) {
+            if (claves[i] == id) {
+                return i;
+            }
+        }
+        claves[i] = id;
+        recogida[i] = NINGUNO;
+        resolucion[i] = NINGUNO;
+        marcas[i] = OCUPADA;
+        tamano++;
+        return i;
+    }
+
+    /**
+     * Da de baja la posición, recolocando las siguientes de su racha
+     */
+    void quitar(int i) {
+        marcas[i] = 0;
+        tamano--;
+        for (int j = (i + 1) & mascara; marcas[j] != 0; j = (j + 1) & mascara) {
+            int ideal = posicion(claves[j]);
+            // j pasa al hueco si su posición ideal no está en el tramo circular (i, j]
+            if (((j - ideal) & mascara) >= ((j - i) & mascara)) {
+                claves[i] = claves[j];
+                recogida[i] = recogida[j];
+                resolucion[i] = resolucion[j];
+                venceRecogida[i] = venceRecogida[j];
+                venceResolucion[i] = venceResolucion[j];
+                marcas[i] = marcas[j];
+                marcas[j] = 0;
+                i = j;
+            }
+        }
+    }
+
+    long recogida(int i) {
+        return recogida[i];
+    }
+
+    long resolucion(int i) {
+        return resolucion[i];
+    }
+
+    long venceRecogida(int i) {
+        return venceRecogida[i];
+    }
+
+    long venceResolucion(int i) {
+        return venceResolucion[i];
+    }
+
+    void programarRecogida(int i, long temporizador, long vence) {
+        recogida[i] = temporizador;
+        venceRecogida[i] = vence;
+    }
+
+    void programarResolucion(int i, long temporizador, long vence) {
+        resolucion[i] = temporizador;
+        venceResolucion[i] = vence;
+    }
+
+    void quitarRecogida(int i) {
+        recogida[i] = NINGUNO;
+    }
+
+    void quitarResolucion(int i) {
+        resolucion[i] = NINGUNO;
+    }
+
+    boolean recogidaVencida(int i) {
+        return (marcas[i] & RECOGIDA_VENCIDA) != 0;
+    }
+
+    boolean resolucionVencida(int i) {
+        return (marcas[i] & RESOLUCION_VENCIDA) != 0;
+    }
+
+    boolean algunaVencida(int i) {
+        return (marcas[i] & (RECOGIDA_VENCIDA | RESOLUCION_VENCIDA)) != 0;
+    }
+
+    void vencerRecogida(int i) {
+        recogida[i] = NINGUNO;
+        marcas[i] |= RECOGIDA_VENCIDA;
+    }
+
+    void vencerResolucion(int i) {
+        resolucion[i] = NINGUNO;
+        marcas[i] |= RESOLUCION_VENCIDA;
+    }
+
+    private int posicion(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    private void crecer() {
+        long[] c = claves;
+        long[] rec = recogida;
+        long[] res = resolucion;
+        long[] vRec = venceRecogida;
+        long[] vRes = venceResolucion;
+        byte[] m = marcas;
+        reservar(c.length * 2);
+        for (int j = 0; j < c.length; j++) {
+            if (m[j] != 0) {
+                int i = posicion(c[j]);
+                while (marcas[i] != 0) {
+                    i = (i + 1) & mascara;
+                }
+                claves[i] = c[j];
+                recogida[i] = rec[j];
+                resolucion[i] = res[j];
+                venceRecogida[i] = vRec[j];
+                venceResolucion[i] = vRes[j];
+                marcas[i] = m[j];
+            }
+        }
+    }
+
+    private void reservar(int n) {
+        claves = new long[n];
+        recogida = new long[n];
+        resolucion = new long[n];
+        venceRecogida = new long[n];
+        venceResolucion = new long[n];
+        marcas = new byte[n];
+        mascara = n - 1;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.soporte_tecnico.sla;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Rueda de temporizadores jerárquica
+ *
+ * Cinco niveles de 64 casillas: el nivel 0 tiene una casilla por tick, el 1 una por cada 64
+ * ticks, el 2 por cada 64² y así hasta 64⁵ ticks de horizonte (más de 30 años con ticks de un
+ * segundo). Cada temporizador está en la casilla del nivel más bajo que alcanza su vencimiento;
+ * cuando el nivel 0 da una vuelta se vacía la casilla actual del nivel 1 repartiendo sus
+ * temporizadores en el nivel 0, y lo mismo con los niveles superiores. Programar y cancelar son
+ * O(1) y avanzar un tick sólo toca la casilla que vence (y, una vez por vuelta, la que se reparte).
+ *
+ * Los temporizadores no son objetos: viven en arrays paralelos (vencimiento, dato y enlaces de
+ * una lista doblemente enlazada circular por casilla), unos 24 bytes cada uno, y sus posiciones
+ * libres se reutilizan. Las primeras posiciones son los centinelas de las casillas.
+ *
+ * No es segura entre hilos: quien la use debe sincronizar los accesos.
+ */
+public final class TimingWheel {
+
+    private static final int BITS = 6;
+    private static final int CASILLAS = 1 << BITS;
+    private static final int MASCARA = CASILLAS - 1;
+    private static final int NIVELES = 5;
+    private static final long HORIZONTE = (1L << (BITS * NIVELES)) - 1;
+    private static final int CENTINELAS = NIVELES * CASILLAS;
+    private static final int LIBRE = -1;
+
+    // Vencimiento relativo a base (cabe en un int: el horizonte es menor que 2^31)
+    private int[] vence;
+    private long[] dato;
+    private int[] siguiente;
+    private int[] anterior;
+    // Se incrementa al liberar la posición: invalida los identificadores antiguos
+    private int[] generacion;
+
+    private final long base;
+    private long actual;
+    private int usadas = CENTINELAS;
+    private int libres = LIBRE;
+    private int tamano;
+
+    /**
+     * @param tickInicial Tick actual
+     * @param capacidad Temporizadores previstos (los arrays crecen si hacen falta más)
+     */
+    public TimingWheel(long tickInicial, int capacidad) {
+        int n = CENTINELAS + Math.max(16, capacidad);
+        vence = new int[n];
+        dato = new long[n];
+        siguiente = new int[n];
+        anterior = new int[n];
+        generacion = new int[n];
+        for (int i = 0; i < CENTINELAS; i++) {
+            siguiente[i] = i;
+            anterior[i] = i;
+        }
+        this.base = tickInicial;
+        this.actual = tickInicial;
+    }
+
+    public long actual() {
+        return actual;
+    }
+
+    /**
+     * Temporizadores pendientes
+     */
+    public int size() {
+        return tamano;
+    }
+
+    /**
+     * Programa un temporizador
+     * @param tick Tick de vencimiento (si ya pasó, vence en el próximo tick)
+     * @param valor Dato que se entrega al vencer
+     * @return Identificador para cancelarlo
+     */
+    public long programar(long tick, long valor) {
+        long vencimiento = Math.min(Math.max(tick, actual + 1), actual + HORIZONTE);
+        int i = reservar();
+        vence[i] = (int) (vencimiento - base);
+        dato[i] = valor;
+        insertar(i, vencimiento);
+        tamano++;
+        return ((long) generacion[i] << 32) | i;
+    }
+
+    /**
+     * Cancela un temporizador pendiente en O(1)
+     * @return false si ya había vencido o se había cancelado
+     */
+    public boolean cancelar(long id) {
+        int i = (int) id;
+        if (i < CENTINELAS || i >= usadas || generacion[i] != (int) (id >>> 32) || anterior[i] == LIBRE) {
+            return false;
+        }
+        desenlazar(i);
+        liberar(i);
+        tamano--;
+        return true;
+    }
+
+    /**
+     * Avanza hasta el tick indicado entregando los datos de los temporizadores que vencen,
+     * en orden de vencimiento
+     * @return Número de temporizadores vencidos
+     */
+    public int avanzar(long hasta, LongConsumer vencido) {
+        int vencidos = 0;
+        while (actual < hasta) {
+            if (tamano == 0) {
+                actual = hasta; // sin temporizadores no hay casillas que recorrer
+                break;
+            }
+            actual++;
+            for (int nivel = NIVELES - 1; nivel >= 1; nivel--) {
+                if ((actual & ((1L << (BITS * nivel)) - 1)) == 0) {
+                    repartir(nivel * CASILLAS + (int) ((actual >>> (BITS * nivel)) & MASCARA));
+                }
+            }
+            int casilla = (int) (actual & MASCARA);
+            for (int i = siguiente[casilla]; i != casilla; ) {
+                int sig = siguiente[i];
+                long valor = dato[i];
+                desenlazar(i);
+                liberar(i);
+                tamano--;
+                vencidos++;
+                vencido.accept(valor);
+                i = sig;
+            }
+        }
+        return vencidos;
+    }
+
+    // Vuelve a colocar los temporizadores de una casilla de un nivel superior, ya más cerca
+    private void repartir(int centinela) {
+        int i = siguiente[centinela];
+        siguiente[centinela] = centinela;
+        anterior[centinela] = centinela;
+        while (i != centinela) {
+            int sig = siguiente[i];
+            insertar(i, base + vence[i]);
+            i = sig;
+        }
+    }
+
+    private void insertar(int i, long vencimiento) {
+        long delta = vencimiento - actual;
+        int nivel = Math.min(NIVELES - 1, (63 - Long.numberOfLeadingZeros(delta | 1)) / BITS);
+        int centinela = nivel * CASILLAS + (int) ((vencimiento >>> (BITS * nivel)) & MASCARA);
+        int ultimo = anterior[centinela];
+        siguiente[ultimo] = i;
+        anterior[i] = ultimo;
+        siguiente[i] = centinela;
+        anterior[centinela] = i;
+    }
+
+    private void desenlazar(int i) {
+        siguiente[anterior[i]] = siguiente[i];
+        anterior[siguiente[i]] = anterior[i];
+    }
+
+    private int reservar() {
+        if (libres != LIBRE) {
+            int i = libres;
+            libres = siguiente[i];
+            return i;
+        }
+        if (usadas == vence.length) {
+            int n = vence.length + (vence.length >> 1);
+            vence = Arrays.copyOf(vence, n);
+            dato = Arrays.copyOf(dato, n);
+            siguiente = Arrays.copyOf(siguiente, n);
+            anterior = Arrays.copyOf(anterior, n);
+            generacion = Arrays.copyOf(generacion, n);
+        }
+        return usadas++;
+    }
+
+    private void liberar(int i) {
+        anterior[i] = LIBRE;
+        generacion[i]++;
+        siguiente[i] = libres;
+        libres = i;
+    }
+}
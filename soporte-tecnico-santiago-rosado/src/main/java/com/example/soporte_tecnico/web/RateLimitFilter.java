@@ -0,0 +1,132 @@
+package com.example.soporte_tecnico.web;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtro de admisión: limita las peticiones a /api/** por cliente y endpoint
+ *
+ * Se ejecuta antes que el DispatcherServlet, así que una petición rechazada
+ * responde 429 sin llegar a controladores ni servicios.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    private final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter();
+    private final List<Regla> reglas = new ArrayList<>();
+    private final TokenBucketRateLimiter.Presupuesto presupuestoPorDefecto;
+    private final ScheduledExecutorService barrido;
+
+    public RateLimitFilter(RateLimitProperties properties) {
+        this.properties = properties;
+
+        // Patrones y presupuestos se compilan una sola vez
+        int i = 0;
+        for (RateLimitProperties.Limite limite : properties.getLimites()) {
+            String nombre = "L" + (i++);
+            reglas.add(new Regla(
+                    PathPatternParser.defaultInstance.parse(limite.getRuta()),
+                    limite.getMetodo() == null || limite.getMetodo().isBlank() ? null : limite.getMetodo().toUpperCase(),
+                    new TokenBucketRateLimiter.Presupuesto(nombre, limite.getCapacidad(), limite.getPorSegundo())));
+        }
+        RateLimitProperties.Limite porDefecto = properties.getPorDefecto();
+        this.presupuestoPorDefecto = porDefecto == null ? null
+                : new TokenBucketRateLimiter.Presupuesto("D", porDefecto.getCapacidad(), porDefecto.getPorSegundo());
+
+        this.barrido = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rate-limit-barrido");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1, properties.getBarridoSegundos());
+        barrido.scheduleWithFixedDelay(limiter::barrer, periodo, periodo, TimeUnit.SECONDS);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isHabilitado() || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        TokenBucketRateLimiter.Presupuesto presupuesto = presupuestoPara(request);
+        if (presupuesto == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String clave = presupuesto.getNombre() + '|' + cliente(request);
+        long esperaNanos = limiter.intentar(clave, presupuesto);
+        if (esperaNanos == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        rechazar(request, response, esperaNanos);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        barrido.shutdownNow();
+    }
+
+    private TokenBucketRateLimiter.Presupuesto presupuestoPara(HttpServletRequest request) {
+        if (!reglas.isEmpty()) {
+            PathContainer ruta = PathContainer.parsePath(request.getRequestURI());
+            String metodo = request.getMethod();
+            for (Regla regla : reglas) {
+                if ((regla.metodo == null || regla.metodo.equals(metodo)) && regla.patron.matches(ruta)) {
+                    return regla.presupuesto;
+                }
+            }
+        }
+        return presupuestoPorDefecto;
+    }
+
+    // Cliente de la API: cabecera configurada o, en su defecto, la IP remota
+    private String cliente(HttpServletRequest request) {
+        String clave = request.getHeader(properties.getCabeceraCliente());
+        if (clave != null && !clave.isBlank()) {
+            return "k:" + clave;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void rechazar(HttpServletRequest request, HttpServletResponse response, long esperaNanos) throws IOException {
+        long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(esperaNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(segundos));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        String cuerpo = "{\"timestamp\":\"" + LocalDateTime.now() + "\",\"status\":429," +
+                "\"error\":\"Too Many Requests\",\"message\":\"Límite de peticiones superado\"," +
+                "\"path\":\"" + request.getRequestURI().replace("\"", "") + "\"}";
+        response.getOutputStream().write(cuerpo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Regla(PathPattern patron, String metodo, TokenBucketRateLimiter.Presupuesto presupuesto) {
+    }
+}
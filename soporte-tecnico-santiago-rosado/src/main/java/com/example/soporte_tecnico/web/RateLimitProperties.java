@@ -0,0 +1,83 @@
+package com.example.soporte_tecnico.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuración de la limitación de peticiones por cliente (prefijo soporte.rate-limit)
+ *
+ * Ejemplo en application.properties:
+ * <pre>
+ * soporte.rate-limit.limites[0].ruta=/api/solicitudes/**
+ * soporte.rate-limit.limites[0].metodo=POST
+ * soporte.rate-limit.limites[0].capacidad=20
+ * soporte.rate-limit.limites[0].por-segundo=5
+ * </pre>
+ * Se aplica el primer límite cuya ruta y método coincidan; si ninguno coincide se usa
+ * el límite por defecto (si está configurado) o la petición no se limita.
+ * Desactivada salvo con soporte.rate-limit.habilitado=true.
+ */
+@Component
+@ConfigurationProperties(prefix = "soporte.rate-limit")
+public class RateLimitProperties {
+
+    private boolean habilitado = false;
+
+    // Cabecera que identifica al cliente de la API; si falta se usa la IP
+    private String cabeceraCliente = "X-Api-Key";
+
+    // Segundos entre barridos de cubetas inactivas
+    private long barridoSegundos = 60;
+
+    private Limite porDefecto;
+
+    private List<Limite> limites = new ArrayList<>();
+
+    public boolean isHabilitado() { return habilitado; }
+    public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+
+    public String getCabeceraCliente() { return cabeceraCliente; }
+    public void setCabeceraCliente(String cabeceraCliente) { this.cabeceraCliente = cabeceraCliente; }
+
+    public long getBarridoSegundos() { return barridoSegundos; }
+    public void setBarridoSegundos(long barridoSegundos) { this.barridoSegundos = barridoSegundos; }
+
+    public Limite getPorDefecto() { return porDefecto; }
+    public void setPorDefecto(Limite porDefecto) { this.porDefecto = porDefecto; }
+
+    public List<Limite> getLimites() { return limites; }
+    public void setLimites(List<Limite> limites) { this.limites = limites; }
+
+    /**
+     * Presupuesto de un endpoint: ráfaga máxima y ritmo sostenido
+     */
+    public static class Limite {
+
+        // Patrón de ruta (sintaxis PathPattern de Spring, p. ej. /api/solicitudes/**)
+        private String ruta = "/**";
+
+        // Método HTTP al que aplica (vacío = todos)
+        private String metodo;
+
+        // Peticiones que se pueden hacer de golpe
+        private int capacidad = 100;
+
+        // Peticiones por segundo que se recuperan
+        private double porSegundo = 50;
+
+        public String getRuta() { return ruta; }
+        public void setRuta(String ruta) { this.ruta = ruta; }
+
+        public String getMetodo() { return metodo; }
+        public void setMetodo(String metodo) { this.metodo = metodo; }
+
+        public int getCapacidad() { return capacidad; }
+        public void setCapacidad(int capacidad) { this.capacidad = capacidad; }
+
+        public double getPorSegundo() { return porSegundo; }
+        public void setPorSegundo(double porSegundo) { this.porSegundo = porSegundo; }
+    }
+}
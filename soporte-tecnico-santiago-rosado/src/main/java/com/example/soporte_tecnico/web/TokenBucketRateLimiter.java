@@ -0,0 +1,110 @@
+package com.example.soporte_tecnico.web;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limitador token-bucket sin bloqueos, con una cubeta por clave
+ *
+ * Cada cubeta se representa con un único AtomicLong: el "instante teórico de llegada"
+ * (algoritmo GCRA, equivalente a un token bucket). Admitir una petición es una lectura
+ * y un compare-and-set; no hay hilos de recarga ni objetos por petición.
+ *
+ * Una cubeta cuyo instante teórico ya pasó está llena, y eliminarla es equivalente a
+ * conservarla. Por eso el barrido de cubetas inactivas no pierde información y la
+ * memoria queda acotada por los clientes activos en la última ventana.
+ */
+public class TokenBucketRateLimiter {
+
+    private final ConcurrentHashMap<String, AtomicLong> cubetas = new ConcurrentHashMap<>();
+    private final LongSupplier reloj;
+
+    public TokenBucketRateLimiter() {
+        this(System::nanoTime);
+    }
+
+    // Reloj inyectable para pruebas
+    TokenBucketRateLimiter(LongSupplier reloj) {
+        this.reloj = reloj;
+    }
+
+    /**
+     * Intenta consumir un token de la cubeta indicada
+     * @param clave Identificador de la cubeta (cliente + endpoint)
+     * @param presupuesto Capacidad y ritmo de recarga
+     * @return 0 si la petición se admite, o los nanosegundos a esperar si se rechaza
+     */
+    public long intentar(String clave, Presupuesto presupuesto) {
+        long ahora = reloj.getAsLong();
+
+        AtomicLong cubeta = cubetas.get(clave);
+        if (cubeta == null) {
+            // Cubeta nueva = llena: se consume el primer token directamente
+            AtomicLong nueva = new AtomicLong(ahora + presupuesto.intervaloNanos);
+            AtomicLong previa = cubetas.putIfAbsent(clave, nueva);
+            if (previa == null) {
+                return 0;
+            }
+            cubeta = previa;
+        }
+
+        while (true) {
+            long llegadaTeorica = cubeta.get();
+            long base = Math.max(llegadaTeorica, ahora);
+            long exceso = base - ahora - presupuesto.toleranciaNanos;
+            if (exceso > 0) {
+                return exceso;
+            }
+            if (cubeta.compareAndSet(llegadaTeorica, base + presupuesto.intervaloNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Elimina las cubetas llenas (clientes inactivos); no cambia ninguna decisión futura
+     * @return Número de cubetas eliminadas
+     */
+    public int barrer() {
+        long ahora = reloj.getAsLong();
+        int antes = cubetas.size();
+        cubetas.values().removeIf(cubeta -> cubeta.get() <= ahora);
+        return antes - cubetas.size();
+    }
+
+    /**
+     * Número de cubetas en memoria
+     */
+    public int size() {
+        return cubetas.size();
+    }
+
+    /**
+     * Presupuesto precalculado de un endpoint
+     */
+    public static final class Presupuesto {
+        private final String nombre;
+        private final long intervaloNanos;
+        private final long toleranciaNanos;
+
+        /**
+         * @param nombre Nombre del presupuesto (se usa para separar las cubetas por endpoint)
+         * @param capacidad Peticiones admitidas en ráfaga
+         * @param porSegundo Ritmo sostenido de peticiones por segundo
+         */
+        public Presupuesto(String nombre, int capacidad, double porSegundo) {
+            if (capacidad < 1 || porSegundo <= 0) {
+                throw new IllegalArgumentException("Límite no válido para " + nombre
+                        + ": la capacidad y el ritmo deben ser positivos");
+            }
+            this.nombre = nombre;
+            this.intervaloNanos = Math.max(1, (long) (1_000_000_000L / porSegundo));
+            this.toleranciaNanos = intervaloNanos * (capacidad - 1);
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+    }
+}
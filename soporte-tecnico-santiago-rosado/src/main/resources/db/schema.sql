@@ -0,0 +1,39 @@
+-- Esquema del backend SQL (perfil sql). Los IDs los reparte la aplicación, como en memoria.
+-- Sin claves foráneas: las políticas de borrado las aplica el servicio y, como nodo de un
+-- clúster repartido, una solicitud puede referenciar clientes y técnicos de otro nodo.
+
+CREATE TABLE IF NOT EXISTS cliente (
+    id BIGINT PRIMARY KEY,
+    nombre VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    telefono VARCHAR(50),
+    version BIGINT NOT NULL,
+    -- búsqueda exacta por email sin distinguir mayúsculas
+    email_normalizado VARCHAR(255) GENERATED ALWAYS AS (LOWER(email))
+);
+CREATE INDEX IF NOT EXISTS idx_cliente_email ON cliente (email_normalizado);
+
+CREATE TABLE IF NOT EXISTS tecnico (
+    id BIGINT PRIMARY KEY,
+    nombre VARCHAR(255) NOT NULL,
+    especialidad VARCHAR(255) NOT NULL,
+    version BIGINT NOT NULL,
+    especialidad_normalizada VARCHAR(255) GENERATED ALWAYS AS (LOWER(especialidad))
+);
+CREATE INDEX IF NOT EXISTS idx_tecnico_especialidad ON tecnico (especialidad_normalizada);
+
+CREATE TABLE IF NOT EXISTS solicitud (
+    id BIGINT PRIMARY KEY,
+    descripcion VARCHAR,
+    fecha_creacion TIMESTAMP,
+    estado VARCHAR(30),
+    cliente_id BIGINT,
+    tecnico_id BIGINT,
+    version BIGINT NOT NULL
+);
+-- Índices inversos: solicitudes de un cliente o de un técnico, ya ordenadas por ID
+CREATE INDEX IF NOT EXISTS idx_solicitud_cliente ON solicitud (cliente_id, id);
+CREATE INDEX IF NOT EXISTS idx_solicitud_tecnico ON solicitud (tecnico_id, id);
+-- Filtros por estado y por rango de fechas de creación (GET /api/solicitudes?estado=&desde=&hasta=)
+CREATE INDEX IF NOT EXISTS idx_solicitud_estado ON solicitud (estado, id);
+CREATE INDEX IF NOT EXISTS idx_solicitud_fecha ON solicitud (fecha_creacion);
@@ -0,0 +1,86 @@
+package com.example.soporte_tecnico.analytics;
+
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.repository.PartitionedStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgregadorTest {
+
+	private static final String[] ESTADOS = {"PENDIENTE", "EN_PROCESO", "RESUELTO"};
+	private static final LocalDateTime AHORA = LocalDateTime.of(2026, 10, 18, 12, 0);
+
+	private static PartitionedStore<Solicitud, PartitionedStore.Indices<Solicitud>> almacen(int n) {
+		PartitionedStore<Solicitud, PartitionedStore.Indices<Solicitud>> almacen =
+				new PartitionedStore<>(8, Solicitud::getId, PartitionedStore::sinIndices);
+		for (long id = 1; id <= n; id++) {
+			Solicitud solicitud = new Solicitud(id, "s" + id, AHORA.minusHours(id % 48), ESTADOS[(int) (id % 3)], null, null);
+			solicitud.setClienteId(id % 5);
+			solicitud.setTecnicoId(id % 4);
+			solicitud.setVersion(1L);
+			almacen.putIfAbsent(solicitud);
+		}
+		return almacen;
+	}
+
+	private static List<FilaAgregada> agregar(PartitionedStore<Solicitud, ?> almacen, List<Dimension> dimensiones,
+											  Metrica metrica, Set<String> estados) {
+		ConsultaAgregada consulta = new ConsultaAgregada(dimensiones, metrica, Medida.EDAD, estados);
+		Map<Long, String> especialidades = Map.of(0L, "Redes", 1L, "Software", 2L, "Redes", 3L, "Hardware");
+		return almacen.reducir(new Agregador(consulta, especialidades, AHORA).collector());
+	}
+
+	@Test
+	void cuentaPorEstadoYTecnicoCombinandoLosParcialesDeCadaHilo() {
+		// Por encima del umbral de recorrido en paralelo
+		List<FilaAgregada> filas = agregar(almacen(60_000), List.of(Dimension.ESTADO, Dimension.TECNICO),
+				Metrica.COUNT, Set.of());
+
+		assertEquals(12, filas.size());
+		assertEquals(Map.of("estado", "EN_PROCESO", "tecnico", 0L), filas.get(0).grupo());
+		assertEquals(List.of("estado", "tecnico"), List.copyOf(filas.get(0).grupo().keySet()));
+		long total = 0;
+		for (FilaAgregada fila : filas) {
+			assertEquals(5_000, fila.solicitudes());
+			assertEquals(5_000.0, fila.valor());
+			total += fila.solicitudes();
+		}
+		assertEquals(60_000, total);
+	}
+
+	@Test
+	void edadMediaDeLasAbiertasPorEspecialidad() {
+		List<FilaAgregada> filas = agregar(almacen(240), List.of(Dimension.ESPECIALIDAD), Metrica.AVG,
+				Set.of("PENDIENTE", "EN_PROCESO"));
+
+		assertEquals(List.of("Hardware", "Redes", "Software"),
+				filas.stream().map(f -> f.grupo().get("especialidad")).toList());
+		// Referencia calculada secuencialmente
+		double suma = 0;
+		int n = 0;
+		for (long id = 1; id <= 240; id++) {
+			if (id % 3 != 2 && (id % 4 == 0 || id % 4 == 2)) {
+				suma += id % 48;
+				n++;
+			}
+		}
+		assertEquals(n, filas.get(1).solicitudes());
+		assertEquals(suma / n, filas.get(1).valor(), 1e-9);
+	}
+
+	@Test
+	void sinDimensionesHayUnUnicoGrupo() {
+		List<FilaAgregada> filas = agregar(almacen(100), List.of(), Metrica.MAX, Set.of());
+
+		assertEquals(1, filas.size());
+		assertEquals(100, filas.get(0).solicitudes());
+		assertEquals(47.0, filas.get(0).valor());
+		assertTrue(agregar(almacen(0), List.of(), Metrica.COUNT, Set.of()).isEmpty());
+	}
+}
@@ -0,0 +1,124 @@
+package com.example.soporte_tecnico.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollupStoreTest {
+
+	private static final LocalDateTime INICIO = LocalDateTime.of(2026, 10, 1, 0, 0);
+
+	// Reloj que se adelanta a mano
+	static final class Reloj extends Clock {
+		private Instant ahora;
+
+		Reloj(LocalDateTime ahora) {
+			this.ahora = ahora.toInstant(ZoneOffset.UTC);
+		}
+
+		void avanzar(Duration d) {
+			ahora = ahora.plus(d);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return ahora;
+		}
+	}
+
+	private static RollupStore store(Reloj reloj) {
+		return new RollupStore(Duration.ofHours(2), Duration.ofDays(2), Duration.ofDays(30), Set.of("RESUELTO"), reloj);
+	}
+
+	private static ConsultaRollup consulta(Granularidad g, boolean porEstado, boolean porEspecialidad) {
+		return new ConsultaRollup(g, INICIO.minusDays(60), null, porEstado, porEspecialidad, null, null);
+	}
+
+	@Test
+	void cuentaCreadasYResueltasPorIntervalo() {
+		Reloj reloj = new Reloj(INICIO.plusMinutes(30));
+		RollupStore store = store(reloj);
+		store.creada(INICIO.plusMinutes(1), "PENDIENTE", "Redes");
+		store.creada(INICIO.plusMinutes(1).plusSeconds(30), "PENDIENTE", "Software");
+		store.creada(INICIO.plusMinutes(5), "EN_PROCESO", "Redes");
+		store.cambioDeEstado(INICIO.plusMinutes(6), "PENDIENTE", "RESUELTO", "Redes");
+		// Ya estaba resuelta: no cuenta otra vez
+		store.cambioDeEstado(INICIO.plusMinutes(7), "RESUELTO", "RESUELTO", "Redes");
+
+		List<FilaRollup> porMinuto = store.consultar(consulta(Granularidad.MINUTO, false, false));
+		assertEquals(3, porMinuto.size());
+		assertEquals(new FilaRollup(INICIO.plusMinutes(1), Granularidad.MINUTO, null, null, 2, 0), porMinuto.get(0));
+		assertEquals(new FilaRollup(INICIO.plusMinutes(6), Granularidad.MINUTO, null, null, 0, 1), porMinuto.get(2));
+
+		List<FilaRollup> porEspecialidad = store.consultar(consulta(Granularidad.DIA, false, true));
+		assertEquals(List.of(
+				new FilaRollup(INICIO, Granularidad.DIA, null, "Redes", 2, 1),
+				new FilaRollup(INICIO, Granularidad.DIA, null, "Software", 1, 0)), porEspecialidad);
+
+		List<FilaRollup> resueltas = store.consultar(new ConsultaRollup(Granularidad.HORA, INICIO, null, true, false,
+				"resuelto", null));
+		assertEquals(List.of(new FilaRollup(INICIO, Granularidad.HORA, "RESUELTO", null, 0, 1)), resueltas);
+	}
+
+	@Test
+	void losIntervalosAntiguosSePlieganSinPerderCuentas() {
+		Reloj reloj = new Reloj(INICIO);
+		RollupStore store = store(reloj);
+		for (int minuto = 0; minuto < 3 * 24 * 60; minuto += 7) {
+			reloj.avanzar(Duration.ofMinutes(7));
+			store.creada(LocalDateTime.now(reloj), "PENDIENTE", "Redes");
+		}
+		reloj.avanzar(Duration.ofMinutes(1));
+		store.plegar();
+
+		// Sólo quedan los minutos de las últimas horas y las horas de los últimos días
+		assertTrue(store.intervalos().get(Granularidad.MINUTO) <= 3 * 60 / 7 + 1);
+		assertTrue(store.intervalos().get(Granularidad.HORA) <= 3 * 24);
+		assertEquals(1, store.intervalos().get(Granularidad.DIA));
+
+		List<FilaRollup> filas = store.consultar(consulta(Granularidad.MINUTO, false, false));
+		assertEquals(3 * 24 * 60 / 7 + 1, filas.stream().mapToLong(FilaRollup::creadas).sum());
+		assertEquals(Granularidad.DIA, filas.get(0).granularidad());
+		assertEquals(Granularidad.MINUTO, filas.get(filas.size() - 1).granularidad());
+		// Ningún periodo aparece en dos niveles
+		for (int i = 1; i < filas.size(); i++) {
+			FilaRollup anterior = filas.get(i - 1);
+			assertFalse(anterior.inicio().plusSeconds(anterior.granularidad().segundos()).isAfter(filas.get(i).inicio()));
+		}
+
+		reloj.avanzar(Duration.ofDays(40));
+		store.plegar();
+		assertTrue(store.consultar(consulta(Granularidad.DIA, false, false)).isEmpty());
+	}
+
+	@Test
+	void unaFechaYaPlegadaVaAlNivelQueLaGuarda() {
+		Reloj reloj = new Reloj(INICIO.plusDays(10));
+		RollupStore store = store(reloj);
+		store.plegar();
+		store.creada(INICIO.plusDays(1).plusHours(3), "PENDIENTE", null);
+
+		assertEquals(1, store.intervalos().get(Granularidad.DIA));
+		assertEquals(List.of(new FilaRollup(INICIO.plusDays(1), Granularidad.DIA, null, null, 1, 0)),
+				store.consultar(consulta(Granularidad.HORA, false, false)));
+	}
+}
@@ -0,0 +1,170 @@
+package com.example.soporte_tecnico.archive;
+
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.query.FiltroSolicitudes;
+import com.example.soporte_tecnico.repository.SolicitudRepositoryImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColdArchiveTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules();
+	private static final LocalDateTime FECHA = LocalDateTime.of(2026, 1, 1, 9, 0);
+
+	@TempDir
+	Path directorio;
+
+	private ColdArchive<Solicitud> archivo(int porBloque) {
+		return new ColdArchive<>(directorio, MAPPER, Solicitud.class, Solicitud::getId, porBloque);
+	}
+
+	private static Solicitud solicitud(long id, String estado) {
+		Solicitud s = new Solicitud(id, "Incidencia " + id + " con la impresora de la planta " + (id % 7),
+				FECHA.plusMinutes(id), estado, null, null);
+		s.setClienteId(id % 10);
+		s.setTecnicoId(id % 3 + 1);
+		s.setVersion(1L);
+		return s;
+	}
+
+	private static List<Solicitud> solicitudes(long desde, long hasta, long paso) {
+		List<Solicitud> lista = new ArrayList<>();
+		for (long id = desde; id <= hasta; id += paso) {
+			lista.add(solicitud(id, "CERRADO"));
+		}
+		return lista;
+	}
+
+	@Test
+	void leePorIdConUnIndiceDisperso() throws Exception {
+		try (ColdArchive<Solicitud> archivo = archivo(64)) {
+			archivo.archivar(solicitudes(1, 19_999, 2));
+
+			for (long id = 1; id < 20_000; id++) {
+				assertEquals(id % 2 == 1, archivo.get(id).isPresent(), "ID " + id);
+			}
+			Solicitud leida = archivo.get(4_001).orElseThrow();
+			assertEquals("CERRADO", leida.getEstado());
+			assertEquals(FECHA.plusMinutes(4_001), leida.getFechaCreacion());
+			assertEquals(1L, leida.getClienteId());
+
+			ColdArchive.Estado estado = archivo.estado();
+			assertEquals(10_000, estado.entidades());
+			assertEquals(157, estado.bloques());
+			assertTrue(estado.bytesComprimidos() * 4 < estado.bytesSinComprimir(), estado.toString());
+		}
+	}
+
+	@Test
+	void archivarEnHuecosYSobreBloquesMantieneLosRangosSinSolapar() throws Exception {
+		try (ColdArchive<Solicitud> archivo = archivo(32)) {
+			archivo.archivar(solicitudes(1, 999, 2));
+			archivo.archivar(solicitudes(2, 1_000, 2));
+			archivo.archivar(solicitudes(5_000, 5_010, 1));
+			archivo.archivar(List.of(solicitud(3, "RESUELTO")));
+
+			List<Solicitud> todas = archivo.todas();
+			assertEquals(1_011, todas.size());
+			for (int i = 1; i < todas.size(); i++) {
+				assertTrue(todas.get(i - 1).getId() < todas.get(i).getId());
+			}
+			for (long id = 1; id <= 1_000; id++) {
+				assertTrue(archivo.contains(id), "ID " + id);
+			}
+			assertEquals("RESUELTO", archivo.get(3).orElseThrow().getEstado());
+			assertTrue(archivo.get(1_001).isEmpty());
+		}
+	}
+
+	@Test
+	void eliminarReescribeElBloqueYCompactaElFichero() throws Exception {
+		try (ColdArchive<Solicitud> archivo = archivo(16)) {
+			archivo.archivar(solicitudes(1, 40_000, 1));
+			for (long id = 1; id <= 40_000; id++) {
+				if (id % 100 != 0) {
+					archivo.eliminar(id);
+				}
+			}
+
+			ColdArchive.Estado estado = archivo.estado();
+			assertEquals(400, estado.entidades());
+			assertTrue(estado.bytesMuertos() <= Math.max(1 << 20, estado.bytesComprimidos()), estado.toString());
+			assertTrue(archivo.eliminar(12_345).isEmpty());
+			assertEquals(12_300L, archivo.get(12_300).orElseThrow().getId());
+		}
+	}
+
+	@Test
+	void elRepositorioLeeYModificaLasArchivadasComoSiEstuvieranEnMemoria() throws Exception {
+		SolicitudRepositoryImpl repositorio = new SolicitudRepositoryImpl(4);
+		for (long id = 1; id <= 1_000; id++) {
+			Solicitud s = solicitud(id, id % 4 == 0 ? "PENDIENTE" : "CERRADO");
+			s.setId(null);
+			repositorio.save(s);
+		}
+		try (ColdArchive<Solicitud> archivo = SolicitudArchiver.nuevoArchivo(directorio, MAPPER, 64)) {
+			repositorio.usarArchivo(archivo);
+
+			assertEquals(750, repositorio.archivar(s -> "CERRADO".equals(s.getEstado())));
+			assertEquals(250, repositorio.enMemoria());
+			assertEquals(750, archivo.size());
+
+			assertEquals("CERRADO", repositorio.findById(1L).orElseThrow().getEstado());
+			assertTrue(repositorio.existsById(999L));
+			assertEquals(1_000, repositorio.findAll().size());
+			assertEquals(100, repositorio.findByClienteId(3L).size());
+			assertEquals(334, repositorio.findByTecnicoId(2L).size());
+			assertEquals(50, repositorio.filtrar(new FiltroSolicitudes("CERRADO", 4L, null, null, null), false)
+					.solicitudes().size());
+			assertEquals(1_000, repositorio.agregar(Collectors.counting()));
+
+			Solicitud cambio = new Solicitud(repositorio.findById(5L).orElseThrow());
+			cambio.setEstado("PENDIENTE");
+			Solicitud reabierta = repositorio.update(cambio);
+			assertEquals(2L, reabierta.getVersion());
+			assertEquals(251, repositorio.enMemoria());
+			assertEquals(749, archivo.size());
+
+			repositorio.deleteById(6L);
+			assertFalse(repositorio.existsById(6L));
+			assertEquals(999, repositorio.findAll().size());
+		}
+	}
+
+	@Test
+	void laBusquedaPorAtributoSoloLeeLosBloquesQueLoContienen() throws Exception {
+		try (ColdArchive<Solicitud> archivo = SolicitudArchiver.nuevoArchivo(directorio, MAPPER, 100)) {
+			List<Solicitud> lote = solicitudes(1, 10_000, 1);
+			// Un cliente poco frecuente, sólo en dos bloques
+			lote.get(150).setClienteId(77L);
+			lote.get(8_020).setClienteId(77L);
+			lote.get(9_000).setTecnicoId(null);
+			archivo.archivar(lote);
+			assertEquals(100, archivo.estado().bloques());
+
+			List<Long> ids = new ArrayList<>();
+			assertEquals(2, archivo.recorrer(SolicitudArchiver.POR_CLIENTE, 77L, s -> ids.add(s.getId())));
+			assertEquals(List.of(151L, 8_021L), ids);
+			assertEquals(0, archivo.recorrer(SolicitudArchiver.POR_CLIENTE, 78L, s -> fail()));
+
+			// Los índices de los bloques reescritos y compactados siguen al día
+			archivo.eliminar(151);
+			archivo.archivar(List.of(solicitud(20_000, "CERRADO")));
+			ids.clear();
+			assertEquals(1, archivo.recorrer(SolicitudArchiver.POR_CLIENTE, 77L, s -> ids.add(s.getId())));
+			assertEquals(List.of(8_021L), ids);
+			int[] porTecnico = new int[1];
+			assertEquals(101, archivo.recorrer(SolicitudArchiver.POR_TECNICO, 3L, s -> porTecnico[0]++));
+			assertEquals(3_334, porTecnico[0]);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.example.soporte_tecnico.bloom;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountingBloomFilterTest {
+
+	@Test
+	void noEstaListoHastaLaPrimeraReconstruccion() {
+		CountingBloomFilter filtro = new CountingBloomFilter("prueba", 100, 0.01);
+		assertTrue(filtro.puedeContener(42));
+
+		filtro.reconstruir(List.of(1L, 2L, 3L));
+		assertTrue(filtro.puedeContener(2));
+		assertFalse(filtro.estado().tasaEstimada() > 0.01);
+		assertTrue(filtro.estado().listo());
+	}
+
+	@Test
+	void creceEnCapasSinFalsosNegativosNiPasarseDeLaTasa() {
+		CountingBloomFilter filtro = new CountingBloomFilter("prueba", 1_000, 0.01);
+		filtro.reconstruir(List.of());
+		for (long clave = 0; clave < 7_000; clave++) {
+			filtro.anadir(clave);
+		}
+		assertEquals(3, filtro.estado().capas());
+		for (long clave = 0; clave < 7_000; clave++) {
+			assertTrue(filtro.puedeContener(clave));
+		}
+
+		long falsos = LongStream.range(1_000_000, 1_100_000).filter(filtro::puedeContener).count();
+		assertTrue(falsos < 1_000, "Falsos positivos: " + falsos);
+	}
+
+	@Test
+	void lasBajasSeDeshacenSinAfectarAlResto() {
+		CountingBloomFilter filtro = new CountingBloomFilter("prueba", 10_000, 0.01);
+		filtro.reconstruir(List.of());
+		for (long clave = 0; clave < 5_000; clave++) {
+			filtro.anadir(clave);
+		}
+		for (long clave = 0; clave < 5_000; clave += 2) {
+			assertTrue(filtro.quitar(clave));
+		}
+
+		for (long clave = 1; clave < 5_000; clave += 2) {
+			assertTrue(filtro.puedeContener(clave));
+		}
+		long quedan = LongStream.range(0, 5_000).filter(c -> c % 2 == 0).filter(filtro::puedeContener).count();
+		assertTrue(quedan < 100, "Bajas que siguen pareciendo presentes: " + quedan);
+		assertEquals(2_500, filtro.estado().claves());
+
+		// Una clave con dos altas sigue presente tras una baja
+		filtro.anadir(7_777);
+		filtro.anadir(7_777);
+		filtro.quitar(7_777);
+		assertTrue(filtro.puedeContener(7_777));
+	}
+
+	@Test
+	void seReconstruyeEnSegundoPlanoCuandoSeDegrada() throws InterruptedException {
+		CountingBloomFilter filtro = new CountingBloomFilter("prueba", 100, 0.01);
+		filtro.reconstruir(List.of());
+
+		// Bajas de claves desconocidas: el filtro se llena de claves que ya no existen
+		List<Long> reales = new ArrayList<>();
+		for (long clave = 0; clave < 2_000; clave++) {
+			filtro.anadir(clave);
+			if (clave % 10 == 0) {
+				reales.add(clave);
+			} else {
+				filtro.desfasar();
+			}
+		}
+		assertTrue(filtro.estado().capas() > 4);
+
+		CountDownLatch reconstruido = new CountDownLatch(1);
+		filtro.reconstruirCon(() -> {
+			filtro.reconstruir(reales);
+			reconstruido.countDown();
+		});
+		filtro.desfasar();
+		assertTrue(reconstruido.await(5, TimeUnit.SECONDS));
+
+		CountingBloomFilter.Estado estado = filtro.estado();
+		assertEquals(1, estado.capas());
+		assertEquals(0, estado.desfasadas());
+		assertTrue(estado.reconstrucciones() >= 2);
+		for (Long clave : reales) {
+			assertTrue(filtro.puedeContener(clave));
+		}
+	}
+
+	@Test
+	void laTasaObservadaProgramaLaReconstruccion() throws InterruptedException {
+		CountingBloomFilter filtro = new CountingBloomFilter("prueba", 100, 0.01);
+		CountDownLatch programada = new CountDownLatch(1);
+		filtro.reconstruirCon(programada::countDown);
+		filtro.reconstruir(List.of(1L));
+
+		// 5 % de falsos positivos sobre más de mil consultas de claves ausentes
+		for (long clave = 1_000; clave < 1_950; clave++) {
+			filtro.puedeContener(clave);
+		}
+		for (int i = 0; i < 60; i++) {
+			filtro.falsoPositivo();
+		}
+		assertTrue(programada.await(5, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,222 @@
+package com.example.soporte_tecnico.cache;
+
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.repository.DurableStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindCacheTest {
+
+	// Almacén en memoria que cuenta las transacciones de volcado
+	private static class Almacen implements DurableStore<Solicitud> {
+		final Map<Long, Solicitud> filas = new TreeMap<>();
+		int volcados;
+		int lecturas;
+		boolean fallar;
+		Runnable alCargar = () -> { };
+
+		@Override
+		public List<Solicitud> cargar(Collection<Long> ids) {
+			lecturas++;
+			alCargar.run();
+			List<Solicitud> encontradas = new ArrayList<>();
+			for (Long id : ids) {
+				if (filas.containsKey(id)) {
+					encontradas.add(filas.get(id));
+				}
+			}
+			return encontradas;
+		}
+
+		@Override
+		public void volcar(Collection<Solicitud> escrituras, Collection<Long> bajas) {
+			if (fallar) {
+				throw new IllegalStateException("base de datos caída");
+			}
+			volcados++;
+			escrituras.forEach(s -> filas.put(s.getId(), s));
+			bajas.forEach(filas::remove);
+		}
+
+		@Override
+		public void prepararAlta(Solicitud solicitud) {
+			solicitud.setVersion(1L);
+		}
+	}
+
+	private static Solicitud solicitud(long id, String estado) {
+		Solicitud s = new Solicitud(id, "Incidencia " + id, null, estado, null, null);
+		s.setVersion(1L);
+		return s;
+	}
+
+	private static WriteBehindCache<Solicitud> cache(Almacen almacen, int capacidad) {
+		// Sin iniciar: los volcados se lanzan a mano
+		return new WriteBehindCache<>("prueba", almacen, Solicitud::getId, Solicitud::getVersion, capacidad, 1000, Duration.ofHours(1));
+	}
+
+	@Test
+	void lasEscriturasSeConfirmanEnMemoriaYSeVuelcanAgrupadas() {
+		Almacen almacen = new Almacen();
+		WriteBehindCache<Solicitud> cache = cache(almacen, 100);
+
+		Solicitud v1 = solicitud(1, "PENDIENTE");
+		assertTrue(cache.insertar(v1));
+		assertFalse(cache.insertar(solicitud(1, "PENDIENTE")));
+		Solicitud v2 = new Solicitud(v1);
+		v2.setEstado("EN_PROCESO");
+		v2.setVersion(2L);
+		assertTrue(cache.reemplazar(v1, v2));
+		assertFalse(cache.reemplazar(v1, v2));
+		Solicitud v3 = new Solicitud(v2);
+		v3.setEstado("RESUELTO");
+		v3.setVersion(3L);
+		assertTrue(cache.reemplazar(v2, v3));
+		cache.insertar(solicitud(2, "PENDIENTE"));
+		cache.eliminar(2L);
+
+		// Nada ha llegado aún al almacén, pero se lee desde la caché
+		assertTrue(almacen.filas.isEmpty());
+		assertEquals("RESUELTO", cache.get(1L).orElseThrow().getEstado());
+		assertTrue(cache.get(2L).isEmpty());
+		assertEquals(2, cache.pendientes());
+
+		// Un solo volcado con el último estado de cada ID
+		assertEquals(2, cache.volcar());
+		assertEquals(1, almacen.volcados);
+		assertEquals("RESUELTO", almacen.filas.get(1L).getEstado());
+		assertFalse(almacen.filas.containsKey(2L));
+		assertEquals(0, cache.volcar());
+		assertEquals(1, almacen.volcados);
+	}
+
+	@Test
+	void lasConsultasDelAlmacenVenLosCambiosPendientes() {
+		Almacen almacen = new Almacen();
+		for (long id = 1; id <= 4; id++) {
+			almacen.filas.put(id, solicitud(id, "PENDIENTE"));
+		}
+		WriteBehindCache<Solicitud> cache = cache(almacen, 100);
+
+		Solicitud actual = cache.get(3L).orElseThrow();
+		Solicitud cerrada = new Solicitud(actual);
+		cerrada.setEstado("CERRADO");
+		cache.reemplazar(actual, cerrada);
+		cache.eliminar(4L);
+		cache.insertar(solicitud(5, "PENDIENTE"));
+
+		List<Solicitud> pendientes = cache.consultar(
+				() -> almacen.filas.values().stream().filter(s -> s.getEstado().equals("PENDIENTE")).toList(),
+				s -> s.getEstado().equals("PENDIENTE"));
+		assertEquals(List.of(1L, 2L, 5L), pendientes.stream().map(Solicitud::getId).toList());
+
+		Map<String, Long> porEstado = cache.agregar(
+				c -> almacen.filas.values().stream().collect(c),
+				Collectors.groupingBy(Solicitud::getEstado, Collectors.counting()));
+		assertEquals(Map.of("PENDIENTE", 3L, "CERRADO", 1L), porEstado);
+	}
+
+	@Test
+	void soloSeDesalojanLasEntradasYaVolcadas() {
+		Almacen almacen = new Almacen();
+		WriteBehindCache<Solicitud> cache = cache(almacen, 10);
+
+		for (long id = 1; id <= 25; id++) {
+			cache.insertar(solicitud(id, "PENDIENTE"));
+		}
+		// Las pendientes superan la capacidad: ninguna se pierde
+		assertEquals(25, cache.estado().enCache());
+		cache.volcar();
+		assertEquals(10, cache.estado().enCache());
+		assertEquals(25, almacen.filas.size());
+
+		// Las desalojadas se vuelven a leer del almacén
+		int lecturas = almacen.lecturas;
+		assertEquals(1L, cache.get(1L).orElseThrow().getId());
+		assertEquals(lecturas + 1, almacen.lecturas);
+		assertEquals(4, cache.getAll(List.of(1L, 2L, 3L, 25L)).size());
+		assertEquals(lecturas + 2, almacen.lecturas);
+	}
+
+	@Test
+	void unVolcadoFallidoSeReintentaYCerrarVuelcaLoPendiente() {
+		Almacen almacen = new Almacen();
+		WriteBehindCache<Solicitud> cache = cache(almacen, 100);
+		cache.insertar(solicitud(1, "PENDIENTE"));
+
+		almacen.fallar = true;
+		assertThrows(IllegalStateException.class, cache::volcar);
+		assertEquals(1, cache.pendientes());
+		assertEquals(1, cache.estado().errores());
+
+		cache.insertar(solicitud(2, "PENDIENTE"));
+		almacen.fallar = false;
+		cache.close();
+		assertEquals(0, cache.pendientes());
+		assertEquals(2, almacen.filas.size());
+	}
+
+	@Test
+	void reemplazarNoFallaSiLaLecturaNoQuedoEnLaCache() {
+		Almacen almacen = new Almacen();
+		almacen.filas.put(1L, solicitud(1, "PENDIENTE"));
+		almacen.filas.put(2L, solicitud(2, "PENDIENTE"));
+		WriteBehindCache<Solicitud> cache = cache(almacen, 2);
+
+		// Una escritura de otra entidad mientras se lee del almacén
+		almacen.alCargar = () -> cache.insertar(solicitud(100, "PENDIENTE"));
+		Solicitud actual = cache.get(1L).orElseThrow();
+		almacen.alCargar = () -> { };
+		assertTrue(cache.reemplazar(actual, nuevaVersion(actual, "EN_PROCESO")));
+		assertEquals("EN_PROCESO", cache.get(1L).orElseThrow().getEstado());
+
+		// Todas las entradas pendientes y por encima de la capacidad: la leída se desaloja al momento
+		for (long id = 101; id <= 105; id++) {
+			cache.insertar(solicitud(id, "PENDIENTE"));
+		}
+		actual = cache.get(2L).orElseThrow();
+		assertTrue(cache.reemplazar(actual, nuevaVersion(actual, "EN_PROCESO")));
+		assertEquals("EN_PROCESO", cache.get(2L).orElseThrow().getEstado());
+		cache.volcar();
+		assertEquals(2L, almacen.filas.get(2L).getVersion());
+	}
+
+	@Test
+	void reemplazarFallaSiLaVersionCambioAunqueYaNoEsteEnLaCache() {
+		Almacen almacen = new Almacen();
+		almacen.filas.put(1L, solicitud(1, "PENDIENTE"));
+		WriteBehindCache<Solicitud> cache = cache(almacen, 1);
+
+		Solicitud leida = cache.get(1L).orElseThrow();
+		assertTrue(cache.reemplazar(leida, nuevaVersion(leida, "EN_PROCESO")));
+		cache.volcar();
+		cache.insertar(solicitud(2, "PENDIENTE"));
+		cache.volcar();
+
+		// La versión 2 ya está en el almacén y fuera de la caché; la copia leída era la 1
+		assertFalse(cache.reemplazar(leida, nuevaVersion(leida, "CERRADO")));
+		assertEquals("EN_PROCESO", cache.get(1L).orElseThrow().getEstado());
+
+		cache.eliminar(1L);
+		cache.volcar();
+		Solicitud borrada = solicitud(1, "PENDIENTE");
+		borrada.setVersion(2L);
+		assertFalse(cache.reemplazar(borrada, nuevaVersion(borrada, "CERRADO")));
+	}
+
+	private static Solicitud nuevaVersion(Solicitud actual, String estado) {
+		Solicitud nueva = new Solicitud(actual);
+		nueva.setEstado(estado);
+		nueva.setVersion(actual.getVersion() + 1);
+		return nueva;
+	}
+}
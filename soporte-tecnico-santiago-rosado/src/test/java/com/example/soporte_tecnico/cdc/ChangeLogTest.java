@@ -0,0 +1,136 @@
+package com.example.soporte_tecnico.cdc;
+
+import com.example.soporte_tecnico.exception.OffsetExpiredException;
+import com.example.soporte_tecnico.model.Cliente;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeLogTest {
+
+	@TempDir
+	Path directorio;
+
+	private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+	private ChangeLog abrir(long segmento, long retencion) {
+		return new ChangeLog(mapper, directorio, segmento, retencion, false);
+	}
+
+	private List<JsonNode> leer(ChangeLog log, ChangeLog.Lote lote) throws Exception {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		log.transferir(lote, Channels.newChannel(salida));
+		List<JsonNode> lineas = new ArrayList<>();
+		for (String linea : salida.toString(StandardCharsets.UTF_8).split("\n")) {
+			lineas.add(mapper.readTree(linea));
+		}
+		return lineas;
+	}
+
+	@Test
+	void losLotesSonRangosConsecutivosDelSegmento() throws Exception {
+		try (ChangeLog log = abrir(1 << 20, 1 << 30)) {
+			for (long id = 1; id <= 10; id++) {
+				log.registrar(ChangeLog.CLIENTE, ChangeLog.ALTA, id, 1L, new Cliente(id, "Cliente " + id, "c" + id + "@x.com", "600"));
+			}
+			log.registrar(ChangeLog.CLIENTE, ChangeLog.BAJA, 3L, null, null);
+
+			ChangeLog.Lote lote = log.leer(4, 5, 1 << 20);
+			assertEquals(9, lote.siguiente());
+			List<JsonNode> cambios = leer(log, lote);
+			assertEquals(List.of(4L, 5L, 6L, 7L, 8L), cambios.stream().map(c -> c.get("offset").asLong()).toList());
+			assertEquals("Cliente 4", cambios.get(0).get("datos").get("nombre").asText());
+
+			JsonNode baja = leer(log, log.leer(11, 100, 1 << 20)).get(0);
+			assertEquals("BAJA", baja.get("tipo").asText());
+			assertTrue(baja.get("datos").isNull());
+
+			// Al día: lote vacío
+			assertEquals(0, log.leer(12, 100, 1 << 20).cambios());
+		}
+	}
+
+	@Test
+	void laRetencionBorraSegmentosEnterosYLosOffsetsSobrevivenAlReinicio() throws Exception {
+		try (ChangeLog log = abrir(1024, 4096)) {
+			for (long id = 1; id <= 200; id++) {
+				log.registrar(ChangeLog.TECNICO, ChangeLog.CAMBIO, id, 2L, null);
+			}
+			log.confirmar("facturacion", 150);
+			assertTrue(log.primerOffset() > 1);
+			assertThrows(OffsetExpiredException.class, () -> log.leer(1, 10, 1 << 20));
+		}
+
+		// Una línea cortada por una caída se descarta al abrir
+		Path activo;
+		try (var ficheros = Files.list(directorio)) {
+			activo = ficheros.filter(f -> f.toString().endsWith(".cdc")).sorted().reduce((a, b) -> b).orElseThrow();
+		}
+		Files.writeString(activo, "{\"offset\":201,\"ent", StandardOpenOption.APPEND);
+
+		try (ChangeLog log = abrir(1024, 4096)) {
+			assertEquals(200, log.ultimoOffset());
+			assertEquals(150L, log.offsetDe("facturacion").orElseThrow());
+			assertEquals(51, log.estado().consumidores().get(0).pendientes());
+			log.registrar(ChangeLog.TECNICO, ChangeLog.BAJA, 7L, null, null);
+			// Un lote no cruza de segmento: se sigue desde su siguiente
+			List<Long> offsets = new ArrayList<>();
+			for (long desde = 199; desde <= log.ultimoOffset(); ) {
+				ChangeLog.Lote lote = log.leer(desde, 10, 1 << 20);
+				leer(log, lote).forEach(c -> offsets.add(c.get("offset").asLong()));
+				desde = lote.siguiente();
+			}
+			assertEquals(List.of(199L, 200L, 201L), offsets);
+		}
+	}
+
+	@Test
+	void unSegmentoRetiradoSePuedeTerminarDeEnviar() throws Exception {
+		try (ChangeLog log = abrir(1024, 4096)) {
+			for (long id = 1; id <= 10; id++) {
+				log.registrar(ChangeLog.TECNICO, ChangeLog.CAMBIO, id, 2L, null);
+			}
+			ChangeLog.Lote lote = log.leer(1, 5, 1 << 20);
+
+			// La retención se lleva el segmento entre leer y enviar
+			for (long id = 11; id <= 200; id++) {
+				log.registrar(ChangeLog.TECNICO, ChangeLog.CAMBIO, id, 2L, null);
+			}
+			assertTrue(log.primerOffset() > 1);
+			assertTrue(Files.exists(lote.fichero()));
+			assertEquals(List.of(1L, 2L, 3L, 4L, 5L), leer(log, lote).stream().map(c -> c.get("offset").asLong()).toList());
+		}
+
+		// Al reabrir ya no hay envíos en curso: se borra
+		try (ChangeLog log = abrir(1024, 4096)) {
+			assertTrue(log.primerOffset() > 1);
+			try (var ficheros = Files.list(directorio)) {
+				assertEquals(log.estado().segmentos(), ficheros.filter(f -> f.toString().endsWith(".cdc")).count());
+			}
+		}
+	}
+
+	@Test
+	void elDirectorioEsDeUnaSolaInstancia() throws Exception {
+		try (ChangeLog log = abrir(1 << 20, 1 << 30)) {
+			log.registrar(ChangeLog.CLIENTE, ChangeLog.BAJA, 1L, null, null);
+			assertThrows(UncheckedIOException.class, () -> abrir(1 << 20, 1 << 30));
+		}
+		try (ChangeLog log = abrir(1 << 20, 1 << 30)) {
+			assertEquals(1, log.ultimoOffset());
+		}
+	}
+}
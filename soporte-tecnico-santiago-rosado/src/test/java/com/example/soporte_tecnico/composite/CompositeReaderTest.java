@@ -0,0 +1,62 @@
+package com.example.soporte_tecnico.composite;
+
+import com.example.soporte_tecnico.exception.BadRequestException;
+import com.example.soporte_tecnico.model.Cliente;
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.model.Tecnico;
+import com.example.soporte_tecnico.repository.ClienteRepositoryImpl;
+import com.example.soporte_tecnico.repository.SolicitudRepositoryImpl;
+import com.example.soporte_tecnico.repository.TecnicoRepositoryImpl;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompositeReaderTest {
+
+	@Test
+	void unaLlamadaPorRepositorioConLasInclusiones() {
+		SolicitudRepositoryImpl solicitudes = new SolicitudRepositoryImpl();
+		ClienteRepositoryImpl clientes = new ClienteRepositoryImpl();
+		TecnicoRepositoryImpl tecnicos = new TecnicoRepositoryImpl();
+		Cliente ana = clientes.save(new Cliente(null, "Ana", "ana@example.com", "600000001"));
+		Cliente luis = clientes.save(new Cliente(null, "Luis", "luis@example.com", "600000002"));
+		Tecnico pablo = tecnicos.save(new Tecnico(null, "Pablo", "Redes"));
+		Solicitud a = solicitudes.save(solicitud(ana.getId(), pablo.getId()));
+		Solicitud b = solicitudes.save(solicitud(luis.getId(), pablo.getId()));
+		CompositeReader lector = new CompositeReader(solicitudes, clientes, tecnicos);
+
+		CompositeReader.Resultado resultado = lector.leer(new CompositeReader.Consulta(List.of(
+				new CompositeReader.Referencia("solicitud", b.getId()),
+				new CompositeReader.Referencia("SOLICITUD", a.getId()),
+				new CompositeReader.Referencia("SOLICITUD", a.getId()),
+				new CompositeReader.Referencia("cliente", ana.getId()),
+				new CompositeReader.Referencia("TECNICO", 99L)),
+				List.of("cliente", "tecnico")));
+
+		// Orden pedido, sin repetidas, con cliente y técnico dentro de cada solicitud
+		assertEquals(List.of(b.getId(), a.getId()), resultado.solicitudes().stream().map(Solicitud::getId).toList());
+		assertEquals("Luis", resultado.solicitudes().get(0).getCliente().getNombre());
+		assertEquals("Pablo", resultado.solicitudes().get(1).getTecnico().getNombre());
+		assertEquals(List.of(ana.getId()), resultado.clientes().stream().map(Cliente::getId).toList());
+		assertEquals(List.of(new CompositeReader.Referencia("TECNICO", 99L)), resultado.noEncontradas());
+		assertEquals(Map.of("SOLICITUD", 1, "CLIENTE", 1, "TECNICO", 1), resultado.llamadas());
+		// Las solicitudes guardadas no se tocan
+		assertNull(solicitudes.findById(a.getId()).orElseThrow().getCliente());
+
+		assertThrows(BadRequestException.class, () -> lector.leer(new CompositeReader.Consulta(
+				List.of(new CompositeReader.Referencia("factura", 1L)), null)));
+		assertThrows(BadRequestException.class, () -> lector.leer(new CompositeReader.Consulta(
+				List.of(new CompositeReader.Referencia("CLIENTE", 1L)), List.of("solicitudes"))));
+	}
+
+	private static Solicitud solicitud(Long clienteId, Long tecnicoId) {
+		Solicitud s = new Solicitud(null, "Sin conexión", LocalDateTime.now(), "PENDIENTE", null, null);
+		s.setClienteId(clienteId);
+		s.setTecnicoId(tecnicoId);
+		return s;
+	}
+}
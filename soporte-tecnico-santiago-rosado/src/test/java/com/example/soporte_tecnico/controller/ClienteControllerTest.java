@@ -0,0 +1,125 @@
+package com.example.soporte_tecnico.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ClienteControllerTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private long id;
+
+	@BeforeEach
+	void crearCliente() throws Exception {
+		String email = "cas" + System.nanoTime() + "@ejemplo.com";
+		String cuerpo = mvc.perform(post("/api/clientes")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(datos("Ana Pérez", email)))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		id = objectMapper.readTree(cuerpo).get("id").asLong();
+	}
+
+	@Test
+	void elGetDevuelveLaVersionComoEtag() throws Exception {
+		mvc.perform(get("/api/clientes/{id}", id))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"1\""));
+	}
+
+	@Test
+	void laActualizacionConLaVersionVigenteSeAplicaYLaObsoletaDa412() throws Exception {
+		mvc.perform(put("/api/clientes/{id}", id)
+						.header("If-Match", "\"1\"")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(datos("Ana María Pérez", null)))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"2\""));
+
+		mvc.perform(put("/api/clientes/{id}", id)
+						.header("If-Match", "\"1\"")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(datos("Otro nombre", null)))
+				.andExpect(status().isPreconditionFailed());
+
+		JsonNode actual = objectMapper.readTree(mvc.perform(get("/api/clientes/{id}", id))
+				.andReturn().getResponse().getContentAsString());
+		assertEquals("Ana María Pérez", actual.get("nombre").asText());
+	}
+
+	@Test
+	void unaListaQueIncluyeLaVersionVigenteSeAplica() throws Exception {
+		mvc.perform(put("/api/clientes/{id}", id)
+						.header("If-Match", "\"7\", \"1\"")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(datos("Ana Pérez López", null)))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void unaEtiquetaDebilNoSuperaLaComparacionFuerte() throws Exception {
+		mvc.perform(put("/api/clientes/{id}", id)
+						.header("If-Match", "W/\"1\"")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(datos("Ana Pérez López", null)))
+				.andExpect(status().isPreconditionFailed());
+	}
+
+	@Test
+	void unIfMatchMalFormadoDa400() throws Exception {
+		mvc.perform(put("/api/clientes/{id}", id)
+						.header("If-Match", "1")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(datos("Ana Pérez López", null)))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void actualizarUnClienteQueNoExisteDa404() throws Exception {
+		mvc.perform(put("/api/clientes/{id}", Long.MAX_VALUE)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(datos("Nadie", null)))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void fueraDelClusterElIdDelCuerpoSeIgnora() throws Exception {
+		String cuerpo = mvc.perform(post("/api/clientes")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(Map.of("id", Long.MAX_VALUE, "nombre", "Luis Gil",
+								"email", "id" + System.nanoTime() + "@ejemplo.com", "telefono", "600000000"))))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		long asignado = objectMapper.readTree(cuerpo).get("id").asLong();
+		assertNotEquals(Long.MAX_VALUE, asignado);
+		assertTrue(asignado > id);
+	}
+
+	private String datos(String nombre, String email) throws Exception {
+		return objectMapper.writeValueAsString(Map.of(
+				"nombre", nombre,
+				"email", email != null ? email : "otro" + System.nanoTime() + "@ejemplo.com",
+				"telefono", "600000000"));
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.soporte_tecnico.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "soporte.sharding.nodo=true")
+@AutoConfigureMockMvc
+class NodoClusterTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void unNodoUsaElIdDelEnrutadorYRechazaLosRepetidos() throws Exception {
+		mvc.perform(post("/api/clientes")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(cliente(900_001L)))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.id").value(900_001L));
+
+		mvc.perform(post("/api/clientes")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(cliente(900_001L)))
+				.andExpect(status().isConflict());
+
+		mvc.perform(post("/api/clientes")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(cliente(Long.MAX_VALUE)))
+				.andExpect(status().isBadRequest());
+
+		mvc.perform(post("/api/tecnicos")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(Map.of("id", 900_002L, "nombre", "Eva Ruiz",
+								"especialidad", "Redes"))))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.id").value(900_002L));
+
+		mvc.perform(post("/api/tecnicos")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(Map.of("id", 900_002L, "nombre", "Eva Ruiz",
+								"especialidad", "Redes"))))
+				.andExpect(status().isConflict());
+	}
+
+	private String cliente(long id) throws Exception {
+		return objectMapper.writeValueAsString(Map.of("id", id, "nombre", "Nodo " + id,
+				"email", "nodo" + System.nanoTime() + "@ejemplo.com", "telefono", "600000000"));
+	}
+}
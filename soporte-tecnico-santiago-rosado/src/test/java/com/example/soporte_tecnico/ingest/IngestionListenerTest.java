@@ -0,0 +1,84 @@
+package com.example.soporte_tecnico.ingest;
+
+import com.example.soporte_tecnico.events.SolicitudEventBus;
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.repository.ClienteRepositoryImpl;
+import com.example.soporte_tecnico.repository.SolicitudRepositoryImpl;
+import com.example.soporte_tecnico.repository.TecnicoRepositoryImpl;
+import com.example.soporte_tecnico.service.SolicitudServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionListenerTest {
+
+	@Test
+	void confirmaLasAltasEncadenadasYRechazaLasInvalidas() throws Exception {
+		SolicitudServiceImpl servicio = new SolicitudServiceImpl(new SolicitudRepositoryImpl(),
+				new ClienteRepositoryImpl(), new TecnicoRepositoryImpl(),
+				new SolicitudEventBus(new ObjectMapper().findAndRegisterModules(), 1024));
+		long iniciales = servicio.findAll().size();
+		IngestionListener listener = new IngestionListener(servicio, 0, 1000, "NINGUNO", false);
+		listener.iniciar();
+		try (Socket socket = new Socket("localhost", listener.puerto())) {
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+			// Tres altas seguidas sin esperar respuesta; la 11 tiene un cliente que no existe
+			for (ByteBuffer trama : new ByteBuffer[] {
+					IngestionProtocol.alta(10, 1, 1, null, null, "Impresora sin tóner"),
+					IngestionProtocol.alta(11, 999, 1, null, null, "Cliente desconocido"),
+					IngestionProtocol.alta(12, 1, 1, null, "EN_PROCESO", "Disco casi lleno")}) {
+				out.write(trama.array(), 0, trama.limit());
+			}
+			out.flush();
+
+			Map<Long, Long> confirmadas = new HashMap<>();
+			String error = null;
+			while (confirmadas.size() < 2 || error == null) {
+				in.readInt();
+				byte tipo = in.readByte();
+				if (tipo == IngestionProtocol.CONFIRMACION) {
+					int n = in.readInt();
+					for (int i = 0; i < n; i++) {
+						confirmadas.put(in.readLong(), in.readLong());
+					}
+				} else {
+					assertEquals(IngestionProtocol.ERROR, tipo);
+					assertEquals(11, in.readLong());
+					byte[] mensaje = new byte[in.readShort()];
+					in.readFully(mensaje);
+					error = new String(mensaje, StandardCharsets.UTF_8);
+				}
+			}
+			assertTrue(error.contains("999"));
+			assertEquals(2, confirmadas.size());
+
+			Solicitud disco = servicio.findById(confirmadas.get(12L)).orElseThrow();
+			assertEquals("Disco casi lleno", disco.getDescripcion());
+			assertEquals("EN_PROCESO", disco.getEstado());
+			assertEquals("PENDIENTE", servicio.findById(confirmadas.get(10L)).orElseThrow().getEstado());
+			assertEquals(iniciales + 2, servicio.findAll().size());
+			assertEquals(1, listener.estado().rechazadas());
+		} finally {
+			listener.cerrar();
+		}
+	}
+
+	@Test
+	void noSeHabilitaEnUnaReplicaNiEnUnEnrutadorDeSharding() {
+		SolicitudServiceImpl servicio = new SolicitudServiceImpl(new SolicitudRepositoryImpl(),
+				new ClienteRepositoryImpl(), new TecnicoRepositoryImpl(),
+				new SolicitudEventBus(new ObjectMapper().findAndRegisterModules(), 1024));
+		assertThrows(IllegalStateException.class, () -> new IngestionListener(servicio, 0, 1000, "REPLICA", false));
+		assertThrows(IllegalStateException.class, () -> new IngestionListener(servicio, 0, 1000, "NINGUNO", true));
+	}
+}
@@ -0,0 +1,166 @@
+package com.example.soporte_tecnico.lsm;
+
+import com.example.soporte_tecnico.model.Solicitud;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LsmStoreTest {
+
+	@TempDir
+	Path directorio;
+
+	private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+	// Memtable y ficheros diminutos para que unas pocas escrituras lleguen a varios niveles
+	private LsmStore<Solicitud> abrir() {
+		return new LsmStore<>(directorio, mapper, Solicitud.class, Solicitud::getId,
+				new LsmStore.Opciones(4 << 10, 512, 8 << 10, 32 << 10, 4, 4, 12, 10, false));
+	}
+
+	private static Solicitud solicitud(long id, String estado) {
+		Solicitud s = new Solicitud(id, "Incidencia número " + id, null, estado, null, null);
+		s.setClienteId(id % 7);
+		s.setVersion(1L);
+		return s;
+	}
+
+	private static List<Long> ids(LsmStore<Solicitud> almacen) {
+		List<Long> ids = new ArrayList<>();
+		almacen.recorrer(s -> ids.add(s.getId()));
+		return ids;
+	}
+
+	@Test
+	void lasLecturasVenLaUltimaEscrituraEnMemoriaYEnDisco() throws Exception {
+		try (LsmStore<Solicitud> almacen = abrir()) {
+			for (long id = 1; id <= 2000; id++) {
+				almacen.put(solicitud(id, "PENDIENTE"));
+			}
+			for (long id = 1; id <= 2000; id += 2) {
+				almacen.put(solicitud(id, "RESUELTO"));
+			}
+			for (long id = 3; id <= 2000; id += 3) {
+				almacen.delete(id);
+			}
+			almacen.volcar();
+
+			LsmStore.Estado estado = almacen.estado();
+			assertTrue(estado.compactaciones() > 0);
+			assertTrue(estado.niveles().get(0).ficheros() < 4);
+			assertTrue(estado.niveles().stream().skip(1).anyMatch(n -> n.ficheros() > 0));
+
+			assertEquals("RESUELTO", almacen.get(1).orElseThrow().getEstado());
+			assertEquals("PENDIENTE", almacen.get(2).orElseThrow().getEstado());
+			assertTrue(almacen.get(3).isEmpty());
+			assertTrue(almacen.get(5000).isEmpty());
+
+			List<Long> ids = ids(almacen);
+			assertEquals(2000 - 666, ids.size());
+			assertTrue(ids.stream().noneMatch(id -> id % 3 == 0));
+			for (int i = 1; i < ids.size(); i++) {
+				assertTrue(ids.get(i - 1) < ids.get(i));
+			}
+		}
+	}
+
+	@Test
+	void losFiltrosEvitanLeerFicherosQueNoTienenLaClave() throws Exception {
+		try (LsmStore<Solicitud> almacen = abrir()) {
+			// Claves pares: las impares caen dentro del rango de cada fichero pero no están
+			for (long id = 2; id <= 4000; id += 2) {
+				almacen.put(solicitud(id, "PENDIENTE"));
+			}
+			almacen.volcar();
+			long leidos = almacen.estado().bloquesLeidos();
+			for (long id = 1; id <= 4000; id += 2) {
+				assertTrue(almacen.get(id).isEmpty());
+			}
+			LsmStore.Estado estado = almacen.estado();
+			assertTrue(estado.descartesFiltro() > 1800);
+			assertTrue(estado.bloquesLeidos() - leidos < 100);
+		}
+	}
+
+	@Test
+	void alReabrirSeRecuperaLoQueNoSeHabiaVolcado() throws Exception {
+		try (LsmStore<Solicitud> almacen = abrir()) {
+			for (long id = 1; id <= 500; id++) {
+				almacen.put(solicitud(id, "PENDIENTE"));
+			}
+			almacen.volcar();
+			// Sin volcar: sólo están en la memtable y en su registro
+			almacen.put(solicitud(501, "PENDIENTE"));
+			almacen.put(solicitud(1, "CERRADO"));
+			almacen.delete(2);
+		}
+
+		try (LsmStore<Solicitud> almacen = abrir()) {
+			assertEquals("CERRADO", almacen.get(1).orElseThrow().getEstado());
+			assertTrue(almacen.get(2).isEmpty());
+			assertTrue(almacen.get(501).isPresent());
+			assertEquals(500, ids(almacen).size());
+		}
+
+		// Tras recuperar y volcar no quedan registros antiguos ni ficheros sueltos
+		try (Stream<Path> ficheros = Files.list(directorio)) {
+			assertEquals(1, ficheros.filter(f -> f.toString().endsWith(".log")).count());
+		}
+	}
+
+	@Test
+	void losBorradosSiguenTapandoTrasCompactarYReabrir() throws Exception {
+		// Operaciones al azar contra un mapa de referencia, compactando y reabriendo por el camino
+		Random azar = new Random(45);
+		Map<Long, Solicitud> esperadas = new TreeMap<>();
+		LsmStore<Solicitud> almacen = abrir();
+		long compactaciones = 0;
+		try {
+			for (int op = 1; op <= 40_000; op++) {
+				long id = 1 + azar.nextInt(5000);
+				int accion = azar.nextInt(10);
+				if (accion < 5) {
+					Solicitud s = solicitud(id, "ESTADO-" + op);
+					almacen.put(s);
+					esperadas.put(id, s);
+				} else if (accion < 8) {
+					almacen.delete(id);
+					esperadas.remove(id);
+				} else {
+					Solicitud esperada = esperadas.get(id);
+					assertEquals(esperada == null ? null : esperada.getEstado(),
+							almacen.get(id).map(Solicitud::getEstado).orElse(null), "ID " + id + " en la operación " + op);
+				}
+				if (op % 10_000 == 0) {
+					compactaciones += almacen.estado().compactaciones();
+					almacen.close();
+					almacen = abrir();
+				} else if (op % 2_500 == 0) {
+					almacen.volcar();
+				}
+			}
+			almacen.volcar();
+			assertTrue(compactaciones + almacen.estado().compactaciones() > 10);
+
+			for (long id = 1; id <= 5000; id++) {
+				Solicitud esperada = esperadas.get(id);
+				assertEquals(esperada == null ? null : esperada.getEstado(),
+						almacen.get(id).map(Solicitud::getEstado).orElse(null), "ID " + id);
+			}
+			assertEquals(new ArrayList<>(esperadas.keySet()), ids(almacen));
+		} finally {
+			almacen.close();
+		}
+	}
+}
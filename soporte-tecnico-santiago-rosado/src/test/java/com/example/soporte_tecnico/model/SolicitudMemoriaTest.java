@@ -0,0 +1,122 @@
+package com.example.soporte_tecnico.model;
+
+import com.example.soporte_tecnico.repository.ClienteRepository;
+import com.example.soporte_tecnico.repository.SolicitudRepository;
+import com.example.soporte_tecnico.repository.TecnicoRepository;
+import com.example.soporte_tecnico.service.SolicitudService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Las solicitudes guardadas sólo retienen referencias a cliente y técnico, nunca copias
+ */
+@SpringBootTest
+class SolicitudMemoriaTest {
+
+	@Autowired
+	private SolicitudService solicitudService;
+
+	@Autowired
+	private SolicitudRepository solicitudRepository;
+
+	@Autowired
+	private ClienteRepository clienteRepository;
+
+	@Autowired
+	private TecnicoRepository tecnicoRepository;
+
+	@Test
+	void laSolicitudGuardadaNoRetieneClienteNiTecnico() throws IllegalAccessException {
+		Cliente cliente = clienteRepository.save(new Cliente(null, "Marta Gil", "marta" + System.nanoTime() + "@empresa.com", "600111222"));
+		Tecnico tecnico = tecnicoRepository.save(new Tecnico(null, "Iván Ruiz", "Redes"));
+
+		// Como al deserializar el JSON: la petición trae su propia copia (desactualizada) del cliente
+		Cliente copia = new Cliente(cliente.getId(), "Nombre antiguo", cliente.getEmail(), cliente.getTelefono());
+		Solicitud creada = solicitudService.save(new Solicitud(null, "Sin conexión", LocalDateTime.now(), "PENDIENTE",
+				copia, new Tecnico(tecnico)));
+
+		Solicitud guardada = solicitudRepository.findById(creada.getId()).orElseThrow();
+		assertEquals(cliente.getId(), guardada.getClienteId());
+		assertEquals(tecnico.getId(), guardada.getTecnicoId());
+		for (Field campo : Solicitud.class.getDeclaredFields()) {
+			if (Modifier.isStatic(campo.getModifiers())) {
+				continue;
+			}
+			campo.setAccessible(true);
+			Object valor = campo.get(guardada);
+			assertFalse(valor instanceof Cliente || valor instanceof Tecnico,
+					"La solicitud guardada retiene " + campo.getName());
+		}
+
+		// Al leer se resuelven los datos actuales, no la copia que trajo la petición
+		Solicitud leida = solicitudService.findById(creada.getId()).orElseThrow();
+		assertEquals("Marta Gil", leida.getCliente().getNombre());
+		assertEquals("Iván Ruiz", leida.getTecnico().getNombre());
+	}
+
+	@Test
+	@Tag("perf")
+	void lasReferenciasOcupanMenosQueLasCopiasEmbebidas() {
+		// -Dmemoria.benchmark.solicitudes=10000000 (con -Xmx suficiente) para la medida completa
+		int total = Integer.getInteger("memoria.benchmark.solicitudes", 300_000);
+		int numClientes = 10_000;
+		int numTecnicos = 50;
+		LocalDateTime fecha = LocalDateTime.now();
+
+		List<Cliente> clientes = new ArrayList<>();
+		for (long i = 1; i <= numClientes; i++) {
+			clientes.add(new Cliente(i, "Cliente " + i, "cliente" + i + "@empresa.com", "600" + i));
+		}
+		List<Tecnico> tecnicos = new ArrayList<>();
+		for (long i = 1; i <= numTecnicos; i++) {
+			tecnicos.add(new Tecnico(i, "Técnico " + i, "Redes"));
+		}
+
+		long base = memoriaUsada();
+		List<Solicitud> embebidas = new ArrayList<>(total);
+		for (int i = 0; i < total; i++) {
+			// Como al deserializar el JSON: cada solicitud trae su propia copia
+			Cliente c = clientes.get(i % numClientes);
+			Tecnico t = tecnicos.get(i % numTecnicos);
+			embebidas.add(new Solicitud(null, "Sin conexión", fecha, "PENDIENTE",
+					new Cliente(c.getId(), new String(c.getNombre()), new String(c.getEmail()), new String(c.getTelefono())),
+					new Tecnico(t.getId(), new String(t.getNombre()), new String(t.getEspecialidad()))));
+		}
+		long bytesEmbebidas = memoriaUsada() - base;
+		assertEquals(total, embebidas.size());
+		embebidas = null;
+
+		base = memoriaUsada();
+		List<Solicitud> referencias = new ArrayList<>(total);
+		for (int i = 0; i < total; i++) {
+			Solicitud s = new Solicitud(null, "Sin conexión", fecha, "PENDIENTE", null, null);
+			s.setClienteId(clientes.get(i % numClientes).getId());
+			s.setTecnicoId(tecnicos.get(i % numTecnicos).getId());
+			referencias.add(s);
+		}
+		long bytesReferencias = memoriaUsada() - base;
+		assertEquals(total, referencias.size());
+
+		// Medida aproximada (depende del GC): sólo se ejecuta con -Pperf
+		assertTrue(bytesReferencias < bytesEmbebidas / 2,
+				"Las referencias deberían ocupar mucho menos: " + bytesReferencias + " vs " + bytesEmbebidas);
+	}
+
+	private static long memoriaUsada() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,108 @@
+package com.example.soporte_tecnico.replication;
+
+import com.example.soporte_tecnico.events.SolicitudEventBus;
+import com.example.soporte_tecnico.model.Cliente;
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.repository.ClienteRepositoryImpl;
+import com.example.soporte_tecnico.repository.SolicitudRepositoryImpl;
+import com.example.soporte_tecnico.repository.TecnicoRepositoryImpl;
+import com.example.soporte_tecnico.service.SolicitudServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicationTest {
+
+	private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+	@Test
+	void laReplicaCargaLaInstantaneaYSigueLosCambios() throws Exception {
+		Nodo primario = new Nodo(mapper);
+		ReplicationProperties propiedades = new ReplicationProperties();
+		propiedades.setPuerto(0);
+		ReplicationPrimary servidor = new ReplicationPrimary(propiedades, mapper,
+				primario.clientes, primario.tecnicos, primario.solicitudes);
+		ReplicaClient replica = null;
+		ReplicaClient tardia = null;
+		try {
+			servidor.iniciar();
+			Cliente cliente = primario.clientes.save(new Cliente(null, "Lucía Gómez", "lucia@empresa.com", "555"));
+
+			Nodo nodo = new Nodo(mapper);
+			ReplicaClient conectada = nuevaReplica(nodo, servidor);
+			replica = conectada;
+			esperar(() -> conectada.estado().instantaneas() == 1);
+			assertTrue(nodo.clientes.existsById(cliente.getId()));
+			assertEquals(primario.solicitudes.findAll().size(), nodo.solicitudes.findAll().size());
+
+			// Cambios posteriores a la instantánea: alta, actualización y baja
+			Solicitud solicitud = primario.servicio.save(new Solicitud(null, "Impresora atascada",
+					LocalDateTime.now(), "PENDIENTE", cliente, null));
+			Solicitud cambio = new Solicitud(solicitud);
+			cambio.setEstado("EN_PROCESO");
+			primario.servicio.update(solicitud.getId(), cambio);
+			primario.clientes.deleteById(cliente.getId());
+
+			esperar(() -> !nodo.clientes.existsById(cliente.getId()));
+			Solicitud replicada = nodo.solicitudes.findById(solicitud.getId()).orElseThrow();
+			assertEquals("EN_PROCESO", replicada.getEstado());
+			assertEquals(2L, replicada.getVersion());
+			// El índice de texto de la réplica también se pone al día
+			assertFalse(nodo.servicio.buscar("impresora", 10).isEmpty());
+
+			esperar(() -> conectada.estado().retrasoCambios() == 0
+					&& servidor.estado().replicas().get(0).retrasoCambios() == 0);
+			assertEquals(1, replica.estado().instantaneas());
+
+			// Una réplica que llega tarde recibe todo en su instantánea
+			Nodo otro = new Nodo(mapper);
+			ReplicaClient nueva = nuevaReplica(otro, servidor);
+			tardia = nueva;
+			esperar(() -> nueva.estado().instantaneas() == 1);
+			assertFalse(otro.clientes.existsById(cliente.getId()));
+			assertEquals(2L, otro.solicitudes.findById(solicitud.getId()).orElseThrow().getVersion());
+		} finally {
+			if (replica != null) {
+				replica.cerrar();
+			}
+			if (tardia != null) {
+				tardia.cerrar();
+			}
+			servidor.cerrar();
+		}
+	}
+
+	private ReplicaClient nuevaReplica(Nodo nodo, ReplicationPrimary servidor) {
+		ReplicationProperties propiedades = new ReplicationProperties();
+		propiedades.setPrimario("localhost:" + servidor.puerto());
+		propiedades.setReintentoMs(50);
+		ReplicaClient replica = new ReplicaClient(propiedades, mapper, nodo.servicio,
+				nodo.clientes, nodo.tecnicos, nodo.solicitudes);
+		replica.iniciar();
+		return replica;
+	}
+
+	private static void esperar(BooleanSupplier condicion) throws InterruptedException {
+		long limite = System.currentTimeMillis() + 10_000;
+		while (!condicion.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < limite, "la réplica no se puso al día a tiempo");
+			Thread.sleep(20);
+		}
+	}
+
+	// Repositorios y servicio de una instancia, como los montaría Spring
+	private static final class Nodo {
+		final ClienteRepositoryImpl clientes = new ClienteRepositoryImpl();
+		final TecnicoRepositoryImpl tecnicos = new TecnicoRepositoryImpl();
+		final SolicitudRepositoryImpl solicitudes = new SolicitudRepositoryImpl();
+		final SolicitudServiceImpl servicio;
+
+		Nodo(ObjectMapper mapper) {
+			servicio = new SolicitudServiceImpl(solicitudes, clientes, tecnicos, new SolicitudEventBus(mapper, 1024));
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.exception.VersionConflictException;
+import com.example.soporte_tecnico.model.Solicitud;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcSolicitudRepositoryTest {
+
+	private static final LocalDateTime FECHA = LocalDateTime.of(2026, 1, 1, 9, 0);
+
+	private JdbcSolicitudRepository repositorio;
+
+	@BeforeEach
+	void crearBase() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+		new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")).execute(dataSource);
+		repositorio = new JdbcSolicitudRepository(new JdbcTemplate(dataSource),
+				new DataSourceTransactionManager(dataSource), 3);
+	}
+
+	private static Solicitud solicitud(long clienteId, long tecnicoId, String estado) {
+		Solicitud s = new Solicitud(null, "Incidencia del cliente " + clienteId, FECHA, estado, null, null);
+		s.setClienteId(clienteId);
+		s.setTecnicoId(tecnicoId);
+		return s;
+	}
+
+	@Test
+	void guardaLeeYActualizaConVersion() {
+		Solicitud guardada = repositorio.save(solicitud(1, 2, "PENDIENTE"));
+		assertEquals(1L, guardada.getId());
+
+		Solicitud leida = repositorio.findById(1L).orElseThrow();
+		assertEquals(FECHA, leida.getFechaCreacion());
+		assertEquals(2L, leida.getTecnicoId());
+		assertEquals(1L, leida.getVersion());
+
+		leida.setEstado("EN_PROCESO");
+		Solicitud nueva = repositorio.update(leida);
+		assertEquals(2L, nueva.getVersion());
+
+		// La copia leída antes sigue en la versión 1
+		assertThrows(VersionConflictException.class, () -> repositorio.update(leida));
+		assertEquals("EN_PROCESO", repositorio.findById(1L).orElseThrow().getEstado());
+
+		repositorio.deleteById(1L);
+		assertFalse(repositorio.existsById(1L));
+		assertEquals(0, repositorio.count());
+	}
+
+	@Test
+	void lotesSeGuardanYActualizanEnUnaTransaccion() {
+		List<Solicitud> lote = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			lote.add(solicitud(i % 2, 1, "PENDIENTE"));
+		}
+		repositorio.saveAll(lote);
+		assertEquals(10, repositorio.count());
+		assertEquals(5, repositorio.findByClienteId(1L).size());
+
+		List<Solicitud> cambios = repositorio.findByTecnicoId(1L);
+		cambios.forEach(s -> s.setTecnicoId(2L));
+		// Una versión desfasada anula todo el lote
+		cambios.get(7).setVersion(5L);
+		assertThrows(VersionConflictException.class, () -> repositorio.updateAll(cambios));
+		assertEquals(10, repositorio.countByTecnicoId(1L));
+
+		cambios.get(7).setVersion(1L);
+		repositorio.updateAll(cambios);
+		assertEquals(0, repositorio.countByTecnicoId(1L));
+		assertEquals(10, repositorio.countByTecnicoId(2L));
+
+		Map<Long, Long> porCliente = repositorio.agregar(
+				Collectors.groupingBy(Solicitud::getClienteId, Collectors.counting()));
+		assertEquals(Map.of(0L, 5L, 1L, 5L), porCliente);
+	}
+}
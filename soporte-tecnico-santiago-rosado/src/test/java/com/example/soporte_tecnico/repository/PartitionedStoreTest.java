@@ -0,0 +1,116 @@
+package com.example.soporte_tecnico.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedStoreTest {
+
+	record Fila(long id, int valor) {
+	}
+
+	@Test
+	void losRecorridosSalenOrdenadosPorId() {
+		PartitionedStore<Fila, PartitionedStore.Indices<Fila>> almacen =
+				new PartitionedStore<>(8, Fila::id, PartitionedStore::sinIndices);
+		for (long id = 20_000; id >= 1; id--) {
+			almacen.putIfAbsent(new Fila(id, (int) (id % 3)));
+		}
+
+		assertEquals(8, almacen.particiones());
+		List<Fila> todas = almacen.valores();
+		assertEquals(20_000, todas.size());
+		for (int i = 0; i < todas.size(); i++) {
+			assertEquals(i + 1, todas.get(i).id());
+		}
+		List<Fila> filtradas = almacen.filtrar(f -> f.valor() == 0);
+		assertEquals(6_666, filtradas.size());
+		assertEquals(3, filtradas.get(0).id());
+		assertEquals(19_998, filtradas.get(filtradas.size() - 1).id());
+	}
+
+	@Test
+	void replaceSoloSustituyeLaInstanciaEsperada() {
+		PartitionedStore<Fila, PartitionedStore.Indices<Fila>> almacen =
+				new PartitionedStore<>(4, Fila::id, PartitionedStore::sinIndices);
+		Fila original = new Fila(7, 1);
+		assertNull(almacen.putIfAbsent(original));
+		assertSame(original, almacen.putIfAbsent(new Fila(7, 2)));
+
+		Fila nueva = new Fila(7, 3);
+		assertTrue(almacen.replace(original, nueva));
+		assertFalse(almacen.replace(original, new Fila(7, 4)), "Una instancia antigua no debe poder sustituir");
+		assertSame(nueva, almacen.remove(7));
+		assertTrue(almacen.isEmpty());
+	}
+
+	@Test
+	void escriturasConcurrentesYRecorridoParalelo() throws Exception {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			PartitionedStore<Fila, PartitionedStore.Indices<Fila>> almacen =
+					new PartitionedStore<>(8, Fila::id, PartitionedStore::sinIndices, pool);
+			escribir(almacen, 20_000, 4);
+
+			assertEquals(20_000, almacen.size());
+			List<Fila> encontradas = almacen.filtrar(f -> f.valor() % 100 == 0);
+			assertEquals(200, encontradas.size());
+			for (int i = 1; i < encontradas.size(); i++) {
+				assertTrue(encontradas.get(i - 1).id() < encontradas.get(i).id());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	@Tag("perf")
+	void escriturasYRecorridosConUnMillonDeFilas() throws Exception {
+		// -Dparticiones.benchmark.filas=10000000 -Dparticiones.benchmark.max-hilos=32 en una máquina con 32 núcleos
+		int filas = Integer.getInteger("particiones.benchmark.filas", 1_000_000);
+		int maxHilos = Integer.getInteger("particiones.benchmark.max-hilos",
+				Math.min(32, Runtime.getRuntime().availableProcessors()));
+
+		for (int hilos = 1; hilos <= maxHilos; hilos *= 2) {
+			for (int particiones : new int[]{1, Math.max(32, hilos)}) {
+				ForkJoinPool pool = new ForkJoinPool(hilos);
+				PartitionedStore<Fila, PartitionedStore.Indices<Fila>> almacen =
+						new PartitionedStore<>(particiones, Fila::id, PartitionedStore::sinIndices, pool);
+
+				escribir(almacen, filas, hilos);
+				assertEquals(filas, almacen.size());
+				assertEquals(filas / 100, almacen.filtrar(f -> f.valor() % 100 == 0).size());
+				pool.shutdown();
+			}
+		}
+	}
+
+	private static void escribir(PartitionedStore<Fila, PartitionedStore.Indices<Fila>> almacen,
+								 int filas, int hilos) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(hilos);
+		try {
+			List<Future<?>> tareas = new ArrayList<>();
+			for (int h = 0; h < hilos; h++) {
+				int desde = h;
+				tareas.add(executor.submit(() -> {
+					for (int id = desde; id < filas; id += hilos) {
+						almacen.putIfAbsent(new Fila(id + 1, id));
+					}
+				}));
+			}
+			for (Future<?> tarea : tareas) {
+				tarea.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
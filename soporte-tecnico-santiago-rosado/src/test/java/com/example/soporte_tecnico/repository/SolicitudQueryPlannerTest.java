@@ -0,0 +1,98 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.model.Solicitud;
+import com.example.soporte_tecnico.query.FiltroSolicitudes;
+import com.example.soporte_tecnico.query.PlanConsulta;
+import com.example.soporte_tecnico.query.ResultadoFiltrado;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolicitudQueryPlannerTest {
+
+	private static final LocalDateTime INICIO = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+	@Test
+	void parteDelIndiceMasSelectivoYCruzaLosDemas() {
+		SolicitudRepositoryImpl repositorio = poblado();
+
+		// 80 % pendientes, 10 solicitudes por cliente: manda el cliente y el estado se sondea
+		FiltroSolicitudes filtro = new FiltroSolicitudes("PENDIENTE", 3L, null, null, null);
+		ResultadoFiltrado resultado = repositorio.filtrar(filtro, true);
+
+		assertEquals(PlanConsulta.INDICE, resultado.plan().estrategia());
+		assertEquals(PlanConsulta.CLIENTE, resultado.plan().indice());
+		assertEquals(10, resultado.plan().estimadas());
+		assertEquals(List.of(PlanConsulta.ESTADO), resultado.plan().intersecciones());
+		assertTrue(resultado.plan().examinadas() <= 10);
+		assertEquals(aMano(repositorio, filtro), resultado.solicitudes());
+	}
+
+	@Test
+	void recorreTodoCuandoElIndiceNoFiltraLoBastante() {
+		SolicitudRepositoryImpl repositorio = poblado();
+
+		FiltroSolicitudes filtro = new FiltroSolicitudes("PENDIENTE", null, null, null, null);
+		ResultadoFiltrado resultado = repositorio.filtrar(filtro, true);
+
+		assertEquals(PlanConsulta.RECORRIDO, resultado.plan().estrategia());
+		assertEquals(200, resultado.plan().examinadas());
+		assertEquals(160, resultado.plan().devueltas());
+		assertEquals(aMano(repositorio, filtro), resultado.solicitudes());
+	}
+
+	@Test
+	void elRangoDeFechasUsaSuIndice() {
+		SolicitudRepositoryImpl repositorio = poblado();
+
+		// Diez horas de las doscientas, con el extremo final excluido
+		FiltroSolicitudes filtro = new FiltroSolicitudes(null, null, null, INICIO.plusHours(50), INICIO.plusHours(60));
+		ResultadoFiltrado resultado = repositorio.filtrar(filtro, true);
+
+		assertEquals(PlanConsulta.FECHA, resultado.plan().indice());
+		assertEquals(10, resultado.solicitudes().size());
+		assertEquals(10, resultado.plan().examinadas());
+		assertEquals(aMano(repositorio, filtro), resultado.solicitudes());
+
+		// Combinado con técnico y estado: el resultado no depende del índice elegido
+		FiltroSolicitudes combinado = new FiltroSolicitudes("RESUELTA", null, 4L, INICIO.plusHours(20), null);
+		assertEquals(aMano(repositorio, combinado), repositorio.filtrar(combinado, false).solicitudes());
+	}
+
+	@Test
+	void sigueAlosCambiosDeEstado() {
+		SolicitudRepositoryImpl repositorio = poblado();
+		FiltroSolicitudes resueltas = new FiltroSolicitudes("RESUELTA", 7L, null, null, null);
+		int antes = repositorio.filtrar(resueltas, false).solicitudes().size();
+
+		Solicitud pendiente = repositorio.filtrar(new FiltroSolicitudes("PENDIENTE", 7L, null, null, null), false)
+				.solicitudes().get(0);
+		Solicitud cambiada = new Solicitud(pendiente);
+		cambiada.setEstado("RESUELTA");
+		repositorio.update(cambiada);
+
+		List<Solicitud> despues = repositorio.filtrar(resueltas, false).solicitudes();
+		assertEquals(antes + 1, despues.size());
+		assertTrue(despues.stream().anyMatch(s -> s.getId().equals(pendiente.getId())));
+	}
+
+	// 200 solicitudes, una por hora: 20 clientes, 5 técnicos, 80 % pendientes
+	private static SolicitudRepositoryImpl poblado() {
+		SolicitudRepositoryImpl repositorio = new SolicitudRepositoryImpl(4);
+		for (int i = 0; i < 200; i++) {
+			String estado = i % 10 < 8 ? "PENDIENTE" : i % 10 == 8 ? "EN_PROCESO" : "RESUELTA";
+			Solicitud s = new Solicitud(null, "Solicitud " + i, INICIO.plusHours(i), estado, null, null);
+			s.setClienteId((long) (i % 20));
+			s.setTecnicoId((long) (i % 5));
+			repositorio.save(s);
+		}
+		return repositorio;
+	}
+
+	private static List<Solicitud> aMano(SolicitudRepositoryImpl repositorio, FiltroSolicitudes filtro) {
+		return repositorio.findAll().stream().filter(filtro::cumple).toList();
+	}
+}
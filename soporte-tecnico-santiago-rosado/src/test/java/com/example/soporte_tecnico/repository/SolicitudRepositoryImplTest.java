@@ -0,0 +1,58 @@
+package com.example.soporte_tecnico.repository;
+
+import com.example.soporte_tecnico.model.Solicitud;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolicitudRepositoryImplTest {
+
+	@Test
+	void losIndicesInversosSiguenAlasReferencias() {
+		SolicitudRepositoryImpl repositorio = new SolicitudRepositoryImpl();
+		Solicitud a = repositorio.save(solicitud(1L, 10L));
+		Solicitud b = repositorio.save(solicitud(1L, 20L));
+		repositorio.save(solicitud(2L, 20L));
+
+		assertEquals(2, repositorio.findByClienteId(1L).size());
+		assertEquals(2, repositorio.countByTecnicoId(20L));
+
+		// Cambio de técnico: sale del índice anterior y entra en el nuevo
+		Solicitud cambiada = new Solicitud(a);
+		cambiada.setTecnicoId(20L);
+		repositorio.update(cambiada);
+		assertEquals(0, repositorio.countByTecnicoId(10L));
+		assertEquals(3, repositorio.countByTecnicoId(20L));
+
+		repositorio.deleteById(b.getId());
+		assertEquals(1, repositorio.findByClienteId(1L).size());
+		assertEquals(a.getId(), repositorio.findByClienteId(1L).get(0).getId());
+		assertTrue(repositorio.findByClienteId(99L).isEmpty());
+	}
+
+	@Test
+	void saveAllGuardaTodasONinguna() {
+		SolicitudRepositoryImpl repositorio = new SolicitudRepositoryImpl();
+		Solicitud existente = repositorio.save(solicitud(1L, 10L));
+		long antes = repositorio.count();
+
+		Solicitud repetida = solicitud(2L, 10L);
+		repetida.setId(existente.getId());
+		assertThrows(IllegalArgumentException.class,
+				() -> repositorio.saveAll(List.of(solicitud(2L, 10L), solicitud(3L, 10L), repetida)));
+
+		assertEquals(antes, repositorio.count());
+		assertTrue(repositorio.findByClienteId(2L).isEmpty());
+		assertEquals(1, repositorio.findByClienteId(1L).size());
+	}
+
+	private static Solicitud solicitud(Long clienteId, Long tecnicoId) {
+		Solicitud s = new Solicitud(null, "Sin conexión", LocalDateTime.now(), "PENDIENTE", null, null);
+		s.setClienteId(clienteId);
+		s.setTecnicoId(tecnicoId);
+		return s;
+	}
+}
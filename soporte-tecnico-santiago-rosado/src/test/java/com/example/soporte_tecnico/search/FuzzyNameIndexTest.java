@@ -0,0 +1,103 @@
+package com.example.soporte_tecnico.search;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzyNameIndexTest {
+
+	@Test
+	void toleraErroresYOrdenaPorParecido() {
+		FuzzyNameIndex indice = new FuzzyNameIndex();
+		indice.indexar(1, "Luisa Fernández");
+		indice.indexar(2, "Pedro García");
+		indice.indexar(3, "Luis Hernández");
+		indice.indexar(4, "Ana Martínez");
+
+		List<FuzzyNameIndex.Candidato> candidatos = indice.buscar("Luisa Fernandes", 2, 10);
+
+		assertEquals(1, candidatos.get(0).id());
+		assertEquals(2, candidatos.get(0).coincidencias());
+		assertEquals(1, candidatos.get(0).distancia());
+		assertEquals(3, candidatos.get(1).id());
+		assertTrue(candidatos.stream().noneMatch(c -> c.id() == 2 || c.id() == 4));
+	}
+
+	@Test
+	void respetaLaDistanciaMaxima() {
+		FuzzyNameIndex indice = new FuzzyNameIndex();
+		indice.indexar(1, "Rodríguez");
+
+		assertTrue(indice.buscar("Rodrigo", 1, 10).isEmpty());
+		assertEquals(1, indice.buscar("rodriges", 2, 10).size());
+		assertEquals(1, indice.buscar("RODRIGUEZ", 0, 10).size());
+	}
+
+	@Test
+	void seMantieneAlActualizarYEliminar() {
+		FuzzyNameIndex indice = new FuzzyNameIndex();
+		indice.indexar(1, "Elena Castro");
+		indice.indexar(1, "Elena Castillo");
+		assertTrue(indice.buscar("Castro", 0, 10).isEmpty());
+		assertEquals(1, indice.buscar("Castilo", 1, 10).size());
+
+		for (int i = 2; i < 5_000; i++) {
+			indice.indexar(i, "Nombre" + i);
+		}
+		for (int i = 2; i < 5_000; i++) {
+			indice.eliminar(i);
+		}
+		assertEquals(2, indice.palabrasDistintas());
+		assertTrue(indice.buscar("nombre10", 2, 10).isEmpty());
+		assertEquals(1, indice.buscar("Elena", 0, 10).size());
+	}
+
+	@Test
+	@Tag("perf")
+	void busquedasEnUnMillonDeNombres() {
+		int nombres = Integer.getInteger("busqueda.benchmark.nombres", 1_000_000);
+		Random random = new Random(7);
+		String[] silabas = {"ba", "be", "ca", "co", "da", "de", "fe", "ga", "go", "la", "lo", "ma", "me",
+				"na", "ne", "pa", "pe", "ra", "re", "ro", "sa", "se", "ta", "te", "to", "va", "vi", "za"};
+		String[] finales = {"", "z", "s", "n", "l", "r"};
+		String[] nombresPila = new String[2_000];
+		String[] apellidos = new String[40_000];
+		for (int i = 0; i < nombresPila.length; i++) {
+			nombresPila[i] = palabra(random, silabas, finales, 2);
+		}
+		for (int i = 0; i < apellidos.length; i++) {
+			apellidos[i] = palabra(random, silabas, finales, 3);
+		}
+
+		FuzzyNameIndex indice = new FuzzyNameIndex();
+		for (int id = 0; id < nombres; id++) {
+			indice.indexar(id, nombresPila[random.nextInt(nombresPila.length)] + " "
+					+ apellidos[random.nextInt(apellidos.length)] + " " + apellidos[random.nextInt(apellidos.length)]);
+		}
+
+		// Consultas con una errata en el apellido
+		String[] consultas = new String[200];
+		for (int i = 0; i < consultas.length; i++) {
+			char[] apellido = apellidos[random.nextInt(apellidos.length)].toCharArray();
+			apellido[random.nextInt(apellido.length)] = 'x';
+			consultas[i] = new String(apellido);
+		}
+		for (String consulta : consultas) {
+			List<FuzzyNameIndex.Candidato> candidatos = indice.buscar(consulta, 2, 20);
+			assertFalse(candidatos.isEmpty());
+			assertTrue(candidatos.size() <= 20);
+		}
+	}
+
+	private static String palabra(Random random, String[] silabas, String[] finales, int numSilabas) {
+		StringBuilder sb = new StringBuilder();
+		for (int s = 0; s < numSilabas + random.nextInt(2); s++) {
+			sb.append(silabas[random.nextInt(silabas.length)]);
+		}
+		return sb.append(finales[random.nextInt(finales.length)]).toString();
+	}
+}
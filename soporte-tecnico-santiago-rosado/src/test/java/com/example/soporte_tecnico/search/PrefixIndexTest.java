@@ -0,0 +1,66 @@
+package com.example.soporte_tecnico.search;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixIndexTest {
+
+	@Test
+	void buscaPorPrefijoDeCualquierPalabra() {
+		PrefixIndex indice = new PrefixIndex();
+		indice.indexar(1, "Luisa Fernández");
+		indice.indexar(2, "Fermín López");
+		indice.indexar(3, "Ana Martínez");
+
+		assertEquals(List.of(2L, 1L), indice.buscar("FER", 10));
+		assertEquals(List.of(1L), indice.buscar("fernan", 10));
+		assertEquals(List.of(1L), indice.buscar("lu fer", 10));
+		assertEquals(List.of(3L), indice.buscar("mart", 10));
+		assertEquals(1, indice.buscar("fer", 1).size());
+	}
+
+	@Test
+	void seMantieneAlActualizarYEliminar() {
+		PrefixIndex indice = new PrefixIndex();
+		indice.indexar(1, "Elena Castro");
+		indice.indexar(1, "Elena Castillo");
+		assertEquals(List.of(1L), indice.buscar("castil", 10));
+		assertTrue(indice.buscar("castr", 10).isEmpty());
+
+		indice.eliminar(1);
+		assertTrue(indice.buscar("elena", 10).isEmpty());
+		assertEquals(0, indice.size());
+	}
+
+	@Test
+	@Tag("perf")
+	void autocompletadoEnUnMillonDeNombres() {
+		Random random = new Random(11);
+		PrefixIndex indice = new PrefixIndex();
+		for (int id = 0; id < 1_000_000; id++) {
+			indice.indexar(id, palabra(random, 6) + " " + palabra(random, 8));
+		}
+
+		String[] prefijos = new String[2_000];
+		for (int i = 0; i < prefijos.length; i++) {
+			prefijos[i] = palabra(random, 1 + random.nextInt(3));
+		}
+		for (String prefijo : prefijos) {
+			// Con un millón de nombres aleatorios cualquier prefijo de hasta 3 letras tiene sugerencias
+			assertEquals(10, indice.buscar(prefijo, 10).size());
+		}
+	}
+
+	private static String palabra(Random random, int longitud) {
+		char[] letras = new char[longitud];
+		for (int i = 0; i < longitud; i++) {
+			letras[i] = (char) ('a' + random.nextInt(26));
+		}
+		return new String(letras);
+	}
+}
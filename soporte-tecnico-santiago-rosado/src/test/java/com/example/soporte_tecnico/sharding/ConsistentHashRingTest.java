@@ -0,0 +1,60 @@
+package com.example.soporte_tecnico.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+	private static final List<String> NODOS = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+
+	@Test
+	void repartoEquilibradoConNodosVirtuales() {
+		ConsistentHashRing anillo = new ConsistentHashRing(NODOS, 128);
+		Map<String, Integer> claves = new HashMap<>();
+		for (long id = 1; id <= 30_000; id++) {
+			claves.merge(anillo.nodo(id), 1, Integer::sum);
+		}
+
+		assertEquals(3, claves.size());
+		for (int n : claves.values()) {
+			assertTrue(n > 7_000 && n < 13_000, "reparto desequilibrado: " + claves);
+		}
+		double total = anillo.reparto().values().stream().mapToDouble(Double::doubleValue).sum();
+		assertEquals(1.0, total, 1e-9);
+	}
+
+	@Test
+	void mismoDuenoSinImportarElOrdenDeLosNodos() {
+		ConsistentHashRing anillo = new ConsistentHashRing(NODOS, 64);
+		ConsistentHashRing otro = new ConsistentHashRing(List.of(NODOS.get(2), NODOS.get(0), NODOS.get(1)), 64);
+		for (long id = 1; id <= 5_000; id++) {
+			assertEquals(anillo.nodo(id), otro.nodo(id));
+		}
+	}
+
+	@Test
+	void alAnadirUnNodoSoloSeMuevenClavesHaciaEl() {
+		ConsistentHashRing anillo = new ConsistentHashRing(NODOS, 128);
+		ConsistentHashRing ampliado = anillo.con("http://d:8080");
+		int total = 40_000;
+		int movidas = 0;
+		for (long id = 1; id <= total; id++) {
+			String antes = anillo.nodo(id);
+			String despues = ampliado.nodo(id);
+			if (!antes.equals(despues)) {
+				assertEquals("http://d:8080", despues);
+				movidas++;
+			}
+		}
+
+		// Con cuatro nodos le corresponde una cuarta parte del espacio
+		assertTrue(movidas > total * 0.15 && movidas < total * 0.35, "movidas: " + movidas);
+		assertEquals(3, anillo.nodos().size());
+		assertEquals(4, ampliado.nodos().size());
+	}
+}
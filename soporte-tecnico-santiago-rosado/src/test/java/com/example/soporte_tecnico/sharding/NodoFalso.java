@@ -0,0 +1,55 @@
+package com.example.soporte_tecnico.sharding;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Nodo del clúster de pega: responde lo configurado para cada "MÉTODO ruta?consulta" (404 si
+ * no hay nada) y anota las peticiones que recibe
+ */
+final class NodoFalso implements AutoCloseable {
+
+	private record Respuesta(int estado, String cuerpo) {
+	}
+
+	private final HttpServer servidor;
+	private final Map<String, Respuesta> respuestas = new ConcurrentHashMap<>();
+	final List<String> recibidas = new CopyOnWriteArrayList<>();
+
+	NodoFalso() throws IOException {
+		servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		servidor.createContext("/", intercambio -> {
+			String clave = intercambio.getRequestMethod() + " " + intercambio.getRequestURI();
+			recibidas.add(clave);
+			intercambio.getRequestBody().readAllBytes();
+			Respuesta respuesta = respuestas.getOrDefault(clave, new Respuesta(404, "{}"));
+			byte[] cuerpo = respuesta.cuerpo().getBytes(StandardCharsets.UTF_8);
+			intercambio.getResponseHeaders().set("Content-Type", "application/json");
+			intercambio.sendResponseHeaders(respuesta.estado(), cuerpo.length);
+			intercambio.getResponseBody().write(cuerpo);
+			intercambio.close();
+		});
+		servidor.start();
+	}
+
+	String url() {
+		return "http://127.0.0.1:" + servidor.getAddress().getPort();
+	}
+
+	NodoFalso responder(String peticion, int estado, String cuerpo) {
+		respuestas.put(peticion, new Respuesta(estado, cuerpo));
+		return this;
+	}
+
+	@Override
+	public void close() {
+		servidor.stop(0);
+	}
+}
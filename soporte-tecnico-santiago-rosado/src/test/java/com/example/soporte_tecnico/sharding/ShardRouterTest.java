@@ -0,0 +1,70 @@
+package com.example.soporte_tecnico.sharding;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRouterTest {
+
+	private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+	private static NodoFalso vacio() throws Exception {
+		NodoFalso nodo = new NodoFalso().responder("GET /api/cluster/nodo", 200, "{\"ultimosIds\":{}}");
+		for (Recurso recurso : Recurso.values()) {
+			nodo.responder("GET /api/cluster/datos/" + recurso.ruta() + "?despuesDe=0&limite=1000", 200, "[]");
+		}
+		return nodo;
+	}
+
+	private static ShardingProperties properties(String nodo, Path fichero) {
+		ShardingProperties properties = new ShardingProperties();
+		properties.setNodos(List.of(nodo));
+		properties.setFicheroNodos(fichero.toString());
+		return properties;
+	}
+
+	@Test
+	void elNodoAnadidoSigueEnElAnilloTrasReiniciar(@TempDir Path dir) throws Exception {
+		Path fichero = dir.resolve("sharding/nodos");
+		try (NodoFalso a = vacio(); NodoFalso b = vacio()) {
+			new ShardRouter(properties(a.url(), fichero), mapper).anadirNodo(b.url());
+
+			assertEquals(List.of(a.url(), b.url()), Files.readAllLines(fichero));
+			ShardRouter reiniciado = new ShardRouter(properties(a.url(), fichero), mapper);
+			assertEquals(List.of(a.url(), b.url()), reiniciado.nodos());
+		}
+	}
+
+	@Test
+	void siNoSePuedeGuardarElAnilloNoCambiaNiSeDescartaNada(@TempDir Path dir) throws Exception {
+		// El directorio del fichero es un fichero: no se puede crear
+		Files.writeString(dir.resolve("ocupado"), "");
+		Path fichero = dir.resolve("ocupado/nodos");
+		try (NodoFalso a = vacio(); NodoFalso b = vacio()) {
+			a.responder("GET /api/cluster/datos/clientes?despuesDe=0&limite=1000", 200, datosHasta(200))
+					.responder("POST /api/cluster/datos/clientes/descartar", 200, "{}");
+			b.responder("POST /api/cluster/datos/clientes", 200, "{}");
+			ShardRouter router = new ShardRouter(properties(a.url(), fichero), mapper);
+
+			assertThrows(RuntimeException.class, () -> router.anadirNodo(b.url()));
+
+			assertEquals(List.of(a.url()), router.nodos());
+			assertTrue(b.recibidas.contains("POST /api/cluster/datos/clientes"), "los datos sí se copiaron");
+			assertFalse(a.recibidas.contains("POST /api/cluster/datos/clientes/descartar"));
+		}
+	}
+
+	private static String datosHasta(int n) {
+		StringBuilder datos = new StringBuilder("[");
+		for (int id = 1; id <= n; id++) {
+			datos.append(id > 1 ? "," : "").append("{\"id\":").append(id).append('}');
+		}
+		return datos.append(']').toString();
+	}
+}
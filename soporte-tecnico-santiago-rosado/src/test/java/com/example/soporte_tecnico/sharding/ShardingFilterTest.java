@@ -0,0 +1,128 @@
+package com.example.soporte_tecnico.sharding;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardingFilterTest {
+
+	private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+	private ShardingFilter filtro() {
+		ShardingProperties properties = new ShardingProperties();
+		properties.setNodos(List.of("http://a:8080", "http://b:8080"));
+		return new ShardingFilter(new ShardRouter(properties, mapper), mapper);
+	}
+
+	@Test
+	void lasConsultasCompuestasNoSeAtiendenSoloConLosDatosLocales() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/consultas");
+		request.setContent("{}".getBytes());
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockFilterChain chain = new MockFilterChain();
+
+		filtro().doFilter(request, response, chain);
+
+		assertEquals(501, response.getStatus());
+		assertNull(chain.getRequest(), "la consulta no debe llegar al controlador local");
+		assertEquals("/api/consultas", mapper.readTree(response.getContentAsString()).get("path").asText());
+	}
+
+	@Test
+	void soloLaAdministracionDelClusterYLaSaludLasAtiendeEstaInstancia() throws Exception {
+		ShardingFilter filtro = filtro();
+		for (String ruta : List.of("/api/tecnicos/health", "/api/cluster/anillo", "/swagger-ui.html")) {
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", ruta);
+			MockFilterChain chain = new MockFilterChain();
+			filtro.doFilter(request, new MockHttpServletResponse(), chain);
+			assertSame(request, chain.getRequest(), ruta);
+		}
+	}
+
+	@Test
+	void loQueNoSeRepartePorNodosRespondeNoImplementado() throws Exception {
+		ShardingFilter filtro = filtro();
+		for (String ruta : List.of("/api/cambios", "/api/sla/escalados", "/api/archivo/estado",
+				"/api/solicitudes?explain=true&estado=PENDIENTE", "/api/tecnicos/especialidad/Redes?explain=true")) {
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", ruta.split("\\?")[0]);
+			if (ruta.contains("?")) {
+				request.setQueryString(ruta.split("\\?")[1]);
+				request.setParameter("explain", "true");
+			}
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			MockFilterChain chain = new MockFilterChain();
+
+			filtro.doFilter(request, response, chain);
+
+			assertEquals(501, response.getStatus(), ruta);
+			assertNull(chain.getRequest(), ruta);
+		}
+	}
+
+	@Test
+	void conFieldsLosNodosDevuelvenElIdParaMezclarYLuegoSeQuita() throws Exception {
+		try (NodoFalso nodo = new NodoFalso()) {
+			nodo.responder("GET /api/clientes?fields=nombre,id", 200, "[{\"nombre\":\"Ana\",\"id\":2}]")
+					.responder("GET /api/solicitudes?fields=cliente,id,clienteId", 200,
+							"[{\"cliente\":null,\"id\":5,\"clienteId\":2}]")
+					.responder("GET /api/cluster/datos/clientes?ids=2", 200, "[{\"id\":2,\"nombre\":\"Ana\"}]");
+			ShardingProperties properties = new ShardingProperties();
+			properties.setNodos(List.of(nodo.url()));
+			ShardingFilter filtro = new ShardingFilter(new ShardRouter(properties, mapper), mapper);
+
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/clientes");
+			request.setQueryString("fields=nombre");
+			request.setParameter("fields", "nombre");
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			filtro.doFilter(request, response, new MockFilterChain());
+			assertEquals("[{\"nombre\":\"Ana\"}]", response.getContentAsString());
+
+			request = new MockHttpServletRequest("GET", "/api/solicitudes");
+			request.setQueryString("fields=cliente");
+			request.setParameter("fields", "cliente");
+			response = new MockHttpServletResponse();
+			filtro.doFilter(request, response, new MockFilterChain());
+			assertEquals("[{\"cliente\":{\"id\":2,\"nombre\":\"Ana\"}}]", response.getContentAsString());
+		}
+	}
+
+	@Test
+	void siUnNodoRechazaLaCascadaOLaReasignacionNoSeBorraElDueno() throws Exception {
+		try (NodoFalso nodo = new NodoFalso()) {
+			nodo.responder("GET /api/cluster/datos/clientes?ids=1", 200, "[{\"id\":1}]")
+					.responder("GET /api/cluster/datos/solicitudes?clienteId=1", 200, "[{\"id\":10,\"clienteId\":1}]")
+					.responder("DELETE /api/solicitudes/10", 500, "{}")
+					.responder("GET /api/cluster/datos/tecnicos?ids=1", 200, "[{\"id\":1}]")
+					.responder("GET /api/cluster/datos/tecnicos?ids=2", 200, "[{\"id\":2}]")
+					.responder("GET /api/cluster/datos/solicitudes?tecnicoId=1", 200, "[{\"id\":11,\"tecnicoId\":1}]")
+					.responder("PUT /api/solicitudes/11", 412, "{}");
+			ShardingProperties properties = new ShardingProperties();
+			properties.setNodos(List.of(nodo.url()));
+			ShardingFilter filtro = new ShardingFilter(new ShardRouter(properties, mapper), mapper);
+
+			MockHttpServletRequest cascada = new MockHttpServletRequest("DELETE", "/api/clientes/1");
+			cascada.setParameter("politica", "CASCADA");
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			filtro.doFilter(cascada, response, new MockFilterChain());
+			assertEquals(503, response.getStatus());
+
+			MockHttpServletRequest reasignar = new MockHttpServletRequest("DELETE", "/api/tecnicos/1");
+			reasignar.setParameter("politica", "REASIGNAR");
+			reasignar.setParameter("reasignarA", "2");
+			response = new MockHttpServletResponse();
+			filtro.doFilter(reasignar, response, new MockFilterChain());
+			assertEquals(503, response.getStatus());
+
+			assertTrue(nodo.recibidas.contains("DELETE /api/solicitudes/10"));
+			assertTrue(nodo.recibidas.contains("PUT /api/solicitudes/11"));
+			assertFalse(nodo.recibidas.contains("DELETE /api/clientes/1"), nodo.recibidas.toString());
+			assertFalse(nodo.recibidas.contains("DELETE /api/tecnicos/1"), nodo.recibidas.toString());
+		}
+	}
+}
@@ -0,0 +1,223 @@
+package com.example.soporte_tecnico.sla;
+
+import com.example.soporte_tecnico.events.SolicitudEventBus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+	private static final long INICIO = 1_790_000_000L;
+	private static final long DOS_DIAS = 48 * 3600;
+
+	// Vencimiento pseudoaleatorio pero reproducible de cada temporizador
+	private static long vencimiento(long i) {
+		long x = i * 0x9E3779B97F4A7C15L;
+		x ^= x >>> 29;
+		return INICIO + 1 + Math.floorMod(x, DOS_DIAS);
+	}
+
+	@Test
+	void cadaTemporizadorVenceEnSuTick() {
+		programarCancelarYVencer(100_000);
+	}
+
+	@Test
+	@Tag("perf")
+	void diezMillonesDeTemporizadoresVencenEnSuTick() {
+		programarCancelarYVencer(10_000_000);
+	}
+
+	private static void programarCancelarYVencer(int n) {
+		TimingWheel rueda = new TimingWheel(INICIO, n);
+		long[] ids = new long[n];
+		for (int i = 0; i < n; i++) {
+			ids[i] = rueda.programar(vencimiento(i), i);
+		}
+		assertEquals(n, rueda.size());
+
+		// Un tercio se resuelve antes de vencer
+		int cancelados = 0;
+		for (int i = 0; i < n; i += 3) {
+			assertTrue(rueda.cancelar(ids[i]));
+			cancelados++;
+		}
+		assertFalse(rueda.cancelar(ids[0]));
+
+		long[] vencidos = {0};
+		long[] fuera = {0};
+		rueda.avanzar(INICIO + DOS_DIAS, dato -> {
+			if (dato % 3 == 0 || vencimiento(dato) != rueda.actual()) {
+				fuera[0]++;
+			}
+			vencidos[0]++;
+		});
+
+		assertEquals(0, fuera[0]);
+		assertEquals(n - cancelados, vencidos[0]);
+		assertEquals(0, rueda.size());
+		// Un identificador ya vencido no cancela el temporizador que reutiliza su posición
+		long nuevo = rueda.programar(INICIO + DOS_DIAS + 10, 7);
+		assertFalse(rueda.cancelar(ids[1]));
+		assertTrue(rueda.cancelar(nuevo));
+	}
+
+	@Test
+	void plazosLejanosYPasadosVencenEnOrden() {
+		TimingWheel rueda = new TimingWheel(INICIO, 4);
+		long[] plazos = {INICIO + 400 * 86_400L, INICIO + 5, INICIO - 100, INICIO + 64, INICIO + 4096, INICIO + 262_144};
+		for (int i = 0; i < plazos.length; i++) {
+			rueda.programar(plazos[i], i);
+		}
+		List<Long> orden = new ArrayList<>();
+		List<Long> ticks = new ArrayList<>();
+		rueda.avanzar(INICIO + 401 * 86_400L, dato -> {
+			orden.add(dato);
+			ticks.add(rueda.actual());
+		});
+
+		assertEquals(List.of(2L, 1L, 3L, 4L, 5L, 0L), orden);
+		// El plazo ya pasado vence en el siguiente tick
+		assertEquals(List.of(INICIO + 1, INICIO + 5, INICIO + 64, INICIO + 4096, INICIO + 262_144,
+				INICIO + 400 * 86_400L), ticks);
+	}
+
+	static final class Reloj extends Clock {
+		private Instant ahora;
+
+		Reloj(LocalDateTime ahora) {
+			this.ahora = ahora.toInstant(ZoneOffset.UTC);
+		}
+
+		void avanzar(Duration d) {
+			ahora = ahora.plus(d);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return ahora;
+		}
+	}
+
+	@Test
+	void slaEscalaLosPlazosVencidosYCancelaLosResueltos() {
+		LocalDateTime t0 = LocalDateTime.of(2026, 10, 1, 9, 0);
+		Reloj reloj = new Reloj(t0);
+		SlaEngine sla = new SlaEngine(new SolicitudEventBus(new ObjectMapper().findAndRegisterModules(), 64),
+				Duration.ofHours(4), Duration.ofHours(48), Set.of("RESUELTO"), reloj);
+		sla.vigilar(1L, t0, "PENDIENTE");
+		sla.vigilar(2L, t0, "PENDIENTE");
+		sla.vigilar(3L, t0, "PENDIENTE");
+		sla.vigilar(2L, t0, "EN_PROCESO"); // recogida a tiempo
+		sla.vigilar(3L, t0, "RESUELTO");
+		assertEquals(3, sla.estado().plazosPendientes());
+
+		reloj.avanzar(Duration.ofHours(5));
+		assertEquals(1, sla.avanzar());
+		SlaEngine.Escalado escalado = sla.escalados(0, 10).get(0);
+		assertEquals(1L, escalado.solicitudId());
+		assertEquals(SlaEngine.Tipo.RECOGIDA, escalado.tipo());
+		assertEquals(t0.plusHours(4), escalado.vencimiento());
+
+		// Volver a guardarla PENDIENTE no escala otra vez la recogida
+		sla.vigilar(1L, t0, "PENDIENTE");
+		sla.vigilar(2L, t0, "RESUELTO");
+		reloj.avanzar(Duration.ofHours(44));
+		assertEquals(1, sla.avanzar());
+		assertEquals(List.of(SlaEngine.Tipo.RESOLUCION), sla.escalados(1, 10).stream().map(SlaEngine.Escalado::tipo).toList());
+		assertEquals(0, sla.estado().plazosPendientes());
+		assertEquals(2, sla.estado().escalados());
+	}
+
+	@Test
+	void slaNoVuelveAEscalarUnaSolicitudResueltaYReabierta() {
+		LocalDateTime t0 = LocalDateTime.of(2026, 10, 1, 9, 0);
+		Reloj reloj = new Reloj(t0);
+		SlaEngine sla = new SlaEngine(new SolicitudEventBus(new ObjectMapper().findAndRegisterModules(), 64),
+				Duration.ofHours(4), Duration.ofHours(48), Set.of("RESUELTO"), reloj);
+		sla.vigilar(1L, t0, "PENDIENTE");
+		sla.vigilar(2L, t0, "PENDIENTE");
+		reloj.avanzar(Duration.ofHours(5));
+		assertEquals(2, sla.avanzar());
+
+		// 1 escaló la recogida antes de resolverse; 2 se resuelve y se reabre antes de vencer nada
+		sla.vigilar(1L, t0, "RESUELTO");
+		sla.vigilar(1L, t0, "PENDIENTE");
+		sla.vigilar(3L, t0, "PENDIENTE");
+		sla.vigilar(3L, t0, "RESUELTO");
+		assertEquals(2, sla.estado().solicitudesVigiladas());
+		reloj.avanzar(Duration.ofHours(1));
+		assertEquals(0, sla.avanzar());
+		sla.vigilar(3L, t0, "PENDIENTE");
+		reloj.avanzar(Duration.ofSeconds(1));
+		assertEquals(1, sla.avanzar());
+		assertEquals(3L, sla.escalados(2, 10).get(0).solicitudId());
+
+		reloj.avanzar(Duration.ofHours(43));
+		assertEquals(3, sla.avanzar());
+		sla.vigilar(1L, t0, "RESUELTO");
+		sla.vigilar(1L, t0, "EN_PROCESO");
+		reloj.avanzar(Duration.ofHours(1));
+		assertEquals(0, sla.avanzar());
+		assertEquals(List.of(SlaEngine.Tipo.RECOGIDA, SlaEngine.Tipo.RECOGIDA, SlaEngine.Tipo.RECOGIDA,
+						SlaEngine.Tipo.RESOLUCION, SlaEngine.Tipo.RESOLUCION, SlaEngine.Tipo.RESOLUCION),
+				sla.escalados(0, 10).stream().map(SlaEngine.Escalado::tipo).toList());
+		assertEquals(0, sla.estado().plazosPendientes());
+	}
+
+	@Test
+	void tablaPlazosCoincideConUnMapa() {
+		TablaPlazos tabla = new TablaPlazos(16);
+		Map<Long, Long> esperado = new HashMap<>();
+		Random random = new Random(7);
+		for (int n = 0; n < 200_000; n++) {
+			long id = random.nextInt(5_000);
+			if (random.nextInt(3) == 0) {
+				int i = tabla.buscar(id);
+				assertEquals(esperado.remove(id) != null, i >= 0);
+				if (i >= 0) {
+					tabla.quitar(i);
+				}
+			} else {
+				int i = tabla.obtener(id);
+				tabla.programarRecogida(i, n, id * 10);
+				esperado.put(id, (long) n);
+			}
+		}
+		assertEquals(esperado.size(), tabla.size());
+		for (long id = 0; id < 5_000; id++) {
+			int i = tabla.buscar(id);
+			Long temporizador = esperado.get(id);
+			assertEquals(temporizador != null, i >= 0);
+			if (i >= 0) {
+				assertEquals(temporizador, tabla.recogida(i));
+				assertEquals(id * 10, tabla.venceRecogida(i));
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.soporte_tecnico.web;
+
+import com.example.soporte_tecnico.exception.BadRequestException;
+import com.example.soporte_tecnico.model.Cliente;
+import com.example.soporte_tecnico.model.Solicitud;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldProjectorTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+	private final FieldProjector projector = new FieldProjector(objectMapper);
+
+	private static Solicitud solicitud(long id) {
+		Solicitud s = new Solicitud(id, "Descripción " + id, null, "PENDIENTE",
+				new Cliente(7L, "Ana", "ana@ejemplo.com", "600000000"), null);
+		s.setVersion(1L);
+		return s;
+	}
+
+	private JsonNode json(ResponseEntity<byte[]> respuesta) throws Exception {
+		return objectMapper.readTree(respuesta.getBody());
+	}
+
+	private static List<String> campos(JsonNode objeto) {
+		List<String> nombres = new ArrayList<>();
+		Iterator<String> it = objeto.fieldNames();
+		it.forEachRemaining(nombres::add);
+		return nombres;
+	}
+
+	@Test
+	void soloSeSerializanLosCamposPedidosEnElOrdenDeLaEntidad() throws Exception {
+		JsonNode lista = json(projector.lista(Solicitud.class, " estado, id ,estado", List.of(solicitud(1), solicitud(2))));
+
+		assertEquals(2, lista.size());
+		assertEquals(List.of("id", "estado"), campos(lista.get(0)));
+		assertEquals(2, lista.get(1).get("id").asLong());
+		assertEquals("PENDIENTE", lista.get(1).get("estado").asText());
+	}
+
+	@Test
+	void losValoresAnidadosSeSerializanCompletos() throws Exception {
+		JsonNode uno = json(projector.uno(Solicitud.class, "cliente", solicitud(1)));
+
+		assertEquals(List.of("cliente"), campos(uno));
+		assertEquals("ana@ejemplo.com", uno.get("cliente").get("email").asText());
+	}
+
+	@Test
+	void unaListaVaciaEsUnArrayVacio() throws Exception {
+		assertEquals(0, json(projector.lista(Solicitud.class, "id", List.of())).size());
+	}
+
+	@Test
+	void losCamposDesconocidosOVaciosSeRechazan() {
+		assertThrows(BadRequestException.class, () -> projector.uno(Solicitud.class, "id,noExiste", solicitud(1)));
+		assertThrows(BadRequestException.class, () -> projector.uno(Solicitud.class, " , ", solicitud(1)));
+	}
+}
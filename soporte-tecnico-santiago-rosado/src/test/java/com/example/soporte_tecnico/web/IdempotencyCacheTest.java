@@ -0,0 +1,137 @@
+package com.example.soporte_tecnico.web;
+
+import com.example.soporte_tecnico.exception.IdempotencyKeyException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyCacheTest {
+
+	private static final String AMBITO = "POST /api/prueba";
+
+	private final IdempotencyCache cache = new IdempotencyCache(new ObjectMapper(), 2, 3600);
+
+	@Test
+	void laRepeticionDevuelveLaRespuestaGuardadaSinEjecutarDeNuevo() {
+		AtomicInteger ejecuciones = new AtomicInteger();
+		Map<String, String> cuerpo = Map.of("nombre", "Ana");
+
+		ResponseEntity<String> primera = cache.ejecutar(AMBITO, "k1", cuerpo,
+				() -> ResponseEntity.status(HttpStatus.CREATED).body("creado-" + ejecuciones.incrementAndGet()));
+		ResponseEntity<String> segunda = cache.ejecutar(AMBITO, "k1", cuerpo,
+				() -> ResponseEntity.status(HttpStatus.CREATED).body("creado-" + ejecuciones.incrementAndGet()));
+
+		assertEquals(1, ejecuciones.get());
+		assertEquals(HttpStatus.CREATED, segunda.getStatusCode());
+		assertEquals(primera.getBody(), segunda.getBody());
+		assertEquals("true", segunda.getHeaders().getFirst(IdempotencyCache.HEADER_REPETIDA));
+	}
+
+	@Test
+	void reutilizarLaClaveConOtroCuerpoSeRechaza() {
+		cache.ejecutar(AMBITO, "k1", Map.of("nombre", "Ana"), () -> ResponseEntity.ok("ok"));
+
+		assertThrows(IdempotencyKeyException.class,
+				() -> cache.ejecutar(AMBITO, "k1", Map.of("nombre", "Luis"), () -> ResponseEntity.ok("otro")));
+	}
+
+	@Test
+	void unaPeticionConcurrenteEsperaALaQueEstaEnCurso() throws Exception {
+		CountDownLatch dentro = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		AtomicInteger ejecuciones = new AtomicInteger();
+
+		CompletableFuture<ResponseEntity<String>> original = CompletableFuture.supplyAsync(() ->
+				cache.ejecutar(AMBITO, "k1", "x", () -> {
+					ejecuciones.incrementAndGet();
+					dentro.countDown();
+					await(liberar);
+					return ResponseEntity.ok("unico");
+				}));
+		assertTrue(dentro.await(5, TimeUnit.SECONDS));
+
+		CompletableFuture<ResponseEntity<String>> repetida = CompletableFuture.supplyAsync(() ->
+				cache.ejecutar(AMBITO, "k1", "x", () -> {
+					ejecuciones.incrementAndGet();
+					return ResponseEntity.ok("duplicado");
+				}));
+		liberar.countDown();
+
+		assertEquals("unico", original.get(5, TimeUnit.SECONDS).getBody());
+		assertEquals("unico", repetida.get(5, TimeUnit.SECONDS).getBody());
+		assertEquals(1, ejecuciones.get());
+	}
+
+	@Test
+	void lasClavesEnCursoNoSeExpulsanAunqueSeSupereLaCapacidad() throws Exception {
+		CountDownLatch dentro = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		AtomicInteger ejecuciones = new AtomicInteger();
+
+		CompletableFuture<ResponseEntity<String>> enCurso = CompletableFuture.supplyAsync(() ->
+				cache.ejecutar(AMBITO, "lenta", "x", () -> {
+					ejecuciones.incrementAndGet();
+					dentro.countDown();
+					await(liberar);
+					return ResponseEntity.ok("lenta");
+				}));
+		assertTrue(dentro.await(5, TimeUnit.SECONDS));
+
+		// Avalancha de claves nuevas con capacidad 2
+		for (int i = 0; i < 10; i++) {
+			cache.ejecutar(AMBITO, "k" + i, "x", () -> ResponseEntity.ok("ok"));
+		}
+		assertTrue(cache.size() <= 3);
+
+		CompletableFuture<ResponseEntity<String>> reintento = CompletableFuture.supplyAsync(() ->
+				cache.ejecutar(AMBITO, "lenta", "x", () -> {
+					ejecuciones.incrementAndGet();
+					return ResponseEntity.ok("duplicada");
+				}));
+		liberar.countDown();
+
+		assertEquals("lenta", enCurso.get(5, TimeUnit.SECONDS).getBody());
+		assertEquals("lenta", reintento.get(5, TimeUnit.SECONDS).getBody());
+		assertEquals(1, ejecuciones.get());
+	}
+
+	@Test
+	void unFalloLiberaLaClaveParaReintentar() {
+		assertThrows(IllegalStateException.class, () -> cache.ejecutar(AMBITO, "k1", "x", () -> {
+			throw new IllegalStateException("caída");
+		}));
+
+		ResponseEntity<String> reintento = cache.ejecutar(AMBITO, "k1", "x", () -> ResponseEntity.ok("ok"));
+		assertEquals("ok", reintento.getBody());
+		assertNull(reintento.getHeaders().getFirst(IdempotencyCache.HEADER_REPETIDA));
+	}
+
+	@Test
+	void lasClavesCaducadasSePurganAunqueSeHayanLeidoDespues() throws InterruptedException {
+		IdempotencyCache corta = new IdempotencyCache(new ObjectMapper(), 100, 0);
+		corta.ejecutar(AMBITO, "a", "x", () -> ResponseEntity.ok("a"));
+		corta.ejecutar(AMBITO, "b", "x", () -> ResponseEntity.ok("b"));
+		Thread.sleep(2);
+
+		corta.ejecutar(AMBITO, "c", "x", () -> ResponseEntity.ok("c"));
+
+		assertEquals(1, corta.size());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.example.soporte_tecnico.web;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+	private final AtomicLong reloj = new AtomicLong(1_000_000_000L);
+	private final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(reloj::get);
+
+	@Test
+	void admiteLaRafagaYLuegoRechaza() {
+		TokenBucketRateLimiter.Presupuesto presupuesto = new TokenBucketRateLimiter.Presupuesto("p", 5, 1);
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0, limiter.intentar("cliente", presupuesto));
+		}
+		long espera = limiter.intentar("cliente", presupuesto);
+		assertTrue(espera > 0 && espera <= 1_000_000_000L);
+
+		// Tras un segundo se recupera exactamente un token
+		reloj.addAndGet(1_000_000_000L);
+		assertEquals(0, limiter.intentar("cliente", presupuesto));
+		assertTrue(limiter.intentar("cliente", presupuesto) > 0);
+	}
+
+	@Test
+	void lasClavesSonIndependientes() {
+		TokenBucketRateLimiter.Presupuesto presupuesto = new TokenBucketRateLimiter.Presupuesto("p", 1, 1);
+
+		assertEquals(0, limiter.intentar("a", presupuesto));
+		assertTrue(limiter.intentar("a", presupuesto) > 0);
+		assertEquals(0, limiter.intentar("b", presupuesto));
+	}
+
+	@Test
+	void elBarridoSoloEliminaCubetasLlenas() {
+		TokenBucketRateLimiter.Presupuesto presupuesto = new TokenBucketRateLimiter.Presupuesto("p", 2, 10);
+
+		limiter.intentar("inactivo", presupuesto);
+		reloj.addAndGet(1_000_000_000L);
+		limiter.intentar("activo", presupuesto);
+		limiter.intentar("activo", presupuesto);
+
+		assertEquals(1, limiter.barrer());
+		assertEquals(1, limiter.size());
+	}
+
+	@Test
+	void cadaClaveTieneSuPropiaCubeta() {
+		TokenBucketRateLimiter.Presupuesto presupuesto = new TokenBucketRateLimiter.Presupuesto("p", 1, 1);
+
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(0, limiter.intentar("ip:" + i, presupuesto));
+		}
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(limiter.intentar("ip:" + i, presupuesto) > 0);
+		}
+		assertEquals(1000, limiter.size());
+	}
+
+	@Test
+	@Tag("perf")
+	void cargaCon100000Claves() {
+		TokenBucketRateLimiter real = new TokenBucketRateLimiter();
+		TokenBucketRateLimiter.Presupuesto presupuesto = new TokenBucketRateLimiter.Presupuesto("p", 100, 50);
+		String[] claves = new String[100_000];
+		for (int i = 0; i < claves.length; i++) {
+			claves[i] = "p|ip:10.0." + (i >> 8) + "." + (i & 0xff);
+		}
+
+		for (int i = 0; i < 2_000_000; i++) {
+			real.intentar(claves[i % claves.length], presupuesto);
+		}
+
+		assertEquals(claves.length, real.size());
+	}
+}
@@ -7,10 +7,12 @@ public class Solicitud {
     private Long id;
     private String titulo;
     private String descripcion;
-    private Cliente cliente;   // puede ser sólo info básica
+    private Long clienteId;     // referencia guardada
+    private Cliente cliente;   // resuelto al leer a partir de clienteId
     private Tecnico tecnico;   // técnico asignado opcional
     private String estado;     // e.g., "PENDIENTE", "EN_PROGRESO", "CERRADO"
     private LocalDateTime creadoEn;
+    private Long version;      // control de concurrencia optimista
 
     public Solicitud() {}
     public Solicitud(Long id, String titulo, String descripcion, Cliente cliente, String estado) {
@@ -21,6 +23,18 @@ public class Solicitud {
         this.estado = estado;
         this.creadoEn = LocalDateTime.now();
     }
+    // copia: las actualizaciones nunca modifican el objeto guardado
+    public Solicitud(Solicitud otra) {
+        this.id = otra.id;
+        this.titulo = otra.titulo;
+        this.descripcion = otra.descripcion;
+        this.clienteId = otra.clienteId;
+        this.cliente = otra.cliente;
+        this.tecnico = otra.tecnico;
+        this.estado = otra.estado;
+        this.creadoEn = otra.creadoEn;
+        this.version = otra.version;
+    }
     // getters y setters...
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -28,6 +42,8 @@ public class Solicitud {
     public void setTitulo(String titulo) { this.titulo = titulo; }
     public String getDescripcion() { return descripcion; }
     public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
+    public Long getClienteId() { return clienteId; }
+    public void setClienteId(Long clienteId) { this.clienteId = clienteId; }
     public Cliente getCliente() { return cliente; }
     public void setCliente(Cliente cliente) { this.cliente = cliente; }
     public Tecnico getTecnico() { return tecnico; }
@@ -36,4 +52,6 @@ public class Solicitud {
     public void setEstado(String estado) { this.estado = estado; }
     public LocalDateTime getCreadoEn() { return creadoEn; }
     public void setCreadoEn(LocalDateTime creadoEn) { this.creadoEn = creadoEn; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -0,0 +1,17 @@
+package com.example.supportapi.analytics;
+
+import java.time.LocalDateTime;
+
+/**
+ * Consulta sobre los contadores precalculados de solicitudes creadas y resueltas
+ * @param granularidad Tamaño de intervalo pedido (los periodos ya plegados salen con el suyo, más grueso)
+ * @param desde Inicio del periodo (incluido)
+ * @param hasta Fin del periodo (excluido; null = hasta ahora)
+ * @param porEstado Si se desglosa por estado
+ * @param porEspecialidad Si se desglosa por especialidad del técnico
+ * @param estado Sólo este estado (null = todos)
+ * @param especialidad Sólo esta especialidad (null = todas)
+ */
+public record ConsultaRollup(Granularidad granularidad, LocalDateTime desde, LocalDateTime hasta,
+                             boolean porEstado, boolean porEspecialidad, String estado, String especialidad) {
+}
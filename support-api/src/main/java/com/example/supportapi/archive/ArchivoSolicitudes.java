@@ -0,0 +1,146 @@
+package com.example.supportapi.archive;
+
+import com.example.supportapi.Model.Solicitud;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Archivo en disco de las solicitudes cerradas antiguas (separación caliente/frío)
+ *
+ * Guarda la configuración (edad, estados, intervalo) y el ColdArchive donde el servicio mueve
+ * las solicitudes cerradas creadas hace más de la edad indicada; el servicio las sigue leyendo
+ * por ID y en los listados, y las devuelve a memoria al modificarlas. El fichero se crea vacío
+ * al arrancar y se borra al parar: es parte del estado en memoria de la aplicación. Se activa
+ * con support.archivo.habilitado=true.
+ */
+@Component
+public class ArchivoSolicitudes {
+
+    /**
+     * Configuración y ocupación del archivo
+     * @param compresion Bytes sin comprimir por cada byte en disco
+     */
+    public record EstadoArchivo(boolean habilitado, Duration edad, Set<String> estados, long enMemoria,
+                                long archivadas, int bloques, long bytesSinComprimir, long bytesComprimidos,
+                                long bytesMuertos, double compresion, LocalDateTime ultimaEjecucion,
+                                int ultimasArchivadas) {
+    }
+
+    private final ColdArchive<Solicitud> archivo; // null si está deshabilitado
+    private final Duration edad;
+    private final Duration intervalo;
+    private final Set<String> estados;
+    private final Clock reloj;
+
+    private ScheduledExecutorService programador;
+    private volatile LocalDateTime ultimaEjecucion;
+    private volatile int ultimasArchivadas;
+
+    @Autowired
+    public ArchivoSolicitudes(ObjectMapper mapper,
+                              @Value("${support.archivo.habilitado:false}") boolean habilitado,
+                              @Value("${support.archivo.edad:30d}") Duration edad,
+                              @Value("${support.archivo.intervalo:10m}") Duration intervalo,
+                              @Value("${support.archivo.directorio:${java.io.tmpdir}/support-archivo}") String directorio,
+                              @Value("${support.archivo.estados:CERRADO}") Set<String> estados,
+                              @Value("${support.archivo.solicitudes-por-bloque:256}") int porBloque) {
+        this(habilitado ? new ColdArchive<>(Path.of(directorio), mapper, Solicitud.class, Solicitud::getId, porBloque) : null,
+                edad, intervalo, estados, Clock.systemDefaultZone());
+    }
+
+    public ArchivoSolicitudes(ColdArchive<Solicitud> archivo, Duration edad, Duration intervalo, Set<String> estados,
+                              Clock reloj) {
+        this.archivo = archivo;
+        this.edad = edad;
+        this.intervalo = intervalo;
+        this.estados = Set.copyOf(estados);
+        this.reloj = reloj;
+    }
+
+    /**
+     * Ejecuta la tarea de archivado cada intervalo (no hace nada si está deshabilitado)
+     */
+    public synchronized void programar(Runnable tarea) {
+        if (archivo == null || programador != null) {
+            return;
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "archivo-solicitudes");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1, intervalo.toMillis());
+        programador.scheduleWithFixedDelay(() -> {
+            try {
+                tarea.run();
+            } catch (RuntimeException e) {
+                // un fallo no debe cancelar las siguientes ejecuciones
+                System.out.println("Archivo de solicitudes: error al archivar (" + e.getMessage() + ")");
+            }
+        }, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void cerrar() {
+        if (programador != null) {
+            programador.shutdownNow();
+        }
+        if (archivo != null) {
+            try {
+                archivo.close();
+            } catch (IOException e) {
+                System.out.println("Archivo de solicitudes: no se pudo borrar el fichero (" + e.getMessage() + ")");
+            }
+        }
+    }
+
+    /**
+     * El archivo, o null si está deshabilitado
+     */
+    public ColdArchive<Solicitud> archivo() {
+        return archivo;
+    }
+
+    /**
+     * Solicitudes que hay que archivar ahora: cerradas y creadas hace más de la edad
+     */
+    public Predicate<Solicitud> criterio() {
+        LocalDateTime limite = LocalDateTime.now(reloj).minus(edad);
+        return s -> s.getEstado() != null && estados.contains(s.getEstado())
+                && s.getCreadoEn() != null && s.getCreadoEn().isBefore(limite);
+    }
+
+    /**
+     * Anota el resultado de una ejecución
+     */
+    public void ejecutado(int archivadas, long nanos) {
+        ultimaEjecucion = LocalDateTime.now(reloj);
+        ultimasArchivadas = archivadas;
+        if (archivadas > 0) {
+            System.out.println("Archivo de solicitudes: " + archivadas + " archivadas en "
+                    + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms");
+        }
+    }
+
+    public EstadoArchivo estado(long enMemoria) {
+        ColdArchive.Estado a = archivo != null ? archivo.estado() : new ColdArchive.Estado(0, 0, 0, 0, 0);
+        double compresion = a.bytesComprimidos() > 0 ? (double) a.bytesSinComprimir() / a.bytesComprimidos() : 0;
+        return new EstadoArchivo(archivo != null, edad, estados, enMemoria, a.entidades(), a.bloques(),
+                a.bytesSinComprimir(), a.bytesComprimidos(), a.bytesMuertos(), compresion, ultimaEjecucion,
+                ultimasArchivadas);
+    }
+}
@@ -0,0 +1,463 @@
+package com.example.supportapi.archive;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Archivo frío en disco de entidades que ya casi no se leen
+ *
+ * Las entidades se guardan ordenadas por ID en bloques de hasta {@code porBloque} entidades,
+ * cada uno un array JSON comprimido con Deflate: [int n][long primer ID][long último ID]
+ * [int bytes sin comprimir][int bytes comprimidos][datos]. Los rangos de IDs de los bloques
+ * no se solapan, así que en memoria basta un índice disperso (una entrada por bloque, no por
+ * entidad) del primer ID de cada bloque a su posición en el fichero: una lectura por ID busca
+ * el bloque con floorEntry, lo lee y descomprime y hace una búsqueda binaria dentro.
+ *
+ * El fichero sólo crece: archivar en el rango de un bloque existente o eliminar una entidad
+ * reescribe ese bloque al final y el antiguo queda muerto; cuando los bytes muertos superan a
+ * los vivos el fichero se compacta copiando los bloques vivos a uno nuevo. Los últimos bloques
+ * leídos se guardan descomprimidos en una caché pequeña.
+ */
+public final class ColdArchive<T> implements Closeable {
+
+    /**
+     * Tamaño y ocupación del archivo
+     */
+    public record Estado(long entidades, int bloques, long bytesSinComprimir, long bytesComprimidos,
+                         long bytesMuertos) {
+    }
+
+    private static final int CABECERA = 4 + 8 + 8 + 4 + 4;
+    private static final int BLOQUES_EN_CACHE = 16;
+    private static final long COMPACTAR_DESDE = 1 << 20;
+
+    private final Path directorio;
+    private final ObjectReader lector;
+    private final ObjectWriter escritor;
+    private final ToLongFunction<T> id;
+    private final int porBloque;
+
+    // Primer ID de cada bloque -> bloque; lo protege el cerrojo (lecturas compartidas)
+    private final TreeMap<Long, Bloque> indice = new TreeMap<>();
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    private final Map<Long, List<T>> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(BLOQUES_EN_CACHE * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, List<T>> mayor) {
+                    return size() > BLOQUES_EN_CACHE;
+                }
+            });
+
+    private Path fichero;
+    private FileChannel canal;
+    private long fin;
+    private long entidades;
+    private long bytesSinComprimir;
+    private long bytesVivos;
+    private long bytesMuertos;
+
+    /**
+     * @param directorio Directorio del fichero (se crea uno nuevo y se borra al cerrar)
+     * @param tipo Clase de las entidades, que se serializan con el ObjectMapper
+     * @param id Extrae el ID de una entidad
+     * @param porBloque Máximo de entidades por bloque
+     */
+    public ColdArchive(Path directorio, ObjectMapper mapper, Class<T> tipo, ToLongFunction<T> id, int porBloque) {
+        if (porBloque < 1) {
+            throw new IllegalArgumentException("porBloque debe ser mayor que 0: " + porBloque);
+        }
+        JavaType lista = mapper.getTypeFactory().constructCollectionType(List.class, tipo);
+        this.directorio = directorio;
+        this.lector = mapper.readerFor(lista);
+        this.escritor = mapper.writerFor(lista);
+        this.id = id;
+        this.porBloque = porBloque;
+        try {
+            Files.createDirectories(directorio);
+            this.fichero = Files.createTempFile(directorio, "archivo-", ".bloques");
+            this.canal = abrir(fichero);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el archivo en " + directorio, e);
+        }
+    }
+
+    /**
+     * Guarda las entidades (sustituyen a las archivadas con el mismo ID)
+     * Sólo se reescriben los bloques en cuyo rango cae alguna de ellas
+     */
+    public void archivar(List<T> nuevas) {
+        if (nuevas.isEmpty()) {
+            return;
+        }
+        List<T> ordenadas = new ArrayList<>(nuevas);
+        ordenadas.sort((a, b) -> Long.compare(id.applyAsLong(a), id.applyAsLong(b)));
+        cerrojo.writeLock().lock();
+        try {
+            int i = 0;
+            while (i < ordenadas.size()) {
+                long primero = id.applyAsLong(ordenadas.get(i));
+                Map.Entry<Long, Bloque> anterior = indice.floorEntry(primero);
+                Bloque destino;
+                long limite;
+                if (anterior != null && primero <= anterior.getValue().ultimoId) {
+                    // Cae dentro de un bloque: se mezclan las que lleguen hasta su último ID
+                    destino = anterior.getValue();
+                    limite = destino.ultimoId + 1;
+                } else {
+                    // Cae en un hueco: no puede pasar del siguiente bloque, y si el anterior
+                    // tiene sitio se amplía en vez de crear un bloque pequeño
+                    Long siguiente = indice.higherKey(primero);
+                    limite = siguiente != null ? siguiente : Long.MAX_VALUE;
+                    destino = anterior != null && anterior.getValue().n < porBloque ? anterior.getValue() : null;
+                }
+                int j = i;
+                while (j < ordenadas.size() && id.applyAsLong(ordenadas.get(j)) < limite) {
+                    j++;
+                }
+                List<T> grupo = ordenadas.subList(i, j);
+                if (destino != null) {
+                    grupo = mezclar(leer(destino), grupo);
+                    retirar(destino);
+                }
+                escribir(grupo);
+                i = j;
+            }
+            compactarSiToca();
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    public Optional<T> get(long clave) {
+        cerrojo.readLock().lock();
+        try {
+            Bloque bloque = bloque(clave);
+            if (bloque == null) {
+                return Optional.empty();
+            }
+            List<T> contenido = leer(bloque);
+            int posicion = buscar(contenido, clave);
+            return posicion >= 0 ? Optional.of(contenido.get(posicion)) : Optional.empty();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long clave) {
+        return get(clave).isPresent();
+    }
+
+    /**
+     * @return La entidad eliminada, si estaba archivada
+     */
+    public Optional<T> eliminar(long clave) {
+        cerrojo.writeLock().lock();
+        try {
+            Bloque bloque = bloque(clave);
+            if (bloque == null) {
+                return Optional.empty();
+            }
+            List<T> contenido = new ArrayList<>(leer(bloque));
+            int posicion = buscar(contenido, clave);
+            if (posicion < 0) {
+                return Optional.empty();
+            }
+            T eliminada = contenido.remove(posicion);
+            retirar(bloque);
+            escribir(contenido);
+            compactarSiToca();
+            return Optional.of(eliminada);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recorre todas las entidades archivadas en orden de ID (bloque a bloque)
+     */
+    public void recorrer(Consumer<? super T> accion) {
+        cerrojo.readLock().lock();
+        try {
+            for (Bloque bloque : indice.values()) {
+                leer(bloque).forEach(accion);
+            }
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Todas las entidades archivadas ordenadas por ID
+     */
+    public List<T> todas() {
+        List<T> todas = new ArrayList<>();
+        recorrer(todas::add);
+        return todas;
+    }
+
+    public long size() {
+        cerrojo.readLock().lock();
+        try {
+            return entidades;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public Estado estado() {
+        cerrojo.readLock().lock();
+        try {
+            return new Estado(entidades, indice.size(), bytesSinComprimir, bytesVivos, bytesMuertos);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Descarta todo lo archivado
+     */
+    public void vaciar() {
+        cerrojo.writeLock().lock();
+        try {
+            indice.clear();
+            cache.clear();
+            canal.truncate(0);
+            fin = 0;
+            entidades = 0;
+            bytesSinComprimir = 0;
+            bytesVivos = 0;
+            bytesMuertos = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        cerrojo.writeLock().lock();
+        try {
+            canal.close();
+            Files.deleteIfExists(fichero);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    // Bloque cuyo rango contiene el ID, o null
+    private Bloque bloque(long clave) {
+        Map.Entry<Long, Bloque> entrada = indice.floorEntry(clave);
+        return entrada != null && clave <= entrada.getValue().ultimoId ? entrada.getValue() : null;
+    }
+
+    private int buscar(List<T> contenido, long clave) {
+        int bajo = 0;
+        int alto = contenido.size() - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            long actual = id.applyAsLong(contenido.get(medio));
+            if (actual < clave) {
+                bajo = medio + 1;
+            } else if (actual > clave) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -1;
+    }
+
+    // Mezcla dos listas ordenadas por ID; en caso de empate gana la nueva
+    private List<T> mezclar(List<T> archivadas, List<T> nuevas) {
+        List<T> mezcla = new ArrayList<>(archivadas.size() + nuevas.size());
+        int i = 0;
+        int j = 0;
+        while (i < archivadas.size() || j < nuevas.size()) {
+            if (j == nuevas.size()) {
+                mezcla.add(archivadas.get(i++));
+                continue;
+            }
+            if (i == archivadas.size()) {
+                mezcla.add(nuevas.get(j++));
+                continue;
+            }
+            long a = id.applyAsLong(archivadas.get(i));
+            long b = id.applyAsLong(nuevas.get(j));
+            if (a < b) {
+                mezcla.add(archivadas.get(i++));
+            } else {
+                if (a == b) {
+                    i++;
+                }
+                mezcla.add(nuevas.get(j++));
+            }
+        }
+        return mezcla;
+    }
+
+    // Escribe las entidades (ordenadas) al final del fichero en bloques de hasta porBloque
+    private void escribir(List<T> ordenadas) {
+        for (int desde = 0; desde < ordenadas.size(); desde += porBloque) {
+            List<T> trozo = ordenadas.subList(desde, Math.min(desde + porBloque, ordenadas.size()));
+            try {
+                byte[] json = escritor.writeValueAsBytes(trozo);
+                byte[] comprimido = comprimir(json);
+                ByteBuffer buffer = ByteBuffer.allocate(CABECERA + comprimido.length);
+                long primerId = id.applyAsLong(trozo.get(0));
+                long ultimoId = id.applyAsLong(trozo.get(trozo.size() - 1));
+                buffer.putInt(trozo.size()).putLong(primerId).putLong(ultimoId)
+                        .putInt(json.length).putInt(comprimido.length).put(comprimido).flip();
+                long posicion = fin;
+                while (buffer.hasRemaining()) {
+                    fin += canal.write(buffer, fin);
+                }
+                indice.put(primerId, new Bloque(posicion, comprimido.length, json.length, trozo.size(), primerId, ultimoId));
+                entidades += trozo.size();
+                bytesSinComprimir += json.length;
+                bytesVivos += CABECERA + comprimido.length;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Quita el bloque del índice: sus bytes quedan muertos hasta la próxima compactación
+    private void retirar(Bloque bloque) {
+        indice.remove(bloque.primerId);
+        cache.remove(bloque.posicion);
+        entidades -= bloque.n;
+        bytesSinComprimir -= bloque.sinComprimir;
+        bytesVivos -= CABECERA + bloque.longitud;
+        bytesMuertos += CABECERA + bloque.longitud;
+    }
+
+    private List<T> leer(Bloque bloque) {
+        List<T> contenido = cache.get(bloque.posicion);
+        if (contenido != null) {
+            return contenido;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bloque.longitud);
+        try {
+            long posicion = bloque.posicion + CABECERA;
+            while (buffer.hasRemaining()) {
+                int leidos = canal.read(buffer, posicion + buffer.position());
+                if (leidos < 0) {
+                    throw new IOException("bloque truncado en la posición " + bloque.posicion);
+                }
+            }
+            List<T> leidas = lector.readValue(descomprimir(buffer.array(), bloque.sinComprimir));
+            contenido = Collections.unmodifiableList(leidas);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        cache.put(bloque.posicion, contenido);
+        return contenido;
+    }
+
+    // Copia los bloques vivos a un fichero nuevo cuando los muertos ocupan más que los vivos
+    private void compactarSiToca() {
+        if (bytesMuertos < COMPACTAR_DESDE || bytesMuertos <= bytesVivos) {
+            return;
+        }
+        try {
+            Path nuevo = Files.createTempFile(directorio, "archivo-", ".bloques");
+            FileChannel destino = abrir(nuevo);
+            long posicion = 0;
+            for (Map.Entry<Long, Bloque> entrada : indice.entrySet()) {
+                Bloque bloque = entrada.getValue();
+                long longitud = CABECERA + bloque.longitud;
+                long copiados = 0;
+                while (copiados < longitud) {
+                    copiados += canal.transferTo(bloque.posicion + copiados, longitud - copiados, destino);
+                }
+                entrada.setValue(new Bloque(posicion, bloque.longitud, bloque.sinComprimir, bloque.n, bloque.primerId,
+                        bloque.ultimoId));
+                posicion += longitud;
+            }
+            canal.close();
+            Files.deleteIfExists(fichero);
+            fichero = nuevo;
+            canal = destino;
+            fin = posicion;
+            bytesMuertos = 0;
+            cache.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static FileChannel abrir(Path fichero) throws IOException {
+        return FileChannel.open(fichero, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static byte[] comprimir(byte[] datos) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(datos);
+            deflater.finish();
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(64, datos.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                salida.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return salida.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] descomprimir(byte[] datos, int longitud) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(datos);
+            byte[] salida = new byte[longitud];
+            int escritos = 0;
+            while (escritos < longitud && !inflater.finished()) {
+                int n = inflater.inflate(salida, escritos, longitud - escritos);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("bloque comprimido incompleto");
+                }
+                escritos += n;
+            }
+            return salida;
+        } catch (DataFormatException e) {
+            throw new IOException("bloque comprimido no válido", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private record Bloque(long posicion, int longitud, int sinComprimir, int n, long primerId, long ultimoId) {
+    }
+}
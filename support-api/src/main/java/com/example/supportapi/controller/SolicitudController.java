@@ -1,15 +1,30 @@
 package com.example.supportapi.controller;
 
+import com.example.supportapi.analytics.ConsultaRollup;
+import com.example.supportapi.analytics.FilaRollup;
+import com.example.supportapi.archive.ArchivoSolicitudes;
+import com.example.supportapi.analytics.Granularidad;
 import com.example.supportapi.dto.SolicitudRequest;
+import com.example.supportapi.events.SolicitudEventBus;
+import com.example.supportapi.exception.BadRequestException;
 import com.example.supportapi.exception.ResourceNotFoundException;
 import com.example.supportapi.Model.Solicitud;
+import com.example.supportapi.search.ResultadoBusqueda;
 import com.example.supportapi.service.SolicitudService;
+import com.example.supportapi.web.ETags;
+import com.example.supportapi.web.FieldProjector;
+import com.example.supportapi.web.IdempotencyCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
 import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,44 +33,139 @@ import java.util.List;
 public class SolicitudController {
 
     private final SolicitudService service;
+    private final SolicitudEventBus eventBus;
+    private final IdempotencyCache idempotencyCache;
+    private final FieldProjector fieldProjector;
+    private final long streamTimeoutMs;
 
-    public SolicitudController(SolicitudService service) {
+    public SolicitudController(SolicitudService service, SolicitudEventBus eventBus,
+                               IdempotencyCache idempotencyCache, FieldProjector fieldProjector,
+                               @Value("${support.eventos.timeout-ms:1800000}") long streamTimeoutMs) {
         this.service = service;
+        this.eventBus = eventBus;
+        this.idempotencyCache = idempotencyCache;
+        this.fieldProjector = fieldProjector;
+        this.streamTimeoutMs = streamTimeoutMs;
     }
 
-    // CREATE
+    // CREATE (Idempotency-Key opcional: los reintentos devuelven la solicitud original)
     @PostMapping
-    public ResponseEntity<Solicitud> create(@Valid @RequestBody SolicitudRequest req) {
-        Solicitud s = new Solicitud();
-        s.setTitulo(req.getTitulo());
-        s.setDescripcion(req.getDescripcion());
-        s.setCliente(req.getCliente());
-        s.setEstado("PENDIENTE");
-        Solicitud created = service.create(s);
-        return ResponseEntity.created(URI.create("/api/solicitudes/" + created.getId())).body(created);
+    public ResponseEntity<Solicitud> create(
+            @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody SolicitudRequest req) {
+        return idempotencyCache.ejecutar("POST /api/solicitudes", idempotencyKey, req, () -> {
+            Solicitud s = new Solicitud();
+            s.setTitulo(req.getTitulo());
+            s.setDescripcion(req.getDescripcion());
+            s.setCliente(req.getCliente());
+            s.setTecnico(req.getTecnico());
+            s.setEstado("PENDIENTE");
+            Solicitud created = service.create(s);
+            return ResponseEntity.created(URI.create("/api/solicitudes/" + created.getId())).body(created);
+        });
     }
 
-    // READ all
+    // READ all (?fields=id,estado,creadoEn serializa sólo esos campos)
     @GetMapping
-    public List<Solicitud> all() {
-        return service.findAll();
+    public ResponseEntity<?> all(@RequestParam(required = false) String fields) {
+        List<Solicitud> solicitudes = service.findAll();
+        if (fields != null) {
+            return fieldProjector.lista(Solicitud.class, fields, solicitudes);
+        }
+        return ResponseEntity.ok(solicitudes);
+    }
+
+    // SEARCH de texto libre (acentos, mayúsculas y plurales no importan)
+    @GetMapping("/buscar")
+    public List<ResultadoBusqueda> buscar(@RequestParam String q, @RequestParam(defaultValue = "20") int limite) {
+        if (q.isBlank()) throw new BadRequestException("La consulta no puede estar vacía");
+        if (limite < 1 || limite > 100) throw new BadRequestException("El límite debe estar entre 1 y 100");
+        return service.buscar(q, limite);
+    }
+
+    // ARCHIVO en disco de las cerradas antiguas: estado, y archivar sin esperar a la ejecución programada
+    @GetMapping("/archivo")
+    public ArchivoSolicitudes.EstadoArchivo archivo() {
+        return service.estadoArchivo();
+    }
+
+    @PostMapping("/archivo")
+    public ArchivoSolicitudes.EstadoArchivo archivar() {
+        service.archivar();
+        return service.estadoArchivo();
+    }
+
+    // ROLLUPS: creadas y resueltas por minuto/hora/día desde contadores precalculados (por defecto, últimos 30 días)
+    // agrupar=estado,especialidad desglosa; los periodos ya plegados salen con su granularidad, más gruesa
+    @GetMapping("/rollups")
+    public List<FilaRollup> rollups(@RequestParam(defaultValue = "dia") String granularidad,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+                                    @RequestParam(required = false) String agrupar,
+                                    @RequestParam(required = false) String estado,
+                                    @RequestParam(required = false) String especialidad) {
+        Granularidad g = Granularidad.desdeNombre(granularidad)
+                .orElseThrow(() -> new BadRequestException("Granularidad no válida: " + granularidad));
+        boolean porEstado = false;
+        boolean porEspecialidad = false;
+        if (agrupar != null) {
+            for (String d : agrupar.split(",")) {
+                if (d.isBlank()) continue;
+                if (d.trim().equalsIgnoreCase("estado")) porEstado = true;
+                else if (d.trim().equalsIgnoreCase("especialidad")) porEspecialidad = true;
+                else throw new BadRequestException("Desglose no válido: " + d.trim());
+            }
+        }
+        LocalDateTime inicio = desde != null ? desde : LocalDateTime.now().minusDays(30);
+        return service.rollups(new ConsultaRollup(g, inicio, hasta, porEstado, porEspecialidad, estado, especialidad));
+    }
+
+    // STREAM de cambios (SSE); Last-Event-ID permite reanudar
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        SolicitudEventBus.Suscripcion suscripcion = eventBus.suscribir(lastEventId, evento -> {
+            SseEmitter.SseEventBuilder sse = SseEmitter.event()
+                    .id(String.valueOf(evento.getSecuencia()))
+                    .name(evento.getTipo());
+            if (evento.getDatos() != null) {
+                sse.data(evento.getDatos(), MediaType.APPLICATION_JSON);
+            } else {
+                sse.data("");
+            }
+            emitter.send(sse);
+        });
+        emitter.onCompletion(suscripcion::cancelar);
+        emitter.onTimeout(suscripcion::cancelar);
+        emitter.onError(e -> suscripcion.cancelar());
+        return emitter;
     }
 
-    // READ by id
+    // READ by id (ETag = versión; admite ?fields=)
     @GetMapping("/{id}")
-    public Solicitud getById(@PathVariable Long id) {
-        return service.findById(id).orElseThrow(() -> new ResourceNotFoundException("Solicitud no encontrada con id " + id));
+    public ResponseEntity<?> getById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        Solicitud s = service.findById(id).orElseThrow(() -> new ResourceNotFoundException("Solicitud no encontrada con id " + id));
+        if (fields != null) {
+            return fieldProjector.uno(Solicitud.class, fields, s);
+        }
+        return ResponseEntity.ok().eTag(ETags.of(s.getVersion())).body(s);
     }
 
-    // UPDATE
+    // UPDATE (If-Match opcional: 412 si otro la modificó antes, 400 si está mal formada)
     @PutMapping("/{id}")
-    public Solicitud update(@PathVariable Long id, @Valid @RequestBody SolicitudRequest req) {
+    public ResponseEntity<Solicitud> update(@PathVariable Long id,
+                                            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+                                            @Valid @RequestBody SolicitudRequest req) {
         Solicitud s = new Solicitud();
         s.setTitulo(req.getTitulo());
         s.setDescripcion(req.getDescripcion());
         s.setCliente(req.getCliente());
-        // estado/técnico opcionales en cuerpo si lo deseas, aquí se mantiene simple
-        return service.update(id, s);
+        s.setEstado(req.getEstado()); // null = se mantiene
+        s.setTecnico(req.getTecnico());
+        Long versionEsperada = ETags.parseIfMatch(ifMatch,
+                () -> service.findById(id).map(Solicitud::getVersion).orElse(null));
+        Solicitud updated = service.update(id, s, versionEsperada);
+        return ResponseEntity.ok().eTag(ETags.of(updated.getVersion())).body(updated);
     }
 
     // DELETE
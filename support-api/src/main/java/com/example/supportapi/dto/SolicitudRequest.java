@@ -1,6 +1,7 @@
 package com.example.supportapi.dto;
 
 import com.example.supportapi.Model.Cliente;
+import com.example.supportapi.Model.Tecnico;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -14,6 +15,10 @@ public class SolicitudRequest{
     @NotNull(message = "Información del cliente es requerida")
     private Cliente cliente;
 
+    // opcionales: en el alta el estado siempre es PENDIENTE; en un cambio, null = se mantiene
+    private String estado;
+    private Tecnico tecnico;
+
     // getters / setters
     public String getTitulo() { return titulo; }
     public void setTitulo(String titulo) { this.titulo = titulo; }
@@ -21,4 +26,8 @@ public class SolicitudRequest{
     public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
     public Cliente getCliente() { return cliente; }
     public void setCliente(Cliente cliente) { this.cliente = cliente; }
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+    public Tecnico getTecnico() { return tecnico; }
+    public void setTecnico(Tecnico tecnico) { this.tecnico = tecnico; }
 }
@@ -0,0 +1,208 @@
+package com.example.supportapi.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bus de eventos de solicitudes con un único buffer circular acotado
+ *
+ * Los escritores (el servicio de solicitudes) sólo escriben en el buffer y avisan
+ * al repartidor, por lo que nunca esperan a los suscriptores. Cada suscriptor
+ * mantiene su propio cursor y se drena en un hilo virtual independiente:
+ * un cliente lento sólo se retrasa a sí mismo. Si un suscriptor se queda más
+ * atrás que la capacidad del buffer recibe un evento REINICIO y continúa desde
+ * el evento más antiguo disponible.
+ */
+@Component
+public class SolicitudEventBus {
+
+    // Buffer circular (tamaño potencia de dos para indexar con una máscara)
+    private final SolicitudEvent[] buffer;
+    private final int mascara;
+
+    // Próxima secuencia a asignar; las secuencias empiezan en 1
+    private volatile long siguiente = 1;
+    private final Object escritura = new Object();
+
+    private final Set<Suscripcion> suscripciones = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean repartoPendiente = new AtomicBoolean(false);
+    private final ExecutorService despachador = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final ObjectMapper objectMapper;
+
+    public SolicitudEventBus(ObjectMapper objectMapper,
+                             @Value("${support.eventos.capacidad:4096}") int capacidad) {
+        if (capacidad < 2) {
+            throw new IllegalArgumentException("La capacidad del buffer de eventos debe ser al menos 2");
+        }
+        int tamanio = 1;
+        while (tamanio < capacidad) {
+            tamanio <<= 1;
+        }
+        this.buffer = new SolicitudEvent[tamanio];
+        this.mascara = tamanio - 1;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Publica un evento de solicitud
+     * @param tipo CREADA, ACTUALIZADA o ELIMINADA
+     * @param solicitudId ID de la solicitud afectada
+     * @param solicitud Estado de la solicitud tras el cambio (nulo en eliminaciones)
+     */
+    public void publicar(String tipo, Long solicitudId, Object solicitud) {
+        String datos = serializar(solicitudId, solicitud);
+
+        synchronized (escritura) {
+            long secuencia = siguiente;
+            buffer[(int) (secuencia & mascara)] = new SolicitudEvent(secuencia, tipo, solicitudId, datos);
+            siguiente = secuencia + 1;
+        }
+
+        // Un único reparto pendiente a la vez: el escritor no recorre los suscriptores
+        if (!suscripciones.isEmpty() && repartoPendiente.compareAndSet(false, true)) {
+            despachador.execute(this::repartir);
+        }
+    }
+
+    /**
+     * Registra un nuevo suscriptor
+     * @param ultimoEventoId Último evento recibido por el cliente (cabecera Last-Event-ID), o nulo
+     *                       para recibir sólo los eventos nuevos
+     * @param sink Destino de los eventos
+     * @return Suscripción que puede cancelarse
+     */
+    public Suscripcion suscribir(Long ultimoEventoId, SolicitudEventSink sink) {
+        long cursor = ultimoEventoId != null ? ultimoEventoId + 1 : siguiente;
+        Suscripcion suscripcion = new Suscripcion(sink, cursor);
+        suscripciones.add(suscripcion);
+
+        // Drenar de inmediato por si el cliente se reanuda con eventos pendientes
+        programar(suscripcion);
+        return suscripcion;
+    }
+
+    /**
+     * Número de suscriptores conectados
+     */
+    public int getSuscriptoresActivos() {
+        return suscripciones.size();
+    }
+
+    /**
+     * Secuencia del último evento publicado (0 si aún no hay eventos)
+     */
+    public long getUltimaSecuencia() {
+        return siguiente - 1;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        suscripciones.forEach(s -> s.activa = false);
+        suscripciones.clear();
+        despachador.shutdownNow();
+    }
+
+    private void repartir() {
+        repartoPendiente.set(false);
+        for (Suscripcion suscripcion : suscripciones) {
+            programar(suscripcion);
+        }
+    }
+
+    private void programar(Suscripcion suscripcion) {
+        if (suscripcion.activa && suscripcion.programada.compareAndSet(false, true)) {
+            despachador.execute(() -> drenar(suscripcion));
+        }
+    }
+
+    /**
+     * Envía al suscriptor todos los eventos desde su cursor hasta la cabeza del buffer
+     */
+    private void drenar(Suscripcion s) {
+        try {
+            while (s.activa) {
+                long cabeza = siguiente;
+
+                if (s.cursor == cabeza) {
+                    s.programada.set(false);
+                    // Un evento pudo publicarse entre la lectura de la cabeza y la liberación
+                    if (siguiente != cabeza && s.programada.compareAndSet(false, true)) {
+                        continue;
+                    }
+                    return;
+                }
+
+                long masAntiguo = Math.max(1, cabeza - buffer.length);
+                if (s.cursor < masAntiguo || s.cursor > cabeza) {
+                    // Eventos perdidos (suscriptor lento) o ID desconocido (p. ej. tras reiniciar el servidor)
+                    long reanudarDesde = s.cursor > cabeza ? cabeza : masAntiguo;
+                    s.sink.enviar(new SolicitudEvent(reanudarDesde - 1, SolicitudEvent.REINICIO, null, null));
+                    s.cursor = reanudarDesde;
+                    continue;
+                }
+
+                SolicitudEvent evento = buffer[(int) (s.cursor & mascara)];
+                if (evento == null || evento.getSecuencia() != s.cursor) {
+                    // El escritor sobrescribió la posición; se recalcula en la siguiente vuelta
+                    continue;
+                }
+
+                s.sink.enviar(evento);
+                s.cursor++;
+            }
+        } catch (IOException | RuntimeException e) {
+            s.cancelar();
+        }
+    }
+
+    private String serializar(Long solicitudId, Object solicitud) {
+        if (solicitud != null) {
+            try {
+                return objectMapper.writeValueAsString(solicitud);
+            } catch (JsonProcessingException e) {
+                System.err.println("No se pudo serializar la solicitud " + solicitudId + ": " + e.getMessage());
+            }
+        }
+        return "{\"id\":" + solicitudId + "}";
+    }
+
+    /**
+     * Suscripción activa al bus; cada una avanza con su propio cursor
+     */
+    public final class Suscripcion {
+        private final SolicitudEventSink sink;
+        private final AtomicBoolean programada = new AtomicBoolean(false);
+        private volatile boolean activa = true;
+
+        // Sólo lo modifica el hilo que drena (protegido por "programada")
+        private long cursor;
+
+        private Suscripcion(SolicitudEventSink sink, long cursor) {
+            this.sink = sink;
+            this.cursor = cursor;
+        }
+
+        /**
+         * Da de baja la suscripción; es seguro llamarlo varias veces
+         */
+        public void cancelar() {
+            activa = false;
+            suscripciones.remove(this);
+        }
+
+        public boolean isActiva() {
+            return activa;
+        }
+    }
+}
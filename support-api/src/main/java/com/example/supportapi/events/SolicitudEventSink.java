@@ -0,0 +1,13 @@
+package com.example.supportapi.events;
+
+import java.io.IOException;
+
+/**
+ * Destino de los eventos de un suscriptor (por ejemplo, una conexión SSE)
+ * Si el envío lanza IOException el suscriptor se da de baja automáticamente
+ */
+@FunctionalInterface
+public interface SolicitudEventSink {
+
+    void enviar(SolicitudEvent evento) throws IOException;
+}
@@ -0,0 +1,8 @@
+package com.example.supportapi.exception;
+
+// Parámetros de consulta no válidos (400)
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
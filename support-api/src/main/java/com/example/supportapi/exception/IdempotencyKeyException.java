@@ -0,0 +1,8 @@
+package com.example.supportapi.exception;
+
+// Clave de idempotencia inválida o reutilizada con otra petición
+public class IdempotencyKeyException extends RuntimeException {
+    public IdempotencyKeyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.supportapi.exception;
+
+// La versión indicada en If-Match no coincide con la guardada (HTTP 412)
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
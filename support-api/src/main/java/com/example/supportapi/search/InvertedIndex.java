@@ -0,0 +1,315 @@
+package com.example.supportapi.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria con ranking BM25
+ *
+ * Cada versión indexada de un documento recibe un ordinal interno; las listas de
+ * apariciones guardan ordinales y frecuencias en arrays de int, sin objetos por aparición.
+ * Actualizar o eliminar un documento marca su ordinal como muerto y las listas afectadas
+ * se compactan cuando la mitad de sus entradas están muertas, así que el índice se
+ * mantiene de forma incremental; cuando los ordinales muertos superan a los vivos se
+ * renumeran todos para que los arrays por ordinal no crezcan con cada actualización.
+ *
+ * Las búsquedas se ejecutan en paralelo (bloqueo de lectura); las escrituras son exclusivas.
+ */
+public class InvertedIndex {
+
+    // Parámetros habituales de BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Apariciones> terminos = new HashMap<>();
+    private final Map<Long, Integer> ordinalPorId = new HashMap<>();
+
+    // Datos por ordinal
+    private long[] idPorOrdinal = new long[1024];
+    private int[] longitudPorOrdinal = new int[1024];
+    private String[][] terminosPorOrdinal = new String[1024][];
+    private final BitSet vivos = new BitSet();
+    private int siguienteOrdinal;
+
+    private long longitudTotal;
+
+    // Acumulador de puntuaciones reutilizado por cada hilo de búsqueda
+    private final ThreadLocal<Acumulador> acumuladores = ThreadLocal.withInitial(Acumulador::new);
+
+    /**
+     * Indexa (o reindexa) un documento
+     * @param id Identificador del documento
+     * @param texto Texto a indexar
+     */
+    public void indexar(long id, String texto) {
+        List<String> analizados = SpanishAnalyzer.analizar(texto);
+        Map<String, Integer> frecuencias = new HashMap<>();
+        for (String termino : analizados) {
+            frecuencias.merge(termino, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            eliminarSinBloqueo(id);
+            renumerarSiHaceFalta();
+
+            int ordinal = siguienteOrdinal++;
+            asegurarCapacidad(ordinal);
+            idPorOrdinal[ordinal] = id;
+            longitudPorOrdinal[ordinal] = analizados.size();
+            terminosPorOrdinal[ordinal] = frecuencias.keySet().toArray(new String[0]);
+            vivos.set(ordinal);
+            ordinalPorId.put(id, ordinal);
+            longitudTotal += analizados.size();
+
+            for (Map.Entry<String, Integer> entrada : frecuencias.entrySet()) {
+                terminos.computeIfAbsent(entrada.getKey(), t -> new Apariciones())
+                        .anadir(ordinal, entrada.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina un documento del índice (no hace nada si no estaba)
+     */
+    public void eliminar(long id) {
+        lock.writeLock().lock();
+        try {
+            eliminarSinBloqueo(id);
+            renumerarSiHaceFalta();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los documentos más relevantes para una consulta
+     * @param consulta Texto libre; se analiza igual que los documentos
+     * @param limite Número máximo de resultados
+     * @return Resultados ordenados por puntuación BM25 descendente
+     */
+    public List<Resultado> buscar(String consulta, int limite) {
+        Set<String> terminosConsulta = new LinkedHashSet<>(SpanishAnalyzer.analizar(consulta));
+        if (terminosConsulta.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentos = ordinalPorId.size();
+            if (documentos == 0) {
+                return List.of();
+            }
+            double longitudMedia = (double) longitudTotal / documentos;
+
+            Acumulador acumulador = acumuladores.get();
+            acumulador.preparar(siguienteOrdinal);
+            try {
+                for (String termino : terminosConsulta) {
+                    Apariciones apariciones = terminos.get(termino);
+                    if (apariciones == null) {
+                        continue;
+                    }
+                    int df = apariciones.tamano - apariciones.muertos;
+                    double idf = Math.log(1 + (documentos - df + 0.5) / (df + 0.5));
+                    for (int i = 0; i < apariciones.tamano; i++) {
+                        int ordinal = apariciones.ordinales[i];
+                        if (!vivos.get(ordinal)) {
+                            continue;
+                        }
+                        int tf = apariciones.frecuencias[i];
+                        double norma = K1 * (1 - B + B * longitudPorOrdinal[ordinal] / longitudMedia);
+                        acumulador.sumar(ordinal, (float) (idf * tf * (K1 + 1) / (tf + norma)));
+                    }
+                }
+                return acumulador.mejores(limite, idPorOrdinal);
+            } finally {
+                acumulador.limpiar();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Número de documentos indexados
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalPorId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void eliminarSinBloqueo(long id) {
+        Integer ordinal = ordinalPorId.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        vivos.clear(ordinal);
+        longitudTotal -= longitudPorOrdinal[ordinal];
+        for (String termino : terminosPorOrdinal[ordinal]) {
+            Apariciones apariciones = terminos.get(termino);
+            apariciones.muertos++;
+            if (apariciones.muertos == apariciones.tamano) {
+                terminos.remove(termino);
+            } else if (apariciones.muertos * 2 > apariciones.tamano) {
+                apariciones.compactar(vivos);
+            }
+        }
+        terminosPorOrdinal[ordinal] = null;
+    }
+
+    // Reasigna ordinales consecutivos a los documentos vivos (conserva el orden creciente)
+    private void renumerarSiHaceFalta() {
+        int documentos = ordinalPorId.size();
+        if (siguienteOrdinal < 4096 || siguienteOrdinal < documentos * 2) {
+            return;
+        }
+        int[] nuevoOrdinal = new int[siguienteOrdinal];
+        int n = 0;
+        for (int o = vivos.nextSetBit(0); o >= 0; o = vivos.nextSetBit(o + 1)) {
+            nuevoOrdinal[o] = n;
+            idPorOrdinal[n] = idPorOrdinal[o];
+            longitudPorOrdinal[n] = longitudPorOrdinal[o];
+            terminosPorOrdinal[n] = terminosPorOrdinal[o];
+            n++;
+        }
+        Arrays.fill(terminosPorOrdinal, n, siguienteOrdinal, null);
+
+        for (Apariciones apariciones : terminos.values()) {
+            apariciones.compactar(vivos);
+            for (int i = 0; i < apariciones.tamano; i++) {
+                apariciones.ordinales[i] = nuevoOrdinal[apariciones.ordinales[i]];
+            }
+        }
+        ordinalPorId.replaceAll((id, o) -> nuevoOrdinal[o]);
+        vivos.clear();
+        vivos.set(0, n);
+        siguienteOrdinal = n;
+    }
+
+    private void asegurarCapacidad(int ordinal) {
+        if (ordinal < idPorOrdinal.length) {
+            return;
+        }
+        int nueva = idPorOrdinal.length * 2;
+        idPorOrdinal = Arrays.copyOf(idPorOrdinal, nueva);
+        longitudPorOrdinal = Arrays.copyOf(longitudPorOrdinal, nueva);
+        terminosPorOrdinal = Arrays.copyOf(terminosPorOrdinal, nueva);
+    }
+
+    /**
+     * Documento encontrado y su puntuación
+     */
+    public record Resultado(long id, double puntuacion) {
+    }
+
+    /**
+     * Lista de apariciones de un término: ordinales crecientes y sus frecuencias
+     */
+    private static final class Apariciones {
+        private int[] ordinales = new int[4];
+        private int[] frecuencias = new int[4];
+        private int tamano;
+        private int muertos;
+
+        void anadir(int ordinal, int frecuencia) {
+            if (tamano == ordinales.length) {
+                ordinales = Arrays.copyOf(ordinales, tamano * 2);
+                frecuencias = Arrays.copyOf(frecuencias, tamano * 2);
+            }
+            ordinales[tamano] = ordinal;
+            frecuencias[tamano] = frecuencia;
+            tamano++;
+        }
+
+        void compactar(BitSet vivos) {
+            int j = 0;
+            for (int i = 0; i < tamano; i++) {
+                if (vivos.get(ordinales[i])) {
+                    ordinales[j] = ordinales[i];
+                    frecuencias[j] = frecuencias[i];
+                    j++;
+                }
+            }
+            tamano = j;
+            muertos = 0;
+            if (ordinales.length > 16 && tamano < ordinales.length / 4) {
+                ordinales = Arrays.copyOf(ordinales, tamano * 2);
+                frecuencias = Arrays.copyOf(frecuencias, tamano * 2);
+            }
+        }
+    }
+
+    /**
+     * Puntuaciones por ordinal en un array denso; sólo se limpian las posiciones tocadas
+     */
+    private static final class Acumulador {
+        private float[] puntuaciones = new float[0];
+        private int[] tocados = new int[64];
+        private int numTocados;
+
+        void preparar(int ordinales) {
+            if (puntuaciones.length < ordinales) {
+                puntuaciones = new float[Math.max(ordinales, puntuaciones.length * 2)];
+            }
+        }
+
+        void sumar(int ordinal, float puntuacion) {
+            if (puntuaciones[ordinal] == 0f) {
+                if (numTocados == tocados.length) {
+                    tocados = Arrays.copyOf(tocados, numTocados * 2);
+                }
+                tocados[numTocados++] = ordinal;
+            }
+            puntuaciones[ordinal] += puntuacion;
+        }
+
+        List<Resultado> mejores(int limite, long[] idPorOrdinal) {
+            // Montículo de mínimos con los "limite" mejores
+            PriorityQueue<Integer> monticulo = new PriorityQueue<>(limite + 1,
+                    (a, b) -> Float.compare(puntuaciones[a], puntuaciones[b]));
+            for (int i = 0; i < numTocados; i++) {
+                int ordinal = tocados[i];
+                if (monticulo.size() < limite) {
+                    monticulo.add(ordinal);
+                } else if (puntuaciones[ordinal] > puntuaciones[monticulo.peek()]) {
+                    monticulo.poll();
+                    monticulo.add(ordinal);
+                }
+            }
+            List<Resultado> resultado = new ArrayList<>(monticulo.size());
+            while (!monticulo.isEmpty()) {
+                int ordinal = monticulo.poll();
+                resultado.add(new Resultado(idPorOrdinal[ordinal], puntuaciones[ordinal]));
+            }
+            Collections.reverse(resultado);
+            return resultado;
+        }
+
+        void limpiar() {
+            for (int i = 0; i < numTocados; i++) {
+                puntuaciones[tocados[i]] = 0f;
+            }
+            numTocados = 0;
+            if (tocados.length > 1 << 16) {
+                tocados = new int[64];
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.supportapi.search;
+
+import com.example.supportapi.Model.Solicitud;
+
+/**
+ * Solicitud encontrada por la búsqueda de texto (título y descripción) con su puntuación BM25
+ */
+public class ResultadoBusqueda {
+
+    private final Solicitud solicitud;
+    private final double puntuacion;
+
+    public ResultadoBusqueda(Solicitud solicitud, double puntuacion) {
+        this.solicitud = solicitud;
+        this.puntuacion = puntuacion;
+    }
+
+    public Solicitud getSolicitud() {
+        return solicitud;
+    }
+
+    public double getPuntuacion() {
+        return puntuacion;
+    }
+}
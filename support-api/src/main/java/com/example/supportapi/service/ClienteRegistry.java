@@ -0,0 +1,46 @@
+package com.example.supportapi.service;
+
+import com.example.supportapi.Model.Cliente;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Registro de clientes referenciados por las solicitudes (cada cliente se guarda una sola vez).
+// Un cliente se identifica por su id o, si no lo trae, por su email; los datos más recientes sustituyen a los anteriores.
+@Component
+public class ClienteRegistry {
+
+    private final Map<Long, Cliente> porId = new ConcurrentHashMap<>();
+    private final Map<String, Long> idPorEmail = new ConcurrentHashMap<>();
+    private final AtomicLong idGen = new AtomicLong(1L);
+
+    // devuelve el id con el que la solicitud debe referenciar al cliente
+    public synchronized Long registrar(Cliente cliente) {
+        if (cliente == null) return null;
+        String email = cliente.getEmail() == null ? null : cliente.getEmail().trim().toLowerCase();
+        Long id = cliente.getId();
+        if (id == null && email != null) id = idPorEmail.get(email);
+        if (id == null) id = idGen.getAndIncrement();
+        else idGen.accumulateAndGet(id + 1, Math::max);
+
+        Cliente anterior = porId.get(id);
+        if (anterior != null) id = anterior.getId(); // reutilizar el mismo Long en todas las referencias
+        Cliente guardado = new Cliente(id, cliente.getNombre(), cliente.getTelefono(), cliente.getEmail());
+        porId.put(id, guardado);
+        if (anterior != null && anterior.getEmail() != null) idPorEmail.remove(anterior.getEmail().trim().toLowerCase());
+        if (email != null) idPorEmail.put(email, id);
+        return id;
+    }
+
+    // resolución por lotes: un mapa id -> cliente con cada cliente una sola vez
+    public Map<Long, Cliente> buscarTodos(Collection<Long> ids) {
+        Map<Long, Cliente> encontrados = new HashMap<>();
+        for (Long id : ids) {
+            Cliente c = id == null ? null : porId.get(id);
+            if (c != null) encontrados.put(id, c);
+        }
+        return encontrados;
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.supportapi.service;
 
 import com.example.supportapi.Model.Solicitud;
+import com.example.supportapi.analytics.ConsultaRollup;
+import com.example.supportapi.analytics.FilaRollup;
+import com.example.supportapi.archive.ArchivoSolicitudes;
+import com.example.supportapi.search.ResultadoBusqueda;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,5 +14,14 @@ public interface SolicitudService {
     List<Solicitud> findAll();
     Optional<Solicitud> findById(Long id);
     Solicitud update(Long id, Solicitud s);
+    // versionEsperada: la del If-Match (null = no comprobar)
+    Solicitud update(Long id, Solicitud s, Long versionEsperada);
     void delete(Long id);
+    // búsqueda de texto en título y descripción, ordenada por relevancia (BM25)
+    List<ResultadoBusqueda> buscar(String consulta, int limite);
+    // creadas/resueltas por intervalo desde los contadores precalculados (no recorre las solicitudes)
+    List<FilaRollup> rollups(ConsultaRollup consulta);
+    // mueve ya al archivo en disco las cerradas antiguas; devuelve cuántas
+    int archivar();
+    ArchivoSolicitudes.EstadoArchivo estadoArchivo();
 }
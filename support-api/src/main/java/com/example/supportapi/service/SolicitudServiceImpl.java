@@ -1,63 +1,255 @@
 package com.example.supportapi.service;
 
+import com.example.supportapi.analytics.ConsultaRollup;
+import com.example.supportapi.analytics.FilaRollup;
+import com.example.supportapi.analytics.RollupStore;
+import com.example.supportapi.archive.ArchivoSolicitudes;
+import com.example.supportapi.archive.ColdArchive;
+import com.example.supportapi.events.SolicitudEvent;
+import com.example.supportapi.events.SolicitudEventBus;
 import com.example.supportapi.exception.ResourceNotFoundException;
+import com.example.supportapi.exception.VersionConflictException;
+import com.example.supportapi.Model.Cliente;
 import com.example.supportapi.Model.Solicitud;
+import com.example.supportapi.search.InvertedIndex;
+import com.example.supportapi.search.ResultadoBusqueda;
+import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 @Service
 public class SolicitudServiceImpl implements SolicitudService {
 
-    private final Map<Long, Solicitud> storage = new LinkedHashMap<>();
+    // ordenado por id (= orden de creación); los valores se sustituyen por copias versionadas.
+    // Se guarda sólo clienteId: el cliente se resuelve al leer (por lotes en las listas)
+    private final ConcurrentNavigableMap<Long, Solicitud> storage = new ConcurrentSkipListMap<>();
     private final AtomicLong idGen = new AtomicLong(1L);
+    private static final int LOTE_ARCHIVO = 10_000; // máximo de solicitudes por escritura en el archivo
+    private final SolicitudEventBus eventBus; // cambios notificados por SSE
+    private final ClienteRegistry clientes;
+    private final InvertedIndex indiceTexto = new InvertedIndex(); // título + descripción
+    private final RollupStore rollups; // creadas/resueltas por intervalo, al día en cada escritura
+    // cerradas antiguas fuera del heap: una solicitud está en storage o en el archivo
+    // (si por un momento está en los dos, gana storage)
+    private final ArchivoSolicitudes archivo;
 
     // ejemplo: crear algunos datos iniciales
-    public SolicitudServiceImpl() {
+    public SolicitudServiceImpl(SolicitudEventBus eventBus, ClienteRegistry clientes, RollupStore rollups,
+                                ArchivoSolicitudes archivo) {
+        this.eventBus = eventBus;
+        this.clientes = clientes;
+        this.rollups = rollups;
+        this.archivo = archivo;
         // datos de prueba opcionales
         // storage.put(...);
     }
 
+    @PostConstruct
+    public void programarArchivo() {
+        archivo.programar(this::archivar);
+    }
+
     @Override
     public Solicitud create(Solicitud s) {
         long id = idGen.getAndIncrement();
         s.setId(id);
         if (s.getCreadoEn() == null) s.setCreadoEn(java.time.LocalDateTime.now());
-        storage.put(id, s);
-        return s;
+        s.setVersion(1L);
+        Solicitud guardada = conReferencia(s, s.getCliente());
+        storage.put(id, guardada);
+        indiceTexto.indexar(id, textoIndexable(guardada));
+        rollups.creada(guardada.getCreadoEn(), guardada.getEstado(), especialidad(guardada));
+        Solicitud resuelta = resolver(List.of(guardada)).get(0);
+        eventBus.publicar(SolicitudEvent.CREADA, id, resuelta);
+        return resuelta;
     }
 
     @Override
     public List<Solicitud> findAll() {
-        return new ArrayList<>(storage.values());
+        ColdArchive<Solicitud> frio = archivo.archivo();
+        if (frio == null || frio.isEmpty()) {
+            return resolver(new ArrayList<>(storage.values()));
+        }
+        return resolver(mezclar(new ArrayList<>(storage.values()), frio.todas()));
     }
 
     @Override
     public Optional<Solicitud> findById(Long id) {
-        return Optional.ofNullable(storage.get(id));
+        Solicitud s = leer(id);
+        return s == null ? Optional.empty() : Optional.of(resolver(List.of(s)).get(0));
     }
 
     @Override
     public Solicitud update(Long id, Solicitud s) {
+        return update(id, s, null);
+    }
+
+    @Override
+    public Solicitud update(Long id, Solicitud s, Long versionEsperada) {
         Solicitud existing = storage.get(id);
+        if (existing == null) {
+            existing = restaurar(id);
+        }
         if (existing == null) {
             throw new ResourceNotFoundException("Solicitud no encontrada con id " + id);
         }
-        // actualizar campos permitidos
-        existing.setTitulo(s.getTitulo());
-        existing.setDescripcion(s.getDescripcion());
-        existing.setCliente(s.getCliente());
-        existing.setEstado(s.getEstado() != null ? s.getEstado() : existing.getEstado());
-        existing.setTecnico(s.getTecnico());
-        storage.put(id, existing);
-        return existing;
+        if (versionEsperada != null && !versionEsperada.equals(existing.getVersion())) {
+            throw new VersionConflictException("La solicitud " + id + " está en la versión "
+                    + existing.getVersion() + ", no en la " + versionEsperada);
+        }
+        // actualizar campos permitidos sobre una copia
+        Solicitud updated = conReferencia(existing, s.getCliente());
+        updated.setTitulo(s.getTitulo());
+        updated.setDescripcion(s.getDescripcion());
+        updated.setEstado(s.getEstado() != null ? s.getEstado() : existing.getEstado());
+        updated.setTecnico(s.getTecnico());
+        updated.setVersion(existing.getVersion() + 1);
+        // compare-and-set: si otro hilo la cambió entretanto, conflicto
+        if (!storage.replace(id, existing, updated)) {
+            throw new VersionConflictException("La solicitud " + id + " fue modificada concurrentemente");
+        }
+        indiceTexto.indexar(id, textoIndexable(updated));
+        rollups.cambioDeEstado(java.time.LocalDateTime.now(), existing.getEstado(), updated.getEstado(), especialidad(updated));
+        Solicitud resuelta = resolver(List.of(updated)).get(0);
+        eventBus.publicar(SolicitudEvent.ACTUALIZADA, id, resuelta);
+        return resuelta;
     }
 
     @Override
     public void delete(Long id) {
-        if (storage.remove(id) == null) {
+        ColdArchive<Solicitud> frio = archivo.archivo();
+        if (storage.remove(id) == null && (frio == null || frio.eliminar(id).isEmpty())) {
             throw new ResourceNotFoundException("Solicitud no encontrada con id " + id);
         }
+        indiceTexto.eliminar(id);
+        eventBus.publicar(SolicitudEvent.ELIMINADA, id, null);
+    }
+
+    @Override
+    public List<ResultadoBusqueda> buscar(String consulta, int limite) {
+        List<Solicitud> encontradas = new ArrayList<>();
+        List<Double> puntuaciones = new ArrayList<>();
+        for (InvertedIndex.Resultado r : indiceTexto.buscar(consulta, limite)) {
+            Solicitud s = leer(r.id()); // puede haberse borrado entretanto
+            if (s != null) {
+                encontradas.add(s);
+                puntuaciones.add(r.puntuacion());
+            }
+        }
+        List<Solicitud> resueltas = resolver(encontradas);
+        List<ResultadoBusqueda> resultados = new ArrayList<>();
+        for (int i = 0; i < resueltas.size(); i++) {
+            resultados.add(new ResultadoBusqueda(resueltas.get(i), puntuaciones.get(i)));
+        }
+        return resultados;
+    }
+
+    @Override
+    public List<FilaRollup> rollups(ConsultaRollup consulta) {
+        return rollups.consultar(consulta);
+    }
+
+    /**
+     * Mueve al archivo las cerradas antiguas: primero se escriben en disco y luego se quitan
+     * de storage; si entre tanto una cambió o se borró, su copia archivada se descarta
+     */
+    @Override
+    public int archivar() {
+        ColdArchive<Solicitud> frio = archivo.archivo();
+        if (frio == null) return 0;
+        long inicio = System.nanoTime();
+        Predicate<Solicitud> criterio = archivo.criterio();
+        List<Solicitud> candidatas = new ArrayList<>();
+        for (Solicitud s : storage.values()) {
+            if (criterio.test(s)) candidatas.add(s);
+        }
+        int archivadas = 0;
+        for (int desde = 0; desde < candidatas.size(); desde += LOTE_ARCHIVO) {
+            List<Solicitud> lote = candidatas.subList(desde, Math.min(desde + LOTE_ARCHIVO, candidatas.size()));
+            frio.archivar(lote);
+            for (Solicitud s : lote) {
+                if (storage.remove(s.getId(), s)) archivadas++;
+                else frio.eliminar(s.getId());
+            }
+        }
+        archivo.ejecutado(archivadas, System.nanoTime() - inicio);
+        return archivadas;
+    }
+
+    @Override
+    public ArchivoSolicitudes.EstadoArchivo estadoArchivo() {
+        return archivo.estado(storage.size());
+    }
+
+    // en memoria o, si no, en el archivo (más lento: lee y descomprime su bloque)
+    private Solicitud leer(Long id) {
+        Solicitud s = storage.get(id);
+        if (s != null) return s;
+        ColdArchive<Solicitud> frio = archivo.archivo();
+        return frio != null ? frio.get(id).orElse(null) : null;
+    }
+
+    // devuelve a memoria una solicitud archivada para poder modificarla
+    private Solicitud restaurar(Long id) {
+        ColdArchive<Solicitud> frio = archivo.archivo();
+        if (frio == null) return null;
+        Optional<Solicitud> archivada = frio.get(id);
+        if (archivada.isEmpty()) return storage.get(id);
+        Solicitud existente = storage.putIfAbsent(id, archivada.get());
+        frio.eliminar(id);
+        return existente != null ? existente : archivada.get();
+    }
+
+    // mezcla dos listas ordenadas por id; si un id está en las dos gana la de memoria
+    private static List<Solicitud> mezclar(List<Solicitud> enMemoria, List<Solicitud> archivadas) {
+        List<Solicitud> mezcla = new ArrayList<>(enMemoria.size() + archivadas.size());
+        int i = 0, j = 0;
+        while (i < enMemoria.size() || j < archivadas.size()) {
+            if (j == archivadas.size() || (i < enMemoria.size() && enMemoria.get(i).getId() <= archivadas.get(j).getId())) {
+                Solicitud s = enMemoria.get(i++);
+                if (j < archivadas.size() && archivadas.get(j).getId().equals(s.getId())) j++;
+                mezcla.add(s);
+            } else {
+                mezcla.add(archivadas.get(j++));
+            }
+        }
+        return mezcla;
+    }
+
+    private static String especialidad(Solicitud s) {
+        return s.getTecnico() != null ? s.getTecnico().getEspecialidad() : null;
+    }
+
+    // copia para guardar: el cliente se registra aparte y la solicitud sólo guarda su id
+    private Solicitud conReferencia(Solicitud s, Cliente cliente) {
+        Solicitud copia = new Solicitud(s);
+        if (cliente != null) copia.setClienteId(clientes.registrar(cliente));
+        copia.setCliente(null);
+        return copia;
+    }
+
+    // resuelve los clientes de toda la lista con una sola consulta al registro (mapa de identidad)
+    private List<Solicitud> resolver(List<Solicitud> solicitudes) {
+        Set<Long> ids = new HashSet<>();
+        for (Solicitud s : solicitudes) {
+            if (s.getClienteId() != null) ids.add(s.getClienteId());
+        }
+        Map<Long, Cliente> porId = clientes.buscarTodos(ids);
+        List<Solicitud> resueltas = new ArrayList<>(solicitudes.size());
+        for (Solicitud s : solicitudes) {
+            Solicitud r = new Solicitud(s);
+            r.setCliente(porId.get(s.getClienteId()));
+            resueltas.add(r);
+        }
+        return resueltas;
+    }
+
+    private static String textoIndexable(Solicitud s) {
+        return (s.getTitulo() == null ? "" : s.getTitulo()) + " " + (s.getDescripcion() == null ? "" : s.getDescripcion());
     }
 }
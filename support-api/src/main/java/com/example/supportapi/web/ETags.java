@@ -0,0 +1,124 @@
+package com.example.supportapi.web;
+
+import com.example.supportapi.exception.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Conversión entre la versión de una entidad y las cabeceras ETag / If-Match
+ *
+ * El ETag es la versión entre comillas, por ejemplo "3". If-Match se evalúa con
+ * comparación fuerte (RFC 9110): las etiquetas débiles W/"3" nunca coinciden
+ */
+public final class ETags {
+
+    // Versión imposible (empiezan en 1): el compare-and-set falla con 412
+    private static final long NINGUNA = -1L;
+
+    private ETags() {
+    }
+
+    /**
+     * Genera el valor de la cabecera ETag para una versión
+     */
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Interpreta la cabecera If-Match: "*", una etiqueta o una lista separada por comas
+     * @param ifMatch Valor de la cabecera (puede ser nulo)
+     * @param versionActual Versión guardada ahora (nulo si no existe); sólo se consulta
+     *                      cuando la lista trae varias versiones
+     * @return Versión que debe exigir el compare-and-set, o nulo si no hay precondición
+     *         (cabecera ausente o "*")
+     * @throws BadRequestException si la cabecera está mal formada
+     */
+    public static Long parseIfMatch(String ifMatch, Supplier<Long> versionActual) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        if (ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        List<Long> versiones = new ArrayList<>();
+        for (String etiqueta : etiquetas(ifMatch)) {
+            if (etiqueta.startsWith("W/")) {
+                continue; // una etiqueta débil nunca supera la comparación fuerte
+            }
+            Long version = version(etiqueta.substring(1, etiqueta.length() - 1));
+            if (version != null) {
+                versiones.add(version);
+            }
+        }
+
+        if (versiones.isEmpty()) {
+            return NINGUNA;
+        }
+        if (versiones.size() == 1) {
+            return versiones.get(0);
+        }
+        // Con varias candidatas se exige la actual si está en la lista; el compare-and-set
+        // sigue detectando una modificación concurrente entre esta lectura y la escritura
+        Long actual = versionActual.get();
+        return actual != null && versiones.contains(actual) ? actual : versiones.get(0);
+    }
+
+    // Separa la lista de entity-tags validando la sintaxis: [W/]"etagc*"
+    private static List<String> etiquetas(String cabecera) {
+        List<String> etiquetas = new ArrayList<>();
+        int i = 0;
+        int n = cabecera.length();
+        while (true) {
+            while (i < n && (cabecera.charAt(i) == ' ' || cabecera.charAt(i) == '\t')) {
+                i++;
+            }
+            int inicio = i;
+            if (cabecera.startsWith("W/", i)) {
+                i += 2;
+            }
+            if (i >= n || cabecera.charAt(i) != '"') {
+                throw malFormada(cabecera);
+            }
+            int cierre = cabecera.indexOf('"', i + 1);
+            if (cierre < 0) {
+                throw malFormada(cabecera);
+            }
+            for (int j = i + 1; j < cierre; j++) {
+                char c = cabecera.charAt(j);
+                if (c < 0x21 || c == 0x7f) {
+                    throw malFormada(cabecera);
+                }
+            }
+            etiquetas.add(cabecera.substring(inicio, cierre + 1));
+
+            i = cierre + 1;
+            while (i < n && (cabecera.charAt(i) == ' ' || cabecera.charAt(i) == '\t')) {
+                i++;
+            }
+            if (i == n) {
+                return etiquetas;
+            }
+            if (cabecera.charAt(i) != ',') {
+                throw malFormada(cabecera);
+            }
+            i++;
+        }
+    }
+
+    // Una etiqueta bien formada que no es una versión nuestra simplemente no coincide
+    private static Long version(String opaca) {
+        try {
+            return Long.parseLong(opaca);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static BadRequestException malFormada(String cabecera) {
+        return new BadRequestException("La cabecera If-Match no es válida: " + cabecera);
+    }
+}
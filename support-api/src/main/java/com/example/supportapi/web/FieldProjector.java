@@ -0,0 +1,185 @@
+package com.example.supportapi.web;
+
+import com.example.supportapi.exception.BadRequestException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serializa sólo los campos pedidos con el parámetro ?fields= (sparse fieldsets)
+ *
+ * Para cada combinación de tipo y campos se compila una vez un escritor con los nombres
+ * ya codificados y un MethodHandle por getter, y se reutiliza en las siguientes peticiones.
+ * Los valores anidados (p. ej. "cliente") se serializan completos con el ObjectMapper.
+ */
+@Component
+public class FieldProjector {
+
+    // Más combinaciones distintas que esto no se guardan (evita crecer sin límite)
+    private static final int MAX_ESCRITORES = 512;
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, Map<String, Propiedad>> propiedadesPorTipo = new ConcurrentHashMap<>();
+    private final Map<String, Escritor> escritores = new ConcurrentHashMap<>();
+
+    public FieldProjector(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Respuesta JSON con una lista de entidades proyectada
+     * @param tipo Clase de las entidades
+     * @param fields Valor del parámetro ?fields= (lista separada por comas)
+     * @param entidades Entidades a serializar
+     * @throws BadRequestException si se pide un campo que no existe
+     */
+    public <T> ResponseEntity<byte[]> lista(Class<T> tipo, String fields, Collection<? extends T> entidades) {
+        Escritor escritor = escritor(tipo, fields);
+        ByteArrayBuilder salida = new ByteArrayBuilder(Math.max(256, entidades.size() * 32));
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(salida)) {
+            gen.writeStartArray();
+            for (T entidad : entidades) {
+                escritor.escribir(gen, entidad);
+            }
+            gen.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(salida.toByteArray());
+    }
+
+    /**
+     * Respuesta JSON con una única entidad proyectada
+     */
+    public <T> ResponseEntity<byte[]> uno(Class<T> tipo, String fields, T entidad) {
+        Escritor escritor = escritor(tipo, fields);
+        ByteArrayBuilder salida = new ByteArrayBuilder(256);
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(salida)) {
+            escritor.escribir(gen, entidad);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(salida.toByteArray());
+    }
+
+    private Escritor escritor(Class<?> tipo, String fields) {
+        Map<String, Propiedad> disponibles = propiedadesPorTipo.computeIfAbsent(tipo, this::introspeccionar);
+
+        // Normalizar: sin espacios ni duplicados, en el orden declarado en la entidad
+        Set<String> pedidos = new LinkedHashSet<>();
+        for (String campo : fields.split(",")) {
+            String nombre = campo.trim();
+            if (nombre.isEmpty()) {
+                continue;
+            }
+            if (!disponibles.containsKey(nombre)) {
+                throw new BadRequestException("Campo desconocido en fields: '" + nombre
+                        + "'. Campos disponibles: " + String.join(", ", disponibles.keySet()));
+            }
+            pedidos.add(nombre);
+        }
+        if (pedidos.isEmpty()) {
+            throw new BadRequestException("El parámetro fields no contiene ningún campo");
+        }
+
+        List<Propiedad> seleccion = new ArrayList<>();
+        StringBuilder clave = new StringBuilder(tipo.getName());
+        for (Map.Entry<String, Propiedad> entrada : disponibles.entrySet()) {
+            if (pedidos.contains(entrada.getKey())) {
+                seleccion.add(entrada.getValue());
+                clave.append(',').append(entrada.getKey());
+            }
+        }
+
+        Escritor escritor = escritores.get(clave.toString());
+        if (escritor == null) {
+            escritor = new Escritor(seleccion.toArray(new Propiedad[0]));
+            if (escritores.size() < MAX_ESCRITORES) {
+                escritores.putIfAbsent(clave.toString(), escritor);
+            }
+        }
+        return escritor;
+    }
+
+    // Propiedades serializables del tipo, según la misma introspección que usa Jackson
+    private Map<String, Propiedad> introspeccionar(Class<?> tipo) {
+        JavaType javaType = objectMapper.constructType(tipo);
+        List<BeanPropertyDefinition> definiciones = objectMapper.getSerializationConfig()
+                .introspect(javaType).findProperties();
+
+        Map<String, Propiedad> propiedades = new LinkedHashMap<>();
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        for (BeanPropertyDefinition definicion : definiciones) {
+            AnnotatedMethod getter = definicion.getGetter();
+            if (getter == null) {
+                continue;
+            }
+            try {
+                MethodHandle handle = lookup.unreflect(getter.getAnnotated())
+                        .asType(MethodType.methodType(Object.class, Object.class));
+                propiedades.put(definicion.getName(), new Propiedad(new SerializedString(definicion.getName()), handle));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("No se puede acceder a " + tipo.getSimpleName() + "." + definicion.getName(), e);
+            }
+        }
+        return propiedades;
+    }
+
+    private record Propiedad(SerializedString nombre, MethodHandle getter) {
+    }
+
+    /**
+     * Escritor precompilado para una combinación de campos
+     */
+    private static final class Escritor {
+        private final Propiedad[] propiedades;
+
+        private Escritor(Propiedad[] propiedades) {
+            this.propiedades = propiedades;
+        }
+
+        void escribir(JsonGenerator gen, Object entidad) throws IOException {
+            gen.writeStartObject();
+            for (Propiedad propiedad : propiedades) {
+                gen.writeFieldName(propiedad.nombre());
+                Object valor;
+                try {
+                    valor = propiedad.getter().invokeExact(entidad);
+                } catch (Throwable t) {
+                    throw new IllegalStateException("Error leyendo " + propiedad.nombre().getValue(), t);
+                }
+                if (valor == null) {
+                    gen.writeNull();
+                } else if (valor instanceof String texto) {
+                    gen.writeString(texto);
+                } else if (valor instanceof Long numero) {
+                    gen.writeNumber(numero);
+                } else {
+                    gen.writeObject(valor);
+                }
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.supportapi.web;
+
+import com.example.supportapi.exception.IdempotencyKeyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Caché de deduplicación para la cabecera Idempotency-Key en los endpoints POST
+ *
+ * - Memoria acotada: como máximo "capacidad" claves terminadas, expulsando la más antigua;
+ *   las claves en curso nunca se expulsan (están acotadas por las peticiones concurrentes)
+ * - Cada clave caduca tras el TTL configurado
+ * - Peticiones concurrentes con la misma clave se agrupan: la operación se ejecuta
+ *   una sola vez y todas reciben la misma respuesta
+ * - Reutilizar una clave con un cuerpo distinto se rechaza con 422
+ *
+ * Sólo se guardan las respuestas correctas; si la operación falla la clave se libera
+ * para que el cliente pueda reintentar.
+ */
+@Component
+public class IdempotencyCache {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String HEADER_REPETIDA = "Idempotent-Replayed";
+
+    private static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    private final int capacidad;
+    private final long ttlMs;
+    private final ObjectMapper objectMapper;
+
+    // LinkedHashMap en orden de inserción: con un TTL fijo coincide con el orden de caducidad.
+    // Protegido por su propio monitor
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>();
+
+    public IdempotencyCache(ObjectMapper objectMapper,
+                            @Value("${support.idempotencia.capacidad:10000}") int capacidad,
+                            @Value("${support.idempotencia.ttl-segundos:86400}") long ttlSegundos) {
+        this.objectMapper = objectMapper;
+        this.capacidad = capacidad;
+        this.ttlMs = ttlSegundos * 1000;
+    }
+
+    /**
+     * Ejecuta la operación una única vez por clave de idempotencia
+     * @param ambito Endpoint al que pertenece la clave (p. ej. "POST /api/clientes")
+     * @param clave Valor de la cabecera Idempotency-Key (si es nulo se ejecuta sin deduplicar)
+     * @param peticion Cuerpo de la petición, para detectar reutilizaciones de la clave
+     * @param operacion Operación que crea el recurso
+     * @return La respuesta original, o la guardada si la clave ya se usó
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> ejecutar(String ambito, String clave, Object peticion,
+                                          Supplier<ResponseEntity<T>> operacion) {
+        if (clave == null || clave.isBlank()) {
+            return operacion.get();
+        }
+        if (clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new IdempotencyKeyException("La cabecera " + HEADER + " no puede superar "
+                    + LONGITUD_MAXIMA_CLAVE + " caracteres");
+        }
+
+        String id = ambito + " " + clave;
+        byte[] huella = huella(peticion);
+        long ahora = System.currentTimeMillis();
+
+        Entrada entrada;
+        boolean propietario = false;
+        synchronized (entradas) {
+            purgarCaducadas(ahora);
+            entrada = entradas.get(id);
+            if (entrada == null || entrada.expiraEn <= ahora) {
+                // Quitar antes de insertar para que la clave pase al final del orden de creación
+                entradas.remove(id);
+                entrada = new Entrada(huella, ahora + ttlMs);
+                entradas.put(id, entrada);
+                propietario = true;
+                expulsarSobrantes();
+            }
+        }
+
+        if (!Arrays.equals(entrada.huella, huella)) {
+            throw new IdempotencyKeyException("La clave de idempotencia ya se usó con una petición distinta");
+        }
+
+        if (propietario) {
+            try {
+                ResponseEntity<T> respuesta = operacion.get();
+                if (respuesta.getStatusCode().is2xxSuccessful()) {
+                    entrada.respuesta.complete(respuesta);
+                } else {
+                    liberar(id, entrada);
+                    entrada.respuesta.complete(respuesta);
+                }
+                return respuesta;
+            } catch (RuntimeException e) {
+                liberar(id, entrada);
+                entrada.respuesta.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        // Otra petición con la misma clave está en curso o ya terminó: reutilizar su resultado
+        ResponseEntity<?> original;
+        try {
+            original = entrada.respuesta.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(original.getHeaders());
+        headers.set(HEADER_REPETIDA, "true");
+        return (ResponseEntity<T>) ResponseEntity.status(original.getStatusCode())
+                .headers(headers)
+                .body(original.getBody());
+    }
+
+    /**
+     * Número de claves guardadas actualmente
+     */
+    public int size() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    private void liberar(String id, Entrada entrada) {
+        synchronized (entradas) {
+            entradas.remove(id, entrada);
+        }
+    }
+
+    // En orden de creación la primera entrada no caducada marca el final de las caducadas.
+    // Las que siguen en curso se saltan: se liberan o se purgan cuando terminen
+    private void purgarCaducadas(long ahora) {
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            Entrada entrada = it.next();
+            if (entrada.expiraEn > ahora) {
+                break;
+            }
+            if (entrada.respuesta.isDone()) {
+                it.remove();
+            }
+        }
+    }
+
+    // Expulsa las entradas terminadas más antiguas; una entrada en curso nunca se expulsa,
+    // porque un reintento con su clave volvería a ejecutar la operación
+    private void expulsarSobrantes() {
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (entradas.size() > capacidad && it.hasNext()) {
+            if (it.next().respuesta.isDone()) {
+                it.remove();
+            }
+        }
+    }
+
+    private byte[] huella(Object peticion) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(peticion);
+            return MessageDigest.getInstance("SHA-256").digest(json);
+        } catch (JsonProcessingException e) {
+            // El cuerpo ya llegó como JSON: si no se puede volver a serializar no hay huella fiable
+            throw new IllegalStateException("No se pudo calcular la huella de la petición", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static final class Entrada {
+        private final byte[] huella;
+        private final long expiraEn;
+        private final CompletableFuture<ResponseEntity<?>> respuesta = new CompletableFuture<>();
+
+        private Entrada(byte[] huella, long expiraEn) {
+            this.huella = huella;
+            this.expiraEn = expiraEn;
+        }
+    }
+}
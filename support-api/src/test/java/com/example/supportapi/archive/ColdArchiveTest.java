@@ -0,0 +1,143 @@
+package com.example.supportapi.archive;
+
+import com.example.supportapi.Model.Cliente;
+import com.example.supportapi.Model.Solicitud;
+import com.example.supportapi.analytics.RollupStore;
+import com.example.supportapi.events.SolicitudEventBus;
+import com.example.supportapi.service.ClienteRegistry;
+import com.example.supportapi.service.SolicitudServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColdArchiveTest {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules();
+	private static final LocalDateTime FECHA = LocalDateTime.of(2026, 1, 1, 9, 0);
+
+	@TempDir
+	Path directorio;
+
+	private ColdArchive<Solicitud> archivo(int porBloque) {
+		return new ColdArchive<>(directorio, MAPPER, Solicitud.class, Solicitud::getId, porBloque);
+	}
+
+	private static Solicitud solicitud(long id, String estado) {
+		Solicitud s = new Solicitud(id, "Incidencia " + id, "No arranca el equipo de la planta " + (id % 7),
+				null, estado);
+		s.setClienteId(id % 10);
+		s.setCreadoEn(FECHA.plusMinutes(id));
+		s.setVersion(1L);
+		return s;
+	}
+
+	private static List<Solicitud> solicitudes(long desde, long hasta, long paso) {
+		List<Solicitud> lista = new ArrayList<>();
+		for (long id = desde; id <= hasta; id += paso) {
+			lista.add(solicitud(id, "CERRADO"));
+		}
+		return lista;
+	}
+
+	@Test
+	void leePorIdYMezclaSinSolaparLosBloques() throws Exception {
+		try (ColdArchive<Solicitud> archivo = archivo(64)) {
+			archivo.archivar(solicitudes(1, 9_999, 2));
+			archivo.archivar(solicitudes(2, 2_000, 2));
+			archivo.archivar(List.of(solicitud(3, "RESUELTO")));
+
+			for (long id = 1; id < 10_000; id++) {
+				assertEquals(id % 2 == 1 || id <= 2_000, archivo.contains(id), "ID " + id);
+			}
+			Solicitud leida = archivo.get(4_001).orElseThrow();
+			assertEquals("Incidencia 4001", leida.getTitulo());
+			assertEquals(FECHA.plusMinutes(4_001), leida.getCreadoEn());
+			assertEquals(1L, leida.getClienteId());
+			assertEquals("RESUELTO", archivo.get(3).orElseThrow().getEstado());
+
+			List<Solicitud> todas = archivo.todas();
+			assertEquals(6_000, todas.size());
+			for (int i = 1; i < todas.size(); i++) {
+				assertTrue(todas.get(i - 1).getId() < todas.get(i).getId());
+			}
+			ColdArchive.Estado estado = archivo.estado();
+			assertEquals(6_000, estado.entidades());
+			assertTrue(estado.bytesComprimidos() * 4 < estado.bytesSinComprimir(), estado.toString());
+		}
+	}
+
+	@Test
+	void eliminarReescribeElBloqueYCompactaElFichero() throws Exception {
+		try (ColdArchive<Solicitud> archivo = archivo(16)) {
+			archivo.archivar(solicitudes(1, 40_000, 1));
+			for (long id = 1; id <= 40_000; id++) {
+				if (id % 100 != 0) {
+					archivo.eliminar(id);
+				}
+			}
+
+			ColdArchive.Estado estado = archivo.estado();
+			assertEquals(400, estado.entidades());
+			assertTrue(estado.bytesMuertos() <= Math.max(1 << 20, estado.bytesComprimidos()), estado.toString());
+			assertTrue(archivo.eliminar(12_345).isEmpty());
+			assertEquals(12_300L, archivo.get(12_300).orElseThrow().getId());
+		}
+	}
+
+	@Test
+	void elServicioLeeYModificaLasArchivadasComoSiEstuvieranEnMemoria() throws Exception {
+		Clock reloj = Clock.fixed(FECHA.plusDays(60).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+		ArchivoSolicitudes archivo = new ArchivoSolicitudes(archivo(64), Duration.ofDays(30), Duration.ofMinutes(10),
+				Set.of("CERRADO"), reloj);
+		SolicitudEventBus eventos = new SolicitudEventBus(MAPPER, 64);
+		SolicitudServiceImpl servicio = new SolicitudServiceImpl(eventos, new ClienteRegistry(), new RollupStore(),
+				archivo);
+		try {
+			for (long id = 1; id <= 1_000; id++) {
+				Solicitud s = solicitud(id, id % 4 == 0 ? "PENDIENTE" : "CERRADO");
+				s.setCliente(new Cliente(null, "Cliente " + id % 10, null, "cliente" + id % 10 + "@example.com"));
+				servicio.create(s);
+			}
+			// Sólo las cerradas creadas hace más de 30 días
+			Solicitud reciente = solicitud(0, "CERRADO");
+			reciente.setCreadoEn(FECHA.plusDays(59));
+			Long idReciente = servicio.create(reciente).getId();
+
+			assertEquals(750, servicio.archivar());
+			assertEquals(251, servicio.estadoArchivo().enMemoria());
+			assertEquals(750, servicio.estadoArchivo().archivadas());
+
+			Solicitud archivada = servicio.findById(5L).orElseThrow();
+			assertEquals("CERRADO", archivada.getEstado());
+			assertEquals("Cliente 5", archivada.getCliente().getNombre());
+			assertEquals(1_001, servicio.findAll().size());
+			assertEquals("CERRADO", servicio.findById(idReciente).orElseThrow().getEstado());
+
+			Solicitud cambio = new Solicitud(archivada);
+			cambio.setEstado("PENDIENTE");
+			Solicitud reabierta = servicio.update(5L, cambio, 1L);
+			assertEquals(2L, reabierta.getVersion());
+			assertEquals(252, servicio.estadoArchivo().enMemoria());
+			assertEquals(749, servicio.estadoArchivo().archivadas());
+
+			servicio.delete(6L);
+			assertTrue(servicio.findById(6L).isEmpty());
+			assertEquals(1_000, servicio.findAll().size());
+			assertEquals(0, servicio.archivar());
+		} finally {
+			archivo.cerrar();
+			eventos.cerrar();
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.example.supportapi.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolicitudEventBusTest {
+
+	private final SolicitudEventBus bus = new SolicitudEventBus(new ObjectMapper(), 1024);
+
+	@AfterEach
+	void cerrar() {
+		bus.cerrar();
+	}
+
+	@Test
+	void repartoEnOrdenATodosLosSuscriptores() throws InterruptedException {
+		int suscriptores = 200;
+		int eventos = 50;
+		CountDownLatch completos = new CountDownLatch(suscriptores);
+
+		for (int i = 0; i < suscriptores; i++) {
+			AtomicLong esperado = new AtomicLong(1);
+			bus.suscribir(null, evento -> {
+				// Cada suscriptor debe recibir los eventos en orden y sin huecos
+				assertEquals(esperado.getAndIncrement(), evento.getSecuencia());
+				if (evento.getSecuencia() == eventos) {
+					completos.countDown();
+				}
+			});
+		}
+
+		for (long id = 1; id <= eventos; id++) {
+			bus.publicar(SolicitudEvent.CREADA, id, null);
+		}
+
+		assertTrue(completos.await(60, TimeUnit.SECONDS), "No todos los suscriptores recibieron los eventos");
+		assertEquals(suscriptores, bus.getSuscriptoresActivos());
+	}
+
+	@Test
+	void suscriptorLentoNoBloqueaAlEscritorNiALosDemas() throws InterruptedException {
+		CountDownLatch liberar = new CountDownLatch(1);
+		bus.suscribir(null, evento -> {
+			try {
+				liberar.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		CountDownLatch rapido = new CountDownLatch(1);
+		bus.suscribir(null, evento -> {
+			if (evento.getSecuencia() == 2000) {
+				rapido.countDown();
+			}
+		});
+
+		// publicar no espera al suscriptor bloqueado aunque su buffer se desborde
+		for (long id = 1; id <= 2000; id++) {
+			bus.publicar(SolicitudEvent.ACTUALIZADA, id, null);
+		}
+		assertTrue(rapido.await(10, TimeUnit.SECONDS));
+		liberar.countDown();
+	}
+
+	@Test
+	void reanudaDesdeLastEventId() throws InterruptedException {
+		for (long id = 1; id <= 10; id++) {
+			bus.publicar(SolicitudEvent.CREADA, id, null);
+		}
+
+		List<Long> recibidos = new CopyOnWriteArrayList<>();
+		CountDownLatch listo = new CountDownLatch(3);
+		bus.suscribir(7L, evento -> {
+			recibidos.add(evento.getSecuencia());
+			listo.countDown();
+		});
+
+		assertTrue(listo.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of(8L, 9L, 10L), recibidos);
+	}
+
+	@Test
+	void enviaReinicioSiLosEventosYaNoEstanEnElBuffer() throws InterruptedException {
+		for (long id = 1; id <= 3000; id++) {
+			bus.publicar(SolicitudEvent.CREADA, id, null);
+		}
+
+		List<SolicitudEvent> recibidos = new CopyOnWriteArrayList<>();
+		CountDownLatch listo = new CountDownLatch(1);
+		bus.suscribir(5L, evento -> {
+			recibidos.add(evento);
+			if (evento.getSecuencia() == 3000) {
+				listo.countDown();
+			}
+		});
+
+		assertTrue(listo.await(5, TimeUnit.SECONDS));
+		assertEquals(SolicitudEvent.REINICIO, recibidos.get(0).getTipo());
+		assertEquals(3000 - 1024, recibidos.get(0).getSecuencia());
+		assertEquals(3000 - 1024 + 1, recibidos.get(1).getSecuencia());
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.supportapi.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+	@Test
+	void elAnalizadorQuitaAcentosPalabrasVaciasYPlurales() {
+		assertEquals(List.of("pued", "conectarm", "red", "wifi"),
+				SpanishAnalyzer.analizar("No puedo conectarme a la red WiFi"));
+		assertEquals(SpanishAnalyzer.analizar("Las impresoras de la oficina"),
+				SpanishAnalyzer.analizar("impresora OFICINA"));
+		assertEquals(List.of("conexion"), SpanishAnalyzer.analizar("¡Conexión!"));
+	}
+
+	@Test
+	void ordenaPorRelevanciaBm25() {
+		InvertedIndex indice = new InvertedIndex();
+		indice.indexar(1, "No puedo conectarme a la red WiFi");
+		indice.indexar(2, "Error al iniciar el sistema");
+		indice.indexar(3, "La red del edificio va lenta, red caída en la planta 2");
+		indice.indexar(4, "Problema con la impresora de red");
+
+		List<InvertedIndex.Resultado> resultados = indice.buscar("redes wifi", 10);
+
+		assertEquals(1, resultados.get(0).id());
+		assertEquals(3, resultados.size());
+		assertFalse(resultados.stream().anyMatch(r -> r.id() == 2));
+		assertTrue(resultados.get(0).puntuacion() >= resultados.get(1).puntuacion());
+	}
+
+	@Test
+	void seMantieneAlActualizarYEliminar() {
+		InvertedIndex indice = new InvertedIndex();
+		indice.indexar(1, "pantalla rota");
+		indice.indexar(2, "teclado roto");
+
+		indice.indexar(1, "ratón inalámbrico");
+		assertEquals(List.of(2L), ids(indice.buscar("roto", 10)));
+		assertEquals(List.of(1L), ids(indice.buscar("raton", 10)));
+
+		indice.eliminar(2);
+		assertTrue(indice.buscar("teclado", 10).isEmpty());
+		assertEquals(1, indice.size());
+	}
+
+	@Test
+	void muchasActualizacionesNoDejanResultadosObsoletos() {
+		InvertedIndex indice = new InvertedIndex();
+		for (int i = 0; i < 20_000; i++) {
+			indice.indexar(i % 100, (i % 2 == 0 ? "servidor caído " : "correo lento ") + i);
+		}
+		assertEquals(100, indice.size());
+		assertEquals(50, indice.buscar("servidor", 1000).size());
+		assertEquals(50, indice.buscar("correo", 1000).size());
+	}
+
+	private static List<Long> ids(List<InvertedIndex.Resultado> resultados) {
+		return resultados.stream().map(InvertedIndex.Resultado::id).toList();
+	}
+}
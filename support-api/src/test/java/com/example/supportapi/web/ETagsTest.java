@@ -0,0 +1,48 @@
+package com.example.supportapi.web;
+
+import com.example.supportapi.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagsTest {
+
+	private static final Long SIN_LEER = null;
+
+	@Test
+	void sinCabeceraOConAsteriscoNoHayPrecondicion() {
+		assertNull(ETags.parseIfMatch(null, () -> fail("no debe leer la versión")));
+		assertNull(ETags.parseIfMatch("  ", () -> fail("no debe leer la versión")));
+		assertNull(ETags.parseIfMatch("*", () -> fail("no debe leer la versión")));
+	}
+
+	@Test
+	void unaEtiquetaFuerteDevuelveSuVersion() {
+		assertEquals(3L, ETags.parseIfMatch("\"3\"", () -> fail("no debe leer la versión")));
+		assertEquals("\"7\"", ETags.of(7L));
+	}
+
+	@Test
+	void lasEtiquetasDebilesNuncaCoinciden() {
+		Long version = ETags.parseIfMatch("W/\"3\"", () -> SIN_LEER);
+		assertNotNull(version);
+		assertTrue(version < 1);
+	}
+
+	@Test
+	void conUnaListaSeExigeLaActualSiEstaIncluida() {
+		assertEquals(5L, ETags.parseIfMatch("\"4\", \"5\" ,W/\"6\"", () -> 5L));
+		assertEquals(4L, ETags.parseIfMatch("\"4\",\"5\"", () -> 9L));
+		// Una etiqueta que no es una versión nuestra es válida pero no coincide
+		assertEquals(2L, ETags.parseIfMatch("\"abc\", \"2\"", () -> SIN_LEER));
+	}
+
+	@Test
+	void unaCabeceraMalFormadaEsUnaPeticionIncorrecta() {
+		assertThrows(BadRequestException.class, () -> ETags.parseIfMatch("3", () -> SIN_LEER));
+		assertThrows(BadRequestException.class, () -> ETags.parseIfMatch("\"3", () -> SIN_LEER));
+		assertThrows(BadRequestException.class, () -> ETags.parseIfMatch("\"3\" \"4\"", () -> SIN_LEER));
+		assertThrows(BadRequestException.class, () -> ETags.parseIfMatch("\"3\",", () -> SIN_LEER));
+		assertThrows(BadRequestException.class, () -> ETags.parseIfMatch("*, \"3\"", () -> SIN_LEER));
+	}
+}